@@ -0,0 +1,58 @@
+#!/bin/bash
+#
+# This file is part of symfinder.
+#
+# symfinder is free software: you can redistribute it and/or modify
+# it under the terms of the GNU Lesser General Public License as published by
+# the Free Software Foundation, either version 3 of the License, or
+# (at your option) any later version.
+#
+# symfinder is distributed in the hope that it will be useful,
+# but WITHOUT ANY WARRANTY; without even the implied warranty of
+# MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+# GNU Lesser General Public License for more details.
+#
+# You should have received a copy of the GNU Lesser General Public License
+# along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+#
+# Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+# Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+# Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+#
+
+# Checks that the dependencies declared by both the engine and the benchmarks have the same version,
+# as the benchmarks compile the sources of the engine.
+# Run by the benchmarks build, or by hand with ./check_versions.sh
+
+cd "$(dirname "$0")"
+
+# Prints "groupId:artifactId version" for each dependency of the pom, properties being replaced by their value
+list_dependencies() {
+    awk '
+        /<properties>/ { in_properties = 1; next }
+        /<\/properties>/ { in_properties = 0; next }
+        in_properties && match($0, /<[^\/>]+>[^<]*</) {
+            name = $0; sub(/^[^<]*</, "", name); sub(/>.*/, "", name)
+            value = $0; sub(/^[^>]*>/, "", value); sub(/<.*/, "", value)
+            properties["${" name "}"] = value
+        }
+        /<dependency>/ { group = ""; artifact = ""; version = "" }
+        /<groupId>/ { group = $0; gsub(/.*<groupId>|<\/groupId>.*/, "", group) }
+        /<artifactId>/ { artifact = $0; gsub(/.*<artifactId>|<\/artifactId>.*/, "", artifact) }
+        /<version>/ { version = $0; gsub(/.*<version>|<\/version>.*/, "", version) }
+        /<\/dependency>/ {
+            if (version in properties) version = properties[version]
+            print group ":" artifact " " version
+        }
+    ' "$1"
+}
+
+status=0
+while read -r dependency version; do
+    engine_version=$(list_dependencies ../pom.xml | awk -v dependency="$dependency" '$1 == dependency { print $2 }')
+    if [ -n "$engine_version" ] && [ "$engine_version" != "$version" ]; then
+        echo "$dependency is in version $version in benchmarks/pom.xml but in version $engine_version in pom.xml"
+        status=1
+    fi
+done < <(list_dependencies pom.xml)
+exit $status
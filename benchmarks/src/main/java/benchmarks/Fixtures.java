@@ -0,0 +1,150 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+
+package benchmarks;
+
+import facts.FileFacts;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.FileASTRequestor;
+import parsing.Manifest;
+import parsing.ParsingPipeline;
+import parsing.SourceFile;
+import parsing.SourceReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Projects analysed by the benchmarks: the test projects of the repository, found in the directory given by the
+ * {@code symfinder.projects} property ({@code ../test_projects} by default), and a synthetic project generated with
+ * {@link SyntheticProject}, of which the number of classes is given by the {@code symfinder.syntheticClasses} property.
+ */
+class Fixtures {
+
+    static final String SYNTHETIC = "synthetic";
+
+    static final String JAVA_HOME = System.getProperty("java.home");
+
+    private Fixtures() {
+    }
+
+    /**
+     * @param project name of a test project or {@link #SYNTHETIC}
+     * @return directory of the sources of the project
+     */
+    static Path getProjectDirectory(String project) throws IOException {
+        if (project.equals(SYNTHETIC)) {
+            Path directory = Files.createTempDirectory("symfinder-synthetic");
+            SyntheticProject.generate(directory, Integer.getInteger("symfinder.syntheticClasses", 2000));
+            return directory;
+        }
+        Path directory = Paths.get(System.getProperty("symfinder.projects", "../test_projects"), project);
+        if (! Files.isDirectory(directory)) {
+            throw new IllegalArgumentException("No project " + project + " in " + directory.toAbsolutePath().getParent());
+        }
+        return directory;
+    }
+
+    static List <File> getJavaFiles(Path directory) throws IOException {
+        try (Stream <Path> paths = Files.walk(directory)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(path -> path.toString().endsWith(".java"))
+                    .map(Path::toFile)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    static SourceReader createSourceReader() {
+        return new SourceReader(List.of(Charset.forName("windows-1252"), StandardCharsets.ISO_8859_1), 1024 * 1024);
+    }
+
+    /**
+     * Parses the files and runs all visitors, as the analysis does, without applying the facts to any graph.
+     */
+    static List <FileFacts> extractFacts(Path directory, List <File> files, int nbThreads) throws IOException {
+        return new ParsingPipeline(JAVA_HOME, createSourceReader(), nbThreads, 1000)
+                .parse(files, new Manifest(directory, ""), fileFacts -> {
+                });
+    }
+
+    /**
+     * Parses the files with the settings of {@link ParsingPipeline}, in a single parser, and keeps their compilation units.
+     * The bindings of the compilation units are resolved, so that they can be visited as during the analysis.
+     */
+    static List <CompilationUnit> parse(List <File> files) {
+        SourceReader sourceReader = createSourceReader();
+        List <SourceFile> sourceFiles = files.stream().map(file -> {
+            try {
+                return sourceReader.read(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).collect(Collectors.toList());
+        String[] sourceRoots = sourceFiles.stream().map(SourceFile::getSourceRoot).distinct().toArray(String[]::new);
+        String[] sourceRootsEncodings = new String[sourceRoots.length];
+        Arrays.fill(sourceRootsEncodings, "UTF-8");
+
+        ASTParser parser = ASTParser.newParser(AST.JLS13);
+        parser.setResolveBindings(true);
+        parser.setKind(ASTParser.K_COMPILATION_UNIT);
+        parser.setBindingsRecovery(true);
+        parser.setEnvironment(new String[]{JAVA_HOME}, sourceRoots, sourceRootsEncodings, true);
+        Map <String, String> options = JavaCore.getOptions();
+        options.put(JavaCore.COMPILER_SOURCE, JavaCore.VERSION_13);
+        parser.setCompilerOptions(options);
+
+        List <CompilationUnit> compilationUnits = new ArrayList <>();
+        parser.createASTs(sourceFiles.stream().map(SourceFile::getPath).toArray(String[]::new),
+                sourceFiles.stream().map(SourceFile::getEncoding).toArray(String[]::new),
+                new String[]{}, new FileASTRequestor() {
+                    @Override
+                    public void acceptAST(String sourceFilePath, CompilationUnit ast) {
+                        compilationUnits.add(ast);
+                    }
+                }, null);
+        return compilationUnits;
+    }
+
+    static void deleteDirectory(Path directory) throws IOException {
+        try (Stream <Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted((first, second) -> second.compareTo(first)).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+
+package benchmarks;
+
+import facts.FactContext;
+import facts.FileFacts;
+import neograph.GraphStore;
+import neograph.MemoryGraph;
+import neograph.NeoGraph;
+import neograph.UnitOfWork;
+import org.neo4j.driver.Config;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.GraphDatabase;
+import org.neo4j.harness.Neo4j;
+import org.neo4j.harness.Neo4jBuilders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import visitors.FactsExtractor;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the facts recorded by the visitors on the files of a project to a new graph, pass after pass, as the analysis does.
+ * The graph is either built in memory or stored in an embedded Neo4j database, emptied before each measurement,
+ * with the batch size and commit interval of the default configuration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class GraphBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int COMMIT_INTERVAL = 100;
+
+    @Param({"strategy", "decorator", "factory", "multiple_patterns", "generics", Fixtures.SYNTHETIC})
+    public String project;
+
+    @Param({"memory", "neo4j"})
+    public String store;
+
+    private List <FileFacts> filesFacts;
+    private Neo4j neo4j;
+    private Driver driver;
+    private GraphStore graph;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path directory = Fixtures.getProjectDirectory(project);
+        filesFacts = Fixtures.extractFacts(directory, Fixtures.getJavaFiles(directory), Runtime.getRuntime().availableProcessors());
+        if (project.equals(Fixtures.SYNTHETIC)) {
+            Fixtures.deleteDirectory(directory);
+        }
+        if (store.equals("neo4j")) {
+            neo4j = Neo4jBuilders.newInProcessBuilder().build();
+            driver = GraphDatabase.driver(neo4j.boltURI(), Config.defaultConfig());
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void createGraph() {
+        if (store.equals("neo4j")) {
+            NeoGraph neoGraph = new NeoGraph(driver, BATCH_SIZE);
+            neoGraph.deleteGraph();
+            neoGraph.createClassesIndex();
+            neoGraph.createInterfacesIndex();
+            graph = neoGraph;
+        } else {
+            graph = new MemoryGraph();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (driver != null) {
+            driver.close();
+            neo4j.close();
+        }
+    }
+
+    @Benchmark
+    public GraphStore applyFacts() {
+        FactContext factContext = new FactContext(graph);
+        for (int pass = 0 ; pass < FactsExtractor.PASSES.size() ; pass++) {
+            try (UnitOfWork ignored = graph.beginUnitOfWork(COMMIT_INTERVAL)) {
+                for (FileFacts fileFacts : filesFacts) {
+                    factContext.apply(fileFacts, pass);
+                }
+            }
+        }
+        return graph;
+    }
+}
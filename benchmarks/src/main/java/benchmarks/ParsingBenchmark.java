@@ -0,0 +1,90 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+
+package benchmarks;
+
+import facts.FactContext;
+import facts.FileFacts;
+import neograph.MemoryGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import parsing.Manifest;
+import parsing.ParsingPipeline;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads and parses all files of a project, runs all visitors on each compilation unit
+ * and applies the facts of the first pass to a graph in memory, as the analysis does before the other passes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParsingBenchmark {
+
+    @Param({"strategy", "decorator", "factory", "multiple_patterns", "generics", Fixtures.SYNTHETIC})
+    public String project;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private Path directory;
+    private List <File> files;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Fixtures.getProjectDirectory(project);
+        files = Fixtures.getJavaFiles(directory);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (project.equals(Fixtures.SYNTHETIC)) {
+            Fixtures.deleteDirectory(directory);
+        }
+    }
+
+    @Benchmark
+    public List <FileFacts> parseAndVisit() throws IOException {
+        FactContext factContext = new FactContext(new MemoryGraph());
+        return new ParsingPipeline(Fixtures.JAVA_HOME, Fixtures.createSourceReader(), threads, 1000)
+                .parse(files, new Manifest(directory, ""), fileFacts -> factContext.apply(fileFacts, 0));
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Generates a large project in which all visitors find something, made of features of 10 classes spread over packages.
+ * Each feature declares:
+ * - an interface, implemented by an abstract class with overloaded constructors and methods and a template method,
+ * - variants of the abstract class, overriding and overloading its methods,
+ * - a factory creating the variants,
+ * - a decorator of the interface,
+ * - a class using the interface as a strategy, and the interface of the previous feature, imported from another package.
+ */
+class SyntheticProject {
+
+    private static final int CLASSES_PER_FEATURE = 10;
+    private static final int VARIANTS_PER_FEATURE = 5;
+    private static final int NB_PACKAGES = 50;
+
+    private SyntheticProject() {
+    }
+
+    /**
+     * @param nbClasses number of classes to generate, rounded up to a number of features
+     */
+    static void generate(Path directory, int nbClasses) throws IOException {
+        int nbFeatures = Math.max(1, (nbClasses + CLASSES_PER_FEATURE - 1) / CLASSES_PER_FEATURE);
+        for (int feature = 0 ; feature < nbFeatures ; feature++) {
+            generateFeature(directory, feature);
+        }
+    }
+
+    private static String getPackage(int feature) {
+        return "synthetic.feature" + feature % NB_PACKAGES;
+    }
+
+    private static void generateFeature(Path directory, int feature) throws IOException {
+        String packageName = getPackage(feature);
+        String shape = "Shape" + feature;
+        String abstractShape = "Abstract" + shape;
+
+        write(directory, packageName, shape,
+                "public interface " + shape + " {\n\n" +
+                        "    double area();\n\n" +
+                        "    String describe();\n\n" +
+                        "    void scale(double factor);\n" +
+                        "}\n");
+
+        write(directory, packageName, abstractShape,
+                "import java.util.ArrayList;\n" +
+                        "import java.util.List;\n\n" +
+                        "public abstract class " + abstractShape + " implements " + shape + " {\n\n" +
+                        "    protected double width;\n" +
+                        "    protected double height;\n" +
+                        "    private final List<String> history = new ArrayList<>();\n\n" +
+                        "    public " + abstractShape + "() {\n" +
+                        "        this(1, 1);\n" +
+                        "    }\n\n" +
+                        "    public " + abstractShape + "(double size) {\n" +
+                        "        this(size, size);\n" +
+                        "    }\n\n" +
+                        "    public " + abstractShape + "(double width, double height) {\n" +
+                        "        this.width = width;\n" +
+                        "        this.height = height;\n" +
+                        "    }\n\n" +
+                        "    protected abstract String name();\n\n" +
+                        "    @Override\n" +
+                        "    public String describe() {\n" +
+                        "        history.add(name());\n" +
+                        "        return name() + \" of area \" + area();\n" +
+                        "    }\n\n" +
+                        "    @Override\n" +
+                        "    public void scale(double factor) {\n" +
+                        "        scale(factor, factor);\n" +
+                        "    }\n\n" +
+                        "    public void scale(double widthFactor, double heightFactor) {\n" +
+                        "        width *= widthFactor;\n" +
+                        "        height *= heightFactor;\n" +
+                        "    }\n" +
+                        "}\n");
+
+        for (int variant = 0 ; variant < VARIANTS_PER_FEATURE ; variant++) {
+            String variantName = shape + "Variant" + variant;
+            write(directory, packageName, variantName,
+                    "public class " + variantName + " extends " + abstractShape + " {\n\n" +
+                            "    public " + variantName + "() {\n" +
+                            "        super();\n" +
+                            "    }\n\n" +
+                            "    public " + variantName + "(double size) {\n" +
+                            "        super(size);\n" +
+                            "    }\n\n" +
+                            "    @Override\n" +
+                            "    protected String name() {\n" +
+                            "        return \"" + variantName + "\";\n" +
+                            "    }\n\n" +
+                            "    @Override\n" +
+                            "    public double area() {\n" +
+                            "        return width * height / " + (variant + 1) + ";\n" +
+                            "    }\n\n" +
+                            "    public double area(int precision) {\n" +
+                            "        return Math.round(area() * Math.pow(10, precision)) / Math.pow(10, precision);\n" +
+                            "    }\n" +
+                            "}\n");
+        }
+
+        StringBuilder cases = new StringBuilder();
+        for (int variant = 0 ; variant < VARIANTS_PER_FEATURE ; variant++) {
+            cases.append("            case ").append(variant).append(":\n")
+                    .append("                return new ").append(shape).append("Variant").append(variant).append("(size);\n");
+        }
+        write(directory, packageName, shape + "Factory",
+                "public class " + shape + "Factory {\n\n" +
+                        "    public static " + shape + " create(int kind, double size) {\n" +
+                        "        switch (kind) {\n" +
+                        cases +
+                        "            default:\n" +
+                        "                return new " + shape + "Variant0();\n" +
+                        "        }\n" +
+                        "    }\n" +
+                        "}\n");
+
+        write(directory, packageName, shape + "Decorator",
+                "public class " + shape + "Decorator implements " + shape + " {\n\n" +
+                        "    private final " + shape + " shape;\n\n" +
+                        "    public " + shape + "Decorator(" + shape + " shape) {\n" +
+                        "        this.shape = shape;\n" +
+                        "    }\n\n" +
+                        "    @Override\n" +
+                        "    public double area() {\n" +
+                        "        return shape.area();\n" +
+                        "    }\n\n" +
+                        "    @Override\n" +
+                        "    public String describe() {\n" +
+                        "        return \"[\" + shape.describe() + \"]\";\n" +
+                        "    }\n\n" +
+                        "    @Override\n" +
+                        "    public void scale(double factor) {\n" +
+                        "        shape.scale(factor);\n" +
+                        "    }\n" +
+                        "}\n");
+
+        String previousShape = "Shape" + Math.max(0, feature - 1);
+        String previousImport = feature == 0 || getPackage(feature - 1).equals(packageName) ? "" :
+                "import " + getPackage(feature - 1) + "." + previousShape + ";\n\n";
+        write(directory, packageName, shape + "Renderer",
+                previousImport +
+                        "public class " + shape + "Renderer {\n\n" +
+                        "    private " + shape + " shape;\n" +
+                        "    private " + previousShape + " background;\n\n" +
+                        "    public void setShape(" + shape + " shape) {\n" +
+                        "        this.shape = shape;\n" +
+                        "    }\n\n" +
+                        "    public void setBackground(" + previousShape + " background) {\n" +
+                        "        this.background = background;\n" +
+                        "    }\n\n" +
+                        "    public String render(int kind) {\n" +
+                        "        " + shape + " created = " + shape + "Factory.create(kind, 2);\n" +
+                        "        " + shape + "Decorator decorated = new " + shape + "Decorator(shape == null ? created : shape);\n" +
+                        "        decorated.scale(2);\n" +
+                        "        return decorated.describe() + (background == null ? \"\" : background.describe());\n" +
+                        "    }\n" +
+                        "}\n");
+    }
+
+    private static void write(Path directory, String packageName, String className, String body) throws IOException {
+        Path packageDirectory = directory.resolve(packageName.replace('.', '/'));
+        Files.createDirectories(packageDirectory);
+        Files.writeString(packageDirectory.resolve(className + ".java"), "package " + packageName + ";\n\n" + body, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+
+package benchmarks;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import visitors.FactsExtractor;
+import visitors.SymfinderVisitor;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Visits the compilation units of a project with a single visitor, or with all visitors as {@link FactsExtractor} does.
+ * The files are parsed once, before the measurements, so that only the visit is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VisitorBenchmark {
+
+    private static final String ALL_VISITORS = "all";
+
+    @Param({"strategy", "decorator", "factory", "multiple_patterns", "generics", Fixtures.SYNTHETIC})
+    public String project;
+
+    @Param({"ClassesVisitor", "GraphBuilderVisitor", "StrategyTemplateDecoratorVisitor", "FactoryVisitor", "ComposeTypeVisitor",
+            "ImportsVisitor", ALL_VISITORS})
+    public String visitor;
+
+    private Path directory;
+    private List <CompilationUnit> compilationUnits;
+    private Constructor <? extends SymfinderVisitor> visitorConstructor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, ReflectiveOperationException {
+        directory = Fixtures.getProjectDirectory(project);
+        compilationUnits = Fixtures.parse(Fixtures.getJavaFiles(directory));
+        if (! visitor.equals(ALL_VISITORS)) {
+            visitorConstructor = Class.forName("visitors." + visitor).asSubclass(SymfinderVisitor.class).getConstructor();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (project.equals(Fixtures.SYNTHETIC)) {
+            Fixtures.deleteDirectory(directory);
+        }
+    }
+
+    @Benchmark
+    public void visit(Blackhole blackhole) throws ReflectiveOperationException {
+        for (CompilationUnit compilationUnit : compilationUnits) {
+            if (visitorConstructor == null) {
+                blackhole.consume(FactsExtractor.extract("", compilationUnit));
+            } else {
+                SymfinderVisitor symfinderVisitor = visitorConstructor.newInstance();
+                compilationUnit.accept(symfinderVisitor);
+                blackhole.consume(symfinderVisitor.getFacts());
+            }
+        }
+    }
+}
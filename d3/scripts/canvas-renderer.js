@@ -0,0 +1,186 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+/*
+ * Canvas rendering of the graph, used instead of SVG elements when the graph is too large for the browser to keep it responsive.
+ * Nodes and links are drawn at each tick of the simulation and at each zoom, labels only once zoomed in enough to read them.
+ * The node under the pointer is found with a quadtree of the node positions, rebuilt when the nodes move.
+ */
+
+const LABEL_ZOOM = 2;
+
+class CanvasRenderer {
+
+    /**
+     * @param svg selection of the svg element replaced by the canvas
+     * @param style functions giving for a node its radius, fill, stroke, strokeWidth, dash array, label, label color and title
+     * @param handlers functions called with the node on click and contextmenu
+     */
+    constructor(svg, width, height, style, handlers) {
+        CanvasRenderer.remove();
+        svg.style("display", "none");
+        const ratio = window.devicePixelRatio || 1;
+        this.canvas = d3.select(svg.node().parentNode).insert("canvas", () => svg.node())
+            .attr("class", "graph-canvas")
+            .attr("width", width * ratio)
+            .attr("height", height * ratio)
+            .style("width", width + "px")
+            .style("height", height + "px");
+        this.context = this.canvas.node().getContext("2d");
+        this.context.scale(ratio, ratio);
+        this.width = width;
+        this.height = height;
+        this.style = style;
+        this.transform = d3.zoomIdentity;
+        this.nodes = [];
+        this.links = [];
+        this.quadtree = null;
+
+        this.canvas.on("mousemove", () => {
+            const node = this.findNode();
+            this.canvas.style("cursor", node ? "pointer" : null);
+            this.canvas.attr("title", node ? style.title(node) : null);
+        });
+        this.canvas.on("click", () => {
+            const node = this.findNode();
+            if (node) handlers.click(node);
+        });
+        this.canvas.on("contextmenu", () => {
+            const node = this.findNode();
+            if (node) {
+                d3.event.preventDefault();
+                handlers.contextmenu(node);
+            }
+        });
+    }
+
+    /**
+     * Removes the canvas of a previous rendering and shows the svg element again.
+     */
+    static remove() {
+        d3.selectAll("canvas.graph-canvas").remove();
+        d3.select("svg").style("display", null);
+    }
+
+    setData(nodes, links) {
+        this.nodes = nodes;
+        this.links = links;
+        this.quadtree = null;
+    }
+
+    /**
+     * Makes the nodes draggable and the graph zoomable. Dragging a node takes precedence over zooming.
+     */
+    addBehaviour(dragStarted, dragged, dragEnded) {
+        const position = () => this.transform.invert(d3.mouse(this.canvas.node()));
+        this.canvas.call(d3.drag()
+            .subject(() => this.findNode())
+            .on("start", () => dragStarted(d3.event.subject, position()))
+            .on("drag", () => {
+                dragged(d3.event.subject, position());
+                this.quadtree = null;
+            })
+            .on("end", () => dragEnded(d3.event.subject)));
+        this.canvas.call(d3.zoom().on("zoom", () => {
+            this.transform = d3.event.transform;
+            this.draw();
+        }));
+    }
+
+    /**
+     * @returns the node under the pointer, undefined if there is none
+     */
+    findNode() {
+        if (this.quadtree === null) {
+            this.quadtree = d3.quadtree().x(n => n.x).y(n => n.y).addAll(this.nodes);
+            this.maxRadius = d3.max(this.nodes, n => this.style.radius(n)) || 0;
+        }
+        const [x, y] = this.transform.invert(d3.mouse(this.canvas.node()));
+        const node = this.quadtree.find(x, y, this.maxRadius);
+        if (node !== undefined && (node.x - x) ** 2 + (node.y - y) ** 2 <= this.style.radius(node) ** 2) {
+            return node;
+        }
+        return undefined;
+    }
+
+    /**
+     * Called at each tick of the simulation, the nodes having moved.
+     */
+    tick() {
+        this.quadtree = null;
+        this.draw();
+    }
+
+    draw() {
+        const context = this.context;
+        const style = this.style;
+        context.save();
+        context.clearRect(0, 0, this.width, this.height);
+        context.translate(this.transform.x, this.transform.y);
+        context.scale(this.transform.k, this.transform.k);
+
+        // all links in a single path
+        context.beginPath();
+        this.links.forEach(l => {
+            context.moveTo(l.source.x, l.source.y);
+            context.lineTo(l.target.x, l.target.y);
+        });
+        context.lineWidth = 1;
+        context.strokeStyle = "#999";
+        context.stroke();
+
+        this.nodes.forEach(n => {
+            const radius = style.radius(n);
+            context.beginPath();
+            context.moveTo(n.x + radius, n.y);
+            context.arc(n.x, n.y, radius, 0, 2 * Math.PI);
+            context.fillStyle = style.fill(n).toString();
+            context.fill();
+            // the canvas ignores a line width of 0 and keeps the previous one, so nodes without stroke are not stroked
+            const strokeWidth = style.strokeWidth(n);
+            if (strokeWidth > 0) {
+                context.setLineDash(style.dash(n));
+                context.lineWidth = strokeWidth;
+                context.strokeStyle = style.stroke(n);
+                context.stroke();
+            }
+        });
+        context.setLineDash([]);
+
+        if (this.transform.k >= LABEL_ZOOM) {
+            // labels of the visible nodes only
+            const [x0, y0] = this.transform.invert([0, 0]);
+            const [x1, y1] = this.transform.invert([this.width, this.height]);
+            context.font = "10px sans-serif";
+            context.textBaseline = "middle";
+            this.nodes.filter(n => n.x >= x0 && n.x <= x1 && n.y >= y0 && n.y <= y1).forEach(n => {
+                const label = style.label(n);
+                if (label !== "") {
+                    context.fillStyle = style.labelColor(n).toString();
+                    context.fillText(label, n.x - 5, n.y);
+                }
+            });
+        }
+        context.restore();
+    }
+}
+
+export {CanvasRenderer};
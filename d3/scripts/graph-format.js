@@ -0,0 +1,101 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+/*
+ * Decoding of the graph files written by symfinder.
+ *
+ * Since version 2, the file is a compact interchange format:
+ *  - strings: every name and label, each one written once;
+ *  - nodeFields: the meaning of each value of a node record;
+ *  - nodes: one record per class or interface, names and labels being indexes in strings,
+ *    and children counts being flat [name, number, name, number...] arrays;
+ *  - externalNodes: indexes in strings of the names of the link ends without a record, numbered after the records;
+ *  - edges: flat [source, target, type, source, target, type...] array, with node ids and the type as an index in strings;
+ *  - views: indexes of the nodes in "nodes" and "allnodes", and of the edges in "links" and "linkscompose",
+ *    "alllinks" being all edges;
+ *  - layout (optional): x and y arrays giving the position of each node computed by symfinder, centered on the origin.
+ * Files without version are in the original format, listing the nodes and links of each view in full.
+ */
+
+const CHILDREN_FIELDS = ["methods", "constructors", "attributes", "interfaceAttributes"];
+
+/**
+ * @param json parsed content of a graph file, in any version
+ * @param center point where the layout computed by symfinder is centered
+ * @returns the graph with the nodes, links, allnodes, linkscompose and alllinks arrays used by the visualizations,
+ * and layout set to true if the nodes have the position computed by symfinder
+ */
+function decodeGraph(json, center = {x: 0, y: 0}) {
+    if (json === null || json === undefined || json.version === undefined) {
+        return json;
+    }
+    if (json.version !== 2) {
+        throw new Error("Unsupported graph file version: " + json.version);
+    }
+    const strings = json.strings;
+    const records = json.nodes;
+    const names = records.map(record => strings[record[0]]).concat(json.externalNodes.map(id => strings[id]));
+
+    const decodeNode = (id, withInterfaceAttributes) => {
+        const node = {};
+        json.nodeFields.forEach((field, i) => {
+            const value = records[id][i];
+            if (value === null || value === undefined || (field === "interfaceAttributes" && ! withInterfaceAttributes)) {
+                return;
+            }
+            if (field === "name") {
+                node.name = strings[value];
+            } else if (field === "types") {
+                node.types = value.map(label => strings[label]);
+            } else if (CHILDREN_FIELDS.includes(field)) {
+                node[field] = [];
+                for (let j = 0; j < value.length; j += 2) {
+                    node[field].push({name: strings[value[j]], number: value[j + 1]});
+                }
+            } else {
+                node[field] = value;
+            }
+        });
+        if (json.layout !== undefined) {
+            node.x = json.layout.x[id] + center.x;
+            node.y = json.layout.y[id] + center.y;
+        }
+        return node;
+    };
+    const decodeLink = id => ({
+        source: names[json.edges[3 * id]],
+        target: names[json.edges[3 * id + 1]],
+        type: strings[json.edges[3 * id + 2]]
+    });
+    const allEdges = [...Array(json.edges.length / 3).keys()];
+
+    // Each view gets its own objects, as the visualizations modify them
+    return {
+        nodes: json.views.nodes.map(id => decodeNode(id, false)),
+        links: json.views.links.map(decodeLink),
+        allnodes: json.views.allnodes.map(id => decodeNode(id, true)),
+        linkscompose: json.views.linkscompose.map(decodeLink),
+        alllinks: allEdges.map(decodeLink),
+        layout: json.layout !== undefined
+    };
+}
+
+export {decodeGraph};
@@ -0,0 +1,216 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+import {NodesFilter} from "./nodes-filter.js";
+
+/*
+ * Index of a loaded graph, built once per load, on which the filters are evaluated without going through all nodes and links:
+ *  - node names sorted alphabetically, the names starting with a package prefix being a contiguous range found by binary search,
+ *    which serves as a prefix tree of the names;
+ *  - a bitset of the nodes having each label;
+ *  - the outgoing and incoming links of each node, as compressed adjacency lists.
+ * Nodes and links are identified by their position in the lists given to the index.
+ */
+
+class NodeSet {
+
+    constructor(size, words = new Uint32Array((size + 31) >>> 5)) {
+        this.size = size;
+        this.words = words;
+    }
+
+    static all(size) {
+        const set = new NodeSet(size);
+        set.words.fill(0xFFFFFFFF);
+        if (size % 32 !== 0) {
+            set.words[set.words.length - 1] = (1 << (size % 32)) - 1;
+        }
+        return set;
+    }
+
+    add(id) {
+        this.words[id >>> 5] |= 1 << (id & 31);
+    }
+
+    has(id) {
+        return (this.words[id >>> 5] & (1 << (id & 31))) !== 0;
+    }
+
+    and(other) {
+        return new NodeSet(this.size, this.words.map((word, i) => word & other.words[i]));
+    }
+
+    or(other) {
+        return new NodeSet(this.size, this.words.map((word, i) => word | other.words[i]));
+    }
+
+    andNot(other) {
+        return new NodeSet(this.size, this.words.map((word, i) => word & ~ other.words[i]));
+    }
+
+    /**
+     * @returns the ids of the set, in increasing order
+     */
+    toArray() {
+        const ids = [];
+        this.words.forEach((word, i) => {
+            while (word !== 0) {
+                const bit = 31 - Math.clz32(word & -word);
+                ids.push(i * 32 + bit);
+                word &= word - 1;
+            }
+        });
+        return ids;
+    }
+}
+
+class GraphIndex {
+
+    /**
+     * @param nodes nodes, having a name and types
+     * @param links links whose source and target are node names
+     */
+    constructor(nodes, links) {
+        this.nodes = nodes;
+        this.links = links;
+        const ids = new Map(nodes.map((n, i) => [n.name, i]));
+        this.ids = ids;
+
+        this.sortedIds = nodes.map((n, i) => i).sort((a, b) => nodes[a].name < nodes[b].name ? -1 : nodes[a].name > nodes[b].name ? 1 : 0);
+
+        this.labels = new Map();
+        nodes.forEach((n, i) => n.types.forEach(label => {
+            if (! this.labels.has(label)) {
+                this.labels.set(label, new NodeSet(nodes.length));
+            }
+            this.labels.get(label).add(i);
+        }));
+
+        // links whose ends are not in the nodes are never displayed
+        this.sources = Int32Array.from(links, l => ids.has(l.source) ? ids.get(l.source) : -1);
+        this.targets = Int32Array.from(links, l => ids.has(l.target) ? ids.get(l.target) : -1);
+        [this.outOffsets, this.outLinks] = this.buildAdjacency(this.sources);
+        [this.inOffsets, this.inLinks] = this.buildAdjacency(this.targets);
+    }
+
+    /**
+     * @returns for each node, the range of its links in the array of link ids, grouped by the given end
+     */
+    buildAdjacency(ends) {
+        const offsets = new Int32Array(this.nodes.length + 1);
+        ends.forEach(node => {
+            if (node >= 0) offsets[node + 1]++;
+        });
+        for (let node = 0; node < this.nodes.length; node++) {
+            offsets[node + 1] += offsets[node];
+        }
+        const next = offsets.slice(0, this.nodes.length);
+        const linkIds = new Int32Array(offsets[this.nodes.length]);
+        ends.forEach((node, link) => {
+            if (node >= 0) linkIds[next[node]++] = link;
+        });
+        return [offsets, linkIds];
+    }
+
+    all() {
+        return NodeSet.all(this.nodes.length);
+    }
+
+    none() {
+        return new NodeSet(this.nodes.length);
+    }
+
+    /**
+     * @returns the nodes having at least one of the labels
+     */
+    withLabels(...labels) {
+        return labels.filter(label => this.labels.has(label))
+            .reduce((set, label) => set.or(this.labels.get(label)), this.none());
+    }
+
+    /**
+     * @returns the nodes matching at least one of the filters, with the semantics of NodesFilter.matchesFilter
+     */
+    matching(filters) {
+        const set = this.none();
+        filters.forEach(filter => {
+            if (NodesFilter.isClassFilter(filter)) {
+                if (this.ids.has(filter)) set.add(this.ids.get(filter));
+            } else {
+                for (let i = this.lowerBound(filter); i < this.sortedIds.length && this.nodes[this.sortedIds[i]].name.startsWith(filter); i++) {
+                    set.add(this.sortedIds[i]);
+                }
+            }
+        });
+        return set;
+    }
+
+    /**
+     * @returns the position of the first name not before the prefix in the sorted names
+     */
+    lowerBound(prefix) {
+        let low = 0;
+        let high = this.sortedIds.length;
+        while (low < high) {
+            const middle = (low + high) >>> 1;
+            if (this.nodes[this.sortedIds[middle]].name < prefix) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @returns the ids of the links between nodes of the set, in increasing order
+     */
+    linksBetween(set) {
+        const linkIds = [];
+        set.toArray().forEach(node => {
+            for (let i = this.outOffsets[node]; i < this.outOffsets[node + 1]; i++) {
+                if (set.has(this.targets[this.outLinks[i]])) linkIds.push(this.outLinks[i]);
+            }
+        });
+        return linkIds.sort((a, b) => a - b);
+    }
+
+    /**
+     * @returns the nodes of the set being an end of at least one link between nodes of the set
+     */
+    linked(set) {
+        const linked = this.none();
+        set.toArray().forEach(node => {
+            const hasLink = (offsets, linkIds, ends) => {
+                for (let i = offsets[node]; i < offsets[node + 1]; i++) {
+                    if (set.has(ends[linkIds[i]])) return true;
+                }
+                return false;
+            };
+            if (hasLink(this.outOffsets, this.outLinks, this.targets) || hasLink(this.inOffsets, this.inLinks, this.sources)) {
+                linked.add(node);
+            }
+        });
+        return linked;
+    }
+}
+
+export {GraphIndex, NodeSet};
@@ -0,0 +1,185 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+/**
+ * Page side of the graph worker, running the force simulation and the expansion of the usage levels outside of the UI thread.
+ */
+class GraphWorker {
+
+    constructor() {
+        this.worker = new Worker(new URL("./graph-worker.js", import.meta.url));
+        this.worker.onmessage = e => this.receive(e.data);
+        this.requests = new Map();
+        this.nbRequests = 0;
+        this.generation = 0;
+    }
+
+    receive(message) {
+        switch (message.type) {
+            case "positions":
+                if (this.simulation !== undefined && message.generation === this.generation) {
+                    this.simulation.draw(message.positions);
+                }
+                break;
+            case "usages":
+                this.requests.get(message.request)(message);
+                this.requests.delete(message.request);
+                break;
+        }
+    }
+
+    /**
+     * Expands the usage levels from the entry point filters on the given nodes and links.
+     *
+     * @returns a promise of the nodes reached, in order, with their usage level, of the links followed, and
+     * of the number of nodes and links reached at each level, from level 1
+     */
+    expandUsages(filters, usageType, nodes, links) {
+        const nameIds = new Map();
+        const names = [];
+        const nameId = name => {
+            if (!nameIds.has(name)) {
+                nameIds.set(name, names.length);
+                names.push(name);
+            }
+            return nameIds.get(name);
+        };
+        const nodeNames = Int32Array.from(nodes, n => nameId(n.name));
+        const sources = Int32Array.from(links, l => nameId(getName(l.source)));
+        const targets = Int32Array.from(links, l => nameId(getName(l.target)));
+        const request = this.nbRequests++;
+        return new Promise(resolve => {
+            this.requests.set(request, resolve);
+            this.worker.postMessage({
+                type: "usages",
+                request: request,
+                filters: filters,
+                usageType: usageType,
+                names: names,
+                nodeNames: nodeNames,
+                sources: sources,
+                targets: targets
+            }, [nodeNames.buffer, sources.buffer, targets.buffer]);
+        });
+    }
+
+    /**
+     * Creates the force simulation of the nodes and links, stopped until restarted.
+     * As with a d3 simulation, nodes get their index and link ends are replaced by their nodes.
+     *
+     * @param ticked called each time the positions of the nodes have been updated
+     */
+    simulate(nodes, links, width, height, ticked) {
+        if (this.simulation !== undefined) this.simulation.stop();
+        this.generation++;
+        const nodeByName = new Map();
+        const positions = new Float64Array(2 * nodes.length);
+        nodes.forEach((node, i) => {
+            node.index = i;
+            nodeByName.set(node.name, node);
+            positions[2 * i] = node.x === undefined ? NaN : node.x;
+            positions[2 * i + 1] = node.y === undefined ? NaN : node.y;
+        });
+        const find = end => {
+            const node = typeof end === "object" ? end : nodeByName.get(end);
+            if (node === undefined) throw new Error("missing: " + end);
+            return node;
+        };
+        links.forEach(l => {
+            l.source = find(l.source);
+            l.target = find(l.target);
+        });
+        const sources = Int32Array.from(links, l => l.source.index);
+        const targets = Int32Array.from(links, l => l.target.index);
+        this.worker.postMessage({
+            type: "simulate",
+            generation: this.generation,
+            positions: positions,
+            sources: sources,
+            targets: targets,
+            width: width,
+            height: height
+        }, [positions.buffer, sources.buffer, targets.buffer]);
+        this.simulation = new WorkerSimulation(this.worker, this.generation, nodes, ticked);
+        return this.simulation;
+    }
+}
+
+/**
+ * Simulation running in the worker, with the part of the d3 simulation interface used by the views.
+ */
+class WorkerSimulation {
+
+    constructor(worker, generation, nodes, ticked) {
+        this.worker = worker;
+        this.generation = generation;
+        this.nodes = nodes;
+        this.ticked = ticked;
+    }
+
+    /**
+     * Draws the positions at the next frame, and then gives the buffer back to the worker.
+     */
+    draw(positions) {
+        requestAnimationFrame(() => {
+            this.nodes.forEach((node, i) => {
+                node.x = positions[2 * i];
+                node.y = positions[2 * i + 1];
+            });
+            this.ticked();
+            this.worker.postMessage({type: "positions", generation: this.generation, positions: positions}, [positions.buffer]);
+        });
+    }
+
+    alpha(alpha) {
+        this.worker.postMessage({type: "alpha", alpha: alpha});
+        return this;
+    }
+
+    alphaTarget(alphaTarget) {
+        this.worker.postMessage({type: "alphaTarget", alphaTarget: alphaTarget});
+        return this;
+    }
+
+    restart() {
+        this.worker.postMessage({type: "restart"});
+        return this;
+    }
+
+    stop() {
+        this.worker.postMessage({type: "stop"});
+        return this;
+    }
+
+    /**
+     * Gives the fixed position of the node, null to release it.
+     */
+    fix(node) {
+        this.worker.postMessage({type: "fix", node: node.index, fx: node.fx, fy: node.fy});
+        return this;
+    }
+}
+
+function getName(end) {
+    return typeof end === "object" ? end.name : end;
+}
+
+export {GraphWorker};
@@ -0,0 +1,278 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+/*
+ * Worker running the force simulation and the expansion of the usage levels of the usage view,
+ * so that the page stays responsive on big projects.
+ * Node names are exchanged once, positions and traversal results going through transferable typed arrays.
+ */
+
+importScripts("https://d3js.org/d3.v4.min.js");
+
+const usageTypeEnum = {
+    IN: 'IN',
+    OUT: 'OUT',
+    IN_OUT: 'IN-OUT'
+};
+
+let simulation;
+let simulationNodes = [];
+let generation = 0;
+// buffer of the positions, owned by the page while it draws them
+let positions = null;
+let positionsPending = false;
+
+onmessage = (e) => {
+    const message = e.data;
+    switch (message.type) {
+        case "simulate":
+            startSimulation(message);
+            break;
+        case "positions":
+            if (message.generation === generation) {
+                positions = message.positions;
+                if (positionsPending) sendPositions();
+            }
+            break;
+        case "fix":
+            simulationNodes[message.node].fx = message.fx;
+            simulationNodes[message.node].fy = message.fy;
+            break;
+        case "alpha":
+            simulation.alpha(message.alpha);
+            break;
+        case "alphaTarget":
+            simulation.alphaTarget(message.alphaTarget);
+            break;
+        case "restart":
+            simulation.restart();
+            break;
+        case "stop":
+            if (simulation !== undefined) simulation.stop();
+            break;
+        case "usages":
+            expandUsages(message);
+            break;
+    }
+};
+
+/**
+ * Creates the simulation of the given nodes and links, stopped until the page restarts it.
+ * Nodes without position are placed by d3.
+ */
+function startSimulation(message) {
+    if (simulation !== undefined) simulation.stop();
+    generation = message.generation;
+    positions = message.positions;
+    positionsPending = false;
+    simulationNodes = [];
+    for (let i = 0; i < positions.length / 2; i++) {
+        const node = {};
+        if (!isNaN(positions[2 * i])) {
+            node.x = positions[2 * i];
+            node.y = positions[2 * i + 1];
+        }
+        simulationNodes.push(node);
+    }
+    const links = [];
+    for (let i = 0; i < message.sources.length; i++) {
+        links.push({source: message.sources[i], target: message.targets[i]});
+    }
+    simulation = d3.forceSimulation(simulationNodes)
+        .force("link", d3.forceLink(links).distance(100))
+        .force("charge", d3.forceManyBody()
+            .strength(function (d) {
+                return -50;
+            }))
+        .force("center", d3.forceCenter(message.width / 2, message.height / 2))
+        .on("tick", sendPositions);
+    simulation.stop();
+}
+
+/**
+ * Sends the positions if the page gave the buffer back, otherwise they are sent when it comes back.
+ */
+function sendPositions() {
+    if (positions === null) {
+        positionsPending = true;
+        return;
+    }
+    simulationNodes.forEach((node, i) => {
+        positions[2 * i] = node.x;
+        positions[2 * i + 1] = node.y;
+    });
+    postMessage({type: "positions", generation: generation, positions: positions}, [positions.buffer]);
+    positions = null;
+    positionsPending = false;
+}
+
+/**
+ * Expands the usage levels from the entry point filters, level by level, as the usage view did on the page:
+ * the links of the chosen usage type matching the nodes of the previous level give the nodes of the next one.
+ * Names are matched with the semantics of NodesFilter.matchesFilter, a name ending with a class name only matching itself,
+ * and a package name matching all names starting with it.
+ */
+function expandUsages(message) {
+    const names = message.names;
+    const nodeNames = message.nodeNames;
+    const sources = message.sources;
+    const targets = message.targets;
+    const nbNodes = nodeNames.length;
+
+    const sortedNames = names.map((name, i) => i).sort((a, b) => names[a] < names[b] ? -1 : names[a] > names[b] ? 1 : 0);
+    const nodesOfName = groupBy(names.length, nodeNames);
+    const linksBySource = groupBy(names.length, sources);
+    const linksByTarget = groupBy(names.length, targets);
+    const matchesOfName = new Map();
+
+    function lowerBound(prefix) {
+        let low = 0;
+        let high = sortedNames.length;
+        while (low < high) {
+            const middle = (low + high) >>> 1;
+            if (names[sortedNames[middle]] < prefix) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    function matchingNames(filter) {
+        const sp = filter.split(".");
+        const classFilter = /[A-Z]/.test(sp[sp.length - 1]);
+        const matching = [];
+        for (let i = lowerBound(filter); i < sortedNames.length && names[sortedNames[i]].startsWith(filter); i++) {
+            if (!classFilter || names[sortedNames[i]] === filter) matching.push(sortedNames[i]);
+        }
+        return matching;
+    }
+
+    function matchingNamesOf(nameId) {
+        if (!matchesOfName.has(nameId)) matchesOfName.set(nameId, matchingNames(names[nameId]));
+        return matchesOfName.get(nameId);
+    }
+
+    // links of the usage type having an end matching one of the names, in the order of the links
+    function linksOf(nameIds) {
+        const found = new Set();
+        nameIds.forEach(nameId => {
+            if (message.usageType !== usageTypeEnum.OUT) forEachOf(linksByTarget, nameId, link => found.add(link));
+            if (message.usageType !== usageTypeEnum.IN) forEachOf(linksBySource, nameId, link => found.add(link));
+        });
+        return Array.from(found).sort((a, b) => a - b);
+    }
+
+    // nodes matching the source or the target of the link, in the order of the nodes
+    function nodesOfLink(link) {
+        const found = new Set();
+        [sources[link], targets[link]].forEach(end =>
+            matchingNamesOf(end).forEach(nameId => forEachOf(nodesOfName, nameId, node => found.add(node))));
+        return Array.from(found).sort((a, b) => a - b);
+    }
+
+    const inList = new Uint8Array(nbNodes);
+    const nodes = [];
+    const levels = [];
+    const usageLinks = [];
+    const nbNodesByLevel = [];
+    const nbLinksByLevel = [];
+
+    const filterNames = new Set();
+    message.filters.forEach(filter => matchingNames(filter).forEach(nameId => filterNames.add(nameId)));
+    for (let node = 0; node < nbNodes; node++) {
+        if (filterNames.has(nodeNames[node])) {
+            inList[node] = 1;
+            nodes.push(node);
+            levels.push(0);
+        }
+    }
+
+    let current = [];
+    linksOf(filterNames).forEach(link => {
+        usageLinks.push(link);
+        nodesOfLink(link).forEach(node => {
+            if (!inList[node]) {
+                inList[node] = 1;
+                nodes.push(node);
+                levels.push(1);
+                current.push(node);
+            }
+        });
+    });
+    nbNodesByLevel.push(nodes.length);
+    nbLinksByLevel.push(usageLinks.length);
+
+    let usageLevel = 2;
+    while (current.length !== 0) {
+        const next = [];
+        const currentNames = new Set();
+        current.forEach(node => matchingNamesOf(nodeNames[node]).forEach(nameId => currentNames.add(nameId)));
+        linksOf(currentNames).forEach(link => {
+            nodesOfLink(link).forEach(node => {
+                usageLinks.push(link);
+                if (!inList[node]) {
+                    inList[node] = 1;
+                    nodes.push(node);
+                    levels.push(usageLevel);
+                    next.push(node);
+                }
+            });
+        });
+        nbNodesByLevel.push(nodes.length);
+        nbLinksByLevel.push(usageLinks.length);
+        current = next;
+        usageLevel++;
+    }
+
+    const result = {
+        type: "usages",
+        request: message.request,
+        nodes: Int32Array.from(nodes),
+        levels: Int32Array.from(levels),
+        links: Int32Array.from(usageLinks),
+        nbNodesByLevel: Int32Array.from(nbNodesByLevel),
+        nbLinksByLevel: Int32Array.from(nbLinksByLevel)
+    };
+    postMessage(result, [result.nodes.buffer, result.levels.buffer, result.links.buffer, result.nbNodesByLevel.buffer, result.nbLinksByLevel.buffer]);
+}
+
+/**
+ * @returns the elements grouped by key, in their order, as offsets and elements arrays
+ */
+function groupBy(nbKeys, keys) {
+    const offsets = new Int32Array(nbKeys + 1);
+    keys.forEach(key => offsets[key + 1]++);
+    for (let key = 0; key < nbKeys; key++) {
+        offsets[key + 1] += offsets[key];
+    }
+    const next = offsets.slice(0, nbKeys);
+    const elements = new Int32Array(keys.length);
+    keys.forEach((key, element) => elements[next[key]++] = element);
+    return {offsets: offsets, elements: elements};
+}
+
+function forEachOf(groups, key, action) {
+    for (let i = groups.offsets[key]; i < groups.offsets[key + 1]; i++) {
+        action(groups.elements[i]);
+    }
+}
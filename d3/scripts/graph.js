@@ -21,8 +21,12 @@
 
 import {NodesFilter} from "./nodes-filter.js";
 import {PackageColorer} from "./package-colorer.js";
-import {VariantsFilter} from "./variants-filter.js";
-import {IsolatedFilter} from "./isolated-filter.js";
+import {GraphIndex} from "./graph-index.js";
+import {decodeGraph} from "./graph-format.js";
+import {CanvasRenderer} from "./canvas-renderer.js";
+
+// number of nodes above which the graph is drawn on a canvas instead of with SVG elements
+const CANVAS_NODES_THRESHOLD = 5000;
 
 
 class Graph {
@@ -31,8 +35,8 @@ class Graph {
         this.jsonFile = jsonFile;
         this.jsonStatsFile = jsonStatsFile;
         this.jsonTracesFile = jsonStatsFile.split("-stats.json")[0] + "-traces.json";
-        this.filter = new NodesFilter("#add-filter-button", "#package-to-filter", "#list-tab", nodeFilters, async () => await this.displayGraph());
-        this.packageColorer = new PackageColorer("#add-package-button", "#package-to-color", "#color-tab", [], async () => await this.displayGraph());
+        this.filter = new NodesFilter("#add-filter-button", "#package-to-filter", "#list-tab", nodeFilters, async () => this.refresh());
+        this.packageColorer = new PackageColorer("#add-package-button", "#package-to-color", "#color-tab", [], async () => this.refresh());
         if (sessionStorage.getItem("firstTime") === null) {
             sessionStorage.setItem("firstTime", "true");
         }
@@ -49,11 +53,34 @@ class Graph {
             sessionStorage.setItem("filterApi", "false");
         }
         d3.selectAll("svg > *").remove();
+        CanvasRenderer.remove();
+        if (this.simulation !== undefined) {
+            this.simulation.stop();
+        }
+        this.simulation = undefined;
+        this.renderer = undefined;
+        this.readDisplayOptions();
+        await this.generateGraph();
+        return this.graph;
+    }
+
+    readDisplayOptions() {
         this.filterIsolated = sessionStorage.getItem("filteredIsolated") === "true";
         this.filterVariants = sessionStorage.getItem("filteredVariants") === "true";
         this.onlyHotspots = sessionStorage.getItem("onlyHotspots") === "true";
-        await this.generateGraph();
-        return this.graph;
+    }
+
+    /**
+     * Applies the current filters and display options to the loaded graph without reloading it,
+     * only the elements entering or leaving the displayed graph being added or removed.
+     */
+    refresh() {
+        this.readDisplayOptions();
+        if (this.index === undefined) {
+            return;
+        }
+        this.applyFilters();
+        this.update();
     }
 
     async generateGraph() {
@@ -105,9 +132,9 @@ class Graph {
                         .defer(d3.json, graph.jsonTracesFile)
                         .await((err, traces) => {
                             if (err) {
-                                graph.displayData(gr, stats);
+                                graph.displayData(decodeGraph(gr, {x: graph.width / 2, y: graph.height / 2}), stats);
                             } else {
-                                graph.displayData(gr, stats, traces);
+                                graph.displayData(decodeGraph(gr, {x: graph.width / 2, y: graph.height / 2}), stats, traces);
                             }
                             graph.update();
                             resolve();
@@ -138,54 +165,52 @@ class Graph {
 
         var nodeByID = {};
 
-        this.graph = gr;
-        this.store = $.extend(true, {}, gr);
-
-        this.graph.nodes.forEach(function (n) {
+        gr.nodes.forEach(function (n) {
             n.radius = n.types.includes("CLASS") ? 10 + n.methodVPs : 10;
             n.traces = traces[n.name] || []
             nodeByID[n.name] = n;
         });
 
-        this.graph.links.forEach(function (l) {
-            l.sourceTypes = nodeByID[l.source].types;
-            l.targetTypes = nodeByID[l.target].types;
-        });
-
-        this.store.nodes.forEach(function (n) {
-            n.radius = n.types.includes("CLASS") ? 10 + n.methodVPs : 10;
-        });
-
-        this.store.links.forEach(function (l) {
+        gr.links.forEach(function (l, i) {
+            l.id = i;
             l.sourceTypes = nodeByID[l.source].types;
             l.targetTypes = nodeByID[l.target].types;
         });
 
+        // built once per load, the filters being then evaluated on the index
+        this.index = new GraphIndex(gr.nodes, gr.links);
+        this.graph = {nodes: [], links: [], layout: gr.layout};
+        this.applyFilters();
+    }
 
-        this.graph.nodes = this.filter.getNodesListWithoutMatchingFilter(gr.nodes);
-        this.graph.links = this.filter.getLinksListWithoutMatchingFilter(gr.links);
-
-        this.nodesList = [];
-        this.apiList = [];
-
-
+    applyFilters() {
+        const index = this.index;
+        let displayed = index.all().andNot(index.matching(this.filter.filtersList));
         if (this.filterVariants) {
-            var variantsFilter = new VariantsFilter(this.graph.nodes, this.graph.links);
-            this.graph.nodes = variantsFilter.getFilteredNodesList();
-            this.graph.links = variantsFilter.getFilteredLinksList();
+            displayed = displayed.and(index.withLabels("VP", "METHOD_LEVEL_VP"));
         }
-
         if (this.filterIsolated) {
-            var isolatedFilter = new IsolatedFilter(this.graph.nodes, this.graph.links);
-            this.graph.nodes = isolatedFilter.getFilteredNodesList();
-            this.graph.links = isolatedFilter.getFilteredLinksList();
+            displayed = index.linked(displayed);
         }
+        this.graph.nodes = displayed.toArray().map(id => index.nodes[id]);
+        this.graph.links = index.linksBetween(displayed).map(id => index.links[id]);
+
+        this.nodesList = [];
+        this.apiList = [];
     }
 
 
     //	general update pattern for updating the graph
 
     update() {
+        if (this.graph.nodes.length > CANVAS_NODES_THRESHOLD) {
+            this.updateCanvas();
+            return;
+        }
+        if (this.renderer !== undefined) {
+            CanvasRenderer.remove();
+            this.renderer = undefined;
+        }
 
         //	UPDATE
         this.node = this.node.data(this.graph.nodes, function (d, nodeList) {
@@ -196,54 +221,33 @@ class Graph {
         //	ENTER
         var newNode = this.node.enter().append("circle")
             .attr("class", "node")
-            .style("stroke-dasharray", function (d) {
-                return d.types.includes("ABSTRACT") ? "3,3" : "3,0"
-            })
-            //On api classes
-            .style("stroke",  (d) => {
-                return this.apiList.includes(d) ? '#0e90d2' : "black";
-            })
-            .style("stroke-width", function (d) {
-                return d.types.includes("ABSTRACT") ? d.classVariants + 1 : d.classVariants;
-            })
+            .style("stroke-dasharray", d => this.getNodeDashArray(d).join(","))
+            .style("stroke-width", d => this.getNodeStrokeWidth(d))
             // .style("stroke", (d) => d.traces.length > 0 ? "blue" : "black")
             // .style("stroke-width", 2)
             .attr("r", function (d) {
                 return d.radius
             })
-            .attr("fill", (d) => {
-                let nodeColor = d.types.includes("INTERFACE") ? d3.rgb(0, 0, 0) : ( d.types.includes("METHOD_LEVEL_VP") || d.types.includes("VARIANT") || d.types.includes("VP") ) ? d3.rgb(this.getNodeColor(d.name, d.constructorVariants)) : '#dddddd';
-
-                if (this.onlyHotspots) {
-                    return d.types.includes("HOTSPOT") ? nodeColor : d3.rgb(220, 220, 220);
-                } else {
-                    return nodeColor;
-                }
-            })
             .attr("name", function (d) {
                 return d.name
             });
 
-        newNode.append("title").text(function (d) {
-            return "types: " + d.types + "\n" + "name: " + d.name;
-        });
+        newNode.append("title").text(d => this.getNodeTitle(d));
         newNode.on("mouseover", function(d) {
             d3.select(this).style("cursor", "pointer");
         });
-        newNode.on("click", function(d){
-            navigator.clipboard.writeText(d.name).then(function() {
-                console.log("COPY OK");
-            }, function() {
-                console.log("COPY NOT OK");
-            });
-        });
+        newNode.on("click", d => copyName(d));
 
         //	ENTER + UPDATE
-        this.node = this.node.merge(newNode);
+        this.node = this.node.merge(newNode)
+            //On api classes
+            .style("stroke", d => this.getNodeStroke(d))
+            // colors depend on the packages to color and on the display of the hotspots
+            .attr("fill", d => this.getNodeFill(d));
 
         //	UPDATE
         this.link = this.link.data(this.graph.links, function (d) {
-            return d.name;
+            return d.id;
         });
         //	EXIT
         this.link.exit().remove();
@@ -251,14 +255,14 @@ class Graph {
         var newLink = this.link.enter().append("line")
             .attr("stroke-width", 1)
             .attr("class", "link")
-            .attr("source", d => d.source)
-            .attr("target", d => d.target)
+            .attr("source", d => getName(d.source))
+            .attr("target", d => getName(d.target))
             .attr('marker-start', "url(#arrowhead)")
             .style("pointer-events", "none");
 
         newLink.append("title")
             .text(function (d) {
-                return "source: " + d.source + "\n" + "target: " + d.target;
+                return "source: " + getName(d.source) + "\n" + "target: " + getName(d.target);
             });
         //	ENTER + UPDATE
         this.link = this.link.merge(newLink);
@@ -274,21 +278,10 @@ class Graph {
             .attr("dx", -5)
             .attr("dy", ".35em")
             .attr("name", d => d.name)
-            .attr("fill", (d) => {
-                var nodeColor = d.types.includes("INTERFACE") ? d3.rgb(0, 0, 0) : d3.rgb(this.getNodeColor(d.name, d.constructorVariants));
-                return contrastColor(nodeColor);
-            })
-            .text(function (d) {
-                return ["STRATEGY", "FACTORY", "TEMPLATE", "DECORATOR", "COMPOSITION_STRATEGY"]
-                    .filter(p => {
-                        if (p === "COMPOSITION_STRATEGY") {
-                            return d.types.includes(p) && ! d.types.includes("STRATEGY")
-                        }
-                        return d.types.includes(p);
-                    }).map(p => p === "COMPOSITION_STRATEGY" ? "S" : p[0]).join(", ");
-            });
+            .text(d => this.getLabel(d));
         //	ENTER + UPDATE
-        this.label = this.label.merge(newLabel);
+        this.label = this.label.merge(newLabel)
+            .attr("fill", d => this.getLabelColor(d));
 
         d3.selectAll("circle.node").on("contextmenu", async (node) => {
             d3.event.preventDefault();
@@ -305,69 +298,52 @@ class Graph {
             .on("end", dragended)
         );
 
-        //	force simulation initialization
-        var simulation = d3.forceSimulation()
-            .force("link", d3.forceLink().distance(100)
-                .id(function (d) {
-                    return d.name;
-                }))
-            .force("charge", d3.forceManyBody()
-                .strength(function (d) {
-                    return -50;
-                }))
-            .force("center", d3.forceCenter(width / 2, height / 2));
-
-
-        //	update simulation nodes, links, and alpha
-        simulation
-            .nodes(this.graph.nodes)
-            //	tick event handler with bounded box
-            .on("tick", () => {
-                this.node
-                    .attr("cx", function (d) {
-                        return d.x;
-                    })
-                    .attr("cy", function (d) {
-                        return d.y;
-                    });
-
-                this.link
-                    .attr("x1", function (d) {
-                        return d.source.x;
-                    })
-                    .attr("y1", function (d) {
-                        return d.source.y;
-                    })
-                    .attr("x2", function (d) {
-                        return d.target.x;
-                    })
-                    .attr("y2", function (d) {
-                        return d.target.y;
-                    });
-
-                this.label
-                    .attr("x", function (d) {
-                        return d.x;
-                    })
-                    .attr("y", function (d) {
-                        return d.y;
-                    });
-            });
+        const firstDisplay = this.simulation === undefined;
+        this.updateSimulation(width, height, () => {
+            this.node
+                .attr("cx", function (d) {
+                    return d.x;
+                })
+                .attr("cy", function (d) {
+                    return d.y;
+                });
 
-        simulation.force("link")
-            .links(this.graph.links);
+            this.link
+                .attr("x1", function (d) {
+                    return d.source.x;
+                })
+                .attr("y1", function (d) {
+                    return d.source.y;
+                })
+                .attr("x2", function (d) {
+                    return d.target.x;
+                })
+                .attr("y2", function (d) {
+                    return d.target.y;
+                });
 
-        simulation.alpha(1).alphaTarget(0).restart();
+            this.label
+                .attr("x", function (d) {
+                    return d.x;
+                })
+                .attr("y", function (d) {
+                    return d.y;
+                });
+        });
 
-        //add zoom capabilities
-        var zoom_handler = d3.zoom()
-            .on("zoom", () => this.g.attr("transform", d3.event.transform));
+        if (firstDisplay) {
+            //add zoom capabilities
+            var zoom_handler = d3.zoom()
+                .on("zoom", () => this.g.attr("transform", d3.event.transform));
 
-        zoom_handler(this.svg);
+            zoom_handler(this.svg);
+        }
 
         //	drag event handlers
+        const graph = this;
+
         function dragstarted(d) {
-            if (!d3.event.active) simulation.alphaTarget(0.3).restart();
+            if (!d3.event.active) graph.simulation.alphaTarget(0.3).restart();
             d.fx = d.x;
             d.fy = d.y;
         }
@@ -378,12 +354,128 @@ class Graph {
         }
 
         function dragended(d) {
-            if (!d3.event.active) simulation.alphaTarget(0);
+            if (!d3.event.active) graph.simulation.alphaTarget(0);
+            d.fx = null;
+            d.fy = null;
+        }
+    }
+
+    /**
+     * Draws the graph on a canvas, for graphs too large to be displayed with SVG elements.
+     */
+    updateCanvas() {
+        if (this.renderer !== undefined) {
+            this.renderer.setData(this.graph.nodes, this.graph.links);
+            this.updateSimulation(this.width, this.height, () => this.renderer.tick());
+            return;
+        }
+        const renderer = new CanvasRenderer(this.svg, this.width, this.height, {
+            radius: d => d.radius,
+            fill: d => this.getNodeFill(d),
+            stroke: d => this.getNodeStroke(d),
+            strokeWidth: d => this.getNodeStrokeWidth(d),
+            dash: d => this.getNodeDashArray(d),
+            label: d => this.getLabel(d),
+            labelColor: d => this.getLabelColor(d),
+            title: d => this.getNodeTitle(d)
+        }, {
+            click: d => copyName(d),
+            contextmenu: async d => await this.filter.addFilterAndRefresh(d.name)
+        });
+        this.renderer = renderer;
+        renderer.setData(this.graph.nodes, this.graph.links);
+        this.updateSimulation(this.width, this.height, () => renderer.tick());
+        renderer.addBehaviour((d) => {
+            if (!d3.event.active) this.simulation.alphaTarget(0.3).restart();
+            d.fx = d.x;
+            d.fy = d.y;
+        }, (d, [x, y]) => {
+            d.fx = x;
+            d.fy = y;
+        }, (d) => {
+            if (!d3.event.active) this.simulation.alphaTarget(0);
             d.fx = null;
             d.fy = null;
+        });
+    }
+
+    /**
+     * Creates the force simulation on the first display of the graph, and then gives it the nodes and links displayed after filtering,
+     * calling ticked each time the nodes move. Nodes keep their position from one display to the other.
+     */
+    updateSimulation(width, height, ticked) {
+        const firstDisplay = this.simulation === undefined;
+        if (firstDisplay) {
+            this.simulation = d3.forceSimulation()
+                .force("link", d3.forceLink().distance(100)
+                    .id(function (d) {
+                        return d.name;
+                    }))
+                .force("charge", d3.forceManyBody()
+                    .strength(function (d) {
+                        return -50;
+                    }))
+                .force("center", d3.forceCenter(width / 2, height / 2));
+        }
+        const simulation = this.simulation;
+
+        simulation
+            .nodes(this.graph.nodes)
+            .on("tick", ticked);
+
+        simulation.force("link")
+            .links(this.graph.links);
+
+        if (this.graph.layout) {
+            // display the nodes where symfinder placed them, the simulation only runs when asked to or when a node is dragged
+            simulation.stop();
+            ticked();
+        } else {
+            simulation.alpha(firstDisplay ? 1 : 0.3).alphaTarget(0).restart();
         }
     }
 
+    getNodeFill(d) {
+        let nodeColor = d.types.includes("INTERFACE") ? d3.rgb(0, 0, 0) : ( d.types.includes("METHOD_LEVEL_VP") || d.types.includes("VARIANT") || d.types.includes("VP") ) ? d3.rgb(this.getNodeColor(d.name, d.constructorVariants)) : '#dddddd';
+
+        if (this.onlyHotspots) {
+            return d.types.includes("HOTSPOT") ? nodeColor : d3.rgb(220, 220, 220);
+        } else {
+            return nodeColor;
+        }
+    }
+
+    getNodeStroke(d) {
+        return this.apiList.includes(d) ? '#0e90d2' : "black";
+    }
+
+    getNodeStrokeWidth(d) {
+        return d.types.includes("ABSTRACT") ? d.classVariants + 1 : d.classVariants;
+    }
+
+    getNodeDashArray(d) {
+        return d.types.includes("ABSTRACT") ? [3, 3] : [3, 0];
+    }
+
+    getNodeTitle(d) {
+        return "types: " + d.types + "\n" + "name: " + d.name;
+    }
+
+    getLabel(d) {
+        return ["STRATEGY", "FACTORY", "TEMPLATE", "DECORATOR", "COMPOSITION_STRATEGY"]
+            .filter(p => {
+                if (p === "COMPOSITION_STRATEGY") {
+                    return d.types.includes(p) && ! d.types.includes("STRATEGY")
+                }
+                return d.types.includes(p);
+            }).map(p => p === "COMPOSITION_STRATEGY" ? "S" : p[0]).join(", ");
+    }
+
+    getLabelColor(d) {
+        var nodeColor = d.types.includes("INTERFACE") ? d3.rgb(0, 0, 0) : d3.rgb(this.getNodeColor(d.name, d.constructorVariants));
+        return contrastColor(nodeColor);
+    }
+
     getNodeColor(nodeName, valueOnScale){
         var upperRangeColor = this.packageColorer.getColorForName(nodeName);
         return this.color
@@ -400,6 +492,13 @@ class Graph {
     }
 
     setButtonsClickActions(){
+        $(document).on('click', "#warm-start-button", e => {
+            e.preventDefault();
+            if (this.simulation !== undefined) {
+                this.simulation.alpha(0.3).alphaTarget(0).restart();
+            }
+        });
+
         $(document).on('click', ".list-group-item", async e => {
             e.preventDefault();
             $('.active').removeClass('active');
@@ -410,7 +509,7 @@ class Graph {
             var previouslyFiltered = sessionStorage.getItem("filteredIsolated") === "true";
             sessionStorage.setItem("filteredIsolated", previouslyFiltered ? "false" : "true");
             $("#filter-isolated").text(previouslyFiltered ? "Unfilter isolated nodes" : "Filter isolated nodes");
-            await this.displayGraph();
+            this.refresh();
         });
 
         $(document).on('click', "#filter-variants-button", async e => {
@@ -418,7 +517,7 @@ class Graph {
             var previouslyFiltered = sessionStorage.getItem("filteredVariants") === "true";
             sessionStorage.setItem("filteredVariants", previouslyFiltered ? "false" : "true");
             $("#filter-variants-button").text(previouslyFiltered ? "Hide variants" : "Show variants");
-            await this.displayGraph();
+            this.refresh();
         });
 
         $(document).on('click', "#hotspots-only-button", async e => {
@@ -426,7 +525,7 @@ class Graph {
             const previouslyFiltered = sessionStorage.getItem("onlyHotspots") === "true";
             sessionStorage.setItem("onlyHotspots", previouslyFiltered ? "false" : "true");
             $("#hotspots-only-button").text(previouslyFiltered ? "Show hotspots only" : "Show all nodes");
-            await this.displayGraph();
+            this.refresh();
         });
 
         $('#hide-info-button').click(function () {
@@ -444,6 +543,21 @@ class Graph {
 
 }
 
+/**
+ * @returns the name of a link end, which is the node itself once the simulation has resolved the links
+ */
+function getName(end) {
+    return typeof end === "object" ? end.name : end;
+}
+
+function copyName(d) {
+    navigator.clipboard.writeText(d.name).then(function() {
+        console.log("COPY OK");
+    }, function() {
+        console.log("COPY NOT OK");
+    });
+}
+
 function contrastColor(color) {
     var d = 0;
 
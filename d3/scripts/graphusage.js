@@ -23,8 +23,10 @@ import {NodesFilter} from "./nodes-filter.js";
 import {PackageColorer} from "./package-colorer.js";
 import {VariantsFilter} from "./variants-filter.js";
 import {IsolatedFilter} from "./isolated-filter.js";
+import {decodeGraph} from "./graph-format.js";
 import {EntryPointFilter} from "./entry-point-filter.js";
 import {HotspotsFilter} from "./hotspots-filter.js";
+import {GraphWorker} from "./graph-worker-client.js";
 
 
 class Graph {
@@ -53,6 +55,7 @@ class Graph {
         this.firstLevelUsage = true;
         this.hybridView = false;
         this.apiFiltering = false;
+        this.graphWorker = new GraphWorker();
     }
 
 
@@ -117,9 +120,9 @@ class Graph {
             d3.queue()
                 .defer(d3.json, graph.jsonFile)
                 .defer(d3.json, graph.jsonStatsFile)
-                .await((err, gr, stats) => {
+                .await(async (err, gr, stats) => {
                     if (err) throw err;
-                    graph.displayData(gr, stats);
+                    await graph.displayData(decodeGraph(gr, {x: graph.width / 2, y: graph.height / 2}), stats);
                     graph.update();
                     resolve();
                 });
@@ -127,13 +130,7 @@ class Graph {
 
     }
 
-    displayData(gr, stats) {
-
-        const usageTypeEnum = {
-            IN: 'IN',
-            OUT: 'OUT',
-            IN_OUT: 'IN-OUT'
-        }
+    async displayData(gr, stats) {
 
         //	data read and store
         document.getElementById("statistics").innerHTML =
@@ -244,72 +241,8 @@ class Graph {
             this.nodesList = this.entryPointFilter.getNodesListWithMatchingFilter(this.graph.allnodes);
             this.apiList = this.entryPointFilter.getNodesListWithMatchingFilter(this.graph.allnodes);
             if(this.nodesList.length !== 0){
-                //Finds all the links which contain one of the API classes as target or source
-                var current = [];
-                if (this.apiList.length !== 0) {
-                    this.apiList.forEach(node => node.usageLevel = 0);
-                    switch (this.defaultUsageType) {
-                        case usageTypeEnum.IN:
-                            this.hs = this.entryPointFilter.getLinksListWithMatchingFilterIn(this.graph.alllinks);
-                            break;
-                        case usageTypeEnum.OUT:
-                            this.hs = this.entryPointFilter.getLinksListWithMatchingFilterOut(this.graph.alllinks);
-                            break;
-                        case usageTypeEnum.IN_OUT:
-                            this.hs = this.entryPointFilter.getLinksListWithMatchingFilterInOut(this.graph.alllinks);
-                            break;
-                    }
-
-                    //Found all the nodes which are linked to one of those nodes
-                    this.hs.forEach(
-                        d => gr.allnodes.forEach(node => {
-                                if ((EntryPointFilter.matchesFilter(node.name, d.source) || (EntryPointFilter.matchesFilter(node.name, d.target))) && !this.nodesList.includes(node)) {
-                                    node.usageLevel = 1;
-                                    this.nodesList.push(node);
-                                    current.push(node.name);
-                                }
-                            }
-                        )
-                    );
-                }
-                this.nodes_dict[1] = this.nodesList.length;
-                this.links_dict[1] = this.hs.length;
-
-                var next = [];
-                var links = []
-                var usageLevel = 2;
-                while (current.length !== 0) {
-                    switch (this.defaultUsageType) {
-                        case usageTypeEnum.IN:
-                            links = this.entryPointFilter.getLinksListWithMatchingFiltersIn(this.graph.alllinks, current);
-                            break;
-                        case usageTypeEnum.OUT:
-                            links = this.entryPointFilter.getLinksListWithMatchingFiltersOut(this.graph.alllinks, current);
-                            break;
-                        case usageTypeEnum.IN_OUT:
-                            links = this.entryPointFilter.getLinksListWithMatchingFiltersInOut(this.graph.alllinks, current);
-                            break;
-                    }
-
-                    links.forEach(
-                        d => gr.allnodes.forEach(node => {
-
-                            if ((EntryPointFilter.matchesFilter(node.name, d.source) || (EntryPointFilter.matchesFilter(node.name, d.target)))) {
-                                this.hs.push(d);
-                                if(!this.nodesList.includes(node)){
-                                    node.usageLevel = usageLevel;
-                                    this.nodesList.push(node);
-                                    next.push(node.name);
-                                }
-                            }
-                        })
-                    );
-                    this.nodes_dict[usageLevel] = this.nodesList.length;
-                    this.links_dict[usageLevel] = this.hs.length;
-                    current = next;
-                    next = [];
-                    usageLevel++;
-                }
+                //Finds the nodes using the API classes, or used by them, level by level
+                await this.expandUsages();
                 this.updateUsageLevelView(this);
                 this.firstLevelUsage = false;
             }
@@ -321,6 +254,21 @@ class Graph {
 
     }
 
+    /**
+     * Computes in the graph worker the usage levels of the displayed nodes from the entry point classes,
+     * following the links of the selected usage type.
+     */
+    async expandUsages() {
+        const nodes = this.graph.allnodes;
+        const links = this.graph.alllinks;
+        const usages = await this.graphWorker.expandUsages(this.entryPointFilter.filtersList, this.defaultUsageType, nodes, links);
+        this.nodesList = Array.from(usages.nodes, n => nodes[n]);
+        this.nodesList.forEach((node, i) => node.usageLevel = usages.levels[i]);
+        this.hs = Array.from(usages.links, l => links[l]);
+        usages.nbNodesByLevel.forEach((nbNodes, i) => this.nodes_dict[i + 1] = nbNodes);
+        usages.nbLinksByLevel.forEach((nbLinks, i) => this.links_dict[i + 1] = nbLinks);
+    }
+
     // check refresh when changing usage level
     setDataToDisplay(nodesList, alllinks, usageLevel) {
         this.graph.allnodes = nodesList.splice(0, this.nodes_dict[usageLevel]);
@@ -501,107 +449,17 @@ class Graph {
             .on("end", dragended)
         );
 
-        //	force simulation initialization
-        var simulation = d3.forceSimulation()
-            .force("link", d3.forceLink().distance(100)
-                .id(function (d) {
-                    return d.name;
-                }))
-            .force("charge", d3.forceManyBody()
-                .strength(function (d) {
-                    return -50;
-                }))
-            .force("center", d3.forceCenter(width / 2, height / 2));
-
-
-        //	update simulation nodes, links, and alpha
-        simulation
-            .nodes(this.graph.allnodes)
-            //	tick event handler with bounded box
-            .on("tick", () => {
-                this.node
-                    .attr("cx", function (d) {
-                        return d.x;
-                    })
-                    .attr("cy", function (d) {
-                        return d.y;
-                    });
-
-                this.link
-                    .attr("x1", function (d) {
-                        if(d.type.includes("USE")){
-                            return d.target.x;
-                        }else{
-                            return d.source.x
-                        }
-                    })
-                    .attr("y1", function (d) {
-                        if(d.type.includes("USE")){
-                            return d.target.y
-                        }else{
-                            return d.source.y
-                        }
-                    })
-                    .attr("x2", function (d) {
-                        if(d.type.includes("USE")){
-                            return d.source.x
-                        }else{
-                            return d.target.x
-                        }
-                    })
-                    .attr("y2", function (d) {
-                        if(d.type.includes("USE")){
-                            return d.source.y
-                        }else{
-                            return d.target.y
-                        }
-                    });
-
-                if(this.hybridView){
-                    this.linkvp
-                        .attr("x1", function (d) {
-                            if(d.type.includes("USE")){
-                                return d.target.x;
-                            }else{
-                                return d.source.x
-                            }
-                        })
-                        .attr("y1", function (d) {
-                            if(d.type.includes("USE")){
-                                return d.target.y
-                            }else{
-                                return d.source.y
-                            }
-                        })
-                        .attr("x2", function (d) {
-                            if(d.type.includes("USE")){
-                                return d.source.x
-                            }else{
-                                return d.target.x
-                            }
-                        })
-                        .attr("y2", function (d) {
-                            if(d.type.includes("USE")){
-                                return d.source.y
-                            }else{
-                                return d.target.y
-                            }
-                        });
-                }
-
-                this.label
-                    .attr("x", function (d) {
-                        return d.x;
-                    })
-                    .attr("y", function (d) {
-                        return d.y;
-                    });
-            });
-
-        simulation.force("link")
-            .links(this.graph.alllinks);
+        //	force simulation initialization, the simulation running in the graph worker
+        var simulation = this.graphWorker.simulate(this.graph.allnodes, this.graph.alllinks, width, height, () => this.ticked());
 
-        simulation.alpha(1).alphaTarget(0).restart();
+        if (this.graph.layout) {
+            // display the nodes where symfinder placed them, the simulation only runs when asked to or when a node is dragged
+            simulation.stop();
+            this.ticked();
+        } else {
+            simulation.alpha(1).alphaTarget(0).restart();
+        }
+        this.simulation = simulation;
 
         //add zoom capabilities
         var zoom_handler = d3.zoom()
@@ -614,18 +472,102 @@ class Graph {
             if (!d3.event.active) simulation.alphaTarget(0.3).restart();
             d.fx = d.x;
             d.fy = d.y;
+            simulation.fix(d);
         }
 
         function dragged(d) {
             d.fx = d3.event.x;
             d.fy = d3.event.y;
+            simulation.fix(d);
         }
 
         function dragended(d) {
             if (!d3.event.active) simulation.alphaTarget(0);
             d.fx = null;
             d.fy = null;
+            simulation.fix(d);
+        }
+    }
+
+    //	tick event handler, drawing the positions computed by the simulation
+    ticked() {
+        this.node
+            .attr("cx", function (d) {
+                return d.x;
+            })
+            .attr("cy", function (d) {
+                return d.y;
+            });
+
+        this.link
+            .attr("x1", function (d) {
+                if(d.type.includes("USE")){
+                    return d.target.x;
+                }else{
+                    return d.source.x
+                }
+            })
+            .attr("y1", function (d) {
+                if(d.type.includes("USE")){
+                    return d.target.y
+                }else{
+                    return d.source.y
+                }
+            })
+            .attr("x2", function (d) {
+                if(d.type.includes("USE")){
+                    return d.source.x
+                }else{
+                    return d.target.x
+                }
+            })
+            .attr("y2", function (d) {
+                if(d.type.includes("USE")){
+                    return d.source.y
+                }else{
+                    return d.target.y
+                }
+            });
+
+        if(this.hybridView){
+            this.linkvp
+                .attr("x1", function (d) {
+                    if(d.type.includes("USE")){
+                        return d.target.x;
+                    }else{
+                        return d.source.x
+                    }
+                })
+                .attr("y1", function (d) {
+                    if(d.type.includes("USE")){
+                        return d.target.y
+                    }else{
+                        return d.source.y
+                    }
+                })
+                .attr("x2", function (d) {
+                    if(d.type.includes("USE")){
+                        return d.source.x
+                    }else{
+                        return d.target.x
+                    }
+                })
+                .attr("y2", function (d) {
+                    if(d.type.includes("USE")){
+                        return d.source.y
+                    }else{
+                        return d.target.y
+                    }
+                });
         }
+
+        this.label
+            .attr("x", function (d) {
+                return d.x;
+            })
+            .attr("y", function (d) {
+                return d.y;
+            });
     }
 
     getNodeColor(nodeName, valueOnScale) {
@@ -644,6 +586,13 @@ class Graph {
     }
 
     setButtonsClickActions() {
+        $(document).on('click', "#warm-start-button", e => {
+            e.preventDefault();
+            if (this.simulation !== undefined) {
+                this.simulation.alpha(0.3).alphaTarget(0).restart();
+            }
+        });
+
         $(document).on('click', ".list-group-item", e => {
             e.preventDefault();
             $('.active').removeClass('active');
@@ -113,8 +113,12 @@ class NodesFilter {
      * Otherwise, the filter is a package filter, so we check that the class name starts with the filter.
      */
     static matchesFilter(name, filter) {
+        return NodesFilter.isClassFilter(filter) ? name === filter : name.startsWith(filter);
+    }
+
+    static isClassFilter(filter) {
         var sp = filter.split(".");
-        return /[A-Z]/.test(sp[sp.length - 1]) ? name === filter : name.startsWith(filter);
+        return /[A-Z]/.test(sp[sp.length - 1]);
     }
 
     getNodesListWithoutMatchingFilter(listToFilter){
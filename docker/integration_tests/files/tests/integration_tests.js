@@ -303,7 +303,7 @@ function getJsonData(file, statsFile) {
             .defer(d3.json, file)
             .defer(d3.json, statsFile)
             .await(function (err, data, statsData) {
-                resolve([data, statsData]);
+                import("./scripts/graph-format.js").then(format => resolve([format.decodeGraph(data), statsData]));
             });
     }));
 }
@@ -30,6 +30,14 @@ def run_project():
     os.system("bash rerun.sh {} {} {} {}".format(sources_package, graph_output_path, xp_codename, build))
 
 
+def run_versions(codenames):
+    # All versions are analysed in the same run, the facts of the files which did not change being shared between versions
+    build = str(xp_config.get("buildImage", ""))
+    sources_packages = [os.path.join(codename, xp_config["sourcePackage"]) for codename in codenames]
+    graph_output_paths = ["generated_visualizations/data/{}.json".format(codename) for codename in codenames]
+    os.system('bash rerun.sh "{}" "{}" {} {}'.format(" ".join(sources_packages), " ".join(graph_output_paths), xp_name, build))
+
+
 with open('symfinder.yaml', 'r') as config_file:
     data = yaml.load(config_file.read(), Loader=yaml.FullLoader)
     with open("experiments/" + data["experimentsFile"], 'r') as experiments_file:
@@ -40,6 +48,9 @@ with open('symfinder.yaml', 'r') as config_file:
                 if "repositoryUrl" not in xp_config:
                     xp_codename = xp_name
                     run_project()
-                for id in xp_config.get("tagIds", []) + xp_config.get("commitIds", []):
-                    xp_codename = xp_name + "-" + str(id).replace("/", "_")
+                codenames = [xp_name + "-" + str(id).replace("/", "_") for id in xp_config.get("tagIds", []) + xp_config.get("commitIds", [])]
+                if len(codenames) == 1:
+                    xp_codename = codenames[0]
                     run_project()
+                elif codenames:
+                    run_versions(codenames)
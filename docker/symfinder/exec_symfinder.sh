@@ -22,7 +22,30 @@
 
 set -e
 
-if [[ -d /resources2 ]]; then
+if [[ "$SYMFINDER_SERVER" == "true" ]]; then
+  echo "Starting symfinder analysis server..."
+  exec java -jar /symfinder.jar --server
+fi
+
+if [[ $# -gt 2 ]]; then
+  # Several versions of a project, analysed in the same run: their source packages, then their graph output paths
+  nb_versions=$(($# / 2))
+  sources=""
+  i=1
+  for source_package in "$@"; do
+    if [[ $i -le $nb_versions ]]; then
+      if [[ -d /resources2 ]]; then
+        echo "Copying $source_package to analyse in tmpfs mount..."
+        mkdir -p /resources/"$source_package"
+        cp -r /resources2/"$source_package"/. /resources/"$source_package"/
+      fi
+      sources="$sources /resources/$source_package"
+    fi
+    i=$((i + 1))
+  done
+  shift $nb_versions
+  java -jar /symfinder.jar $sources "$@"
+elif [[ -d /resources2 ]]; then
   echo "Copying resources to analyse in tmpfs mount..."
   cp -r /resources2/"$1" /resources/
   java -jar /symfinder.jar /resources/ "$2"
@@ -1,12 +1,22 @@
+import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Description;
 import org.neo4j.procedure.Name;
 import org.neo4j.procedure.Procedure;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Stream;
 
 
@@ -17,6 +27,10 @@ public class GetChildrenProcedure {
     @Context
     public GraphDatabaseService db;
 
+    // Transaction in which the procedure runs, giving access to the nodes and their relationships
+    @Context
+    public Transaction tx;
+
     // This gives us a log instance that outputs messages to the
     // standard log, normally found under `data/log/console.log`
     @Context
@@ -34,6 +48,59 @@ public class GetChildrenProcedure {
         return Stream.of(output);
     }
 
+    @Procedure(value = "symfinder.countAll")
+    @Description("Counts for each class or interface the number of its children having each of the given labels. " +
+            "Returns for each class or interface its ID and, for each label, a list of maps with the number of occurrences for nodes having the same name.")
+    public Stream <CountsOutput> countAll(@Name("labels") List <String> labels) {
+        Label classLabel = Label.label("CLASS");
+        Label interfaceLabel = Label.label("INTERFACE");
+        return Stream.concat(
+                tx.findNodes(classLabel).stream(),
+                tx.findNodes(interfaceLabel).stream().filter(node -> ! node.hasLabel(classLabel)))
+                .map(node -> new CountsOutput(node, labels));
+    }
+
+    public static class CountsOutput {
+        public long nodeId;
+        public Map <String, Object> counts;
+
+        /**
+         * Walks the relationships leaving the node once, grouping the distinct children having each label by name.
+         */
+        public CountsOutput(Node node, List <String> labels) {
+            Map <String, Map <Object, Set <Long>>> childrenByLabel = new LinkedHashMap <>();
+            labels.forEach(label -> childrenByLabel.put(label, new LinkedHashMap <>()));
+            for (Relationship relationship : node.getRelationships(Direction.OUTGOING)) {
+                Node child = relationship.getEndNode();
+                Object name = child.getProperty("name", null);
+                if (name == null) {
+                    continue;
+                }
+                for (Label label : child.getLabels()) {
+                    Map <Object, Set <Long>> childrenByName = childrenByLabel.get(label.name());
+                    if (childrenByName != null) {
+                        childrenByName.computeIfAbsent(name, key -> new HashSet <>()).add(child.getId());
+                    }
+                }
+            }
+            this.nodeId = node.getId();
+            this.counts = new LinkedHashMap <>();
+            childrenByLabel.forEach((label, childrenByName) -> {
+                List <Map <String, Object>> counters = new ArrayList <>();
+                childrenByName.forEach((name, children) -> counters.add(Map.of("name", name, "number", (long) children.size())));
+                counts.put(label, counters);
+            });
+        }
+
+        @Override
+        public String toString() {
+            return "CountsOutput{" +
+                    "nodeId=" + nodeId +
+                    ", counts=" + counts +
+                    '}';
+        }
+    }
+
     public class Output {
         public Object result;
 
@@ -3,13 +3,16 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.neo4j.driver.*;
+import org.neo4j.driver.Record;
 import org.neo4j.driver.types.MapAccessor;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.harness.Neo4j;
 import org.neo4j.harness.internal.InProcessNeo4jBuilder;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -144,4 +147,42 @@ public class GetChildrenProcedureTest {
             assertEquals(1L, methods2.get(0).get("number"));
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void countAllGivesSameCountsAsCount() {
+
+        try (Driver driver = GraphDatabase.driver(embeddedDatabaseServer.boltURI(), driverConfig) ;
+             Session session = driver.session()) {
+
+            long node1Id = session.run("CREATE (n:CLASS {name:'Class1'}) RETURN ID(n)").single().get(0).asLong();
+            session.run("MATCH (n) WHERE ID(n) = $idNode CREATE (n)-[r:METHOD]->(m:METHOD {name:'method1'})", parameters("idNode", node1Id));
+            session.run("MATCH (n) WHERE ID(n) = $idNode CREATE (n)-[r:METHOD]->(m:METHOD {name:'method1'})", parameters("idNode", node1Id));
+            session.run("MATCH (n) WHERE ID(n) = $idNode CREATE (n)-[r:METHOD]->(m:METHOD {name:'method2'})", parameters("idNode", node1Id));
+            session.run("MATCH (n) WHERE ID(n) = $idNode CREATE (n)-[r:METHOD]->(m:CONSTRUCTOR {name:'Class1'})", parameters("idNode", node1Id));
+
+            long node2Id = session.run("CREATE (n:INTERFACE {name:'Interface2'}) RETURN ID(n)").single().get(0).asLong();
+            session.run("MATCH (n) WHERE ID(n) = $idNode CREATE (n)-[r:METHOD]->(m:METHOD {name:'method1'})", parameters("idNode", node2Id));
+            session.run("MATCH (c) WHERE ID(c) = $idClass MATCH (i) WHERE ID(i) = $idInterface CREATE (i)-[:USE]->(c), (i)-[:USE]->(c), (c)-[:USE]->(i), (c)-[:USE]->(c)",
+                    parameters("idClass", node1Id, "idInterface", node2Id));
+            session.run("MATCH (c) WHERE ID(c) = $idNode MATCH (m:METHOD {name:'method2'}) CREATE (c)-[:USE]->(m)", parameters("idNode", node1Id));
+            session.run("CREATE (m:METHOD {name:'method1'})");
+
+            List <String> labels = List.of("METHOD", "CONSTRUCTOR", "CLASS", "INTERFACE");
+            List <Record> records = session.run("CALL symfinder.countAll($labels) YIELD nodeId, counts RETURN nodeId, counts", parameters("labels", labels)).list();
+            assertEquals(2, records.size());  // Only classes and interfaces are visited
+            for (Record record : records) {
+                Map <String, Object> counts = record.get("counts").asMap();
+                assertEquals(labels.size(), counts.size());
+                for (String label : labels) {
+                    List <Object> expected = session.run("CALL symfinder.count($idNode, $label) YIELD result as res",
+                            parameters("idNode", record.get("nodeId").asLong(), "label", label)).single().get("res").asList();
+                    assertEquals(new HashSet <>(expected), new HashSet <>((List <?>) counts.get(label)));
+                }
+            }
+
+            Map <String, Object> class1 = records.stream().filter(record -> record.get("nodeId").asLong() == node1Id).findFirst().get().get("counts").asMap();
+            assertEquals(Set.of(Map.of("name", "method1", "number", 2L), Map.of("name", "method2", "number", 1L)), new HashSet <>((List <?>) class1.get("METHOD")));
+            assertEquals(List.of(Map.of("name", "Class1", "number", 1L)), class1.get("CLASS"));
+        }
+    }
+}
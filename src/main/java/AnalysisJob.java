@@ -0,0 +1,119 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Analysis of a project submitted to the analysis server, with the progress messages reported so far.
+ * Threads streaming the progress wait on the job for new messages.
+ */
+class AnalysisJob {
+
+    enum Status {
+        QUEUED, RUNNING, SUCCEEDED, FAILED
+    }
+
+    private final int id;
+    private final String sourcePackage;
+    private final String graphOutputPath;
+    private final List <String> progress = new ArrayList <>();
+    private Status status = Status.QUEUED;
+    private String error;
+
+    AnalysisJob(int id, String sourcePackage, String graphOutputPath) {
+        this.id = id;
+        this.sourcePackage = sourcePackage;
+        this.graphOutputPath = graphOutputPath;
+    }
+
+    int getId() {
+        return id;
+    }
+
+    String getSourcePackage() {
+        return sourcePackage;
+    }
+
+    String getGraphOutputPath() {
+        return graphOutputPath;
+    }
+
+    synchronized Status getStatus() {
+        return status;
+    }
+
+    synchronized boolean isDone() {
+        return status == Status.SUCCEEDED || status == Status.FAILED;
+    }
+
+    synchronized void start() {
+        status = Status.RUNNING;
+        notifyAll();
+    }
+
+    synchronized void report(String message) {
+        progress.add(message);
+        notifyAll();
+    }
+
+    /**
+     * @param error cause of the failure of the analysis, null if it succeeded
+     */
+    synchronized void finish(Throwable error) {
+        if (error == null) {
+            status = Status.SUCCEEDED;
+        } else {
+            status = Status.FAILED;
+            this.error = error.toString();
+        }
+        notifyAll();
+    }
+
+    /**
+     * Waits until messages are reported after the given number of messages, or until the job is done.
+     *
+     * @return the messages reported after the first ones, empty if the job is done and there is no new message
+     */
+    synchronized List <String> awaitProgress(int nbKnownMessages) throws InterruptedException {
+        while (progress.size() <= nbKnownMessages && ! isDone()) {
+            wait();
+        }
+        return new ArrayList <>(progress.subList(nbKnownMessages, progress.size()));
+    }
+
+    synchronized JSONObject toJson() {
+        JSONObject json = new JSONObject()
+                .put("id", id)
+                .put("sourcePackage", sourcePackage)
+                .put("graphOutputPath", graphOutputPath)
+                .put("status", status.name())
+                .put("progress", new JSONArray(progress));
+        if (error != null) {
+            json.put("error", error);
+        }
+        return json;
+    }
+}
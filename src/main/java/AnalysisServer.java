@@ -0,0 +1,287 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import configuration.Configuration;
+import neograph.GraphStore;
+import neograph.MemoryGraph;
+import neograph.NeoGraph;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Long-running symfinder engine, analysing the projects submitted through a local HTTP API.
+ * Classes loaded for parsing, compiled code and the connection to Neo4j are kept from one analysis to the other.
+ * <p>
+ * API:
+ * <ul>
+ * <li>{@code POST /jobs} with {@code {"sourcePackage": ..., "graphOutputPath": ...}} submits an analysis and returns the job</li>
+ * <li>{@code GET /jobs} returns all jobs, {@code GET /jobs/<id>} returns a job with its status and progress messages</li>
+ * <li>{@code GET /jobs/<id>/progress} streams the progress messages of a job, one per line, until the job is done</li>
+ * </ul>
+ * At most {@code maxParallelJobs} analyses run at the same time, the following ones waiting in submission order.
+ * Analyses built in memory run concurrently, whereas the ones using the Neo4j database run one at a time,
+ * the database holding a single graph.
+ * Only the last {@code retainedJobs} finished jobs are kept, older ones being unknown afterwards.
+ */
+public class AnalysisServer {
+
+    private static final Logger logger = LogManager.getLogger(AnalysisServer.class);
+
+    private final HttpServer server;
+    private final ExecutorService jobsExecutor;
+    private final ExecutorService requestsExecutor;
+    private final ConcurrentSkipListMap <Integer, AnalysisJob> jobs = new ConcurrentSkipListMap <>();
+    private final AtomicInteger nbJobs = new AtomicInteger();
+    private final int retainedJobs;
+    private final Lock neo4jLock = new ReentrantLock(true);
+    private NeoGraph neoGraph;
+
+    /**
+     * @param port            port of the HTTP API, 0 for any free port
+     * @param maxParallelJobs maximum number of analyses running at the same time
+     * @param retainedJobs    number of finished jobs kept, at least 1
+     */
+    public AnalysisServer(int port, int maxParallelJobs, int retainedJobs) throws IOException {
+        this.retainedJobs = Math.max(1, retainedJobs);
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/jobs", this::handle);
+        // progress streams keep their thread until the job is done
+        requestsExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(requestsExecutor);
+        jobsExecutor = Executors.newFixedThreadPool(Math.max(1, maxParallelJobs));
+    }
+
+    public void start() {
+        server.start();
+        logger.log(Level.getLevel("MY_LEVEL"), "Analysis server listening on port " + getPort());
+    }
+
+    /**
+     * Stops accepting requests and jobs, waits for the running jobs and closes the connection to Neo4j.
+     */
+    public void stop() {
+        server.stop(0);
+        jobsExecutor.shutdown();
+        try {
+            jobsExecutor.awaitTermination(1, TimeUnit.HOURS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        requestsExecutor.shutdownNow();
+        if (neoGraph != null) {
+            neoGraph.close();
+        }
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Queues the analysis of the project.
+     */
+    AnalysisJob submit(String sourcePackage, String graphOutputPath) {
+        AnalysisJob job = new AnalysisJob(nbJobs.incrementAndGet(), sourcePackage, graphOutputPath);
+        jobs.put(job.getId(), job);
+        jobsExecutor.submit(() -> run(job));
+        return job;
+    }
+
+    private void run(AnalysisJob job) {
+        job.start();
+        logger.log(Level.getLevel("MY_LEVEL"), "Analysing " + job.getSourcePackage() + " (job " + job.getId() + ")");
+        Throwable error = null;
+        try {
+            if (Configuration.isGraphInMemory() && ! Configuration.isGraphExportedToNeo4j()) {
+                analyse(job, new MemoryGraph());
+            } else {
+                neo4jLock.lock();
+                try {
+                    analyse(job, Configuration.isGraphInMemory() ? new MemoryGraph() : getEmptyNeoGraph());
+                } finally {
+                    neo4jLock.unlock();
+                }
+            }
+        } catch (IOException | RuntimeException | Error e) {
+            logger.error("Analysis of " + job.getSourcePackage() + " (job " + job.getId() + ") failed", e);
+            error = e;
+        }
+        forgetOldJobs(job);
+        job.finish(error);
+    }
+
+    /**
+     * Forgets the oldest finished jobs, so that the server keeps at most retainedJobs finished jobs once the given job is finished.
+     * This is done before the job is finished, so that the clients waiting for it see the jobs which are kept.
+     */
+    private synchronized void forgetOldJobs(AnalysisJob finishingJob) {
+        int nbFinishedJobs = 1;
+        for (AnalysisJob job : jobs.descendingMap().values()) {
+            if (job != finishingJob && job.isDone()) {
+                if (nbFinishedJobs < retainedJobs) {
+                    nbFinishedJobs++;
+                } else {
+                    jobs.remove(job.getId());
+                }
+            }
+        }
+    }
+
+    private void analyse(AnalysisJob job, GraphStore graph) throws IOException {
+        Symfinder symfinder = new Symfinder(job.getSourcePackage(), job.getGraphOutputPath(), graph);
+        symfinder.setProgressListener(job::report);
+        try {
+            symfinder.run();
+        } finally {
+            if (graph instanceof MemoryGraph) {
+                graph.close();
+            }
+        }
+    }
+
+    /**
+     * @return the graph stored in Neo4j, emptied from the previous analysis
+     */
+    private NeoGraph getEmptyNeoGraph() {
+        if (neoGraph == null) {
+            neoGraph = new NeoGraph(Configuration.getNeo4JBoltAddress(),
+                    Configuration.getNeo4JUser(),
+                    Configuration.getNeo4JPassword());
+        }
+        neoGraph.deleteGraph();
+        return neoGraph;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String[] path = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/+");
+            String method = exchange.getRequestMethod();
+            if (! path[0].equals("jobs") || path.length > 3) {
+                send(exchange, 404, error("Unknown resource " + exchange.getRequestURI().getPath()));
+            } else if (path.length == 1 && method.equals("POST")) {
+                handleSubmit(exchange);
+            } else if (path.length == 1 && method.equals("GET")) {
+                JSONArray array = new JSONArray();
+                jobs.values().forEach(job -> array.put(job.toJson()));
+                send(exchange, 200, array.toString());
+            } else if (method.equals("GET")) {
+                AnalysisJob job = getJob(path[1]);
+                if (job == null) {
+                    send(exchange, 404, error("Unknown job " + path[1]));
+                } else if (path.length == 2) {
+                    send(exchange, 200, job.toJson().toString());
+                } else if (path[2].equals("progress")) {
+                    streamProgress(exchange, job);
+                } else {
+                    send(exchange, 404, error("Unknown resource " + path[2]));
+                }
+            } else {
+                send(exchange, 405, error("Method " + method + " not allowed"));
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleSubmit(HttpExchange exchange) throws IOException {
+        String sourcePackage;
+        String graphOutputPath;
+        try (InputStream body = exchange.getRequestBody()) {
+            JSONObject request = new JSONObject(new String(body.readAllBytes(), StandardCharsets.UTF_8));
+            sourcePackage = request.getString("sourcePackage");
+            graphOutputPath = request.getString("graphOutputPath");
+        } catch (JSONException e) {
+            send(exchange, 400, error(e.getMessage()));
+            return;
+        }
+        AnalysisJob job = submit(sourcePackage, graphOutputPath);
+        exchange.getResponseHeaders().set("Location", "/jobs/" + job.getId());
+        send(exchange, 202, job.toJson().toString());
+    }
+
+    private AnalysisJob getJob(String id) {
+        try {
+            return jobs.get(Integer.parseInt(id));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Sends the progress messages as they are reported, the response ending with the final status of the job.
+     */
+    private void streamProgress(HttpExchange exchange, AnalysisJob job) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        try (Writer writer = new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8)) {
+            int nbSentMessages = 0;
+            List <String> messages;
+            while (! (messages = job.awaitProgress(nbSentMessages)).isEmpty()) {
+                for (String message : messages) {
+                    writer.write(message);
+                    writer.write('\n');
+                }
+                writer.flush();
+                nbSentMessages += messages.size();
+            }
+            writer.write(job.getStatus().name());
+            writer.write('\n');
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String error(String message) {
+        return new JSONObject().put("error", message).toString();
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -19,12 +19,34 @@
  * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
  */
 
+import configuration.Configuration;
+import profiling.FlightRecording;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 public class Main {
 
     public static void main(String[] args) {
         System.setProperty("logfilename", Optional.ofNullable(System.getenv("PROJECT_NAME")).orElse("debug.log"));
+        if (Configuration.isProfilingContinuousRecordingEnabled()) {
+            startRecording();
+        }
+        if (args.length == 1 && args[0].equals("--server")) {
+            startServer();
+            return;
+        }
+        if (args.length > 2 && args.length % 2 == 0) {
+            // several versions: their source packages, then their graph output paths
+            List <String> arguments = Arrays.asList(args);
+            Symfinder.runVersions(arguments.subList(0, args.length / 2), arguments.subList(args.length / 2, args.length));
+            System.exit(0);
+        }
         try {
             new Symfinder(args[0], args[1]).run();
         } catch (Exception e) {
@@ -32,4 +54,31 @@ public class Main {
         }
         System.exit(0);
     }
+
+    /**
+     * Starts the continuous Flight Recorder recording, the analysis running without it if it cannot be started.
+     */
+    private static void startRecording() {
+        try {
+            FlightRecording.startContinuousRecording(Paths.get(Configuration.getProfilingRecordingFile()),
+                    Duration.ofMinutes(Configuration.getProfilingRecordingMaxAge()));
+        } catch (IOException | ParseException | IllegalStateException | SecurityException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Starts the analysis server, which runs until the JVM is stopped.
+     */
+    private static void startServer() {
+        try {
+            AnalysisServer server = new AnalysisServer(Configuration.getServerPort(), Configuration.getServerMaxParallelJobs(),
+                    Configuration.getServerRetainedJobs());
+            Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+            server.start();
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
 }
@@ -20,28 +20,30 @@
  */
 
 import configuration.Configuration;
+import facts.FactContext;
+import facts.FileFacts;
+import neograph.GraphStore;
+import neograph.MemoryGraph;
 import neograph.NeoGraph;
+import neograph.UnitOfWork;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.eclipse.jdt.core.JavaCore;
-import org.eclipse.jdt.core.dom.AST;
-import org.eclipse.jdt.core.dom.ASTParser;
-import org.eclipse.jdt.core.dom.ASTVisitor;
-import org.eclipse.jdt.core.dom.CompilationUnit;
-import visitors.*;
+import parsing.Manifest;
+import parsing.ParsingPipeline;
+import parsing.SourceReader;
+import profiling.PerformanceReport;
+import profiling.StatementProfiler;
+import visitors.FactsExtractor;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.UncheckedIOException;
-import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * Inspired by https://www.programcreek.com/2014/01/how-to-resolve-bindings-when-using-eclipse-jdt-astparser/
@@ -50,21 +52,96 @@ public class Symfinder {
 
     private static final Logger logger = LogManager.getLogger(Symfinder.class);
 
-    private NeoGraph neoGraph;
+    private GraphStore graph;
     private String sourcePackage;
     private String graphOutputPath;
+    private boolean closeGraph;
+    private Manifest manifest;
+    private PerformanceReport performanceReport;
+    private StatementProfiler statementProfiler;
+    private Consumer <String> progressListener = message -> {
+    };
 
     public Symfinder(String sourcePackage, String graphOutputPath) {
+        this(sourcePackage, graphOutputPath, Configuration.isGraphInMemory() ? new MemoryGraph() : createNeoGraph());
+        this.closeGraph = true;
+    }
+
+    /**
+     * Analyses the project in the given graph, which is left open at the end of the analysis so that it can be reused.
+     */
+    Symfinder(String sourcePackage, String graphOutputPath, GraphStore graph) {
         this.sourcePackage = sourcePackage;
         this.graphOutputPath = graphOutputPath;
-        this.neoGraph = new NeoGraph(Configuration.getNeo4JBoltAddress(),
-                Configuration.getNeo4JUser(),
-                Configuration.getNeo4JPassword());
+        this.graph = graph;
+    }
+
+    /**
+     * Analyses versions of a project one after the other, writing the graph of each version to its output path.
+     * In incremental mode, the facts of the files which did not change from one version to the next are reused.
+     * The connection to Neo4j is kept from one version to the other.
+     *
+     * @param sourcePackages   sources of each version, in the order of the versions
+     * @param graphOutputPaths output path of the graph of each version
+     */
+    static void runVersions(List <String> sourcePackages, List <String> graphOutputPaths) {
+        NeoGraph neoGraph = null;
+        Manifest previousManifest = null;
+        try {
+            for (int i = 0 ; i < sourcePackages.size() ; i++) {
+                GraphStore graph;
+                if (Configuration.isGraphInMemory()) {
+                    graph = new MemoryGraph();
+                } else if (neoGraph == null) {
+                    graph = neoGraph = createNeoGraph();
+                } else {
+                    neoGraph.deleteGraph();
+                    graph = neoGraph;
+                }
+                Symfinder symfinder = new Symfinder(sourcePackages.get(i), graphOutputPaths.get(i), graph);
+                symfinder.manifest = previousManifest;
+                try {
+                    symfinder.report("Analysing version " + (i + 1) + "/" + sourcePackages.size() + ": " + sourcePackages.get(i));
+                    symfinder.run();
+                    previousManifest = symfinder.manifest;
+                } catch (IOException | RuntimeException e) {
+                    e.printStackTrace();
+                    previousManifest = null;
+                }
+                if (graph instanceof MemoryGraph) {
+                    graph.close();
+                }
+            }
+        } finally {
+            if (neoGraph != null) {
+                neoGraph.close();
+            }
+        }
+    }
+
+    /**
+     * @param progressListener called with each step of the analysis and its measures, as they are logged
+     */
+    void setProgressListener(Consumer <String> progressListener) {
+        this.progressListener = progressListener;
     }
 
     public void run() throws IOException {
+        performanceReport = new PerformanceReport();
+        try {
+            analyse();
+        } finally {
+            performanceReport.close();
+        }
+    }
+
+    private void analyse() throws IOException {
         long symfinderStartTime = System.currentTimeMillis();
-        logger.log(Level.getLevel("MY_LEVEL"), "Symfinder version: " + System.getenv("SYMFINDER_VERSION"));
+        statementProfiler = new StatementProfiler(Configuration.isProfilingStatementEventsEnabled());
+        if (graph instanceof NeoGraph) {
+            profile((NeoGraph) graph);
+        }
+        report("Symfinder version: " + System.getenv("SYMFINDER_VERSION"));
         String classpathPath;
 
         classpathPath = System.getenv("JAVA_HOME");
@@ -79,72 +156,160 @@ public class Symfinder {
                 .filter(file -> file.getName().endsWith(".java"))
                 .collect(Collectors.toList());
 
-        neoGraph.createClassesIndex();
-        neoGraph.createInterfacesIndex();
+        graph.createClassesIndex();
+        graph.createInterfacesIndex();
 
-        logger.log(Level.getLevel("MY_LEVEL"), "ClassesVisitor");
-        visitPackage(classpathPath, files, new ClassesVisitor(neoGraph));
-        logger.log(Level.getLevel("MY_LEVEL"), "GraphBuilderVisitor");
-        visitPackage(classpathPath, files, new GraphBuilderVisitor(neoGraph));
-        logger.log(Level.getLevel("MY_LEVEL"), "StrategyTemplateVisitor");
-        visitPackage(classpathPath, files, new StrategyTemplateDecoratorVisitor(neoGraph));
-        logger.log(Level.getLevel("MY_LEVEL"), "FactoryVisitor");
-        visitPackage(classpathPath, files, new FactoryVisitor(neoGraph));
-        logger.log(Level.getLevel("MY_LEVEL"), "ComposeTypeVisitor");
-        visitPackage(classpathPath, files, new ComposeTypeVisitor(neoGraph));
-        /*logger.log(Level.getLevel("MY_LEVEL"), "LocalVariablesVisitor");
-        visitPackage(classpathPath, files, new LocalVariablesVisitor(neoGraph));*/
-
-        neoGraph.detectVPsAndVariants();
-        neoGraph.detectHotspots();
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of VPs: " + neoGraph.getTotalNbVPs());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of methods VPs: " + neoGraph.getNbMethodVPs());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of constructors VPs: " + neoGraph.getNbConstructorVPs());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of method level VPs: " + neoGraph.getNbMethodLevelVPs());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of class level VPs: " + neoGraph.getNbClassLevelVPs());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of variants: " + neoGraph.getTotalNbVariants());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of methods variants: " + neoGraph.getNbMethodVariants());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of constructors variants: " + neoGraph.getNbConstructorVariants());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of method level variants: " + neoGraph.getNbMethodLevelVariants());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of class level variants: " + neoGraph.getNbClassLevelVariants());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of nodes: " + neoGraph.getNbNodes());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of relationships: " + neoGraph.getNbRelationships());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of corrected inheritance relationships: " + GraphBuilderVisitor.getNbCorrectedInheritanceLinks() + "/" + neoGraph.getNbInheritanceRelationships());
-        neoGraph.writeVPGraphFile(graphOutputPath);
-        neoGraph.writeStatisticsFile(graphOutputPath.replace(".json", "-stats.json"));
-        logger.debug(neoGraph.generateStatisticsJson());
-        neoGraph.closeDriver();
+        FactContext factContext = new FactContext(graph);
+        List <FileFacts> filesFacts;
+        try (UnitOfWork ignored = graph.beginUnitOfWork(Configuration.getNeo4JCommitInterval())) {
+            filesFacts = parseFiles(classpathPath, files, factContext);
+        }
+        for (int pass = 1 ; pass < FactsExtractor.PASSES.size() ; pass++) {
+            try (UnitOfWork ignored = graph.beginUnitOfWork(Configuration.getNeo4JCommitInterval())) {
+                applyPass(filesFacts, factContext, pass);
+            }
+        }
+
+        try (UnitOfWork ignored = graph.beginUnitOfWork(Configuration.getNeo4JCommitInterval())) {
+            try (PerformanceReport.Phase ignoredPhase = performanceReport.startPhase("detectVPsAndVariants")) {
+                graph.detectVPsAndVariants();
+            }
+            try (PerformanceReport.Phase ignoredPhase = performanceReport.startPhase("detectHotspots")) {
+                graph.detectHotspots();
+            }
+        }
+        report("Number of VPs: " + graph.getTotalNbVPs());
+        report("Number of methods VPs: " + graph.getNbMethodVPs());
+        report("Number of constructors VPs: " + graph.getNbConstructorVPs());
+        report("Number of method level VPs: " + graph.getNbMethodLevelVPs());
+        report("Number of class level VPs: " + graph.getNbClassLevelVPs());
+        report("Number of variants: " + graph.getTotalNbVariants());
+        report("Number of methods variants: " + graph.getNbMethodVariants());
+        report("Number of constructors variants: " + graph.getNbConstructorVariants());
+        report("Number of method level variants: " + graph.getNbMethodLevelVariants());
+        report("Number of class level variants: " + graph.getNbClassLevelVariants());
+        report("Number of nodes: " + graph.getNbNodes());
+        report("Number of relationships: " + graph.getNbRelationships());
+        report("Number of corrected inheritance relationships: " + factContext.getNbCorrectedInheritanceLinks() + "/" + graph.getNbInheritanceRelationships());
+        try (PerformanceReport.Phase ignored = performanceReport.startPhase("writeGraph")) {
+            graph.writeVPGraphFile(graphOutputPath);
+        }
+        graph.writeStatisticsFile(graphOutputPath.replace(".json", "-stats.json"));
+        logger.debug(graph.generateStatisticsJson());
+        if (Configuration.isGraphInMemory() && Configuration.isGraphExportedToNeo4j()) {
+            try (PerformanceReport.Phase ignored = performanceReport.startPhase("exportToNeo4j")) {
+                exportToNeo4j((MemoryGraph) graph);
+            }
+        }
+        reportSlowestStatements();
+        graph.writeToFile(graphOutputPath.replace(".json", "-perf.json"), writer -> writer.write(performanceReport.toJson()
+                .put("slowestStatements", statementProfiler.toJson(Configuration.getProfilingSlowStatements()))
+                .toString()));
+        if (graph instanceof NeoGraph) {
+            ((NeoGraph) graph).setPerformanceReport(null);
+            ((NeoGraph) graph).setStatementProfiler(null);
+        }
+        if (closeGraph) {
+            graph.close();
+        }
         long symfinderExecutionTime = System.currentTimeMillis() - symfinderStartTime;
-        logger.printf(Level.getLevel("MY_LEVEL"), "Total execution time: %s", formatExecutionTime(symfinderExecutionTime));
+        report(String.format("Total execution time: %s", formatExecutionTime(symfinderExecutionTime)));
     }
 
-    private void visitPackage(String classpathPath, List <File> files, ASTVisitor visitor) throws IOException {
+    /**
+     * Parses all files and runs all visitors on each compilation unit.
+     * The compilation units are not kept, only the facts recorded by the visitors.
+     * The facts of the first pass are applied while the remaining files are being parsed.
+     * In incremental mode, the facts of the files which did not change since the previous analysis are read from the manifest.
+     * When analysing several versions, the manifest of the previous version is used instead.
+     * As the graph starts empty, the facts of all files are applied in any case.
+     */
+    private List <FileFacts> parseFiles(String classpathPath, List <File> files, FactContext factContext) throws IOException {
+        report("Parsing with " + Configuration.getParsingThreads() + " threads");
         long startTime = System.currentTimeMillis();
-        for (File file : files) {
-            String fileContent = getFileLines(file);
-
-            ASTParser parser = ASTParser.newParser(AST.JLS13);
-            parser.setResolveBindings(true);
-            parser.setKind(ASTParser.K_COMPILATION_UNIT);
-
-            parser.setBindingsRecovery(true);
+        PerformanceReport.Phase phase = performanceReport.startPhase("parsing");
+        SourceReader sourceReader = new SourceReader(Configuration.getParsingFallbackCharsets(), Configuration.getParsingMemoryMappingThreshold());
+        ParsingPipeline pipeline = new ParsingPipeline(classpathPath, sourceReader, Configuration.getParsingThreads(), Configuration.getParsingQueueSize());
+        pipeline.setPerformanceReport(performanceReport);
+        String environment = classpathPath + " " + Configuration.getParsingFallbackCharsets();
+        Path manifestPath = Paths.get(graphOutputPath.replace(".json", "-manifest.json.gz"));
+        if (! Configuration.isParsingIncremental()) {
+            manifest = new Manifest(Paths.get(sourcePackage), environment);
+        } else if (manifest != null) {
+            manifest = manifest.forSourceDirectory(Paths.get(sourcePackage), environment);
+        } else {
+            manifest = Manifest.load(manifestPath, Paths.get(sourcePackage), environment);
+        }
+        List <FileFacts> filesFacts = pipeline.parse(files, manifest, fileFacts -> applyFacts(fileFacts, factContext, 0));
+        if (Configuration.isParsingIncremental()) {
+            manifest.save(manifestPath);
+        }
+        phase.close();
+        long elapsedTime = System.currentTimeMillis() - startTime;
+        report(String.format("Parsing and %s execution time: %s", FactsExtractor.PASSES.get(0), formatExecutionTime(elapsedTime)));
+        return filesFacts;
+    }
 
-            parser.setCompilerOptions(JavaCore.getOptions());
+    private static NeoGraph createNeoGraph() {
+        return new NeoGraph(Configuration.getNeo4JBoltAddress(),
+                Configuration.getNeo4JUser(),
+                Configuration.getNeo4JPassword());
+    }
 
-            parser.setUnitName(file.getCanonicalPath());
+    /**
+     * Copies the graph built in memory into the Neo4j database, so that it can be explored after the analysis.
+     */
+    private void exportToNeo4j(MemoryGraph memoryGraph) {
+        long startTime = System.currentTimeMillis();
+        NeoGraph neoGraph = createNeoGraph();
+        profile(neoGraph);
+        neoGraph.createClassesIndex();
+        neoGraph.createInterfacesIndex();
+        try (UnitOfWork ignored = neoGraph.beginUnitOfWork(Configuration.getNeo4JCommitInterval())) {
+            memoryGraph.exportTo(neoGraph);
+        }
+        neoGraph.closeDriver();
+        long elapsedTime = System.currentTimeMillis() - startTime;
+        report(String.format("Export to Neo4j execution time: %s", formatExecutionTime(elapsedTime)));
+    }
 
-            parser.setEnvironment(new String[]{classpathPath}, new String[]{""}, new String[]{"UTF-8"}, true);
-            parser.setSource(fileContent.toCharArray());
+    private void profile(NeoGraph neoGraph) {
+        neoGraph.setPerformanceReport(performanceReport);
+        neoGraph.setStatementProfiler(statementProfiler);
+    }
 
-            Map <String, String> options = JavaCore.getOptions();
-            options.put(JavaCore.COMPILER_SOURCE, JavaCore.VERSION_13);
-            parser.setCompilerOptions(options);
+    /**
+     * Logs the statement templates which took the most time in total, with their latencies.
+     */
+    private void reportSlowestStatements() {
+        List <StatementProfiler.StatementStatistics> slowestStatements = statementProfiler.getSlowestStatements(Configuration.getProfilingSlowStatements());
+        if (! slowestStatements.isEmpty()) {
+            report("Slowest statements:");
+            slowestStatements.forEach(statement -> report(statement.toString()));
+        }
+    }
 
-            CompilationUnit cu = (CompilationUnit) parser.createAST(null);
-            cu.accept(visitor);
+    private void applyPass(List <FileFacts> filesFacts, FactContext factContext, int pass) {
+        String visitorName = FactsExtractor.PASSES.get(pass);
+        report(visitorName.substring(visitorName.lastIndexOf('.') + 1));
+        long startTime = System.currentTimeMillis();
+        for (FileFacts fileFacts : filesFacts) {
+            applyFacts(fileFacts, factContext, pass);
         }
         long elapsedTime = System.currentTimeMillis() - startTime;
-        logger.printf(Level.getLevel("MY_LEVEL"), "%s execution time: %s", visitor.getClass().getTypeName(), formatExecutionTime(elapsedTime));
+        report(String.format("%s execution time: %s", visitorName, formatExecutionTime(elapsedTime)));
+    }
+
+    private void applyFacts(FileFacts fileFacts, FactContext factContext, int pass) {
+        long startTime = System.nanoTime();
+        long startCpuTime = PerformanceReport.getCurrentThreadCpuTime();
+        factContext.apply(fileFacts, pass);
+        performanceReport.applied(FactsExtractor.PASSES.get(pass), System.nanoTime() - startTime, PerformanceReport.getCurrentThreadCpuTime() - startCpuTime);
+    }
+
+    private void report(String message) {
+        logger.log(Level.getLevel("MY_LEVEL"), message);
+        progressListener.accept(message);
     }
 
     private boolean isTestPath(Path path) {
@@ -157,27 +322,6 @@ public class Symfinder {
         return false;
     }
 
-    private String getFileLines(File file) {
-        for (Charset charset : Charset.availableCharsets().values()) {
-            String lines = getFileLinesWithEncoding(file, charset);
-            if (lines != null) {
-                return lines;
-            }
-        }
-        return null;
-    }
-
-    private String getFileLinesWithEncoding(File file, Charset charset) {
-        try (Stream <String> lines = Files.lines(file.toPath(), charset)) {
-            return lines.collect(Collectors.joining("\n"));
-        } catch (UncheckedIOException e) {
-            logger.debug(charset.displayName() + ": wrong encoding");
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        return null;
-    }
-
     static String formatExecutionTime(long execTime) {
         long ms = execTime % 1000;
         long seconds = (execTime - ms) / 1000;
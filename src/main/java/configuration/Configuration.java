@@ -26,6 +26,10 @@ import org.yaml.snakeyaml.Yaml;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
 
 public class Configuration {
     private static Configuration ourInstance = new Configuration();
@@ -63,6 +67,22 @@ public class Configuration {
         return properties.getNeo4j().password;
     }
 
+    /**
+     * @return maximum number of write operations sent to the database in a single batch
+     */
+    public static int getNeo4JBatchSize() {
+        int batchSize = properties.getNeo4j().batchSize;
+        return batchSize <= 0 ? 1000 : batchSize;
+    }
+
+    /**
+     * @return number of statements after which the transaction of a unit of work is committed
+     */
+    public static int getNeo4JCommitInterval() {
+        int commitInterval = properties.getNeo4j().commitInterval;
+        return commitInterval <= 0 ? 100 : commitInterval;
+    }
+
     public static int getVariantsThreshold() {
         return properties.getHotspotsParameters().nbVariantsThreshold;
     }
@@ -71,4 +91,138 @@ public class Configuration {
         return properties.getHotspotsParameters().nbUsageHops;
     }
 
+    /**
+     * @return number of threads parsing the source files, the number of available processors if not set
+     */
+    public static int getParsingThreads() {
+        ParsingParameters parsing = properties.getParsingParameters();
+        return parsing == null || parsing.threads <= 0 ? Runtime.getRuntime().availableProcessors() : parsing.threads;
+    }
+
+    /**
+     * @return maximum number of parsed files waiting to be written in the graph
+     */
+    public static int getParsingQueueSize() {
+        ParsingParameters parsing = properties.getParsingParameters();
+        return parsing == null || parsing.queueSize <= 0 ? 1000 : parsing.queueSize;
+    }
+
+    /**
+     * @return charsets tried in order to read a source file which is not valid UTF-8
+     */
+    public static List <Charset> getParsingFallbackCharsets() {
+        ParsingParameters parsing = properties.getParsingParameters();
+        if (parsing == null || parsing.fallbackCharsets == null) {
+            return List.of(Charset.forName("windows-1252"), StandardCharsets.ISO_8859_1);
+        }
+        return parsing.fallbackCharsets.stream().map(Charset::forName).collect(Collectors.toList());
+    }
+
+    /**
+     * @return size in bytes above which source files are memory-mapped
+     */
+    public static long getParsingMemoryMappingThreshold() {
+        ParsingParameters parsing = properties.getParsingParameters();
+        return parsing == null || parsing.memoryMappingThreshold <= 0 ? 1024 * 1024 : parsing.memoryMappingThreshold;
+    }
+
+    /**
+     * @return true if only the files which changed since the previous analysis of the project are parsed
+     */
+    public static boolean isParsingIncremental() {
+        ParsingParameters parsing = properties.getParsingParameters();
+        return parsing != null && parsing.incremental;
+    }
+
+    /**
+     * @return true if the graph is built in memory, false if it is stored in Neo4j
+     */
+    public static boolean isGraphInMemory() {
+        GraphParameters graph = properties.getGraphParameters();
+        return graph != null && "memory".equals(graph.store);
+    }
+
+    /**
+     * @return true if the graph built in memory is copied into Neo4j at the end of the analysis
+     */
+    public static boolean isGraphExportedToNeo4j() {
+        GraphParameters graph = properties.getGraphParameters();
+        return graph != null && graph.exportToNeo4j;
+    }
+
+    /**
+     * @return number of iterations of the force layout written with the graph for the visualization, 0 if no layout is computed
+     */
+    public static int getGraphLayoutIterations() {
+        GraphParameters graph = properties.getGraphParameters();
+        return graph == null || graph.layoutIterations == null ? 300 : Math.max(0, graph.layoutIterations);
+    }
+
+    /**
+     * @return port on which the analysis server accepts jobs
+     */
+    public static int getServerPort() {
+        ServerParameters server = properties.getServerParameters();
+        return server == null || server.port <= 0 ? 8080 : server.port;
+    }
+
+    /**
+     * @return maximum number of analyses run at the same time by the server,
+     * by default as many as the parsing threads allow on the available processors
+     */
+    public static int getServerMaxParallelJobs() {
+        ServerParameters server = properties.getServerParameters();
+        return server == null || server.maxParallelJobs <= 0 ?
+                Math.max(1, Runtime.getRuntime().availableProcessors() / getParsingThreads()) :
+                server.maxParallelJobs;
+    }
+
+    /**
+     * @return number of finished analyses whose status and progress messages are kept by the server, the oldest ones being forgotten
+     */
+    public static int getServerRetainedJobs() {
+        ServerParameters server = properties.getServerParameters();
+        return server == null || server.retainedJobs <= 0 ? 100 : server.retainedJobs;
+    }
+
+    /**
+     * @return number of statement templates reported at the end of the analysis, those which took the most time in total
+     */
+    public static int getProfilingSlowStatements() {
+        ProfilingParameters profiling = properties.getProfilingParameters();
+        return profiling == null || profiling.slowStatements == null ? 10 : Math.max(0, profiling.slowStatements);
+    }
+
+    /**
+     * @return true if the statements sent to Neo4j are recorded as Flight Recorder events, which is the case during a continuous recording
+     */
+    public static boolean isProfilingStatementEventsEnabled() {
+        ProfilingParameters profiling = properties.getProfilingParameters();
+        return profiling != null && (profiling.statementEvents || profiling.continuousRecording);
+    }
+
+    /**
+     * @return true if symfinder runs with a Flight Recorder recording, written when it exits
+     */
+    public static boolean isProfilingContinuousRecordingEnabled() {
+        ProfilingParameters profiling = properties.getProfilingParameters();
+        return profiling != null && profiling.continuousRecording;
+    }
+
+    /**
+     * @return file to which the continuous recording is written
+     */
+    public static String getProfilingRecordingFile() {
+        ProfilingParameters profiling = properties.getProfilingParameters();
+        return profiling == null || profiling.recordingFile == null ? "symfinder.jfr" : profiling.recordingFile;
+    }
+
+    /**
+     * @return number of minutes of events kept by the continuous recording
+     */
+    public static int getProfilingRecordingMaxAge() {
+        ProfilingParameters profiling = properties.getProfilingParameters();
+        return profiling == null || profiling.recordingMaxAge == null || profiling.recordingMaxAge <= 0 ? 60 : profiling.recordingMaxAge;
+    }
+
 }
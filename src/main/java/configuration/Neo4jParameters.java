@@ -26,6 +26,8 @@ public class Neo4jParameters {
     public String boltAddress;
     public String user;
     public String password;
+    public int batchSize;
+    public int commitInterval;
 
     public String getBoltAddress() {
         return boltAddress;
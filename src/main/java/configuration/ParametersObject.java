@@ -25,6 +25,10 @@ public class ParametersObject {
 
     public Neo4jParameters neo4j;
     public HotspotsParameters hotspots;
+    public ParsingParameters parsing;
+    public GraphParameters graph;
+    public ServerParameters server;
+    public ProfilingParameters profiling;
     public String experimentsFile;
 
     public Neo4jParameters getNeo4j() {
@@ -35,4 +39,20 @@ public class ParametersObject {
         return hotspots;
     }
 
+    public ParsingParameters getParsingParameters() {
+        return parsing;
+    }
+
+    public GraphParameters getGraphParameters() {
+        return graph;
+    }
+
+    public ServerParameters getServerParameters() {
+        return server;
+    }
+
+    public ProfilingParameters getProfilingParameters() {
+        return profiling;
+    }
+
 }
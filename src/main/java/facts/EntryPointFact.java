@@ -0,0 +1,68 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import neo4j_types.EntityType;
+import neograph.GraphStore;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A type annotated as a stable API, i.e. an entry point of the project.
+ */
+public class EntryPointFact implements Fact {
+
+    private final String className;
+
+    public EntryPointFact(String className) {
+        this.className = className;
+    }
+
+    @Override
+    public void apply(FactContext context) {
+        GraphStore neoGraph = context.getGraph();
+        neoGraph.getClassOrInterfaceNode(className).ifPresent(node -> neoGraph.addLabelToNode(node, EntityType.ENTRY_POINT.toString()));
+    }
+
+    @Override
+    public Collection <String> getTypeNames() {
+        return List.of(className);
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return className.equals(((EntryPointFact) o).className);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(className);
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import java.util.Collection;
+
+/**
+ * A piece of information extracted from a compilation unit by a visitor.
+ * Facts do not hold any JDT binding, so that the compilation unit can be discarded as soon as all visitors went through it.
+ * They are applied to the graph once all files have been parsed, pass by pass, in the order of the visitors that recorded them.
+ * Facts whose application is idempotent implement equals and hashCode so that duplicates found in a file are only applied once.
+ */
+public interface Fact {
+
+    void apply(FactContext context);
+
+    /**
+     * @return qualified names of the types this fact is about, used to find the files to parse again when a type changes
+     */
+    Collection <String> getTypeNames();
+
+}
@@ -0,0 +1,114 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import neograph.GraphStore;
+import neograph.SymbolTable;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * State shared by the facts while they are applied to the graph.
+ */
+public class FactContext {
+
+    private final GraphStore neoGraph;
+    private List <String> imports = Collections.emptyList();
+    private int nbCorrectedInheritanceLinks = 0;
+
+    public FactContext(GraphStore neoGraph) {
+        this.neoGraph = neoGraph;
+    }
+
+    public GraphStore getGraph() {
+        return neoGraph;
+    }
+
+    /**
+     * Applies the facts of the given pass recorded for a file.
+     */
+    public void apply(FileFacts fileFacts, int pass) {
+        imports = fileFacts.getImports();
+        fileFacts.getFacts(pass).forEach(fact -> fact.apply(this));
+    }
+
+    /**
+     * Iterates on imports to find the real full class name (class name with package).
+     * There are two kinds of imports:
+     * - imports of classes:   a.b.TheClass  (1)
+     * - imports of packages:  a.b.*         (2)
+     * The determination is done in three steps:
+     * - If the class is in the current package, JDT directly gives us the name. If a correspondence in the symbol table is found, return it.
+     * - Iterate over (1). If a correspondence in the symbol table is found, return it.
+     * - Iterate over (2) and for each one check in the symbol table if the package has a class with this class name.
+     * WARNING: all classes must have been parsed at least once before executing this method.
+     * Otherwise, the class we are looking for does not exist in the symbol table, hence is an out of scope class.
+     *
+     * @param type        type to check
+     * @param withImports false if the imports of the file were not visible anymore when the type was met
+     * @return String containing the real full class name
+     */
+    public Optional <String> getClassFullName(TypeReference type, boolean withImports) {
+        if (type == null) {
+            return Optional.empty();
+        }
+        SymbolTable symbolTable = neoGraph.getSymbolTable();
+        if (symbolTable.contains(type.getQualifiedName())) {
+            return Optional.of(type.getQualifiedName());
+        }
+        if (! withImports) {
+            return Optional.empty();
+        }
+        String className = type.getName();
+        Optional <String> first = imports.stream()
+                .map(FactContext::getImportedName)
+                .filter(importedName -> importedName.endsWith("." + className))
+                .findFirst();
+        if (first.isPresent()) {
+            return first;
+        }
+        return imports.stream()
+                .filter(FactContext::isOnDemand)
+                .map(importName -> symbolTable.find(getImportedName(importName), className))
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .findFirst(); // Optional.empty -> out of scope class
+    }
+
+    private static boolean isOnDemand(String importName) {
+        return importName.endsWith(".*");
+    }
+
+    private static String getImportedName(String importName) {
+        return isOnDemand(importName) ? importName.substring(0, importName.length() - 2) : importName;
+    }
+
+    public void incrementNbCorrectedInheritanceLinks() {
+        nbCorrectedInheritanceLinks++;
+    }
+
+    public int getNbCorrectedInheritanceLinks() {
+        return nbCorrectedInheritanceLinks;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import neo4j_types.DesignPatternType;
+import neo4j_types.EntityAttribute;
+import neo4j_types.EntityType;
+import neograph.GraphStore;
+import org.neo4j.driver.types.Node;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A return statement of a method, which may reveal a factory method.
+ */
+public class FactoryMethodFact implements Fact {
+
+    private final String parsedClassType;
+    private final boolean parsedClassIsInterface;
+    private final String methodReturnType;
+    private final String typeOfReturnedObject;
+
+    /**
+     * @param parsedClassType        qualified name of the class declaring the method
+     * @param parsedClassIsInterface true if the class declaring the method is an interface
+     * @param methodReturnType       qualified name of the type returned by the method
+     * @param typeOfReturnedObject   qualified name of the type of the returned expression
+     */
+    public FactoryMethodFact(String parsedClassType, boolean parsedClassIsInterface, String methodReturnType, String typeOfReturnedObject) {
+        this.parsedClassType = parsedClassType;
+        this.parsedClassIsInterface = parsedClassIsInterface;
+        this.methodReturnType = methodReturnType;
+        this.typeOfReturnedObject = typeOfReturnedObject;
+    }
+
+    @Override
+    public void apply(FactContext context) {
+        GraphStore neoGraph = context.getGraph();
+        // TODO: 4/30/19 if does not exist already, add label to filter on visualization
+        Node methodReturnTypeNode = neoGraph.getNode(methodReturnType).orElse(null);
+        // If a node is created now, it means that it has not been created during the ClassesVisitor, hence that the type is not defined in the project.
+        // Therefore, it is considered as out of scope.
+        Node parsedClassNode = neoGraph.getOrCreateNode(parsedClassType, parsedClassIsInterface ? EntityType.INTERFACE : EntityType.CLASS, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, new EntityAttribute[]{});
+        Node returnedObjectTypeNode = neoGraph.getNode(typeOfReturnedObject).orElse(null);
+        // TODO: 3/27/19 functional test case with method returning Object → not direct link
+        if (methodReturnTypeNode != null && returnedObjectTypeNode != null) {
+            if (neoGraph.relatedTo(methodReturnTypeNode, returnedObjectTypeNode) && neoGraph.getNbVariants(methodReturnTypeNode) >= 2) {
+                neoGraph.addLabelToNode(parsedClassNode, DesignPatternType.FACTORY.toString());
+            }
+        }
+    }
+
+    @Override
+    public Collection <String> getTypeNames() {
+        return List.of(parsedClassType, methodReturnType, typeOfReturnedObject);
+    }
+
+    public String getParsedClassType() {
+        return parsedClassType;
+    }
+
+    public boolean isParsedClassInterface() {
+        return parsedClassIsInterface;
+    }
+
+    public String getMethodReturnType() {
+        return methodReturnType;
+    }
+
+    public String getTypeOfReturnedObject() {
+        return typeOfReturnedObject;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        FactoryMethodFact that = (FactoryMethodFact) o;
+        return parsedClassIsInterface == that.parsedClassIsInterface && parsedClassType.equals(that.parsedClassType) &&
+                methodReturnType.equals(that.methodReturnType) && typeOfReturnedObject.equals(that.typeOfReturnedObject);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(parsedClassType, parsedClassIsInterface, methodReturnType, typeOfReturnedObject);
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts the facts of a file to JSON and back, so that they can be reused without parsing the file again.
+ * Each fact is an object whose "type" field is the simple name of its class.
+ */
+public class FactsJson {
+
+    private FactsJson() {
+    }
+
+    public static JSONObject toJson(FileFacts fileFacts) {
+        JSONArray passes = new JSONArray();
+        for (int pass = 0 ; pass < fileFacts.getNbPasses() ; pass++) {
+            JSONArray facts = new JSONArray();
+            fileFacts.getFacts(pass).forEach(fact -> facts.put(toJson(fact)));
+            passes.put(facts);
+        }
+        return new JSONObject()
+                .put("imports", new JSONArray(fileFacts.getImports()))
+                .put("passes", passes);
+    }
+
+    /**
+     * @param path path of the file the facts were extracted from
+     */
+    public static FileFacts fromJson(String path, JSONObject json) {
+        List <String> imports = new ArrayList <>();
+        json.getJSONArray("imports").forEach(importName -> imports.add((String) importName));
+        FileFacts fileFacts = new FileFacts(path, imports);
+        JSONArray passes = json.getJSONArray("passes");
+        for (int pass = 0 ; pass < passes.length() ; pass++) {
+            JSONArray facts = passes.getJSONArray(pass);
+            List <Fact> passFacts = new ArrayList <>();
+            for (int i = 0 ; i < facts.length() ; i++) {
+                passFacts.add(factFromJson(facts.getJSONObject(i)));
+            }
+            fileFacts.addPass(passFacts);
+        }
+        return fileFacts;
+    }
+
+    static JSONObject toJson(Fact fact) {
+        JSONObject json = new JSONObject().put("type", fact.getClass().getSimpleName());
+        if (fact instanceof TypeFact) {
+            TypeFact typeFact = (TypeFact) fact;
+            return json.put("name", typeFact.getName())
+                    .put("isInterface", typeFact.isInterface())
+                    .put("isAbstract", typeFact.isAbstract())
+                    .put("isPublic", typeFact.isPublic());
+        }
+        if (fact instanceof MethodFact) {
+            MethodFact methodFact = (MethodFact) fact;
+            return json.put("parentClassName", methodFact.getParentClassName())
+                    .put("parentIsInterface", methodFact.isParentInterface())
+                    .put("parentIsPublic", methodFact.isParentPublic())
+                    .put("name", methodFact.getName())
+                    .put("isConstructor", methodFact.isConstructor())
+                    .put("isPublic", methodFact.isPublic())
+                    .put("isAbstract", methodFact.isAbstract());
+        }
+        if (fact instanceof EntryPointFact) {
+            return json.put("className", ((EntryPointFact) fact).getClassName());
+        }
+        if (fact instanceof InheritanceFact) {
+            InheritanceFact inheritanceFact = (InheritanceFact) fact;
+            return json.put("className", inheritanceFact.getClassName())
+                    .put("isInterface", inheritanceFact.isInterface())
+                    .put("superclass", toJson(inheritanceFact.getSuperclass()))
+                    .put("interfaces", toJson(inheritanceFact.getInterfaces()))
+                    .put("withImports", inheritanceFact.isWithImports());
+        }
+        if (fact instanceof StrategyDecoratorFact) {
+            StrategyDecoratorFact strategyDecoratorFact = (StrategyDecoratorFact) fact;
+            return json.put("declaringClass", toJson(strategyDecoratorFact.getDeclaringClass()))
+                    .put("declaringClassErasureName", strategyDecoratorFact.getDeclaringClassErasureName())
+                    .put("fieldType", toJson(strategyDecoratorFact.getFieldType()))
+                    .put("fieldTypeName", strategyDecoratorFact.getFieldTypeName())
+                    .put("withImports", strategyDecoratorFact.isWithImports());
+        }
+        if (fact instanceof TemplateFact) {
+            TemplateFact templateFact = (TemplateFact) fact;
+            return json.put("declaringClassName", templateFact.getDeclaringClassName())
+                    .put("declaringClassIsInterface", templateFact.isDeclaringClassInterface())
+                    .put("templateCandidate", templateFact.isTemplateCandidate());
+        }
+        if (fact instanceof FactoryTypeFact) {
+            FactoryTypeFact factoryTypeFact = (FactoryTypeFact) fact;
+            return json.put("name", factoryTypeFact.getName())
+                    .put("isInterface", factoryTypeFact.isInterface());
+        }
+        if (fact instanceof FactoryMethodFact) {
+            FactoryMethodFact factoryMethodFact = (FactoryMethodFact) fact;
+            return json.put("parsedClassType", factoryMethodFact.getParsedClassType())
+                    .put("parsedClassIsInterface", factoryMethodFact.isParsedClassInterface())
+                    .put("methodReturnType", factoryMethodFact.getMethodReturnType())
+                    .put("typeOfReturnedObject", factoryMethodFact.getTypeOfReturnedObject());
+        }
+        if (fact instanceof FieldUsageFact) {
+            FieldUsageFact fieldUsageFact = (FieldUsageFact) fact;
+            return json.put("parentClassName", fieldUsageFact.getParentClassName())
+                    .put("parentIsInterface", fieldUsageFact.isParentInterface())
+                    .put("fieldType", toJson(fieldUsageFact.getFieldType()))
+                    .put("typeArguments", toJson(fieldUsageFact.getTypeArguments()))
+                    .put("withImports", fieldUsageFact.isWithImports());
+        }
+        if (fact instanceof MethodUsageFact) {
+            MethodUsageFact methodUsageFact = (MethodUsageFact) fact;
+            return json.put("parentClassName", methodUsageFact.getParentClassName())
+                    .put("parentIsInterface", methodUsageFact.isParentInterface())
+                    .put("parameterTypes", toJson(methodUsageFact.getParameterTypes()))
+                    .put("returnedType", methodUsageFact.getReturnedType() == null ? JSONObject.NULL : methodUsageFact.getReturnedType())
+                    .put("withImports", methodUsageFact.isWithImports());
+        }
+        if (fact instanceof LocalVariablesUsageFact) {
+            LocalVariablesUsageFact localVariablesUsageFact = (LocalVariablesUsageFact) fact;
+            return json.put("parentClassName", localVariablesUsageFact.getParentClassName())
+                    .put("parentIsInterface", localVariablesUsageFact.isParentInterface())
+                    .put("variableTypes", toJson(localVariablesUsageFact.getVariableTypes()))
+                    .put("withImports", localVariablesUsageFact.isWithImports());
+        }
+        throw new IllegalArgumentException("Unknown fact: " + fact.getClass().getName());
+    }
+
+    static Fact factFromJson(JSONObject json) {
+        String type = json.getString("type");
+        switch (type) {
+            case "TypeFact":
+                return new TypeFact(json.getString("name"), json.getBoolean("isInterface"), json.getBoolean("isAbstract"), json.getBoolean("isPublic"));
+            case "MethodFact":
+                return new MethodFact(json.getString("parentClassName"), json.getBoolean("parentIsInterface"), json.getBoolean("parentIsPublic"),
+                        json.getString("name"), json.getBoolean("isConstructor"), json.getBoolean("isPublic"), json.getBoolean("isAbstract"));
+            case "EntryPointFact":
+                return new EntryPointFact(json.getString("className"));
+            case "InheritanceFact":
+                return new InheritanceFact(json.getString("className"), json.getBoolean("isInterface"),
+                        typeReferenceFromJson(json.get("superclass")), typeReferencesFromJson(json.getJSONArray("interfaces")), json.getBoolean("withImports"));
+            case "StrategyDecoratorFact":
+                return new StrategyDecoratorFact(typeReferenceFromJson(json.get("declaringClass")), json.getString("declaringClassErasureName"),
+                        typeReferenceFromJson(json.get("fieldType")), json.getString("fieldTypeName"), json.getBoolean("withImports"));
+            case "TemplateFact":
+                return new TemplateFact(json.getString("declaringClassName"), json.getBoolean("declaringClassIsInterface"), json.getBoolean("templateCandidate"));
+            case "FactoryTypeFact":
+                return new FactoryTypeFact(json.getString("name"), json.getBoolean("isInterface"));
+            case "FactoryMethodFact":
+                return new FactoryMethodFact(json.getString("parsedClassType"), json.getBoolean("parsedClassIsInterface"),
+                        json.getString("methodReturnType"), json.getString("typeOfReturnedObject"));
+            case "FieldUsageFact":
+                return new FieldUsageFact(json.getString("parentClassName"), json.getBoolean("parentIsInterface"),
+                        typeReferenceFromJson(json.get("fieldType")), typeReferencesFromJson(json.getJSONArray("typeArguments")), json.getBoolean("withImports"));
+            case "MethodUsageFact":
+                return new MethodUsageFact(json.getString("parentClassName"), json.getBoolean("parentIsInterface"),
+                        typeReferencesFromJson(json.getJSONArray("parameterTypes")), json.isNull("returnedType") ? null : json.getString("returnedType"), json.getBoolean("withImports"));
+            case "LocalVariablesUsageFact":
+                return new LocalVariablesUsageFact(json.getString("parentClassName"), json.getBoolean("parentIsInterface"),
+                        typeReferencesFromJson(json.getJSONArray("variableTypes")), json.getBoolean("withImports"));
+            default:
+                throw new IllegalArgumentException("Unknown fact: " + type);
+        }
+    }
+
+    private static Object toJson(TypeReference typeReference) {
+        if (typeReference == null) {
+            return JSONObject.NULL;
+        }
+        return new JSONArray().put(typeReference.getQualifiedName()).put(typeReference.getName());
+    }
+
+    private static JSONArray toJson(List <TypeReference> typeReferences) {
+        JSONArray json = new JSONArray();
+        typeReferences.forEach(typeReference -> json.put(toJson(typeReference)));
+        return json;
+    }
+
+    private static TypeReference typeReferenceFromJson(Object json) {
+        if (JSONObject.NULL.equals(json)) {
+            return null;
+        }
+        JSONArray array = (JSONArray) json;
+        return new TypeReference(array.getString(0), array.getString(1));
+    }
+
+    private static List <TypeReference> typeReferencesFromJson(JSONArray json) {
+        List <TypeReference> typeReferences = new ArrayList <>();
+        for (int i = 0 ; i < json.length() ; i++) {
+            typeReferences.add(typeReferenceFromJson(json.get(i)));
+        }
+        return typeReferences;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import neo4j_types.EntityType;
+import neo4j_types.RelationType;
+import neograph.GraphStore;
+import org.neo4j.driver.types.Node;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import static neo4j_types.EntityAttribute.OUT_OF_SCOPE;
+
+/**
+ * A field, making its declaring class use the type of the field and its type arguments.
+ */
+public class FieldUsageFact implements Fact {
+
+    private final String parentClassName;
+    private final boolean parentIsInterface;
+    private final TypeReference fieldType;
+    private final List <TypeReference> typeArguments;
+    private final boolean withImports;
+
+    public FieldUsageFact(String parentClassName, boolean parentIsInterface, TypeReference fieldType, List <TypeReference> typeArguments, boolean withImports) {
+        this.parentClassName = parentClassName;
+        this.parentIsInterface = parentIsInterface;
+        this.fieldType = fieldType;
+        this.typeArguments = typeArguments;
+        this.withImports = withImports;
+    }
+
+    @Override
+    public void apply(FactContext context) {
+        GraphStore neoGraph = context.getGraph();
+        Optional <String> classFullName = context.getClassFullName(fieldType, withImports);
+        if (classFullName.isPresent()) {
+            Optional <Node> typeNode = neoGraph.getNode(classFullName.get());
+            typeNode.ifPresent(node -> {
+                if (! node.hasLabel(OUT_OF_SCOPE.getString())) {
+                    linkParentToChild(neoGraph, node);
+                }
+            });
+        }
+        typeArguments.forEach(type -> {
+            Optional <String> className = context.getClassFullName(type, withImports);
+            className.ifPresent(name -> {
+                Optional <Node> typeNode = neoGraph.getNode(name);
+                typeNode.ifPresent(node -> linkParentToChild(neoGraph, node));
+            });
+        });
+    }
+
+    private void linkParentToChild(GraphStore neoGraph, Node node) {
+        Node parentClassNode = neoGraph.getOrCreateNode(parentClassName, parentIsInterface ? EntityType.INTERFACE : EntityType.CLASS);
+        if (! neoGraph.relatedTo(parentClassNode, node)) {
+            neoGraph.linkTwoNodes(parentClassNode, node, RelationType.USE);
+        }
+    }
+
+    @Override
+    public Collection <String> getTypeNames() {
+        List <String> typeNames = new ArrayList <>();
+        typeNames.add(parentClassName);
+        typeNames.add(fieldType.getQualifiedName());
+        typeArguments.forEach(type -> typeNames.add(type.getQualifiedName()));
+        return typeNames;
+    }
+
+    public String getParentClassName() {
+        return parentClassName;
+    }
+
+    public boolean isParentInterface() {
+        return parentIsInterface;
+    }
+
+    public TypeReference getFieldType() {
+        return fieldType;
+    }
+
+    public List <TypeReference> getTypeArguments() {
+        return typeArguments;
+    }
+
+    public boolean isWithImports() {
+        return withImports;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        FieldUsageFact that = (FieldUsageFact) o;
+        return parentIsInterface == that.parentIsInterface && withImports == that.withImports &&
+                parentClassName.equals(that.parentClassName) && fieldType.equals(that.fieldType) &&
+                typeArguments.equals(that.typeArguments);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(parentClassName, parentIsInterface, fieldType, typeArguments, withImports);
+    }
+}
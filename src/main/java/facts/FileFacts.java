@@ -0,0 +1,90 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Facts extracted from a single source file, grouped by pass.
+ * A pass contains the facts recorded by one visitor, and all files go through a pass before the next one starts.
+ */
+public class FileFacts {
+
+    private final String path;
+    private final List <String> imports;
+    private final List <List <Fact>> passes = new ArrayList <>();
+    private Set <String> referencedTypes = Collections.emptySet();
+
+    /**
+     * @param path    path of the source file
+     * @param imports non static imports of the file, imports of packages ending with ".*"
+     */
+    public FileFacts(String path, List <String> imports) {
+        this.path = path;
+        this.imports = imports;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public List <String> getImports() {
+        return imports;
+    }
+
+    public void addPass(Collection <Fact> facts) {
+        passes.add(new ArrayList <>(facts));
+    }
+
+    public List <Fact> getFacts(int pass) {
+        return passes.get(pass);
+    }
+
+    public int getNbPasses() {
+        return passes.size();
+    }
+
+    /**
+     * @return names of the types the file may depend on, found in the compilation unit, empty if the facts were not extracted from it
+     */
+    public Set <String> getReferencedTypes() {
+        return referencedTypes;
+    }
+
+    public void setReferencedTypes(Set <String> referencedTypes) {
+        this.referencedTypes = referencedTypes;
+    }
+
+    /**
+     * @return the same facts for a file at another path, such as the same file in another version of the project
+     */
+    public FileFacts withPath(String path) {
+        FileFacts fileFacts = new FileFacts(path, imports);
+        fileFacts.passes.addAll(passes);
+        fileFacts.referencedTypes = referencedTypes;
+        return fileFacts;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import neo4j_types.EntityAttribute;
+import neo4j_types.EntityType;
+import neo4j_types.RelationType;
+import neograph.GraphStore;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.neo4j.driver.types.Node;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Superclass and implemented interfaces of a type of the project.
+ * Each application creates the inheritance relationships, hence no equality is defined.
+ */
+public class InheritanceFact implements Fact {
+
+    private static final Logger logger = LogManager.getLogger(InheritanceFact.class);
+
+    private final String className;
+    private final boolean isInterface;
+    private final TypeReference superclass;
+    private final List <TypeReference> interfaces;
+    private final boolean withImports;
+
+    /**
+     * @param superclass null if the type does not have any superclass
+     */
+    public InheritanceFact(String className, boolean isInterface, TypeReference superclass, List <TypeReference> interfaces, boolean withImports) {
+        this.className = className;
+        this.isInterface = isInterface;
+        this.superclass = superclass;
+        this.interfaces = interfaces;
+        this.withImports = withImports;
+    }
+
+    @Override
+    public void apply(FactContext context) {
+        GraphStore neoGraph = context.getGraph();
+        Optional <Node> thisNode = isInterface ? neoGraph.getInterfaceNode(className) : neoGraph.getClassNode(className);
+        if (thisNode.isPresent()) {
+            // Link to superclass if exists
+            if (superclass != null) {
+                createImportedClassNode(context, thisNode.get(), superclass, EntityType.CLASS, RelationType.EXTENDS, "SUPERCLASS");
+            }
+
+            // Link to implemented interfaces if exist
+            for (TypeReference implementedInterface : interfaces) {
+                createImportedClassNode(context, thisNode.get(), implementedInterface, EntityType.INTERFACE, RelationType.IMPLEMENTS, "INTERFACE");
+            }
+        }
+    }
+
+    // TODO: 4/1/19 functional tests : imports from different packages
+    private void createImportedClassNode(FactContext context, Node thisNode, TypeReference importedClassType, EntityType entityType, RelationType relationType, String name) {
+        Optional <String> myImportedClass = context.getClassFullName(importedClassType, withImports);
+        String qualifiedName = importedClassType.getQualifiedName();
+        if (myImportedClass.isPresent() && ! myImportedClass.get().equals(qualifiedName)) {
+            context.incrementNbCorrectedInheritanceLinks();
+            logger.debug(String.format("DIFFERENT %s FULL NAMES FOUND FOR CLASS %s: \n" +
+                    "JDT qualified name: %s\n" +
+                    "Manually resolved name: %s\n" +
+                    "Getting manually resolved name.", name, className, qualifiedName, myImportedClass.get()));
+        }
+        // If a node is created now, it means that it has not been created during the ClassesVisitor, hence that the type is not defined in the project.
+        // Therefore, it is considered as out of scope.
+        Node superclassNode = context.getGraph().getOrCreateNode(myImportedClass.orElse(qualifiedName), entityType, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, new EntityAttribute[]{});
+        context.getGraph().linkTwoNodes(superclassNode, thisNode, relationType);
+    }
+
+    @Override
+    public Collection <String> getTypeNames() {
+        List <String> typeNames = new ArrayList <>();
+        typeNames.add(className);
+        if (superclass != null) {
+            typeNames.add(superclass.getQualifiedName());
+        }
+        interfaces.forEach(type -> typeNames.add(type.getQualifiedName()));
+        return typeNames;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public boolean isInterface() {
+        return isInterface;
+    }
+
+    public TypeReference getSuperclass() {
+        return superclass;
+    }
+
+    public List <TypeReference> getInterfaces() {
+        return interfaces;
+    }
+
+    public boolean isWithImports() {
+        return withImports;
+    }
+}
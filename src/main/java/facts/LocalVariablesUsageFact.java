@@ -0,0 +1,102 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import neo4j_types.EntityType;
+import neo4j_types.RelationType;
+import neograph.GraphStore;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.neo4j.driver.types.Node;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Local variables declared in a method, making its declaring class use their types.
+ * Each application creates the usage relationships, hence no equality is defined.
+ */
+public class LocalVariablesUsageFact implements Fact {
+
+    private static final Logger logger = LogManager.getLogger(LocalVariablesUsageFact.class);
+
+    private final String parentClassName;
+    private final boolean parentIsInterface;
+    private final List <TypeReference> variableTypes;
+    private final boolean withImports;
+
+    public LocalVariablesUsageFact(String parentClassName, boolean parentIsInterface, List <TypeReference> variableTypes, boolean withImports) {
+        this.parentClassName = parentClassName;
+        this.parentIsInterface = parentIsInterface;
+        this.variableTypes = variableTypes;
+        this.withImports = withImports;
+    }
+
+    @Override
+    public void apply(FactContext context) {
+        GraphStore neoGraph = context.getGraph();
+        Node parentClassNode = neoGraph.getOrCreateNode(parentClassName, parentIsInterface ? EntityType.INTERFACE : EntityType.CLASS);
+        for (TypeReference variableType : variableTypes) {
+            Optional <String> classFullName = context.getClassFullName(variableType, withImports);
+            if (classFullName.isPresent()) {
+                Optional <Node> typeNode = neoGraph.getNode(classFullName.get());
+                typeNode.ifPresent(node -> {
+                    String name = classFullName.get();
+                    if (! (name.contains("java") || name.equals("double") || name.equals("int")
+                            || name.equals("long") || name.equals("float") || name.equals("boolean")
+                            || name.contains("int[]") || name.contains("double[]") || name.contains("float[]")
+                            || name.contains("long[]") || name.contains("bytes[]") || name.equals("bytes") || name.equals("byte"))) {
+                        neoGraph.linkTwoNodes(parentClassNode, node, RelationType.USE);
+                        logger.log(Level.getLevel("MY_LEVEL"), "\n ************* Local variable " + name + " ----- " + parentClassName + " ******** \n");
+                    }
+                });
+            }
+        }
+    }
+
+    @Override
+    public Collection <String> getTypeNames() {
+        List <String> typeNames = new ArrayList <>();
+        typeNames.add(parentClassName);
+        variableTypes.forEach(type -> typeNames.add(type.getQualifiedName()));
+        return typeNames;
+    }
+
+    public String getParentClassName() {
+        return parentClassName;
+    }
+
+    public boolean isParentInterface() {
+        return parentIsInterface;
+    }
+
+    public List <TypeReference> getVariableTypes() {
+        return variableTypes;
+    }
+
+    public boolean isWithImports() {
+        return withImports;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import neo4j_types.EntityAttribute;
+import neo4j_types.EntityType;
+import neo4j_types.EntityVisibility;
+import neo4j_types.NodeType;
+import neo4j_types.RelationType;
+import neograph.GraphStore;
+import org.neo4j.driver.types.Node;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A method or a constructor declared in a type of the project.
+ * Two overloads may lead to equal facts, hence no equality is defined.
+ */
+public class MethodFact implements Fact {
+
+    private final String parentClassName;
+    private final boolean parentIsInterface;
+    private final boolean parentIsPublic;
+    private final String name;
+    private final boolean isConstructor;
+    private final boolean isPublic;
+    private final boolean isAbstract;
+
+    public MethodFact(String parentClassName, boolean parentIsInterface, boolean parentIsPublic, String name, boolean isConstructor, boolean isPublic, boolean isAbstract) {
+        this.parentClassName = parentClassName;
+        this.parentIsInterface = parentIsInterface;
+        this.parentIsPublic = parentIsPublic;
+        this.name = name;
+        this.isConstructor = isConstructor;
+        this.isPublic = isPublic;
+        this.isAbstract = isAbstract;
+    }
+
+    @Override
+    public void apply(FactContext context) {
+        GraphStore neoGraph = context.getGraph();
+        Node parentClassNode = neoGraph.getOrCreateNode(parentClassName, parentIsInterface ? EntityType.INTERFACE : EntityType.CLASS);
+        Node methodNode = createMethodNode(neoGraph);
+        neoGraph.linkTwoNodes(parentClassNode, methodNode, RelationType.METHOD);
+    }
+
+    private Node createMethodNode(GraphStore neoGraph) {
+        NodeType[] nodeTypeList;
+        EntityVisibility nodeVisibility = isPublic ? EntityVisibility.PUBLIC : EntityVisibility.PRIVATE;
+        EntityType methodType = isConstructor ? EntityType.CONSTRUCTOR : EntityType.METHOD;
+
+        if (parentIsPublic) {
+            if (isAbstract) {
+                nodeTypeList = new NodeType[]{EntityAttribute.ABSTRACT, nodeVisibility};
+            } else {
+                nodeTypeList = new NodeType[]{nodeVisibility};
+            }
+        } else {
+            if (isAbstract) {
+                nodeTypeList = new NodeType[]{EntityAttribute.ABSTRACT};
+            } else {
+                nodeTypeList = new NodeType[]{};
+            }
+        }
+        return neoGraph.createNode(name, methodType, nodeTypeList);
+    }
+
+    @Override
+    public Collection <String> getTypeNames() {
+        return List.of(parentClassName);
+    }
+
+    public String getParentClassName() {
+        return parentClassName;
+    }
+
+    public boolean isParentInterface() {
+        return parentIsInterface;
+    }
+
+    public boolean isParentPublic() {
+        return parentIsPublic;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isConstructor() {
+        return isConstructor;
+    }
+
+    public boolean isPublic() {
+        return isPublic;
+    }
+
+    public boolean isAbstract() {
+        return isAbstract;
+    }
+}
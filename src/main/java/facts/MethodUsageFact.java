@@ -0,0 +1,137 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import neo4j_types.EntityType;
+import neo4j_types.RelationType;
+import neograph.GraphStore;
+import org.neo4j.driver.types.Node;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import static neo4j_types.EntityAttribute.OUT_OF_SCOPE;
+
+/**
+ * A method, making its declaring class use the types of its parameters and its returned type.
+ */
+public class MethodUsageFact implements Fact {
+
+    private final String parentClassName;
+    private final boolean parentIsInterface;
+    private final List <TypeReference> parameterTypes;
+    private final String returnedType;
+    private final boolean withImports;
+
+    /**
+     * @param returnedType qualified name of the returned type, null for constructors and unresolved types
+     */
+    public MethodUsageFact(String parentClassName, boolean parentIsInterface, List <TypeReference> parameterTypes, String returnedType, boolean withImports) {
+        this.parentClassName = parentClassName;
+        this.parentIsInterface = parentIsInterface;
+        this.parameterTypes = parameterTypes;
+        this.returnedType = returnedType;
+        this.withImports = withImports;
+    }
+
+    @Override
+    public void apply(FactContext context) {
+        GraphStore neoGraph = context.getGraph();
+        Node parentClassNode = neoGraph.getOrCreateNode(parentClassName, parentIsInterface ? EntityType.INTERFACE : EntityType.CLASS);
+        for (TypeReference parameterType : parameterTypes) {
+            Optional <String> classFullName = context.getClassFullName(parameterType, withImports);
+            if (classFullName.isPresent()) {
+                Optional <Node> typeNode = neoGraph.getClassOrInterfaceNode(classFullName.get());
+                typeNode.ifPresent(node -> {
+                    if (! node.hasLabel(OUT_OF_SCOPE.getString())) {
+                        if (! neoGraph.relatedTo(parentClassNode, node)) {
+                            neoGraph.linkTwoNodes(parentClassNode, node, RelationType.USE);
+                        }
+                    }
+                });
+            }
+        }
+        if (returnedType != null) {
+            analyzeReturnedType(neoGraph, parentClassNode);
+        }
+    }
+
+    private void analyzeReturnedType(GraphStore neoGraph, Node parentClassNode) {
+        Optional <Node> returnedTypeNode = neoGraph.getNode(returnedType);
+        returnedTypeNode.ifPresent(node -> {
+            if (! node.hasLabel(OUT_OF_SCOPE.getString()) && ! returnedType.equals(parentClassName)) {
+                if (! neoGraph.relatedTo(parentClassNode, node)) {
+                    neoGraph.linkTwoNodes(parentClassNode, node, RelationType.USE);
+                }
+            }
+        });
+    }
+
+    @Override
+    public Collection <String> getTypeNames() {
+        List <String> typeNames = new ArrayList <>();
+        typeNames.add(parentClassName);
+        parameterTypes.forEach(type -> typeNames.add(type.getQualifiedName()));
+        if (returnedType != null) {
+            typeNames.add(returnedType);
+        }
+        return typeNames;
+    }
+
+    public String getParentClassName() {
+        return parentClassName;
+    }
+
+    public boolean isParentInterface() {
+        return parentIsInterface;
+    }
+
+    public List <TypeReference> getParameterTypes() {
+        return parameterTypes;
+    }
+
+    public String getReturnedType() {
+        return returnedType;
+    }
+
+    public boolean isWithImports() {
+        return withImports;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        MethodUsageFact that = (MethodUsageFact) o;
+        return parentIsInterface == that.parentIsInterface && withImports == that.withImports &&
+                parentClassName.equals(that.parentClassName) && parameterTypes.equals(that.parameterTypes) &&
+                Objects.equals(returnedType, that.returnedType);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(parentClassName, parentIsInterface, parameterTypes, returnedType, withImports);
+    }
+}
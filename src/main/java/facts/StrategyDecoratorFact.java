@@ -0,0 +1,131 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import neo4j_types.DesignPatternType;
+import neograph.GraphStore;
+import org.neo4j.driver.types.Node;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A field whose type may be a strategy or a decorator.
+ */
+public class StrategyDecoratorFact implements Fact {
+
+    private final TypeReference declaringClass;
+    private final String declaringClassErasureName;
+    private final TypeReference fieldType;
+    private final String fieldTypeName;
+    private final boolean withImports;
+
+    /**
+     * @param declaringClass            class declaring the field
+     * @param declaringClassErasureName qualified name of the declaring class without type parameters
+     * @param fieldType                 type of the field
+     * @param fieldTypeName             simple name of the field type, with its type arguments
+     * @param withImports               false if the imports of the file were not visible anymore
+     */
+    public StrategyDecoratorFact(TypeReference declaringClass, String declaringClassErasureName, TypeReference fieldType, String fieldTypeName, boolean withImports) {
+        this.declaringClass = declaringClass;
+        this.declaringClassErasureName = declaringClassErasureName;
+        this.fieldType = fieldType;
+        this.fieldTypeName = fieldTypeName;
+        this.withImports = withImports;
+    }
+
+    @Override
+    public void apply(FactContext context) {
+        GraphStore neoGraph = context.getGraph();
+        Optional <String> classFullName = context.getClassFullName(fieldType, withImports);
+        if (classFullName.isPresent()) {
+            Optional <Node> typeNode = neoGraph.getNode(classFullName.get());
+            typeNode.ifPresent(node -> {
+                if (fieldTypeName.contains("Strategy") || neoGraph.getNbVariants(node) >= 2) {
+                    neoGraph.addLabelToNode(node, DesignPatternType.STRATEGY.toString());
+                }
+                if (fieldTypeName.contains("Decorator")) {
+                    neoGraph.addLabelToNode(node, DesignPatternType.DECORATOR.toString());
+                }
+                checkAbstractDecorator(context);
+            });
+        }
+    }
+
+    private void checkAbstractDecorator(FactContext context) {
+        GraphStore neoGraph = context.getGraph();
+        Optional <String> currentClassFullName = context.getClassFullName(declaringClass, withImports);
+        Optional <String> fieldClassFullName = context.getClassFullName(fieldType, withImports);
+        if (currentClassFullName.isPresent() && fieldClassFullName.isPresent()) {
+            Node currentClassNode = neoGraph.getNode(currentClassFullName.get()).get();
+            Node fieldClassNode = neoGraph.getNode(fieldClassFullName.get()).get();
+            boolean isClassInheritingFieldClass = neoGraph.getSuperclassNode(declaringClassErasureName).map(node -> node.equals(fieldClassNode)).orElse(false);
+            boolean isClassImplementingFieldClass = neoGraph.getImplementedInterfacesNodes(declaringClassErasureName).stream().anyMatch(node -> node.equals(fieldClassNode));
+            if (((isClassInheritingFieldClass || isClassImplementingFieldClass) && neoGraph.getNbVariants(fieldClassNode) >= 2 && neoGraph.getNbVariants(currentClassNode) >= 1)) {
+                neoGraph.addLabelToNode(currentClassNode, DesignPatternType.DECORATOR.toString());
+            }
+        }
+    }
+
+    @Override
+    public Collection <String> getTypeNames() {
+        return List.of(declaringClass.getQualifiedName(), declaringClassErasureName, fieldType.getQualifiedName());
+    }
+
+    public TypeReference getDeclaringClass() {
+        return declaringClass;
+    }
+
+    public String getDeclaringClassErasureName() {
+        return declaringClassErasureName;
+    }
+
+    public TypeReference getFieldType() {
+        return fieldType;
+    }
+
+    public String getFieldTypeName() {
+        return fieldTypeName;
+    }
+
+    public boolean isWithImports() {
+        return withImports;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        StrategyDecoratorFact that = (StrategyDecoratorFact) o;
+        return withImports == that.withImports && declaringClass.equals(that.declaringClass) &&
+                declaringClassErasureName.equals(that.declaringClassErasureName) &&
+                fieldType.equals(that.fieldType) && fieldTypeName.equals(that.fieldTypeName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(declaringClass, declaringClassErasureName, fieldType, fieldTypeName, withImports);
+    }
+}
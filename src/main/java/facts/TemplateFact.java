@@ -0,0 +1,96 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import neo4j_types.DesignPatternType;
+import neo4j_types.EntityAttribute;
+import neo4j_types.EntityType;
+import neograph.GraphStore;
+import org.neo4j.driver.types.Node;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A method invocation, which may reveal a template method.
+ */
+public class TemplateFact implements Fact {
+
+    private final String declaringClassName;
+    private final boolean declaringClassIsInterface;
+    private final boolean templateCandidate;
+
+    /**
+     * @param declaringClassName        qualified name of the class declaring the invoked method
+     * @param declaringClassIsInterface true if the class declaring the invoked method is an interface
+     * @param templateCandidate         true if the declaring class name contains "Template"
+     *                                  or if the invoked method is an abstract method of the class being visited
+     */
+    public TemplateFact(String declaringClassName, boolean declaringClassIsInterface, boolean templateCandidate) {
+        this.declaringClassName = declaringClassName;
+        this.declaringClassIsInterface = declaringClassIsInterface;
+        this.templateCandidate = templateCandidate;
+    }
+
+    @Override
+    public void apply(FactContext context) {
+        GraphStore neoGraph = context.getGraph();
+        // If a node is created now, it means that it has not been created during the ClassesVisitor, hence that the type is not defined in the project.
+        // Therefore, it is considered as out of scope.
+        Node declaringClassNode = neoGraph.getOrCreateNode(declaringClassName, declaringClassIsInterface ? EntityType.INTERFACE : EntityType.CLASS, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, new EntityAttribute[]{});
+        if (neoGraph.getNbVariants(declaringClassNode) > 0 && templateCandidate) {
+            neoGraph.addLabelToNode(declaringClassNode, DesignPatternType.TEMPLATE.toString());
+        }
+    }
+
+    @Override
+    public Collection <String> getTypeNames() {
+        return List.of(declaringClassName);
+    }
+
+    public String getDeclaringClassName() {
+        return declaringClassName;
+    }
+
+    public boolean isDeclaringClassInterface() {
+        return declaringClassIsInterface;
+    }
+
+    public boolean isTemplateCandidate() {
+        return templateCandidate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TemplateFact that = (TemplateFact) o;
+        return declaringClassIsInterface == that.declaringClassIsInterface && templateCandidate == that.templateCandidate &&
+                declaringClassName.equals(that.declaringClassName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(declaringClassName, declaringClassIsInterface, templateCandidate);
+    }
+}
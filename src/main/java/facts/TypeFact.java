@@ -0,0 +1,90 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import neo4j_types.EntityAttribute;
+import neo4j_types.EntityType;
+import neo4j_types.EntityVisibility;
+import neo4j_types.NodeType;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A class or an interface declared in the project.
+ */
+public class TypeFact implements Fact {
+
+    private final String name;
+    private final boolean isInterface;
+    private final boolean isAbstract;
+    private final boolean isPublic;
+
+    public TypeFact(String name, boolean isInterface, boolean isAbstract, boolean isPublic) {
+        this.name = name;
+        this.isInterface = isInterface;
+        this.isAbstract = isAbstract;
+        this.isPublic = isPublic;
+    }
+
+    @Override
+    public void apply(FactContext context) {
+        EntityType nodeType;
+        EntityVisibility nodeVisibility = isPublic ? EntityVisibility.PUBLIC : EntityVisibility.PRIVATE;
+        NodeType[] nodeTypeList;
+        // If the class is abstract
+        if (isAbstract) {
+            nodeType = EntityType.CLASS;
+            nodeTypeList = new NodeType[]{EntityAttribute.ABSTRACT, nodeVisibility};
+            // If the type is an interface
+        } else if (isInterface) {
+            nodeType = EntityType.INTERFACE;
+            nodeTypeList = new NodeType[]{nodeVisibility};
+            // The type is a class
+        } else {
+            nodeType = EntityType.CLASS;
+            nodeTypeList = new NodeType[]{nodeVisibility};
+        }
+        context.getGraph().createNode(name, nodeType, nodeTypeList);
+    }
+
+    @Override
+    public Collection <String> getTypeNames() {
+        return List.of(name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isInterface() {
+        return isInterface;
+    }
+
+    public boolean isAbstract() {
+        return isAbstract;
+    }
+
+    public boolean isPublic() {
+        return isPublic;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import java.util.Objects;
+
+/**
+ * Type as seen by JDT, without its type arguments.
+ * The qualified name is the one given by JDT, which may be wrong if the type could not be resolved,
+ * hence the simple name kept to look for the type in the imports of the file.
+ */
+public class TypeReference {
+
+    private final String qualifiedName;
+    private final String name;
+
+    public TypeReference(String qualifiedName, String name) {
+        this.qualifiedName = qualifiedName;
+        this.name = name;
+    }
+
+    public String getQualifiedName() {
+        return qualifiedName;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TypeReference that = (TypeReference) o;
+        return qualifiedName.equals(that.qualifiedName) && name.equals(that.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(qualifiedName, name);
+    }
+
+    @Override
+    public String toString() {
+        return qualifiedName;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import org.neo4j.driver.Value;
+import org.neo4j.driver.types.Node;
+
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Node whose creation is waiting in the write buffer.
+ * It can be given to other write operations as is. Reading anything from it sends the pending writes to the database,
+ * except its labels while the graph keeps a copy of the nodes it created in a {@link GraphMirror}.
+ * <p>
+ * A buffered node only equals itself, so that it can be put in a hash-based collection without sending the pending writes,
+ * and so that equality is symmetric with the nodes returned by the driver, which only equal nodes of their own class.
+ * While the graph keeps a copy of its nodes, each node of the copy is a single buffered node, returned again by the lookups.
+ * Otherwise, comparing ids tells whether two nodes are the same node of the database.
+ */
+class BufferedNode implements Node {
+
+    private final WriteBuffer writeBuffer;
+    private Node node;
+    private GraphMirror mirror;
+    private int mirrorIndex;
+
+    BufferedNode(WriteBuffer writeBuffer) {
+        this.writeBuffer = writeBuffer;
+    }
+
+    void setMirror(GraphMirror mirror, int mirrorIndex) {
+        this.mirror = mirror;
+        this.mirrorIndex = mirrorIndex;
+    }
+
+    GraphMirror getMirror() {
+        return mirror;
+    }
+
+    int getMirrorIndex() {
+        return mirrorIndex;
+    }
+
+    private boolean isMirrored() {
+        return mirror != null && mirror.isValid();
+    }
+
+    void resolve(Node node) {
+        this.node = node;
+    }
+
+    private Node getNode() {
+        if (node == null) {
+            writeBuffer.flush();
+        }
+        return node;
+    }
+
+    @Override
+    public Iterable <String> labels() {
+        return isMirrored() ? mirror.getLabels(mirrorIndex) : getNode().labels();
+    }
+
+    @Override
+    public boolean hasLabel(String label) {
+        return isMirrored() ? mirror.hasLabel(mirrorIndex, label) : getNode().hasLabel(label);
+    }
+
+    @Override
+    public long id() {
+        return getNode().id();
+    }
+
+    @Override
+    public Iterable <String> keys() {
+        return getNode().keys();
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return getNode().containsKey(key);
+    }
+
+    @Override
+    public Value get(String key) {
+        return getNode().get(key);
+    }
+
+    @Override
+    public int size() {
+        return getNode().size();
+    }
+
+    @Override
+    public Iterable <Value> values() {
+        return getNode().values();
+    }
+
+    @Override
+    public <T> Iterable <T> values(Function <Value, T> mapFunction) {
+        return getNode().values(mapFunction);
+    }
+
+    @Override
+    public Map <String, Object> asMap() {
+        return getNode().asMap();
+    }
+
+    @Override
+    public <T> Map <String, T> asMap(Function <Value, T> mapFunction) {
+        return getNode().asMap(mapFunction);
+    }
+
+    @Override
+    public String toString() {
+        return node == null ? "BufferedNode<pending>" : node.toString();
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Force-directed layout of the exported graph, computed with the forces and parameters of the d3 simulation of the visualization
+ * (links of length 100, many-body charge of -50 and centering), so that the visualization can display it without running the simulation.
+ * The many-body force is approximated with a Barnes-Hut quadtree and computed for all nodes in parallel.
+ * The layout is deterministic: the nodes start from the same phyllotaxis arrangement as in d3,
+ * and the forces of each step are computed from the positions of the previous step whatever the number of threads.
+ */
+class ForceLayout {
+
+    private static final double LINK_DISTANCE = 100;
+    private static final double CHARGE = - 50;
+    private static final double THETA2 = 0.81;
+    private static final double DISTANCE_MIN2 = 1;
+    private static final double VELOCITY_DECAY = 0.6;
+    private static final double ALPHA_MIN = 0.001;
+
+    private final int nbNodes;
+    private final int[] sources;
+    private final int[] targets;
+    private final int nbLinks;
+    private final double[] x;
+    private final double[] y;
+    private final double[] vx;
+    private final double[] vy;
+
+    /**
+     * @param nbNodes number of nodes, numbered from 0
+     * @param sources source of each link
+     * @param targets target of each link
+     * @param nbLinks number of links in the arrays
+     */
+    ForceLayout(int nbNodes, int[] sources, int[] targets, int nbLinks) {
+        this.nbNodes = nbNodes;
+        this.sources = sources;
+        this.targets = targets;
+        this.nbLinks = nbLinks;
+        x = new double[nbNodes];
+        y = new double[nbNodes];
+        vx = new double[nbNodes];
+        vy = new double[nbNodes];
+        double angle = Math.PI * (3 - Math.sqrt(5));
+        for (int node = 0 ; node < nbNodes ; node++) {
+            double radius = 10 * Math.sqrt(0.5 + node);
+            x[node] = radius * Math.cos(node * angle);
+            y[node] = radius * Math.sin(node * angle);
+        }
+    }
+
+    /**
+     * Runs the simulation until it cools down, the temperature decreasing as in d3 to reach its minimum after the given number of iterations.
+     */
+    void run(int iterations) {
+        double alphaDecay = 1 - Math.pow(ALPHA_MIN, 1.0 / iterations);
+        double alpha = 1;
+        int[] degrees = new int[nbNodes];
+        for (int link = 0 ; link < nbLinks ; link++) {
+            degrees[sources[link]]++;
+            degrees[targets[link]]++;
+        }
+        for (int iteration = 0 ; iteration < iterations ; iteration++) {
+            alpha -= alpha * alphaDecay;
+            applyLinkForce(alpha, degrees);
+            applyManyBodyForce(alpha);
+            double meanX = 0;
+            double meanY = 0;
+            for (int node = 0 ; node < nbNodes ; node++) {
+                meanX += x[node];
+                meanY += y[node];
+            }
+            meanX /= nbNodes;
+            meanY /= nbNodes;
+            for (int node = 0 ; node < nbNodes ; node++) {
+                vx[node] *= VELOCITY_DECAY;
+                vy[node] *= VELOCITY_DECAY;
+                x[node] += vx[node] - meanX;
+                y[node] += vy[node] - meanY;
+            }
+        }
+    }
+
+    /**
+     * Pulls or pushes the ends of each link towards the link distance, the less connected end moving the most, as d3.forceLink does.
+     */
+    private void applyLinkForce(double alpha, int[] degrees) {
+        for (int link = 0 ; link < nbLinks ; link++) {
+            int source = sources[link];
+            int target = targets[link];
+            if (source == target) {
+                continue;
+            }
+            double dx = x[target] + vx[target] - x[source] - vx[source];
+            double dy = y[target] + vy[target] - y[source] - vy[source];
+            double length = Math.sqrt(dx * dx + dy * dy);
+            if (length == 0) {
+                continue;
+            }
+            double strength = 1.0 / Math.min(degrees[source], degrees[target]);
+            double bias = (double) degrees[source] / (degrees[source] + degrees[target]);
+            double factor = (length - LINK_DISTANCE) / length * alpha * strength;
+            dx *= factor;
+            dy *= factor;
+            vx[target] -= dx * bias;
+            vy[target] -= dy * bias;
+            vx[source] += dx * (1 - bias);
+            vy[source] += dy * (1 - bias);
+        }
+    }
+
+    private void applyManyBodyForce(double alpha) {
+        if (nbNodes == 0) {
+            return;
+        }
+        Quad root = buildQuadtree();
+        IntStream.range(0, nbNodes).parallel().forEach(node -> {
+            double[] velocity = new double[2];
+            root.apply(node, alpha, velocity);
+            vx[node] += velocity[0];
+            vy[node] += velocity[1];
+        });
+    }
+
+    private Quad buildQuadtree() {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int node = 0 ; node < nbNodes ; node++) {
+            minX = Math.min(minX, x[node]);
+            minY = Math.min(minY, y[node]);
+            maxX = Math.max(maxX, x[node]);
+            maxY = Math.max(maxY, y[node]);
+        }
+        Quad root = new Quad(minX, minY, Math.max(1, Math.max(maxX - minX, maxY - minY)));
+        for (int node = 0 ; node < nbNodes ; node++) {
+            root.insert(node, 0);
+        }
+        root.computeCenters();
+        return root;
+    }
+
+    double getX(int node) {
+        return x[node];
+    }
+
+    double getY(int node) {
+        return y[node];
+    }
+
+    /**
+     * Square region of the plane, divided in four when it contains several nodes.
+     */
+    private class Quad {
+
+        private static final int MAX_DEPTH = 48;
+
+        private final double x0;
+        private final double y0;
+        private final double size;
+        private Quad[] children;
+        private int[] nodes = new int[0];
+        private double charge;
+        private double centerX;
+        private double centerY;
+
+        Quad(double x0, double y0, double size) {
+            this.x0 = x0;
+            this.y0 = y0;
+            this.size = size;
+        }
+
+        /**
+         * Nodes at the same position, or too close to be separated, stay together in a leaf.
+         */
+        void insert(int node, int depth) {
+            if (children == null && (nodes.length == 0 || depth >= MAX_DEPTH)) {
+                nodes = Arrays.copyOf(nodes, nodes.length + 1);
+                nodes[nodes.length - 1] = node;
+                return;
+            }
+            if (children == null) {
+                children = new Quad[4];
+                int[] previousNodes = nodes;
+                nodes = new int[0];
+                for (int previousNode : previousNodes) {
+                    getChild(previousNode).insert(previousNode, depth + 1);
+                }
+            }
+            getChild(node).insert(node, depth + 1);
+        }
+
+        private Quad getChild(int node) {
+            double half = size / 2;
+            int right = x[node] >= x0 + half ? 1 : 0;
+            int bottom = y[node] >= y0 + half ? 1 : 0;
+            int index = right + 2 * bottom;
+            if (children[index] == null) {
+                children[index] = new Quad(x0 + right * half, y0 + bottom * half, half);
+            }
+            return children[index];
+        }
+
+        void computeCenters() {
+            double weightedX = 0;
+            double weightedY = 0;
+            if (children == null) {
+                for (int node : nodes) {
+                    charge += CHARGE;
+                    weightedX += CHARGE * x[node];
+                    weightedY += CHARGE * y[node];
+                }
+            } else {
+                for (Quad child : children) {
+                    if (child != null) {
+                        child.computeCenters();
+                        charge += child.charge;
+                        weightedX += child.charge * child.centerX;
+                        weightedY += child.charge * child.centerY;
+                    }
+                }
+            }
+            centerX = weightedX / charge;
+            centerY = weightedY / charge;
+        }
+
+        /**
+         * Adds to the velocity the force of the nodes of this region on the node,
+         * approximating the region by its center of charge when it is far enough, as d3.forceManyBody does.
+         */
+        void apply(int node, double alpha, double[] velocity) {
+            double dx = centerX - x[node];
+            double dy = centerY - y[node];
+            double distance2 = dx * dx + dy * dy;
+            if (size * size / THETA2 < distance2) {
+                addForce(dx, dy, distance2, charge, alpha, velocity);
+            } else if (children == null) {
+                for (int other : nodes) {
+                    if (other != node) {
+                        double otherDx = x[other] - x[node];
+                        double otherDy = y[other] - y[node];
+                        addForce(otherDx, otherDy, otherDx * otherDx + otherDy * otherDy, CHARGE, alpha, velocity);
+                    }
+                }
+            } else {
+                for (Quad child : children) {
+                    if (child != null) {
+                        child.apply(node, alpha, velocity);
+                    }
+                }
+            }
+        }
+
+        private void addForce(double dx, double dy, double distance2, double charge, double alpha, double[] velocity) {
+            if (distance2 == 0) {
+                return;
+            }
+            if (distance2 < DISTANCE_MIN2) {
+                distance2 = Math.sqrt(DISTANCE_MIN2 * distance2);
+            }
+            velocity[0] += dx * charge * alpha / distance2;
+            velocity[1] += dy * charge * alpha / distance2;
+        }
+    }
+}
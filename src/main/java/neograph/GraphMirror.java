@@ -0,0 +1,119 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+
+package neograph;
+
+import neo4j_types.NodeType;
+import neo4j_types.RelationType;
+import org.neo4j.driver.types.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Copy in memory of the nodes, labels and relationships written by a {@link NeoGraph} to a database which was empty,
+ * so that the lookups made while applying the facts are answered without sending the buffered writes to the database.
+ * <p>
+ * Each node of the copy is the {@link BufferedNode} returned when it was created, which is returned again by the lookups.
+ * Properties are not copied. The copy is dropped as soon as the database is written to by other statements.
+ */
+class GraphMirror {
+
+    private MemoryGraph graph = new MemoryGraph();
+    private List <BufferedNode> nodes = new ArrayList <>();
+
+    boolean isValid() {
+        return graph != null;
+    }
+
+    /**
+     * Drops the copy, which does not match the database anymore.
+     */
+    void invalidate() {
+        graph = null;
+        nodes = null;
+    }
+
+    MemoryGraph getGraph() {
+        return graph;
+    }
+
+    void add(BufferedNode node, String name, List <String> labels) {
+        node.setMirror(this, graph.addNode(name, labels));
+        nodes.add(node);
+    }
+
+    /**
+     * @return the index of the node in the copy, -1 if the node was not created by the graph while the copy was valid
+     */
+    int indexOf(Node node) {
+        if (node instanceof BufferedNode && ((BufferedNode) node).getMirror() == this) {
+            return ((BufferedNode) node).getMirrorIndex();
+        }
+        return - 1;
+    }
+
+    /**
+     * @return the node of the copy having the given index, usable as a node of the memory graph
+     */
+    Node toMemoryNode(int index) {
+        return new MemoryNode(graph, index);
+    }
+
+    BufferedNode getNode(int index) {
+        return nodes.get(index);
+    }
+
+    /**
+     * @param memoryNode node found in the memory graph
+     * @return the node created by the Neo4j graph
+     */
+    Optional <Node> toNode(Optional <Node> memoryNode) {
+        return memoryNode.map(node -> nodes.get((int) node.id()));
+    }
+
+    List <Node> toNodes(List <Node> memoryNodes) {
+        return memoryNodes.stream().map(node -> nodes.get((int) node.id())).collect(Collectors.toList());
+    }
+
+    List <Integer> findNodes(String name, NodeType type) {
+        return graph.findNodes(name, type);
+    }
+
+    boolean hasLabel(int index, String label) {
+        return graph.hasLabel(index, label);
+    }
+
+    List <String> getLabels(int index) {
+        return graph.getLabels(index);
+    }
+
+    void addLabel(int index, String label) {
+        graph.addLabel(index, label);
+    }
+
+    void link(int source, int target, RelationType type) {
+        graph.addRelationship(source, target, type);
+    }
+}
@@ -0,0 +1,387 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import configuration.Configuration;
+import neo4j_types.EntityAttribute;
+import neo4j_types.EntityType;
+import neo4j_types.NodeType;
+import neo4j_types.RelationType;
+import org.json.JSONObject;
+import org.neo4j.driver.types.Node;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Graph of the analysed project: classes, interfaces, methods and constructors, the relationships between them,
+ * and the variability measures computed on them.
+ * <p>
+ * Node names are qualified names, unique for a given node type.
+ * The metrics and labels are computed in the order given by {@link #detectVPsAndVariants()}, each step relying on the previous ones.
+ */
+public interface GraphStore {
+
+    /**
+     * Creates a node of corresponding name and types and returns it.
+     *
+     * @param name  Node name
+     * @param types Node types
+     */
+    Node createNode(String name, NodeType type, NodeType... types);
+
+    /**
+     * @return the first node having the given name, whatever its type
+     */
+    Optional <Node> getNode(String name);
+
+    /**
+     * Gets a node being a class or an interface and matching the given name.
+     *
+     * @param name node name
+     */
+    Optional <Node> getClassOrInterfaceNode(String name);
+
+    Optional <Node> getClassNode(String name);
+
+    Optional <Node> getInterfaceNode(String name);
+
+    /**
+     * Returns the node corresponding to the superclass of the node whose name is in parameter
+     *
+     * @param name node name
+     * @return the node if it exists, Optional.empty otherwise
+     */
+    Optional <Node> getSuperclassNode(String name);
+
+    /**
+     * Returns the list of nodes corresponding to the interfaces implemented by the node whose name is in parameter
+     *
+     * @param name node name
+     */
+    List <Node> getImplementedInterfacesNodes(String name);
+
+    /**
+     * @return a class or interface whose name starts with the package and ends with the given name
+     */
+    Optional <Node> getNodeWithNameInPackage(String name, String packageName);
+
+    /**
+     * Returns the node if it exists, creates it and returns it otherwise.
+     * As we use qualified names, each name is unique. Therefore, we can match only on node name.
+     * If the node does not exist, it is created with the specified types as labels.
+     *
+     * @param name             Node name
+     * @param type             Node type
+     * @param createAttributes Node attributes added when creating the node
+     * @param matchAttributes  Node attributes added when matching an existing node
+     */
+    Node getOrCreateNode(String name, EntityType type, EntityAttribute[] createAttributes, EntityAttribute[] matchAttributes);
+
+    /**
+     * @return the names of the classes and interfaces created so far, to resolve type names without querying the graph
+     */
+    SymbolTable getSymbolTable();
+
+    default Node getOrCreateNode(String name, EntityType type) {
+        return getOrCreateNode(name, type, new EntityAttribute[]{}, new EntityAttribute[]{});
+    }
+
+    default Node getOrCreateNode(String name, EntityType type, EntityAttribute[] attributes) {
+        return getOrCreateNode(name, type, attributes, attributes);
+    }
+
+    /**
+     * Creates the relationship node1 -> node2 of the given type.
+     *
+     * @param node1 source node
+     * @param node2 target node
+     */
+    void linkTwoNodes(Node node1, Node node2, RelationType type);
+
+    void setNodeAttribute(Node node, String attributeName, Object value);
+
+    void addLabelToNode(Node node, String label);
+
+    /**
+     * @return the value of the property, null if the node does not have it
+     */
+    Object getPropertyValue(Node node, String property);
+
+    /**
+     * Checks whether two nodes have a direct relationship.
+     *
+     * @param parentNode source node of the relationship
+     * @param childNode  destination node of the relationship
+     * @return true if a relationship exists, false otherwise
+     */
+    boolean relatedTo(Node parentNode, Node childNode);
+
+    /**
+     * Get number of subclasses of a class or implementations of an interface
+     *
+     * @param node Node corresponding to the class
+     * @return Number of subclasses or implementations
+     */
+    int getNbVariants(Node node);
+
+    default void detectVPsAndVariants() {
+        setMethodVPs();
+        setMethodVariants();
+        setConstructorVPs();
+        setConstructorVariants();
+        setNbVariantsProperty();
+        setVPLabels();
+        setMethodLevelVPLabels();
+        setVariantsLabels();
+        setPublicMethods();
+        setPublicConstructors();
+        setNbUsages();
+        setAllMethods();
+        detectStrategiesWithUsage();
+    }
+
+    void setMethodVPs();
+
+    void setMethodVariants();
+
+    void setConstructorVPs();
+
+    void setConstructorVariants();
+
+    void setNbVariantsProperty();
+
+    void setVPLabels();
+
+    void setMethodLevelVPLabels();
+
+    void setVariantsLabels();
+
+    void setPublicMethods();
+
+    void setPublicConstructors();
+
+    void setNbUsages();
+
+    void setAllMethods();
+
+    void detectStrategiesWithUsage();
+
+    default void detectHotspots() {
+        detectHotspotsWithNewDefinition(Configuration.getVariantsThreshold(), Configuration.getUsageHops());
+    }
+
+    void detectHotspotsInAggregation(int threshold);
+
+    void detectHotspotsWithNewDefinition(int threshold, int numberOfHops);
+
+    int getNbPublicClass();
+
+    /**
+     * Get total number of variants.
+     * This corresponds to the number of variants at class and method level.
+     *
+     * @return Number of variants
+     */
+    default int getTotalNbVariants() {
+        return getNbClassLevelVariants() + getNbMethodLevelVariants();
+    }
+
+    /**
+     * Get number of variants at class level.
+     * This corresponds to the number of concrete classes without a subclass and extending a class or implementing an interface defined in the project.
+     *
+     * @return Number of class level variants
+     */
+    int getNbClassLevelVariants();
+
+    /**
+     * Get number of variants at method level.
+     * This corresponds to the number of method and constructor overloads.
+     *
+     * @return Number of method level variants
+     */
+    default int getNbMethodLevelVariants() {
+        return getNbMethodVariants() + getNbConstructorVariants();
+    }
+
+    int getNbMethodVariants();
+
+    int getNbConstructorVariants();
+
+    int getNbConstructorVPs();
+
+    int getNbPublicConstructors();
+
+    int getNbMethodVPs();
+
+    int getNbPublicMethods();
+
+    int getNbAllMethods();
+
+    /**
+     * Get total number of VPs.
+     * This corresponds to the number of VPs at class and method level.
+     *
+     * @return Number of VPs
+     */
+    default int getTotalNbVPs() {
+        return getNbClassLevelVPs() + getNbMethodLevelVPs();
+    }
+
+    /**
+     * Get total number of method level VPs.
+     * These are :
+     * - overloaded methods
+     * - overloaded constructors
+     *
+     * @return Number of method level VPs
+     */
+    default int getNbMethodLevelVPs() {
+        return getNbMethodVPs() + getNbConstructorVPs();
+    }
+
+    int getNbClassLevelVPs();
+
+    int getNbAttributeComposeClass();
+
+    int getNbEntryPointClasses();
+
+    int getNbEntryPointClassesBeingVPsOrVariants();
+
+    int getNbNodes();
+
+    int getNbRelationships();
+
+    int getNbInheritanceRelationships();
+
+    int getNbUsageRelationship();
+
+    void createClassesIndex();
+
+    void createInterfacesIndex();
+
+    /**
+     * Deletes all nodes and relationships in the graph.
+     */
+    void deleteGraph();
+
+    /**
+     * Starts a unit of work, grouping the following operations until it is closed.
+     *
+     * @param commitInterval number of statements after which the writes are committed, for stores supporting transactions
+     */
+    UnitOfWork beginUnitOfWork(int commitInterval);
+
+    /**
+     * Writes the JSON object read by the visualization, containing the VPs, variants and the links between them.
+     * Nodes and links are written as they are read from the store, without building the document in memory.
+     *
+     * @param writer destination of the JSON object, left open
+     */
+    void writeVPJsonGraph(Writer writer) throws IOException;
+
+    /**
+     * @return the JSON object read by the visualization, containing the VPs, variants and the links between them
+     */
+    default String generateVPJsonGraph() {
+        StringWriter writer = new StringWriter();
+        try {
+            writeVPJsonGraph(writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    default String generateStatisticsJson() {
+        return new JSONObject()
+                .put("VPs", getTotalNbVPs())
+                .put("methodsVPs", getNbMethodVPs())
+                .put("constructorsVPs", getNbConstructorVPs())
+                .put("methodLevelVPs", getNbMethodLevelVPs())
+                .put("classLevelVPs", getNbClassLevelVPs())
+                .put("variants", getTotalNbVariants())
+                .put("methodsVariants", getNbMethodVariants())
+                .put("constructorsVariants", getNbConstructorVariants())
+                .put("methodLevelVariants", getNbMethodLevelVariants())
+                .put("classLevelVariants", getNbClassLevelVariants())
+                .put("publicMethods", getNbPublicMethods())
+                .put("allMethods", getNbAllMethods())
+                .put("publicsConstructors", getNbPublicConstructors())
+                .put("entryPointClasses", getNbEntryPointClasses())
+                .put("entryPointVPsOrVariants", getNbEntryPointClassesBeingVPsOrVariants())
+                .put("nbUsageClasses", getNbAttributeComposeClass()).toString();
+    }
+
+    default void writeVPGraphFile(String filePath) {
+        writeToFile(filePath, this::writeVPJsonGraph);
+    }
+
+    default void writeStatisticsFile(String filePath) {
+        writeToFile(filePath, writer -> writer.write(generateStatisticsJson()));
+    }
+
+    /**
+     * Writes the content through a buffered writer, gzip-compressed if the file name ends with {@code .gz}.
+     */
+    default void writeToFile(String filePath, FileContent content) {
+        Path path = Paths.get(filePath);
+        try {
+            if (path.toFile().getParentFile().exists() || (path.toFile().getParentFile().mkdirs() && path.toFile().createNewFile())) {
+                try (BufferedWriter bw = filePath.endsWith(".gz") ?
+                        new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(path)), StandardCharsets.UTF_8)) :
+                        Files.newBufferedWriter(path)) {
+                    content.writeTo(bw);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Releases the resources of the store once the analysis is over.
+     */
+    void close();
+
+    /**
+     * Content of a file, written as it is produced.
+     */
+    @FunctionalInterface
+    interface FileContent {
+        void writeTo(Writer writer) throws IOException;
+    }
+}
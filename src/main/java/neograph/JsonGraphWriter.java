@@ -0,0 +1,202 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the graph read by the visualization in the compact interchange format decoded by d3/scripts/graph-format.js.
+ * Names and labels are written once in a string table, nodes are referenced by their index and each view lists the indexes of its elements.
+ * Node records and edges are written as soon as they are read, only the string table, the views and the ends of the edges being kept until the end,
+ * where the force layout of the graph is computed and written, so that the visualization does not have to run its simulation.
+ */
+class JsonGraphWriter {
+
+    static final int VERSION = 2;
+
+    static final String[] NODE_FIELDS = {"name", "types", "methodVPs", "constructorVPs", "methodVariants", "constructorVariants",
+            "publicMethods", "publicConstructors", "allMethods", "nbUsages", "methods", "constructors", "attributes", "interfaceAttributes"};
+
+    private final Writer writer;
+    private final int layoutIterations;
+    private final Map <String, Integer> stringIds = new HashMap <>();
+    private final List <String> strings = new ArrayList <>();
+    private final Map <String, Integer> nodeIds = new HashMap <>();
+    private final List <Integer> externalNodes = new ArrayList <>();
+    private final Map <String, List <Integer>> views = new LinkedHashMap <>();
+    private int nbNodeRecords = 0;
+    private int nbEdges = 0;
+    private int[] edgeSources = new int[64];
+    private int[] edgeTargets = new int[64];
+
+    /**
+     * @param layoutIterations number of iterations of the force layout, no layout being written if 0
+     */
+    JsonGraphWriter(Writer writer, int layoutIterations, String... views) {
+        this.writer = writer;
+        this.layoutIterations = layoutIterations;
+        for (String view : views) {
+            this.views.put(view, new ArrayList <>());
+        }
+    }
+
+    void beginNodes() throws IOException {
+        writer.write("{\"format\":\"symfinder-graph\",\"version\":" + VERSION + ",\"nodeFields\":");
+        new JSONArray(NODE_FIELDS).write(writer);
+        writer.write(",\"nodes\":[");
+    }
+
+    /**
+     * Adds the node to the view, writing its record if it is not in a previous view.
+     *
+     * @param node properties of the node, having the fields of {@link #NODE_FIELDS}, children counts being lists of name and number maps
+     */
+    void writeNode(String view, Map <String, Object> node) throws IOException {
+        String name = (String) node.get("name");
+        Integer id = nodeIds.get(name);
+        if (id == null) {
+            id = nbNodeRecords++;
+            nodeIds.put(name, id);
+            writer.write(id == 0 ? "[" : ",[");
+            for (int i = 0 ; i < NODE_FIELDS.length ; i++) {
+                if (i > 0) {
+                    writer.write(",");
+                }
+                writeValue(NODE_FIELDS[i], node.get(NODE_FIELDS[i]));
+            }
+            writer.write("]");
+        }
+        views.get(view).add(id);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeValue(String field, Object value) throws IOException {
+        if (value == null) {
+            writer.write("null");
+        } else if (field.equals("name")) {
+            writer.write(Integer.toString(getStringId((String) value)));
+        } else if (field.equals("types")) {
+            StringBuilder types = new StringBuilder("[");
+            for (Object label : (List <Object>) value) {
+                types.append(types.length() > 1 ? "," : "").append(getStringId((String) label));
+            }
+            writer.write(types.append("]").toString());
+        } else if (value instanceof List) {
+            StringBuilder counts = new StringBuilder("[");
+            for (Map <String, Object> count : (List <Map <String, Object>>) value) {
+                counts.append(counts.length() > 1 ? "," : "").append(getStringId((String) count.get("name"))).append(",").append(count.get("number"));
+            }
+            writer.write(counts.append("]").toString());
+        } else {
+            writer.write(JSONObject.valueToString(value));
+        }
+    }
+
+    void endNodes() throws IOException {
+        writer.write("],\"edges\":[");
+    }
+
+    /**
+     * Writes the edge, which belongs to all links, and adds it to the given link views.
+     */
+    void writeLink(String source, String target, String type, String... views) throws IOException {
+        int sourceId = getNodeId(source);
+        int targetId = getNodeId(target);
+        writer.write((nbEdges == 0 ? "" : ",") + sourceId + "," + targetId + "," + getStringId(type));
+        if (nbEdges == edgeSources.length) {
+            edgeSources = Arrays.copyOf(edgeSources, 2 * nbEdges);
+            edgeTargets = Arrays.copyOf(edgeTargets, 2 * nbEdges);
+        }
+        edgeSources[nbEdges] = sourceId;
+        edgeTargets[nbEdges] = targetId;
+        for (String view : views) {
+            this.views.get(view).add(nbEdges);
+        }
+        nbEdges++;
+    }
+
+    /**
+     * Links ends without a record, which the stores do not export, are numbered after the records.
+     */
+    private int getNodeId(String name) {
+        return nodeIds.computeIfAbsent(name, key -> {
+            externalNodes.add(getStringId(key));
+            return nbNodeRecords + externalNodes.size() - 1;
+        });
+    }
+
+    private int getStringId(String string) {
+        return stringIds.computeIfAbsent(string, key -> {
+            strings.add(key);
+            return strings.size() - 1;
+        });
+    }
+
+    /**
+     * Writes the views, the string table and the layout and closes the JSON object, the writer being left open.
+     */
+    void end() throws IOException {
+        writer.write("],\"views\":");
+        new JSONObject(views).write(writer);
+        writer.write(",\"externalNodes\":");
+        writer.write(externalNodes.toString().replace(" ", ""));
+        writer.write(",\"strings\":[");
+        for (int i = 0 ; i < strings.size() ; i++) {
+            if (i > 0) {
+                writer.write(",");
+            }
+            JSONObject.quote(strings.get(i), writer);
+        }
+        writer.write("]");
+        if (layoutIterations > 0) {
+            writeLayout();
+        }
+        writer.write("}");
+        writer.flush();
+    }
+
+    /**
+     * Writes the coordinates of the nodes, records and link ends, indexed by node id and rounded to a tenth.
+     */
+    private void writeLayout() throws IOException {
+        int nbNodes = nbNodeRecords + externalNodes.size();
+        ForceLayout layout = new ForceLayout(nbNodes, edgeSources, edgeTargets, nbEdges);
+        layout.run(layoutIterations);
+        StringBuilder xs = new StringBuilder();
+        StringBuilder ys = new StringBuilder();
+        for (int node = 0 ; node < nbNodes ; node++) {
+            xs.append(node == 0 ? "" : ",").append(Math.round(layout.getX(node) * 10) / 10.0);
+            ys.append(node == 0 ? "" : ",").append(Math.round(layout.getY(node) * 10) / 10.0);
+        }
+        writer.write(",\"layout\":{\"x\":[" + xs + "],\"y\":[" + ys + "]}");
+    }
+}
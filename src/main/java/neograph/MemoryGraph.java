@@ -0,0 +1,1105 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import configuration.Configuration;
+import neo4j_types.DesignPatternType;
+import neo4j_types.EntityAttribute;
+import neo4j_types.EntityType;
+import neo4j_types.EntityVisibility;
+import neo4j_types.NodeType;
+import neo4j_types.RelationType;
+import org.neo4j.driver.types.Node;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Graph kept in the memory of the analysis, used instead of a Neo4j database when the graph is only needed to compute the JSON files.
+ * <p>
+ * Nodes and relationships are identified by their index in the arrays holding their attributes.
+ * Each label is stored as the bit set of the nodes having it, and each property as a column indexed by node.
+ * As in the Neo4j store, the relationships of a node are chained: each relationship refers to the previous one
+ * leaving the same source and to the previous one entering the same target, so that adding a relationship allocates nothing.
+ * <p>
+ * Queries, metrics and hotspots give the same results as the Cypher statements of {@link NeoGraph}.
+ * The graph can then be copied into a Neo4j database with {@link #exportTo(NeoGraph)} to be explored.
+ */
+public class MemoryGraph implements GraphStore {
+
+    private static final int NONE = - 1;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final String NAME = "name";
+    private static final RelationType[] RELATION_TYPES = RelationType.values();
+    /**
+     * Properties set by {@link #detectVPsAndVariants()}, in the order in which the steps set them.
+     */
+    static final String[] METRICS = {"methodVPs", "methodVariants", "constructorVPs", "constructorVariants", "classVariants",
+            "publicMethods", "publicConstructors", "nbUsages", "allMethods"};
+
+    private int nbNodes = 0;
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int[] nextWithSameName = new int[INITIAL_CAPACITY];
+    private int[] firstOutgoing = new int[INITIAL_CAPACITY];
+    private int[] firstIncoming = new int[INITIAL_CAPACITY];
+    /**
+     * For each name, the first and last nodes of the chain of nodes having this name, in creation order.
+     */
+    private final Map <String, int[]> nodesByName = new HashMap <>();
+    private final List <String> labels = new ArrayList <>();
+    private final Map <String, Integer> labelIds = new HashMap <>();
+    private final List <BitSet> labelNodes = new ArrayList <>();
+    private final Map <String, Object[]> properties = new LinkedHashMap <>();
+    private final SymbolTable symbolTable = new SymbolTable();
+
+    private int nbRelationships = 0;
+    private int[] sources = new int[INITIAL_CAPACITY];
+    private int[] targets = new int[INITIAL_CAPACITY];
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private int[] nextOutgoing = new int[INITIAL_CAPACITY];
+    private int[] nextIncoming = new int[INITIAL_CAPACITY];
+
+    // Nodes
+
+    public Node createNode(String name, NodeType type, NodeType... types) {
+        List <String> nodeLabels = Arrays.stream(types).map(NodeType::getString).collect(Collectors.toList());
+        nodeLabels.add(type.getString());
+        return new MemoryNode(this, addNode(name, nodeLabels));
+    }
+
+    int addNode(String name, List <String> nodeLabels) {
+        if (nbNodes == names.length) {
+            int capacity = names.length * 2;
+            names = Arrays.copyOf(names, capacity);
+            nextWithSameName = Arrays.copyOf(nextWithSameName, capacity);
+            firstOutgoing = Arrays.copyOf(firstOutgoing, capacity);
+            firstIncoming = Arrays.copyOf(firstIncoming, capacity);
+        }
+        int node = nbNodes++;
+        names[node] = name;
+        nextWithSameName[node] = NONE;
+        firstOutgoing[node] = NONE;
+        firstIncoming[node] = NONE;
+        int[] chain = nodesByName.get(name);
+        if (chain == null) {
+            nodesByName.put(name, new int[]{node, node});
+        } else {
+            nextWithSameName[chain[1]] = node;
+            chain[1] = node;
+        }
+        nodeLabels.forEach(label -> addLabel(node, label));
+        symbolTable.addIfType(name, nodeLabels);
+        return node;
+    }
+
+    public Optional <Node> getNode(String name) {
+        return toNode(findNode(name));
+    }
+
+    public Optional <Node> getClassOrInterfaceNode(String name) {
+        return toNode(findNode(name, EntityType.CLASS, EntityType.INTERFACE));
+    }
+
+    public Optional <Node> getClassNode(String name) {
+        return toNode(findNode(name, EntityType.CLASS));
+    }
+
+    public Optional <Node> getInterfaceNode(String name) {
+        return toNode(findNode(name, EntityType.INTERFACE));
+    }
+
+    public Optional <Node> getSuperclassNode(String name) {
+        return getParents(name, RelationType.EXTENDS, EntityType.CLASS).stream().findFirst();
+    }
+
+    public List <Node> getImplementedInterfacesNodes(String name) {
+        return getParents(name, RelationType.IMPLEMENTS, EntityType.INTERFACE);
+    }
+
+    /**
+     * @return the sources of the relationships of the given type entering the nodes having the given name
+     */
+    private List <Node> getParents(String name, RelationType type, EntityType parentType) {
+        List <Node> parents = new ArrayList <>();
+        for (int node = firstWithName(name) ; node != NONE ; node = nextWithSameName[node]) {
+            for (int relationship = firstIncoming[node] ; relationship != NONE ; relationship = nextIncoming[relationship]) {
+                if (types[relationship] == type.ordinal() && hasLabel(sources[relationship], parentType.getString())) {
+                    parents.add(new MemoryNode(this, sources[relationship]));
+                }
+            }
+        }
+        return parents;
+    }
+
+    public Optional <Node> getNodeWithNameInPackage(String name, String packageName) {
+        String prefix = packageName + ".";
+        String suffix = "." + name;
+        BitSet classesAndInterfaces = getNodes(EntityType.CLASS.getString(), EntityType.INTERFACE.getString());
+        for (int node = classesAndInterfaces.nextSetBit(0) ; node >= 0 ; node = classesAndInterfaces.nextSetBit(node + 1)) {
+            if (names[node].startsWith(prefix) && names[node].endsWith(suffix)) {
+                return toNode(node);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * If several nodes match, as a MERGE statement, the match attributes are added to all of them and the last one is returned.
+     */
+    public Node getOrCreateNode(String name, EntityType type, EntityAttribute[] createAttributes, EntityAttribute[] matchAttributes) {
+        List <Integer> matchedNodes = findNodes(name, type);
+        for (int node : matchedNodes) {
+            for (EntityAttribute attribute : matchAttributes) {
+                addLabel(node, attribute.getString());
+            }
+        }
+        if (matchedNodes.isEmpty()) {
+            List <String> nodeLabels = new ArrayList <>();
+            nodeLabels.add(type.getString());
+            Arrays.stream(createAttributes).map(NodeType::getString).forEach(nodeLabels::add);
+            return new MemoryNode(this, addNode(name, nodeLabels));
+        }
+        return new MemoryNode(this, matchedNodes.get(matchedNodes.size() - 1));
+    }
+
+    public SymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+
+    private int firstWithName(String name) {
+        int[] chain = nodesByName.get(name);
+        return chain == null ? NONE : chain[0];
+    }
+
+    /**
+     * @return the first node having the name and one of the types, or any type if none is given
+     */
+    private int findNode(String name, NodeType... nodeTypes) {
+        for (int node = firstWithName(name) ; node != NONE ; node = nextWithSameName[node]) {
+            if (nodeTypes.length == 0 || hasAnyLabel(node, nodeTypes)) {
+                return node;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * @return the nodes having the name and the type, in creation order
+     */
+    List <Integer> findNodes(String name, NodeType type) {
+        List <Integer> nodes = new ArrayList <>();
+        for (int node = firstWithName(name) ; node != NONE ; node = nextWithSameName[node]) {
+            if (hasLabel(node, type.getString())) {
+                nodes.add(node);
+            }
+        }
+        return nodes;
+    }
+
+    private Optional <Node> toNode(int node) {
+        return node == NONE ? Optional.empty() : Optional.of(new MemoryNode(this, node));
+    }
+
+    private static int index(Node node) {
+        return (int) node.id();
+    }
+
+    // Labels
+
+    public void addLabelToNode(Node node, String label) {
+        addLabel(index(node), label);
+    }
+
+    void addLabel(int node, String label) {
+        labelNodes.get(getLabelId(label)).set(node);
+    }
+
+    private int getLabelId(String label) {
+        return labelIds.computeIfAbsent(label, key -> {
+            labels.add(key);
+            labelNodes.add(new BitSet());
+            return labels.size() - 1;
+        });
+    }
+
+    boolean hasLabel(int node, String label) {
+        Integer labelId = labelIds.get(label);
+        return labelId != null && labelNodes.get(labelId).get(node);
+    }
+
+    private boolean hasAnyLabel(int node, NodeType... nodeTypes) {
+        return Arrays.stream(nodeTypes).anyMatch(nodeType -> hasLabel(node, nodeType.getString()));
+    }
+
+    /**
+     * @return the labels of the node, in the order in which they were first used in the graph, as Neo4j does
+     */
+    List <String> getLabels(int node) {
+        List <String> nodeLabels = new ArrayList <>();
+        for (int labelId = 0 ; labelId < labels.size() ; labelId++) {
+            if (labelNodes.get(labelId).get(node)) {
+                nodeLabels.add(labels.get(labelId));
+            }
+        }
+        return nodeLabels;
+    }
+
+    /**
+     * @return a new bit set of the nodes having at least one of the labels
+     */
+    BitSet getNodes(String... nodeLabels) {
+        BitSet nodes = new BitSet();
+        for (String label : nodeLabels) {
+            Integer labelId = labelIds.get(label);
+            if (labelId != null) {
+                nodes.or(labelNodes.get(labelId));
+            }
+        }
+        return nodes;
+    }
+
+    // Properties
+
+    public void setNodeAttribute(Node node, String attributeName, Object value) {
+        setProperty(index(node), attributeName, value);
+    }
+
+    void setProperty(int node, String property, Object value) {
+        Object[] column = getColumn(property);
+        if (column.length <= node) {
+            column = Arrays.copyOf(column, names.length);
+            properties.put(property, column);
+        }
+        column[node] = toStoredValue(value);
+    }
+
+    private Object[] getColumn(String property) {
+        return properties.computeIfAbsent(property, key -> new Object[names.length]);
+    }
+
+    /**
+     * Stores integers as longs and floats as doubles, which are the types Neo4j returns.
+     */
+    private static Object toStoredValue(Object value) {
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Float) {
+            return ((Float) value).doubleValue();
+        }
+        return value;
+    }
+
+    Object getProperty(int node, String property) {
+        if (NAME.equals(property)) {
+            return names[node];
+        }
+        Object[] column = properties.get(property);
+        return column == null || column.length <= node ? null : column[node];
+    }
+
+    private boolean hasProperty(int node, String property) {
+        return getProperty(node, property) != null;
+    }
+
+    /**
+     * @return the properties of the node, starting with its name
+     */
+    Map <String, Object> getProperties(int node) {
+        Map <String, Object> nodeProperties = new LinkedHashMap <>();
+        nodeProperties.put(NAME, names[node]);
+        properties.forEach((property, column) -> {
+            if (column.length > node && column[node] != null) {
+                nodeProperties.put(property, column[node]);
+            }
+        });
+        return nodeProperties;
+    }
+
+    public Object getPropertyValue(Node node, String property) {
+        return getProperty(index(node), property);
+    }
+
+    private static boolean isGreaterThan(Object value, long bound) {
+        return value instanceof Number && ((Number) value).longValue() > bound;
+    }
+
+    private static boolean isTrue(Object value) {
+        return Boolean.TRUE.equals(value);
+    }
+
+    /**
+     * Sets the count computed for a node, as the two statements used in Neo4j do:
+     * the first one sets the value of the nodes matched at least once, the second one sets 0 to the nodes not having the property yet.
+     *
+     * @param nbMatches number of times the node was matched by the first statement
+     */
+    private void setCount(int node, String property, int nbMatches, long value) {
+        if (nbMatches > 0) {
+            setProperty(node, property, value);
+        } else if (! hasProperty(node, property)) {
+            setProperty(node, property, 0L);
+        }
+    }
+
+    // Relationships
+
+    public void linkTwoNodes(Node node1, Node node2, RelationType type) {
+        addRelationship(index(node1), index(node2), type);
+    }
+
+    void addRelationship(int source, int target, RelationType type) {
+        if (nbRelationships == sources.length) {
+            int capacity = sources.length * 2;
+            sources = Arrays.copyOf(sources, capacity);
+            targets = Arrays.copyOf(targets, capacity);
+            types = Arrays.copyOf(types, capacity);
+            nextOutgoing = Arrays.copyOf(nextOutgoing, capacity);
+            nextIncoming = Arrays.copyOf(nextIncoming, capacity);
+        }
+        int relationship = nbRelationships++;
+        sources[relationship] = source;
+        targets[relationship] = target;
+        types[relationship] = (byte) type.ordinal();
+        nextOutgoing[relationship] = firstOutgoing[source];
+        firstOutgoing[source] = relationship;
+        nextIncoming[relationship] = firstIncoming[target];
+        firstIncoming[target] = relationship;
+    }
+
+    private boolean isOfType(int relationship, RelationType... relationTypes) {
+        for (RelationType type : relationTypes) {
+            if (types[relationship] == type.ordinal()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean relatedTo(Node parentNode, Node childNode) {
+        int target = index(childNode);
+        for (int relationship = firstOutgoing[index(parentNode)] ; relationship != NONE ; relationship = nextOutgoing[relationship]) {
+            if (targets[relationship] == target) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getNbVariants(Node node) {
+        return countChildren(index(node), new RelationType[]{RelationType.EXTENDS, RelationType.IMPLEMENTS}, EntityType.CLASS.getString());
+    }
+
+    /**
+     * @param relationTypes types of the relationships to follow, all types if empty
+     * @return number of relationships leaving the node towards a node having all the given labels
+     */
+    private int countChildren(int node, RelationType[] relationTypes, String... childLabels) {
+        int count = 0;
+        for (int relationship = firstOutgoing[node] ; relationship != NONE ; relationship = nextOutgoing[relationship]) {
+            if ((relationTypes.length == 0 || isOfType(relationship, relationTypes)) && hasAllLabels(targets[relationship], childLabels)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean hasAllLabels(int node, String... nodeLabels) {
+        return Arrays.stream(nodeLabels).allMatch(label -> hasLabel(node, label));
+    }
+
+    /**
+     * @return the distinct children of the node having the given label, grouped by name, the most recently linked first
+     */
+    private Map <String, Set <Integer>> getChildrenByName(int node, String childLabel) {
+        Map <String, Set <Integer>> children = new LinkedHashMap <>();
+        for (int relationship = firstOutgoing[node] ; relationship != NONE ; relationship = nextOutgoing[relationship]) {
+            int child = targets[relationship];
+            if (hasLabel(child, childLabel)) {
+                children.computeIfAbsent(names[child], key -> new LinkedHashSet <>()).add(child);
+            }
+        }
+        return children;
+    }
+
+    // Variation points and variants
+
+    public void setMethodVPs() {
+        forEachNode(EntityType.CLASS, node -> {
+            long nbOverloadedMethods = getChildrenByName(node, EntityType.METHOD.getString()).values().stream()
+                    .filter(methods -> methods.size() > 1)
+                    .count();
+            setCount(node, "methodVPs", (int) nbOverloadedMethods, nbOverloadedMethods);
+        });
+    }
+
+    public void setMethodVariants() {
+        forEachNode(EntityType.CLASS, node -> {
+            long nbOverloads = getChildrenByName(node, EntityType.METHOD.getString()).values().stream()
+                    .mapToInt(Set::size)
+                    .filter(size -> size > 1)
+                    .sum();
+            setCount(node, "methodVariants", (int) nbOverloads, nbOverloads);
+        });
+    }
+
+    public void setConstructorVPs() {
+        forEachNode(EntityType.CLASS, node -> {
+            int nbConstructors = countChildren(node, new RelationType[0], EntityType.CONSTRUCTOR.getString());
+            setCount(node, "constructorVPs", nbConstructors, nbConstructors > 1 ? 1 : 0);
+        });
+    }
+
+    public void setConstructorVariants() {
+        forEachNode(EntityType.CLASS, node -> {
+            int nbConstructors = countChildren(node, new RelationType[0], EntityType.CONSTRUCTOR.getString());
+            setCount(node, "constructorVariants", nbConstructors, nbConstructors > 1 ? nbConstructors : 0);
+        });
+    }
+
+    public void setNbVariantsProperty() {
+        for (int node = 0 ; node < nbNodes ; node++) {
+            int nbVariants = countChildren(node, new RelationType[]{RelationType.EXTENDS, RelationType.IMPLEMENTS}, EntityType.CLASS.getString());
+            if (nbVariants > 0 || hasAnyLabel(node, EntityType.CLASS, EntityType.INTERFACE)) {
+                setCount(node, "classVariants", nbVariants, nbVariants);
+            }
+        }
+    }
+
+    public void setNbUsages() {
+        for (int node = 0 ; node < nbNodes ; node++) {
+            int nbUsages = countChildren(node, new RelationType[]{RelationType.USE});
+            if (nbUsages > 0 || hasAnyLabel(node, EntityType.CLASS, EntityType.INTERFACE)) {
+                setCount(node, "nbUsages", nbUsages, nbUsages);
+            }
+        }
+    }
+
+    public void setPublicMethods() {
+        forEachNode(EntityType.CLASS, node -> {
+            int nbPublicMethods = hasLabel(node, EntityVisibility.PUBLIC.getString()) ?
+                    countChildren(node, new RelationType[0], EntityType.METHOD.getString(), EntityVisibility.PUBLIC.getString()) :
+                    0;
+            setCount(node, "publicMethods", nbPublicMethods, nbPublicMethods);
+        });
+    }
+
+    public void setPublicConstructors() {
+        forEachNode(EntityType.CLASS, node -> {
+            int nbPublicConstructors = hasLabel(node, EntityVisibility.PUBLIC.getString()) ?
+                    countChildren(node, new RelationType[0], EntityType.CONSTRUCTOR.getString(), EntityVisibility.PUBLIC.getString()) :
+                    0;
+            setCount(node, "publicConstructors", nbPublicConstructors, nbPublicConstructors);
+        });
+    }
+
+    public void setAllMethods() {
+        forEachNode(EntityType.CLASS, node -> {
+            int nbMethods = countChildren(node, new RelationType[0], EntityType.METHOD.getString());
+            setCount(node, "allMethods", nbMethods, nbMethods);
+        });
+    }
+
+    public void setVPLabels() {
+        for (int node = 0 ; node < nbNodes ; node++) {
+            if (! hasLabel(node, EntityAttribute.OUT_OF_SCOPE.getString()) &&
+                    (hasLabel(node, EntityType.INTERFACE.getString()) ||
+                            hasAllLabels(node, EntityType.CLASS.getString(), EntityAttribute.ABSTRACT.getString()) ||
+                            hasAnyLabel(node, DesignPatternType.values()) ||
+                            isGreaterThan(getProperty(node, "classVariants"), 0))) {
+                addLabel(node, EntityAttribute.VP.getString());
+            }
+        }
+    }
+
+    public void setMethodLevelVPLabels() {
+        for (int node = 0 ; node < nbNodes ; node++) {
+            if (! hasLabel(node, EntityAttribute.OUT_OF_SCOPE.getString()) &&
+                    (isGreaterThan(getProperty(node, "methodVPs"), 0) || isGreaterThan(getProperty(node, "constructorVPs"), 0))) {
+                addLabel(node, EntityAttribute.METHOD_LEVEL_VP.getString());
+            }
+        }
+    }
+
+    public void setVariantsLabels() {
+        forEachNode(EntityAttribute.VP, node -> {
+            for (int relationship = firstOutgoing[node] ; relationship != NONE ; relationship = nextOutgoing[relationship]) {
+                if (isOfType(relationship, RelationType.EXTENDS, RelationType.IMPLEMENTS) &&
+                        hasAnyLabel(targets[relationship], EntityType.CLASS, EntityType.INTERFACE)) {
+                    addLabel(targets[relationship], EntityAttribute.VARIANT.getString());
+                }
+            }
+        });
+    }
+
+    public void detectStrategiesWithUsage() {
+        forEachNode(getNodes(EntityType.CLASS.getString(), EntityType.INTERFACE.getString()), node -> {
+            for (int relationship = firstOutgoing[node] ; relationship != NONE ; relationship = nextOutgoing[relationship]) {
+                if (isOfType(relationship, RelationType.USE) && isGreaterThan(getProperty(targets[relationship], "classVariants"), 1)) {
+                    addLabel(targets[relationship], DesignPatternType.COMPOSITION_STRATEGY.getString());
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs all steps in a single walk over the relationships leaving each node, giving the same results as running them one after the other.
+     * All metrics only depend on the node and on the labels of its children, which the steps do not change.
+     * The VP labels only depend on these metrics, so that the variants of a VP can be labelled as soon as the VP is known.
+     * The strategies need the number of variants of the used types, they are labelled once all nodes have been walked.
+     */
+    @Override
+    public void detectVPsAndVariants() {
+        Arrays.stream(METRICS).forEach(this::getColumn);
+        BitSet classes = labelNodes.get(getLabelId(EntityType.CLASS.getString()));
+        BitSet interfaces = labelNodes.get(getLabelId(EntityType.INTERFACE.getString()));
+        BitSet methods = labelNodes.get(getLabelId(EntityType.METHOD.getString()));
+        BitSet constructors = labelNodes.get(getLabelId(EntityType.CONSTRUCTOR.getString()));
+        BitSet publicNodes = labelNodes.get(getLabelId(EntityVisibility.PUBLIC.getString()));
+        BitSet vps = labelNodes.get(getLabelId(EntityAttribute.VP.getString()));
+        BitSet methodLevelVPs = labelNodes.get(getLabelId(EntityAttribute.METHOD_LEVEL_VP.getString()));
+        BitSet variants = labelNodes.get(getLabelId(EntityAttribute.VARIANT.getString()));
+        BitSet strategies = labelNodes.get(getLabelId(DesignPatternType.COMPOSITION_STRATEGY.getString()));
+        BitSet outOfScope = getNodes(EntityAttribute.OUT_OF_SCOPE.getString());
+        BitSet designPatterns = getNodes(Arrays.stream(DesignPatternType.values()).map(NodeType::getString).toArray(String[]::new));
+
+        Map <String, int[]> methodsByName = new HashMap <>();
+        int[] lastParent = new int[nbNodes];
+        Arrays.fill(lastParent, NONE);
+        int[] children = new int[nbRelationships];
+        int[] usedTypes = new int[nbRelationships];
+        int nbUsedTypes = 0;
+        for (int node = 0 ; node < nbNodes ; node++) {
+            boolean isClass = classes.get(node);
+            boolean isType = isClass || interfaces.get(node);
+            int nbMethods = 0, nbPublicMethods = 0, nbConstructors = 0, nbPublicConstructors = 0, nbVariants = 0, nbUsages = 0, nbChildren = 0;
+            methodsByName.clear();
+            for (int relationship = firstOutgoing[node] ; relationship != NONE ; relationship = nextOutgoing[relationship]) {
+                int child = targets[relationship];
+                if (methods.get(child)) {
+                    nbMethods++;
+                    nbPublicMethods += publicNodes.get(child) ? 1 : 0;
+                    if (lastParent[child] != node) {
+                        lastParent[child] = node;
+                        methodsByName.computeIfAbsent(names[child], key -> new int[1])[0]++;
+                    }
+                }
+                if (constructors.get(child)) {
+                    nbConstructors++;
+                    nbPublicConstructors += publicNodes.get(child) ? 1 : 0;
+                }
+                if (isOfType(relationship, RelationType.EXTENDS, RelationType.IMPLEMENTS)) {
+                    nbVariants += classes.get(child) ? 1 : 0;
+                    children[nbChildren++] = child;
+                }
+                if (isOfType(relationship, RelationType.USE)) {
+                    nbUsages++;
+                    if (isType) {
+                        usedTypes[nbUsedTypes++] = child;
+                    }
+                }
+            }
+            if (isClass) {
+                int nbOverloadedMethods = 0, nbOverloads = 0;
+                for (int[] nbMethodsWithName : methodsByName.values()) {
+                    if (nbMethodsWithName[0] > 1) {
+                        nbOverloadedMethods++;
+                        nbOverloads += nbMethodsWithName[0];
+                    }
+                }
+                setCount(node, "methodVPs", nbOverloadedMethods, nbOverloadedMethods);
+                setCount(node, "methodVariants", nbOverloads, nbOverloads);
+                setCount(node, "constructorVPs", nbConstructors, nbConstructors > 1 ? 1 : 0);
+                setCount(node, "constructorVariants", nbConstructors, nbConstructors > 1 ? nbConstructors : 0);
+            }
+            if (nbVariants > 0 || isType) {
+                setCount(node, "classVariants", nbVariants, nbVariants);
+            }
+            if (! outOfScope.get(node)) {
+                if (interfaces.get(node) || (isClass && hasLabel(node, EntityAttribute.ABSTRACT.getString())) ||
+                        designPatterns.get(node) || isGreaterThan(getProperty(node, "classVariants"), 0)) {
+                    vps.set(node);
+                }
+                if (isGreaterThan(getProperty(node, "methodVPs"), 0) || isGreaterThan(getProperty(node, "constructorVPs"), 0)) {
+                    methodLevelVPs.set(node);
+                }
+            }
+            if (vps.get(node)) {
+                for (int i = 0 ; i < nbChildren ; i++) {
+                    if (classes.get(children[i]) || interfaces.get(children[i])) {
+                        variants.set(children[i]);
+                    }
+                }
+            }
+            if (isClass) {
+                nbPublicMethods = publicNodes.get(node) ? nbPublicMethods : 0;
+                nbPublicConstructors = publicNodes.get(node) ? nbPublicConstructors : 0;
+                setCount(node, "publicMethods", nbPublicMethods, nbPublicMethods);
+                setCount(node, "publicConstructors", nbPublicConstructors, nbPublicConstructors);
+            }
+            if (nbUsages > 0 || isType) {
+                setCount(node, "nbUsages", nbUsages, nbUsages);
+            }
+            if (isClass) {
+                setCount(node, "allMethods", nbMethods, nbMethods);
+            }
+        }
+        for (int i = 0 ; i < nbUsedTypes ; i++) {
+            if (isGreaterThan(getProperty(usedTypes[i], "classVariants"), 1)) {
+                strategies.set(usedTypes[i]);
+            }
+        }
+    }
+
+    private void forEachNode(NodeType nodeType, IntConsumer action) {
+        forEachNode(getNodes(nodeType.getString()), action);
+    }
+
+    /**
+     * Iterates on a copy of the nodes, which can therefore be given new labels during the iteration.
+     */
+    private static void forEachNode(BitSet nodes, IntConsumer action) {
+        nodes.stream().forEach(action);
+    }
+
+    // Hotspots
+
+    /**
+     * Sets the aggregation property on the nodes of each component of the USE relationships containing a VP and having at least threshold nodes,
+     * then on the variants extending them.
+     * The components are built by a union-find over the USE relationships, in a single sweep over the relationships.
+     */
+    public void detectHotspotsInAggregation(int threshold) {
+        int[] parent = new int[nbNodes];
+        int[] size = new int[nbNodes];
+        for (int node = 0 ; node < nbNodes ; node++) {
+            parent[node] = node;
+            size[node] = 1;
+        }
+        for (int relationship = 0 ; relationship < nbRelationships ; relationship++) {
+            if (isOfType(relationship, RelationType.USE)) {
+                int root1 = findRoot(parent, sources[relationship]);
+                int root2 = findRoot(parent, targets[relationship]);
+                if (root1 != root2) {
+                    int smaller = size[root1] < size[root2] ? root1 : root2;
+                    int larger = smaller == root1 ? root2 : root1;
+                    parent[smaller] = larger;
+                    size[larger] += size[smaller];
+                }
+            }
+        }
+        BitSet componentsWithVP = new BitSet(nbNodes);
+        forEachNode(EntityAttribute.VP, vp -> componentsWithVP.set(findRoot(parent, vp)));
+        for (int node = 0 ; node < nbNodes ; node++) {
+            int root = findRoot(parent, node);
+            if (componentsWithVP.get(root) && size[root] >= threshold) {
+                setProperty(node, "aggregation", true);
+            }
+        }
+        BitSet variants = new BitSet();
+        for (int relationship = 0 ; relationship < nbRelationships ; relationship++) {
+            if (isOfType(relationship, RelationType.EXTENDS) && isTrue(getProperty(sources[relationship], "aggregation")) &&
+                    hasLabel(targets[relationship], EntityAttribute.VARIANT.getString())) {
+                variants.set(targets[relationship]);
+            }
+        }
+        forEachNode(variants, variant -> setProperty(variant, "aggregation", true));
+    }
+
+    /**
+     * @return the root of the component of the node, halving the path to it
+     */
+    private static int findRoot(int[] parent, int node) {
+        while (parent[node] != node) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+
+    /**
+     * A node is a hotspot if:
+     * - it is a VP having at least threshold variants, or a method level VP having at least threshold method and constructor variants,
+     * and it is extended by a variant (densityVariants property),
+     * - a VP, variant or method level VP can be reached from it by following at most numberOfHops USE relationships
+     * in any direction, without following a relationship twice (densityHops property).
+     */
+    public void detectHotspotsWithNewDefinition(int threshold, int numberOfHops) {
+        for (int node = 0 ; node < nbNodes ; node++) {
+            if (hasDensityVariants(node, threshold)) {
+                setProperty(node, "densityVariants", true);
+            }
+        }
+        BitSet candidates = getNodes(EntityAttribute.VP.getString(), EntityAttribute.VARIANT.getString(), EntityAttribute.METHOD_LEVEL_VP.getString());
+        HopsSearch search = new HopsSearch(numberOfHops, candidates);
+        forEachNode(candidates, node -> {
+            if (search.reachesCandidate(node)) {
+                setProperty(node, "densityHops", true);
+            }
+        });
+        for (int node = 0 ; node < nbNodes ; node++) {
+            if (isTrue(getProperty(node, "densityVariants")) && isTrue(getProperty(node, "densityHops"))) {
+                addLabel(node, EntityAttribute.HOTSPOT.getString());
+            }
+        }
+    }
+
+    private boolean hasDensityVariants(int node, int threshold) {
+        boolean hasEnoughClassVariants = hasLabel(node, EntityAttribute.VP.getString()) &&
+                hasProperty(node, "classVariants") && getLong(node, "classVariants") >= threshold;
+        boolean hasEnoughMethodVariants = hasLabel(node, EntityAttribute.METHOD_LEVEL_VP.getString()) &&
+                hasProperty(node, "methodVariants") && hasProperty(node, "constructorVariants") &&
+                getLong(node, "methodVariants") + getLong(node, "constructorVariants") >= threshold;
+        return (hasEnoughClassVariants || hasEnoughMethodVariants) &&
+                countChildren(node, new RelationType[]{RelationType.EXTENDS}, EntityAttribute.VARIANT.getString()) > 0;
+    }
+
+    private long getLong(int node, String property) {
+        return ((Number) getProperty(node, property)).longValue();
+    }
+
+    /**
+     * Breadth-first search along USE relationships in both directions, bounded by the number of hops.
+     * <p>
+     * As Cypher does not follow a relationship twice in a path, the start node can also be reached by a cycle going through it.
+     * Each node reached is tagged with the first relationship of its path: a relationship between two nodes reached through
+     * different first relationships, or going back to the start node through another relationship than the first one of its
+     * other end, closes a cycle through the start node.
+     */
+    private class HopsSearch {
+
+        private final int maxHops;
+        private final BitSet candidates;
+        private final int[] distance = new int[nbNodes];
+        private final int[] branch = new int[nbNodes];
+        private final int[] queue = new int[nbNodes];
+
+        private HopsSearch(int maxHops, BitSet candidates) {
+            this.maxHops = maxHops;
+            this.candidates = candidates;
+            Arrays.fill(distance, NONE);
+        }
+
+        private boolean reachesCandidate(int start) {
+            int size = 0;
+            queue[size++] = start;
+            distance[start] = 0;
+            branch[start] = NONE;
+            try {
+                for (int next = 0 ; next < size && maxHops > 0 ; next++) {
+                    int node = queue[next];
+                    if (distance[node] == maxHops) {
+                        continue;
+                    }
+                    for (int relationship = firstOutgoing[node] ; relationship != NONE ; relationship = nextOutgoing[relationship]) {
+                        if (isOfType(relationship, RelationType.USE)) {
+                            int reached = visit(start, node, relationship, targets[relationship], size);
+                            if (reached == NONE) {
+                                return true;
+                            }
+                            size = reached;
+                        }
+                    }
+                    for (int relationship = firstIncoming[node] ; relationship != NONE ; relationship = nextIncoming[relationship]) {
+                        if (isOfType(relationship, RelationType.USE)) {
+                            int reached = visit(start, node, relationship, sources[relationship], size);
+                            if (reached == NONE) {
+                                return true;
+                            }
+                            size = reached;
+                        }
+                    }
+                }
+                return false;
+            } finally {
+                for (int i = 0 ; i < size ; i++) {
+                    distance[queue[i]] = NONE;
+                }
+            }
+        }
+
+        /**
+         * @return NONE if a candidate or a cycle through the start node was found, the new size of the queue otherwise
+         */
+        private int visit(int start, int node, int relationship, int other, int size) {
+            int relationshipBranch = node == start ? relationship : branch[node];
+            if (other == start) {
+                return node == start || relationship != branch[node] ? NONE : size;
+            }
+            if (distance[other] == NONE) {
+                if (candidates.get(other)) {
+                    return NONE;
+                }
+                distance[other] = distance[node] + 1;
+                branch[other] = relationshipBranch;
+                queue[size] = other;
+                return size + 1;
+            }
+            if (branch[other] != relationshipBranch && distance[node] + distance[other] + 1 <= maxHops) {
+                return NONE;
+            }
+            return size;
+        }
+    }
+
+    // Statistics
+
+    public int getNbPublicClass() {
+        return getNodes(EntityVisibility.PUBLIC.getString()).cardinality();
+    }
+
+    public int getNbClassLevelVariants() {
+        BitSet variants = getNodes(EntityAttribute.VARIANT.getString());
+        variants.andNot(getNodes(EntityAttribute.VP.getString()));
+        return variants.cardinality();
+    }
+
+    public int getNbMethodVariants() {
+        return sumOnClasses("methodVariants");
+    }
+
+    public int getNbConstructorVariants() {
+        return sumOnClasses("constructorVariants");
+    }
+
+    public int getNbConstructorVPs() {
+        return sumOnClasses("constructorVPs");
+    }
+
+    public int getNbPublicConstructors() {
+        return sumOnClasses("publicConstructors");
+    }
+
+    public int getNbMethodVPs() {
+        return sumOnClasses("methodVPs");
+    }
+
+    public int getNbPublicMethods() {
+        return sumOnClasses("publicMethods");
+    }
+
+    public int getNbAllMethods() {
+        return sumOnClasses("allMethods");
+    }
+
+    public int getNbClassLevelVPs() {
+        return getNodes(EntityAttribute.VP.getString()).cardinality();
+    }
+
+    public int getNbAttributeComposeClass() {
+        return sum(allNodes(), "nbUsages");
+    }
+
+    public int getNbEntryPointClasses() {
+        return getNodes(EntityType.ENTRY_POINT.getString()).cardinality();
+    }
+
+    public int getNbEntryPointClassesBeingVPsOrVariants() {
+        BitSet entryPoints = getNodes(EntityType.ENTRY_POINT.getString());
+        entryPoints.and(getNodes(EntityAttribute.VP.getString(), EntityAttribute.VARIANT.getString()));
+        return entryPoints.cardinality();
+    }
+
+    private int sumOnClasses(String property) {
+        return sum(getNodes(EntityType.CLASS.getString()), property);
+    }
+
+    private int sum(BitSet nodes, String property) {
+        return (int) nodes.stream()
+                .mapToObj(node -> getProperty(node, property))
+                .filter(value -> value instanceof Number)
+                .mapToLong(value -> ((Number) value).longValue())
+                .sum();
+    }
+
+    private BitSet allNodes() {
+        BitSet nodes = new BitSet(nbNodes);
+        nodes.set(0, nbNodes);
+        return nodes;
+    }
+
+    public int getNbNodes() {
+        return nbNodes;
+    }
+
+    public int getNbRelationships() {
+        return nbRelationships;
+    }
+
+    public int getNbInheritanceRelationships() {
+        return countRelationships(RelationType.EXTENDS, RelationType.IMPLEMENTS);
+    }
+
+    public int getNbUsageRelationship() {
+        return countRelationships(RelationType.USE);
+    }
+
+    private int countRelationships(RelationType... relationTypes) {
+        int count = 0;
+        for (int relationship = 0 ; relationship < nbRelationships ; relationship++) {
+            if (isOfType(relationship, relationTypes)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Export
+
+    public void writeVPJsonGraph(Writer writer) throws IOException {
+        BitSet nodes = getNodes(EntityAttribute.VP.getString(), EntityAttribute.VARIANT.getString(), EntityAttribute.METHOD_LEVEL_VP.getString());
+        BitSet allNodes = getNodes(EntityType.CLASS.getString(), EntityType.INTERFACE.getString());
+        allNodes.andNot(getNodes(EntityAttribute.OUT_OF_SCOPE.getString()));
+        JsonGraphWriter json = new JsonGraphWriter(writer, Configuration.getGraphLayoutIterations(), "nodes", "allnodes", "links", "linkscompose");
+        json.beginNodes();
+        writeNodes(json, "allnodes", allNodes);
+        writeNodes(json, "nodes", nodes);
+        json.endNodes();
+        writeLinks(json);
+        json.end();
+    }
+
+    private void writeNodes(JsonGraphWriter json, String view, BitSet nodes) throws IOException {
+        for (int node = nodes.nextSetBit(0) ; node >= 0 ; node = nodes.nextSetBit(node + 1)) {
+            json.writeNode(view, getNodeAsJson(node));
+        }
+    }
+
+    private Map <String, Object> getNodeAsJson(int node) {
+        Map <String, Object> json = new HashMap <>();
+        json.put("types", getLabels(node));
+        for (String property : new String[]{NAME, "methodVPs", "constructorVPs", "methodVariants", "constructorVariants",
+                "publicMethods", "publicConstructors", "allMethods", "nbUsages"}) {
+            json.put(property, getProperty(node, property));
+        }
+        json.put("methods", countChildrenByName(node, EntityType.METHOD));
+        json.put("constructors", countChildrenByName(node, EntityType.CONSTRUCTOR));
+        json.put("attributes", countChildrenByName(node, EntityType.CLASS));
+        json.put("interfaceAttributes", countChildrenByName(node, EntityType.INTERFACE));
+        return json;
+    }
+
+    /**
+     * @return for each name of the children having the given label, the number of children having this name, as symfinder.count does
+     */
+    private List <Map <String, Object>> countChildrenByName(int node, EntityType childType) {
+        List <Map <String, Object>> counts = new ArrayList <>();
+        getChildrenByName(node, childType.getString()).forEach((name, children) -> {
+            Map <String, Object> count = new HashMap <>();
+            count.put(NAME, name);
+            count.put("number", (long) children.size());
+            counts.add(count);
+        });
+        return counts;
+    }
+
+    /**
+     * Writes the usage and inheritance relationships between nodes in the scope of the analysis,
+     * the inheritance ones from a VP being in the links view and the usage ones from a class in the linkscompose view.
+     */
+    private void writeLinks(JsonGraphWriter json) throws IOException {
+        for (int relationship = 0 ; relationship < nbRelationships ; relationship++) {
+            int source = sources[relationship];
+            int target = targets[relationship];
+            if (isOfType(relationship, RelationType.USE, RelationType.EXTENDS, RelationType.IMPLEMENTS) &&
+                    ! hasLabel(source, EntityAttribute.OUT_OF_SCOPE.getString()) &&
+                    ! hasLabel(target, EntityAttribute.OUT_OF_SCOPE.getString())) {
+                boolean usage = isOfType(relationship, RelationType.USE);
+                List <String> views = new ArrayList <>();
+                if (! usage && hasLabel(source, EntityAttribute.VP.getString())) {
+                    views.add("links");
+                }
+                if (usage && hasLabel(source, EntityType.CLASS.getString())) {
+                    views.add("linkscompose");
+                }
+                json.writeLink(names[source], names[target], RELATION_TYPES[types[relationship]].toString(), views.toArray(new String[0]));
+            }
+        }
+    }
+
+    /**
+     * Copies all nodes, labels, properties and relationships of this graph into the given one.
+     */
+    public void exportTo(NeoGraph graph) {
+        Node[] nodes = new Node[nbNodes];
+        for (int node = 0 ; node < nbNodes ; node++) {
+            nodes[node] = graph.createNode(names[node], getLabels(node));
+        }
+        properties.forEach((property, column) -> {
+            for (int node = 0 ; node < Math.min(nbNodes, column.length) ; node++) {
+                if (column[node] != null) {
+                    graph.setNodeAttribute(nodes[node], property, column[node]);
+                }
+            }
+        });
+        for (int relationship = 0 ; relationship < nbRelationships ; relationship++) {
+            graph.linkTwoNodes(nodes[sources[relationship]], nodes[targets[relationship]], RELATION_TYPES[types[relationship]]);
+        }
+        graph.flush();
+    }
+
+    // Store
+
+    /**
+     * Names are always indexed. The label is registered so that labels are listed in the same order as in Neo4j,
+     * where creating the index creates the label first.
+     */
+    public void createClassesIndex() {
+        getLabelId(EntityType.CLASS.getString());
+    }
+
+    public void createInterfacesIndex() {
+        getLabelId(EntityType.INTERFACE.getString());
+    }
+
+    public void deleteGraph() {
+        nbNodes = 0;
+        nbRelationships = 0;
+        nodesByName.clear();
+        labelNodes.forEach(BitSet::clear);
+        properties.clear();
+        symbolTable.clear();
+    }
+
+    /**
+     * Writes are visible as soon as they are made, there is nothing to commit.
+     */
+    public UnitOfWork beginUnitOfWork(int commitInterval) {
+        return () -> {
+        };
+    }
+
+    public void close() {
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import org.neo4j.driver.Value;
+import org.neo4j.driver.Values;
+import org.neo4j.driver.types.Node;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Node of a {@link MemoryGraph}, reading its labels and properties from the graph when they are accessed.
+ */
+class MemoryNode implements Node {
+
+    private final MemoryGraph graph;
+    private final int index;
+
+    MemoryNode(MemoryGraph graph, int index) {
+        this.graph = graph;
+        this.index = index;
+    }
+
+    @Override
+    public Iterable <String> labels() {
+        return graph.getLabels(index);
+    }
+
+    @Override
+    public boolean hasLabel(String label) {
+        return graph.hasLabel(index, label);
+    }
+
+    @Override
+    public long id() {
+        return index;
+    }
+
+    @Override
+    public Iterable <String> keys() {
+        return graph.getProperties(index).keySet();
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return graph.getProperty(index, key) != null;
+    }
+
+    @Override
+    public Value get(String key) {
+        return Values.value(graph.getProperty(index, key));
+    }
+
+    @Override
+    public int size() {
+        return graph.getProperties(index).size();
+    }
+
+    @Override
+    public Iterable <Value> values() {
+        return values(value -> value);
+    }
+
+    @Override
+    public <T> Iterable <T> values(Function <Value, T> mapFunction) {
+        return graph.getProperties(index).values().stream()
+                .map(value -> mapFunction.apply(Values.value(value)))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Map <String, Object> asMap() {
+        return graph.getProperties(index);
+    }
+
+    @Override
+    public <T> Map <String, T> asMap(Function <Value, T> mapFunction) {
+        Map <String, T> map = new LinkedHashMap <>();
+        graph.getProperties(index).forEach((key, value) -> map.put(key, mapFunction.apply(Values.value(value))));
+        return map;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        MemoryNode that = (MemoryNode) o;
+        return graph == that.graph && index == that.index;
+    }
+
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(index);
+    }
+
+    @Override
+    public String toString() {
+        return "MemoryNode<" + index + ">";
+    }
+}
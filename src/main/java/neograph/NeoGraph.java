@@ -23,32 +23,69 @@ package neograph;
 
 import configuration.Configuration;
 import neo4j_types.*;
-import org.json.JSONObject;
 import org.neo4j.driver.*;
+import org.neo4j.driver.exceptions.ClientException;
 import org.neo4j.driver.exceptions.ServiceUnavailableException;
-import org.neo4j.driver.types.MapAccessor;
 import org.neo4j.driver.types.Node;
+import profiling.PerformanceReport;
+import profiling.StatementProfiler;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 
 import static org.neo4j.driver.Values.parameters;
 
-public class NeoGraph {
+public class NeoGraph implements GraphStore {
 
     private Driver driver;
+    private final int batchSize;
+    private WriteBuffer writeBuffer;
+    private SessionUnitOfWork unitOfWork;
+    private final SymbolTable symbolTable = new SymbolTable();
+    private GraphMirror mirror;
+    private boolean mirrorChecked = false;
+    private PerformanceReport performanceReport;
+    private StatementProfiler statementProfiler;
 
     public NeoGraph(String uri, String user, String password) {
-        driver = GraphDatabase.driver(uri, AuthTokens.basic(user, password));
+        this(GraphDatabase.driver(uri, AuthTokens.basic(user, password)), Configuration.getNeo4JBatchSize());
     }
 
+    /**
+     * Creates a graph sending each write operation immediately.
+     */
     public NeoGraph(Driver driver) {
+        this(driver, 1);
+    }
+
+    /**
+     * @param batchSize maximum number of write operations buffered before being sent to the database
+     */
+    public NeoGraph(Driver driver, int batchSize) {
         this.driver = driver;
+        this.batchSize = Math.max(1, batchSize);
+        this.writeBuffer = new WriteBuffer(this::execute, batchSize);
+    }
+
+    /**
+     * @param performanceReport report to which the statements sent to the database and the steps run in memory are added
+     */
+    public void setPerformanceReport(PerformanceReport performanceReport) {
+        this.performanceReport = performanceReport;
+    }
+
+    /**
+     * @param statementProfiler profiler measuring each statement sent to the database
+     */
+    public void setStatementProfiler(StatementProfiler statementProfiler) {
+        this.statementProfiler = statementProfiler;
     }
 
     public static String getClauseForNodesMatchingLabels(String nodeName, NodeType... types) {
@@ -57,6 +94,7 @@ public class NeoGraph {
 
     /**
      * Creates a node of corresponding name and types and returns it.
+     * The creation is buffered, the node being sent to the database with the next batch of writes.
      *
      * @param name  Node name
      * @param types Node types
@@ -64,14 +102,31 @@ public class NeoGraph {
     public Node createNode(String name, NodeType type, NodeType... types) {
         List <NodeType> nodeTypes = new ArrayList <>(Arrays.asList(types));
         nodeTypes.add(type);
-        return submitRequest(String.format("CREATE (n:%s { name: $name}) RETURN (n)",
-                nodeTypes.stream().map(NodeType::getString).collect(Collectors.joining(":"))),
-                "name", name)
-                .get(0).get(0).asNode();
+        return createNode(name, nodeTypes.stream().map(NodeType::getString).collect(Collectors.toList()));
+    }
+
+    /**
+     * Creates a node having the given labels, used to copy nodes from another store.
+     */
+    Node createNode(String name, List <String> labels) {
+        GraphMirror mirror = getMirror();
+        symbolTable.addIfType(name, labels);
+        BufferedNode node = writeBuffer.createNode(name, String.join(":", labels));
+        if (mirror != null) {
+            mirror.add(node, name, labels);
+        }
+        return node;
     }
 
+    /**
+     * Lookups are answered from the copy of the written nodes if the graph keeps one, without sending the buffered writes.
+     */
     public Optional <Node> getNode(String name) {
-        List <Record> recordList = submitRequest("MATCH (n {name: $name}) RETURN (n)", "name", name);
+        GraphMirror mirror = getMirror();
+        if (mirror != null) {
+            return mirror.toNode(mirror.getGraph().getNode(name));
+        }
+        List <Record> recordList = submitQuery("MATCH (n {name: $name}) RETURN (n)", "name", name);
         return recordList.size() == 0 ? Optional.empty() : Optional.of(recordList.get(0).get(0).asNode());
     }
 
@@ -80,7 +135,11 @@ public class NeoGraph {
      * @param name node name
      */
     public Optional <Node> getClassOrInterfaceNode(String name) {
-        List <Record> recordList = submitRequest("MATCH (n {name: $name}) WHERE n:CLASS or n:INTERFACE RETURN (n)",
+        GraphMirror mirror = getMirror();
+        if (mirror != null) {
+            return mirror.toNode(mirror.getGraph().getClassOrInterfaceNode(name));
+        }
+        List <Record> recordList = submitQuery("MATCH (n {name: $name}) WHERE n:CLASS or n:INTERFACE RETURN (n)",
                 "name", name);
         return recordList.size() == 0 ? Optional.empty() : Optional.of(recordList.get(0).get(0).asNode());
     }
@@ -93,7 +152,11 @@ public class NeoGraph {
      * @return the node if it exists, Optional.empty otherwise
      */
     public Optional <Node> getClassNode(String name) {
-        List <Record> recordList = submitRequest("MATCH (n:CLASS {name: $name}) RETURN (n)", "name", name);
+        GraphMirror mirror = getMirror();
+        if (mirror != null) {
+            return mirror.toNode(mirror.getGraph().getClassNode(name));
+        }
+        List <Record> recordList = submitQuery("MATCH (n:CLASS {name: $name}) RETURN (n)", "name", name);
         return recordList.size() == 0 ? Optional.empty() : Optional.of(recordList.get(0).get(0).asNode());
     }
 
@@ -105,7 +168,11 @@ public class NeoGraph {
      * @return the node if it exists, Optional.empty otherwise
      */
     public Optional <Node> getInterfaceNode(String name) {
-        List <Record> recordList = submitRequest("MATCH (n:INTERFACE {name: $name}) RETURN (n)", "name", name);
+        GraphMirror mirror = getMirror();
+        if (mirror != null) {
+            return mirror.toNode(mirror.getGraph().getInterfaceNode(name));
+        }
+        List <Record> recordList = submitQuery("MATCH (n:INTERFACE {name: $name}) RETURN (n)", "name", name);
         return recordList.size() == 0 ? Optional.empty() : Optional.of(recordList.get(0).get(0).asNode());
     }
 
@@ -116,7 +183,11 @@ public class NeoGraph {
      * @return the node if it exists, Optional.empty otherwise
      */
     public Optional <Node> getSuperclassNode(String name) {
-        List <Record> recordList = submitRequest("MATCH (s:CLASS)-[:EXTENDS]->(n {name: $name}) RETURN (s)", "name", name);
+        GraphMirror mirror = getMirror();
+        if (mirror != null) {
+            return mirror.toNode(mirror.getGraph().getSuperclassNode(name));
+        }
+        List <Record> recordList = submitQuery("MATCH (s:CLASS)-[:EXTENDS]->(n {name: $name}) RETURN (s)", "name", name);
         return recordList.size() == 0 ? Optional.empty() : Optional.of(recordList.get(0).get(0).asNode());
     }
 
@@ -127,12 +198,20 @@ public class NeoGraph {
      * @return the node if it exists, Optional.empty otherwise
      */
     public List <Node> getImplementedInterfacesNodes(String name) {
-        List <Record> recordList = submitRequest("MATCH (s:INTERFACE)-[:IMPLEMENTS]->(n {name: $name}) RETURN (s)", "name", name);
+        GraphMirror mirror = getMirror();
+        if (mirror != null) {
+            return mirror.toNodes(mirror.getGraph().getImplementedInterfacesNodes(name));
+        }
+        List <Record> recordList = submitQuery("MATCH (s:INTERFACE)-[:IMPLEMENTS]->(n {name: $name}) RETURN (s)", "name", name);
         return recordList.size() == 0 ? Collections.emptyList() : recordList.stream().map(record -> record.get(0).asNode()).collect(Collectors.toList());
     }
 
     public Optional <Node> getNodeWithNameInPackage(String name, String packageName) {
-        List <Record> recordList = submitRequest("MATCH (n) WHERE (n:CLASS OR n:INTERFACE) AND n.name STARTS WITH $package AND n.name ENDS WITH $inheritedClassName RETURN (n)", "package", packageName + ".", "inheritedClassName", "." + name);
+        GraphMirror mirror = getMirror();
+        if (mirror != null) {
+            return mirror.toNode(mirror.getGraph().getNodeWithNameInPackage(name, packageName));
+        }
+        List <Record> recordList = submitQuery("MATCH (n) WHERE (n:CLASS OR n:INTERFACE) AND n.name STARTS WITH $package AND n.name ENDS WITH $inheritedClassName RETURN (n)", "package", packageName + ".", "inheritedClassName", "." + name);
         return recordList.size() == 0 ? Optional.empty() : Optional.of(recordList.get(0).get(0).asNode());
     }
 
@@ -140,6 +219,8 @@ public class NeoGraph {
      * Returns the node if it exists, creates it and returns it otherwise.
      * As we use qualified names, each name is unique. Therefore, we can match only on node name.
      * If the node does not exist, it is created with the specified types as labels.
+     * If the graph keeps a copy of the written nodes, it knows whether the node exists,
+     * and the node is created or its labels added without sending a MERGE statement.
      *
      * @param name             Node name
      * @param type             Node type
@@ -147,6 +228,22 @@ public class NeoGraph {
      * @param matchAttributes  Node attributes added when matching an existing node
      */
     public Node getOrCreateNode(String name, EntityType type, EntityAttribute[] createAttributes, EntityAttribute[] matchAttributes) {
+        GraphMirror mirror = getMirror();
+        if (mirror != null) {
+            List <Integer> matchedNodes = mirror.findNodes(name, type);
+            if (matchedNodes.isEmpty()) {
+                List <String> labels = new ArrayList <>();
+                labels.add(type.getString());
+                Arrays.stream(createAttributes).map(NodeType::getString).forEach(labels::add);
+                return createNode(name, labels);
+            }
+            for (int node : matchedNodes) {
+                for (EntityAttribute attribute : matchAttributes) {
+                    addLabelToNode(mirror.getNode(node), attribute.getString());
+                }
+            }
+            return mirror.getNode(matchedNodes.get(matchedNodes.size() - 1));
+        }
         String onCreateAttributes = createAttributes.length == 0 ?
                 "" :
                 "ON CREATE SET n:" + Arrays.stream(createAttributes)
@@ -157,19 +254,15 @@ public class NeoGraph {
                 "ON MATCH SET n:" + Arrays.stream(matchAttributes)
                         .map(NodeType::getString)
                         .collect(Collectors.joining(":"));
-        return submitRequest(String.format("MERGE (n:%s {name: $name}) %s %s RETURN (n)",
+        symbolTable.addIfType(name, List.of(type.getString()));
+        return writeBuffer.mergeNode(name, String.format("MERGE (n:%s {name: $names[i]}) %s %s",
                 type.toString(),
                 onCreateAttributes,
-                onMatchAttributes), "name", name)
-                .get(0).get(0).asNode();
-    }
-
-    public Node getOrCreateNode(String name, EntityType type) {
-        return getOrCreateNode(name, type, new EntityAttribute[]{}, new EntityAttribute[]{});
+                onMatchAttributes));
     }
 
-    public Node getOrCreateNode(String name, EntityType type, EntityAttribute[] attributes) {
-        return getOrCreateNode(name, type, attributes, attributes);
+    public SymbolTable getSymbolTable() {
+        return symbolTable;
     }
 
     /**
@@ -179,71 +272,146 @@ public class NeoGraph {
      * @param node2 target node
      */
     public void linkTwoNodes(Node node1, Node node2, RelationType type) {
-        submitRequest(String.format("MATCH(a)\n" +
-                "WHERE ID(a)=$aId\n" +
-                "WITH a\n" +
-                "MATCH (b)\n" +
-                "WITH a,b\n" +
-                "WHERE ID(b)=$bId\n" +
-                "CREATE (a)-[r:%s]->(b)", type), "aId", node1.id(), "bId", node2.id());
+        if (mirror != null) {
+            int source = mirror.indexOf(node1);
+            int target = mirror.indexOf(node2);
+            if (source < 0 || target < 0) {
+                invalidateMirror();
+            } else {
+                mirror.link(source, target, type);
+            }
+        }
+        writeBuffer.link(node1, node2, type.toString());
     }
 
     public void setNodeAttribute(Node node, String attributeName, Object value) {
-        submitRequest(String.format("MATCH (n) WHERE ID(n) = $idNode SET n.%s = $value", attributeName),
-                "idNode", node.id(), "value", value);
-    }
-
-    public void detectHotspots() {
-        detectHotspotsWithNewDefinition(Configuration.getVariantsThreshold(), Configuration.getUsageHops());
+        writeBuffer.setProperty(node, attributeName, value);
     }
 
+    /**
+     * Builds the components of the USE relationships in memory with {@link MemoryGraph#detectHotspotsInAggregation(int)},
+     * in a single sweep over the relationships instead of exploring the component of each VP again.
+     */
     public void detectHotspotsInAggregation(int threshold) {
-        submitRequest("MATCH (vp:VP) " +
-                "CALL apoc.path.subgraphAll(vp, {relationshipFilter: \"USE\", minLevel: 0}) " +
-                "YIELD nodes " +
-                "WITH collect(nodes)[0] AS nodesList, count(nodes) as cnt " +
-                "FOREACH (n IN CASE WHEN cnt >= $threshold THEN nodesList ELSE [] END | SET n.aggregation = TRUE)", "threshold", threshold);
-        submitRequest("MATCH (vp)-[:EXTENDS]->(v:VARIANT) " +
-                "WHERE vp.aggregation = TRUE " +
-                "SET v.aggregation = TRUE");
+        runInMemory("detectHotspotsInAggregation", graph -> graph.detectHotspotsInAggregation(threshold), new String[]{"aggregation"}, new NodeType[0],
+                RelationType.EXTENDS, RelationType.USE);
     }
 
+    /**
+     * Searches the hotspots in memory with {@link MemoryGraph#detectHotspotsWithNewDefinition(int, int)}:
+     * the USE relationships are explored breadth-first from each candidate, visiting each node once up to the number of hops,
+     * where matching variable-length paths in Cypher enumerates all paths.
+     */
     public void detectHotspotsWithNewDefinition(int threshold, int numberOfHops) {
-        submitRequest("MATCH (c1) " +
-                "WHERE (c1:VP AND (c1.classVariants >= $threshold)) OR (c1:METHOD_LEVEL_VP AND (c1.methodVariants + c1.constructorVariants >= $threshold)) " +
-                "MATCH (c1)-[:EXTENDS]->(v:VARIANT) " +
-                "WITH [c1] AS collected " +
-                "FOREACH (v1 IN collected | SET v1.densityVariants = TRUE)", "threshold", threshold);
-        submitRequest(String.format("MATCH (c1)-[:USE*1..%d]-(c2) " +
-                "WHERE (c1:VP OR c1:VARIANT OR c1:METHOD_LEVEL_VP) AND (c2:VP OR c2:VARIANT OR c2:METHOD_LEVEL_VP) " +
-                "WITH [c1] + [c2] AS collected " +
-                "FOREACH (v1 IN collected | SET v1.densityHops = TRUE)", numberOfHops));
-        submitRequest("MATCH (n) " +
-                "WHERE n.densityVariants AND n.densityHops " +
-                "SET n:HOTSPOT");
+        runInMemory("detectHotspotsWithNewDefinition", graph -> graph.detectHotspotsWithNewDefinition(threshold, numberOfHops),
+                new String[]{"classVariants", "methodVariants", "constructorVariants", "densityVariants", "densityHops"},
+                new NodeType[]{EntityAttribute.HOTSPOT},
+                RelationType.EXTENDS, RelationType.USE);
     }
 
     public Object getPropertyValue(Node node, String property) {
-        return submitRequest(String.format("MATCH(a)\n" +
+        return submitQuery(String.format("MATCH(a)\n" +
                 "WHERE ID(a)=$aId\n" +
                 "RETURN a.%s", property), "aId", node.id())
                 .get(0).get(0).asObject();
     }
 
+    /**
+     * Runs all steps in memory with {@link MemoryGraph#detectVPsAndVariants()}, which walks the relationships of each node once.
+     * The steps can still be run one by one with the Cypher statements below.
+     */
+    @Override
     public void detectVPsAndVariants() {
-        setMethodVPs();
-        setMethodVariants();
-        setConstructorVPs();
-        setConstructorVariants();
-        setNbVariantsProperty();
-        setVPLabels();
-        setMethodLevelVPLabels();
-        setVariantsLabels();
-        setPublicMethods();
-        setPublicConstructors();
-        setNbUsages();
-        setAllMethods();
-        detectStrategiesWithUsage();
+        runInMemory("detectVPsAndVariants", MemoryGraph::detectVPsAndVariants, MemoryGraph.METRICS,
+                new NodeType[]{EntityAttribute.VP, EntityAttribute.METHOD_LEVEL_VP, EntityAttribute.VARIANT, DesignPatternType.COMPOSITION_STRATEGY});
+    }
+
+    /**
+     * Reads the nodes and relationships of the graph in two statements and runs steps of the memory store on this copy,
+     * then writes back the properties which changed and the labels which were added, in statements of at most batchSize nodes.
+     * Loading, running the steps and writing back are measured as separate phases of the performance report.
+     *
+     * @param name          name of the steps in the performance report
+     * @param properties    properties read by the steps or written back
+     * @param labels        labels written back, in the order in which the steps add them
+     * @param relationTypes types of the relationships read, all types if none is given
+     */
+    private void runInMemory(String name, Consumer <MemoryGraph> steps, String[] properties, NodeType[] labels, RelationType... relationTypes) {
+        PerformanceReport.Phase phase = startPhase(name + ".load");
+        MemoryGraph memoryGraph = new MemoryGraph();
+        List <Long> ids = new ArrayList <>();
+        Map <Long, Integer> indexes = new HashMap <>();
+        List <Map <String, Object>> loadedProperties = new ArrayList <>();
+        String projection = Arrays.stream(properties).map(property -> "." + property).collect(Collectors.joining(", "));
+        for (Record record : submitQuery(String.format("MATCH (n) RETURN ID(n), n.name, labels(n), n {%s}", projection))) {
+            int node = memoryGraph.addNode(record.get(1).asString(), record.get(2).asList(Value::asString));
+            Map <String, Object> nodeProperties = record.get(3).asMap();
+            nodeProperties.forEach((property, value) -> {
+                if (value != null) {
+                    memoryGraph.setProperty(node, property, value);
+                }
+            });
+            ids.add(record.get(0).asLong());
+            indexes.put(record.get(0).asLong(), node);
+            loadedProperties.add(nodeProperties);
+        }
+        List <String> types = Arrays.stream(relationTypes.length == 0 ? RelationType.values() : relationTypes)
+                .map(RelationType::toString)
+                .collect(Collectors.toList());
+        for (Record record : submitQuery("MATCH (a)-[r]->(b) WHERE type(r) IN $types RETURN ID(a), ID(b), type(r)", "types", types)) {
+            memoryGraph.addRelationship(indexes.get(record.get(0).asLong()), indexes.get(record.get(1).asLong()),
+                    RelationType.valueOf(record.get(2).asString()));
+        }
+        List <BitSet> loadedLabels = Arrays.stream(labels).map(label -> memoryGraph.getNodes(label.getString())).collect(Collectors.toList());
+        endPhase(phase);
+
+        phase = startPhase(name + ".steps");
+        steps.accept(memoryGraph);
+        endPhase(phase);
+
+        phase = startPhase(name + ".writeBack");
+        List <Map <String, Object>> rows = new ArrayList <>();
+        for (int node = 0 ; node < ids.size() ; node++) {
+            Map <String, Object> changedProperties = new HashMap <>();
+            for (String property : properties) {
+                Object value = memoryGraph.getProperty(node, property);
+                if (value != null && ! value.equals(loadedProperties.get(node).get(property))) {
+                    changedProperties.put(property, value);
+                }
+            }
+            if (! changedProperties.isEmpty()) {
+                rows.add(Map.of("id", ids.get(node), "properties", changedProperties));
+            }
+        }
+        submitInBatches("UNWIND $rows AS row MATCH (n) WHERE ID(n) = row.id SET n += row.properties", "rows", rows);
+        for (int i = 0 ; i < labels.length ; i++) {
+            BitSet addedNodes = memoryGraph.getNodes(labels[i].getString());
+            addedNodes.andNot(loadedLabels.get(i));
+            submitInBatches(String.format("UNWIND $ids AS id MATCH (n) WHERE ID(n) = id SET n:%s", labels[i]),
+                    "ids", addedNodes.stream().mapToObj(ids::get).collect(Collectors.toList()));
+        }
+        endPhase(phase);
+    }
+
+    /**
+     * Sends the request once for each batch of at most batchSize elements of the list, as the write buffer does.
+     *
+     * @param parameter name of the parameter receiving the batch
+     */
+    private void submitInBatches(String request, String parameter, List <?> elements) {
+        for (int from = 0 ; from < elements.size() ; from += batchSize) {
+            submitRequest(request, parameter, elements.subList(from, Math.min(elements.size(), from + batchSize)));
+        }
+    }
+
+    private PerformanceReport.Phase startPhase(String name) {
+        return performanceReport == null ? null : performanceReport.startPhase(getClass().getSimpleName() + "." + name);
+    }
+
+    private static void endPhase(PerformanceReport.Phase phase) {
+        if (phase != null) {
+            phase.close();
+        }
     }
 
     /**
@@ -392,39 +560,26 @@ public class NeoGraph {
     }
 
     public void addLabelToNode(Node node, String label) {
-        submitRequest(String.format("MATCH (n) WHERE ID(n) = $id SET n:%s RETURN (n)", label), "id", node.id());
+        if (mirror != null) {
+            int index = mirror.indexOf(node);
+            if (index < 0) {
+                invalidateMirror();
+            } else if (mirror.hasLabel(index, label)) {
+                return;
+            } else {
+                mirror.addLabel(index, label);
+            }
+        }
+        writeBuffer.addLabel(node, label);
     }
 
     private String getClauseForHavingDesignPattern(String n) {
         return getClauseForNodesMatchingLabels(n, DesignPatternType.values());
     }
 
-    public void writeVPGraphFile(String filePath) {
-        writeToFile(filePath, generateVPJsonGraph());
-    }
-
-    public void writeStatisticsFile(String filePath) {
-        writeToFile(filePath, generateStatisticsJson());
-    }
-
-    public void writeToFile(String filePath, String content) {
-        Path path = Paths.get(filePath);
-        try {
-            if (path.toFile().getParentFile().exists() || (path.toFile().getParentFile().mkdirs() && path.toFile().createNewFile())) {
-                try (BufferedWriter bw = Files.newBufferedWriter(path)) {
-                    bw.write(content);
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-
 
     public int getNbPublicClass() {
-        return submitRequest("MATCH (c:PUBLIC) RETURN (COUNT(DISTINCT c))")
+        return submitQuery("MATCH (c:PUBLIC) RETURN (COUNT(DISTINCT c))")
                 .get(0).get(0).asInt();
     }
 
@@ -435,22 +590,15 @@ public class NeoGraph {
      * @return Number of subclasses or implementations
      */
     public int getNbVariants(Node node) {
-        return submitRequest("MATCH (c)-[:EXTENDS|IMPLEMENTS]->(c2:CLASS) " +
+        if (mirror != null && mirror.indexOf(node) >= 0) {
+            return mirror.getGraph().getNbVariants(mirror.toMemoryNode(mirror.indexOf(node)));
+        }
+        return submitQuery("MATCH (c)-[:EXTENDS|IMPLEMENTS]->(c2:CLASS) " +
                 "WHERE ID(c) = $id " +
                 "RETURN count(c2)", "id", node.id())
                 .get(0).get(0).asInt();
     }
 
-    /**
-     * Get total number of variants.
-     * This corresponds to the number of variants at class and method level.
-     *
-     * @return Number of variants
-     */
-    public int getTotalNbVariants() {
-        return getNbClassLevelVariants() + getNbMethodLevelVariants();
-    }
-
 
     /**
      * Get number of variants at class level.
@@ -459,20 +607,10 @@ public class NeoGraph {
      * @return Number of class level variants
      */
     public int getNbClassLevelVariants() {
-        return submitRequest("MATCH (c:VARIANT) WHERE NOT c:VP RETURN (COUNT(DISTINCT c))")
+        return submitQuery("MATCH (c:VARIANT) WHERE NOT c:VP RETURN (COUNT(DISTINCT c))")
                 .get(0).get(0).asInt();
     }
 
-    /**
-     * Get number of variants at class level.
-     * This corresponds to the number of concrete classes without a subclass and extending a class or implementing an interface.
-     *
-     * @return Number of class level variants
-     */
-    public int getNbMethodLevelVariants() {
-        return getNbMethodVariants() + getNbConstructorVariants();
-    }
-
     /**
      * Get number of variants caused by method overloading.
      * This corresponds to the total number of method variants.
@@ -480,7 +618,7 @@ public class NeoGraph {
      * @return Number of overloaded methods
      */
     public int getNbMethodVariants() {
-        return submitRequest("MATCH (c:CLASS) RETURN (SUM(c.methodVariants))")
+        return submitQuery("MATCH (c:CLASS) RETURN (SUM(c.methodVariants))")
                 .get(0).get(0).asInt();
     }
 
@@ -491,7 +629,7 @@ public class NeoGraph {
      * @return Number of constructor overloads
      */
     public int getNbConstructorVariants() {
-        return submitRequest("MATCH (c:CLASS) RETURN (SUM(c.constructorVariants))")
+        return submitQuery("MATCH (c:CLASS) RETURN (SUM(c.constructorVariants))")
                 .get(0).get(0).asInt();
     }
 
@@ -501,7 +639,7 @@ public class NeoGraph {
      * @return Number of overloaded constructors
      */
     public int getNbConstructorVPs() {
-        return submitRequest("MATCH (c:CLASS) RETURN (SUM(c.constructorVPs))")
+        return submitQuery("MATCH (c:CLASS) RETURN (SUM(c.constructorVPs))")
                 .get(0).get(0).asInt();
     }
 
@@ -511,7 +649,7 @@ public class NeoGraph {
      * @return Number of public constructors
      */
     public int getNbPublicConstructors() {
-        return submitRequest("MATCH (c:CLASS) RETURN (SUM(c.publicConstructors))")
+        return submitQuery("MATCH (c:CLASS) RETURN (SUM(c.publicConstructors))")
                 .get(0).get(0).asInt();
     }
 
@@ -521,7 +659,7 @@ public class NeoGraph {
      * @return Number of overloaded methods
      */
     public int getNbMethodVPs() {
-        return submitRequest("MATCH (c:CLASS) RETURN (SUM(c.methodVPs))")
+        return submitQuery("MATCH (c:CLASS) RETURN (SUM(c.methodVPs))")
                 .get(0).get(0).asInt();
     }
 
@@ -531,7 +669,7 @@ public class NeoGraph {
      * @return Number of public methods
      */
     public int getNbPublicMethods() {
-        return submitRequest("MATCH (c:CLASS) RETURN (SUM(c.publicMethods))")
+        return submitQuery("MATCH (c:CLASS) RETURN (SUM(c.publicMethods))")
                 .get(0).get(0).asInt();
     }
 
@@ -541,34 +679,11 @@ public class NeoGraph {
      * @return Number of all methods
      */
     public int getNbAllMethods() {
-        return submitRequest("MATCH (c:CLASS) RETURN (SUM(c.allMethods))")
+        return submitQuery("MATCH (c:CLASS) RETURN (SUM(c.allMethods))")
                 .get(0).get(0).asInt();
     }
 
 
-    /**
-     * Get total number of VPs.
-     * This corresponds to the number of VPs at class and method level.
-     *
-     * @return Number of VPs
-     */
-    public int getTotalNbVPs() {
-        return getNbClassLevelVPs() + getNbMethodLevelVPs();
-    }
-
-
-    /**
-     * Get total number of method level VPs.
-     * These are :
-     * - overloaded methods
-     * - overloaded constructors
-     *
-     * @return Number of method level VPs
-     */
-    public int getNbMethodLevelVPs() {
-        return getNbMethodVPs() + getNbConstructorVPs();
-    }
-
     /**
      * Get total number of class level VPs.
      * These are :
@@ -579,22 +694,22 @@ public class NeoGraph {
      * @return Number of class level VPs
      */
     public int getNbClassLevelVPs() {
-        return submitRequest("MATCH (c:VP) RETURN COUNT (DISTINCT c)")
+        return submitQuery("MATCH (c:VP) RETURN COUNT (DISTINCT c)")
                 .get(0).get(0).asInt();
     }
 
     public int getNbAttributeComposeClass() {
-        return submitRequest("MATCH (c) RETURN (SUM(c.nbUsages))")
+        return submitQuery("MATCH (c) RETURN (SUM(c.nbUsages))")
                 .get(0).get(0).asInt();
     }
 
     public int getNbEntryPointClasses() {
-        return submitRequest("MATCH (c:ENTRY_POINT) RETURN COUNT (DISTINCT c)")
+        return submitQuery("MATCH (c:ENTRY_POINT) RETURN COUNT (DISTINCT c)")
                 .get(0).get(0).asInt();
     }
 
     public int getNbEntryPointClassesBeingVPsOrVariants() {
-        return submitRequest("MATCH (c:ENTRY_POINT) WHERE c:VP OR c:VARIANT RETURN COUNT (DISTINCT c)")
+        return submitQuery("MATCH (c:ENTRY_POINT) WHERE c:VP OR c:VARIANT RETURN COUNT (DISTINCT c)")
                 .get(0).get(0).asInt();
     }
 
@@ -612,124 +727,95 @@ public class NeoGraph {
      * @return true if a relationship exists, false otherwise
      */
     public boolean relatedTo(Node parentNode, Node childNode) {
-        return submitRequest("MATCH(source) WHERE ID(source) = $idSource MATCH(dest) " +
+        if (mirror != null && mirror.indexOf(parentNode) >= 0 && mirror.indexOf(childNode) >= 0) {
+            return mirror.getGraph().relatedTo(mirror.toMemoryNode(mirror.indexOf(parentNode)), mirror.toMemoryNode(mirror.indexOf(childNode)));
+        }
+        return submitQuery("MATCH(source) WHERE ID(source) = $idSource MATCH(dest) " +
                         "WHERE ID(dest) = $idDest RETURN EXISTS((source)-[]->(dest))",
                 "idSource", parentNode.id(), "idDest", childNode.id())
                 .get(0).get(0).asBoolean();
     }
 
-    private String generateVPJsonGraph() {
-        return String.format("{\"nodes\":[%s],\"links\":[%s],\"allnodes\":[%s],\"linkscompose\":[%s],\"alllinks\":[%s]}", getNodesAsJson(), getLinksAsJson(), getAllClassesOrInterfaceNodes(), getUsageLinksAsJson(), getAllLinksAsJson());
-    }
-
-    private String getNodesAsJson() {
-        String request =
-                "MATCH (c) WHERE c:VP OR c:VARIANT OR c:METHOD_LEVEL_VP " +
-                        "CALL symfinder.count(ID(c), \"METHOD\") YIELD result as methods " +
-                        "CALL symfinder.count(ID(c), \"CONSTRUCTOR\") YIELD result as constructors " +
-                        "CALL symfinder.count(ID(c), \"CLASS\") YIELD result as attributes " +
-                        "RETURN collect(c {types:labels(c), .name, .methodVPs, .constructorVPs, .methodVariants, .constructorVariants, .publicMethods, .publicConstructors, .allMethods, methods, constructors, attributes, .nbUsages})";
-        return submitRequest(request)
-                .get(0)
-                .get(0)
-                .asList(MapAccessor::asMap)
-                .stream()
-                .map(o -> new JSONObject(o).toString())
-                .collect(Collectors.joining(","));
-    }
-
-    private String getAllClassesOrInterfaceNodes() {
-        String request =
-                "MATCH (c) WHERE (c:CLASS OR c:INTERFACE) AND NOT c:OUT_OF_SCOPE " +
-                        "CALL symfinder.count(ID(c), \"METHOD\") YIELD result as methods " +
-                        "CALL symfinder.count(ID(c), \"CONSTRUCTOR\") YIELD result as constructors " +
-                        "CALL symfinder.count(ID(c), \"CLASS\") YIELD result as attributes " +
-                        "CALL symfinder.count(ID(c), \"INTERFACE\") YIELD result as interfaceAttributes " +
-                        "RETURN collect(c {types:labels(c), .name, .methodVPs, .constructorVPs, .methodVariants, .constructorVariants, .publicMethods, .publicConstructors, .allMethods, methods, constructors, attributes, .nbUsages, interfaceAttributes})";
-        return submitRequest(request)
-                .get(0)
-                .get(0)
-                .asList(MapAccessor::asMap)
-                .stream()
-                .map(o -> new JSONObject(o).toString())
-                .collect(Collectors.joining(","));
-    }
-
-    private String getLinksAsJson() {
-        String request = "MATCH path = (c1:VP)-[r:EXTENDS|IMPLEMENTS]->(c2) WHERE NONE(n IN nodes(path) WHERE n:OUT_OF_SCOPE) RETURN collect({source:c1.name, target:c2.name, type:TYPE(r)})";
-        return submitRequest(request)
-                .get(0)
-                .get(0)
-                .asList(MapAccessor::asMap)
-                .stream()
-                .map(o -> new JSONObject(o).toString())
-                .collect(Collectors.joining(","));
-    }
-
-    private String getUsageLinksAsJson() {
-        String request = "MATCH path = (c1:CLASS)-[r:USE]->(c2) WHERE NONE(n IN nodes(path) WHERE n:OUT_OF_SCOPE) RETURN collect({source:c1.name, target:c2.name, type:TYPE(r)})";
-        return submitRequest(request)
-                .get(0)
-                .get(0)
-                .asList(MapAccessor::asMap)
-                .stream()
-                .map(o -> new JSONObject(o).toString())
-                .collect(Collectors.joining(","));
-    }
-
-    private String getAllLinksAsJson() {
-        String request = "MATCH path = (c1)-[r:USE|EXTENDS|IMPLEMENTS]->(c2) WHERE NONE(n IN nodes(path) WHERE n:OUT_OF_SCOPE) RETURN collect({source:c1.name, target:c2.name, type:TYPE(r)})";
-        return submitRequest(request)
-                .get(0)
-                .get(0)
-                .asList(MapAccessor::asMap)
-                .stream()
-                .map(o -> new JSONObject(o).toString())
-                .collect(Collectors.joining(","));
-    }
-
-    public String generateStatisticsJson() {
-        return new JSONObject()
-                .put("VPs", getTotalNbVPs())
-                .put("methodsVPs", getNbMethodVPs())
-                .put("constructorsVPs", getNbConstructorVPs())
-                .put("methodLevelVPs", getNbMethodLevelVPs())
-                .put("classLevelVPs", getNbClassLevelVPs())
-                .put("variants", getTotalNbVariants())
-                .put("methodsVariants", getNbMethodVariants())
-                .put("constructorsVariants", getNbConstructorVariants())
-                .put("methodLevelVariants", getNbMethodLevelVariants())
-                .put("classLevelVariants", getNbClassLevelVariants())
-                .put("publicMethods", getNbPublicMethods())
-                .put("allMethods", getNbAllMethods())
-                .put("publicsConstructors", getNbPublicConstructors())
-                .put("entryPointClasses", getNbEntryPointClasses())
-                .put("entryPointVPsOrVariants", getNbEntryPointClassesBeingVPsOrVariants())
-                .put("nbUsageClasses", getNbAttributeComposeClass()).toString();
+    public void writeVPJsonGraph(Writer writer) throws IOException {
+        JsonGraphWriter json = new JsonGraphWriter(writer, Configuration.getGraphLayoutIterations(), "nodes", "allnodes", "links", "linkscompose");
+        json.beginNodes();
+        writeNodes(json, "allnodes", "NOT c:OUT_OF_SCOPE");
+        writeNodes(json, "nodes", "c:VP OR c:VARIANT OR c:METHOD_LEVEL_VP");
+        json.endNodes();
+        writeLinks(json);
+        json.end();
+    }
+
+    /**
+     * Writes the classes and interfaces matching the condition with the number of their children of each kind,
+     * counted by the symfinder.countAll procedure in a single walk over the classes and interfaces.
+     * Nodes already written for a previous view are only referenced.
+     *
+     * @param condition condition on the node c
+     */
+    private void writeNodes(JsonGraphWriter json, String view, String condition) throws IOException {
+        String request = String.format(
+                "CALL symfinder.countAll([\"METHOD\", \"CONSTRUCTOR\", \"CLASS\", \"INTERFACE\"]) YIELD nodeId, counts " +
+                        "MATCH (c) WHERE ID(c) = nodeId AND (%s) " +
+                        "RETURN c {types:labels(c), .name, .methodVPs, .constructorVPs, .methodVariants, .constructorVariants, .publicMethods, .publicConstructors, .allMethods, " +
+                        "methods: counts.METHOD, constructors: counts.CONSTRUCTOR, attributes: counts.CLASS, interfaceAttributes: counts.INTERFACE, .nbUsages}", condition);
+        streamRequest(request, record -> json.writeNode(view, record.get(0).asMap()));
+    }
+
+    /**
+     * Writes the usage and inheritance relationships between nodes in the scope of the analysis in a single statement,
+     * the inheritance ones from a VP being in the links view and the usage ones from a class in the linkscompose view.
+     */
+    private void writeLinks(JsonGraphWriter json) throws IOException {
+        String request = "MATCH path = (c1)-[r:USE|EXTENDS|IMPLEMENTS]->(c2) WHERE NONE(n IN nodes(path) WHERE n:OUT_OF_SCOPE) " +
+                "RETURN c1.name, c2.name, TYPE(r), c1:VP AND TYPE(r) <> \"USE\", c1:CLASS AND TYPE(r) = \"USE\"";
+        streamRequest(request, record -> {
+            List <String> views = new ArrayList <>();
+            if (record.get(3).asBoolean()) {
+                views.add("links");
+            }
+            if (record.get(4).asBoolean()) {
+                views.add("linkscompose");
+            }
+            json.writeLink(record.get(0).asString(), record.get(1).asString(), record.get(2).asString(), views.toArray(new String[0]));
+        });
     }
 
     public int getNbNodes() {
-        return submitRequest("MATCH(n) RETURN count(*)").get(0).get(0).asInt();
+        return submitQuery("MATCH(n) RETURN count(*)").get(0).get(0).asInt();
     }
 
     public int getNbRelationships() {
-        return submitRequest("MATCH (n)-[r]->() RETURN COUNT(r)").get(0).get(0).asInt();
+        return submitQuery("MATCH (n)-[r]->() RETURN COUNT(r)").get(0).get(0).asInt();
     }
 
     public int getNbInheritanceRelationships() {
-        return submitRequest("MATCH (n)-[r:EXTENDS|IMPLEMENTS]->() RETURN COUNT(r)").get(0).get(0).asInt();
+        return submitQuery("MATCH (n)-[r:EXTENDS|IMPLEMENTS]->() RETURN COUNT(r)").get(0).get(0).asInt();
     }
 
     public int getNbUsageRelationship() {
-        return submitRequest("MATCH (n) - [r:USE]-> () RETURN COUNT(r)").get(0).get(0).asInt();
+        return submitQuery("MATCH (n) - [r:USE]-> () RETURN COUNT(r)").get(0).get(0).asInt();
     }
 
     public void createClassesIndex() {
-        submitRequest("CREATE INDEX ON :CLASS(name)");
+        createNameIndex(EntityType.CLASS);
     }
 
     public void createInterfacesIndex() {
-        submitRequest("CREATE INDEX ON :INTERFACE(name)");
+        createNameIndex(EntityType.INTERFACE);
+    }
+
+    /**
+     * Creates the index on the names of the nodes of the given type, unless the database kept it from a previous analysis.
+     */
+    private void createNameIndex(EntityType type) {
+        try {
+            submitQuery(String.format("CREATE INDEX ON :%s(name)", type.getString()));
+        } catch (ClientException e) {
+            if (! e.code().equals("Neo.ClientError.Schema.EquivalentSchemaRuleAlreadyExists")) {
+                throw e;
+            }
+        }
     }
 
     /**
@@ -737,18 +823,166 @@ public class NeoGraph {
      */
     public void deleteGraph() {
         submitRequest("MATCH (n) DETACH DELETE (n)");
+        symbolTable.clear();
+        mirror = new GraphMirror();
+    }
+
+    /**
+     * Sends the buffered write operations to the database.
+     * This is done automatically before any statement read from the database, and when the buffer is full.
+     */
+    public void flush() {
+        writeBuffer.flush();
+    }
+
+    /**
+     * @return the copy of the nodes written by the graph, null if the graph does not keep one.
+     * The copy is started if the database is empty when the graph first needs it, or when the graph is deleted.
+     */
+    private GraphMirror getMirror() {
+        if (! mirrorChecked) {
+            mirrorChecked = true;
+            if (isDatabaseEmpty()) {
+                mirror = new GraphMirror();
+            }
+        }
+        return mirror;
     }
 
+    /**
+     * Checks in its own transaction whether the database contains nodes which were not written by this graph.
+     */
+    private boolean isDatabaseEmpty() {
+        return execute("MATCH (n) RETURN n LIMIT 1", Values.value(Collections.emptyMap()), Result::list, List::size, false).isEmpty();
+    }
+
+    private void invalidateMirror() {
+        mirrorChecked = true;
+        if (mirror != null) {
+            mirror.invalidate();
+            mirror = null;
+        }
+    }
+
+    /**
+     * Runs a statement which may change the nodes, their labels or their relationships, hence drops the copy of the written nodes.
+     */
     private List <Record> submitRequest(String request, Object... parameters) {
+        invalidateMirror();
+        return submitQuery(request, parameters);
+    }
+
+    /**
+     * Runs a statement which does not change the nodes, their labels or their relationships, after sending the buffered writes.
+     */
+    private List <Record> submitQuery(String request, Object... parameters) {
+        writeBuffer.flush();
+        return execute(request, parameters(parameters));
+    }
+
+    private List <Record> execute(String request, Map <String, Object> parameters) {
+        return execute(request, Values.value(parameters));
+    }
+
+    private List <Record> execute(String request, Value parameters) {
+        return execute(request, parameters, Result::list, List::size);
+    }
+
+    /**
+     * All statements are sent to the database here, where they are measured by the statement profiler, if any.
+     *
+     * @param handler   reads the records of the statement, before its transaction is committed
+     * @param nbRecords gives the number of records read by the handler from its result
+     */
+    private <T> T execute(String request, Value parameters, Function <Result, T> handler, ToIntFunction <T> nbRecords) {
+        return execute(request, parameters, handler, nbRecords, true);
+    }
+
+    /**
+     * @param inUnitOfWork false to run the statement in its own transaction even if a unit of work is running
+     */
+    private <T> T execute(String request, Value parameters, Function <Result, T> handler, ToIntFunction <T> nbRecords, boolean inUnitOfWork) {
+        StatementProfiler.Measure measure = statementProfiler == null ? null : statementProfiler.start(request);
+        if (performanceReport != null) {
+            performanceReport.statementSent(request);
+        }
+        T result;
+        if (unitOfWork != null && inUnitOfWork) {
+            result = unitOfWork.run(request, parameters, handler);
+        } else {
+            result = retryWhileUnavailable(() -> {
+                try (Session session = driver.session()) {
+                    try (Transaction tx = session.beginTransaction()) {
+                        T records = handler.apply(tx.run(request, parameters));
+                        tx.commit();
+                        transactionCommitted();
+                        return records;
+                    }
+                }
+            }, () -> {
+                if (measure != null) {
+                    measure.retried();
+                }
+            });
+        }
+        int nbReadRecords = nbRecords.applyAsInt(result);
+        if (measure != null) {
+            measure.end(nbReadRecords);
+        }
+        if (performanceReport != null) {
+            performanceReport.recordsReceived(nbReadRecords);
+        }
+        return result;
+    }
+
+    /**
+     * Passes the records to the consumer as they are fetched from the database, instead of collecting them in a list.
+     */
+    private void streamRequest(String request, RecordConsumer consumer) throws IOException {
+        writeBuffer.flush();
+        try {
+            execute(request, Values.value(Collections.emptyMap()), result -> {
+                int nbRecords = 0;
+                while (result.hasNext()) {
+                    try {
+                        consumer.accept(result.next());
+                        nbRecords++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return nbRecords;
+            }, Integer::intValue);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    void transactionCommitted() {
+        if (performanceReport != null) {
+            performanceReport.transactionCommitted();
+        }
+    }
+
+    @FunctionalInterface
+    private interface RecordConsumer {
+        void accept(Record record) throws IOException;
+    }
+
+    static <T> T retryWhileUnavailable(Supplier <T> action) {
+        return retryWhileUnavailable(action, () -> {
+        });
+    }
+
+    /**
+     * @param onRetry called before each new attempt
+     */
+    static <T> T retryWhileUnavailable(Supplier <T> action, Runnable onRetry) {
         int count = 0;
         int maxTries = 20;
         while (true) {
-            try (Session session = driver.session()) {
-                try (Transaction tx = session.beginTransaction()) {
-                    List <Record> result = tx.run(request, parameters(parameters)).list();
-                    tx.commit();
-                    return result;
-                }
+            try {
+                return action.get();
             } catch (ServiceUnavailableException e) { // The database is not ready, retry to connect
                 System.out.println("Waiting for Neo4j database to be ready...");
                 if (++ count == maxTries) {
@@ -759,12 +993,39 @@ public class NeoGraph {
                 } catch (InterruptedException e1) {
                     e1.printStackTrace();
                 }
+                onRetry.run();
             }
         }
     }
 
+    /**
+     * Starts a unit of work. Until it is closed, all statements run in a single session,
+     * in transactions committed every commitInterval statements.
+     * Statements see all the writes made before them, committed or not.
+     * If a unit of work is already running, it is reused and committed when the outermost one is closed.
+     *
+     * @param commitInterval number of statements after which the transaction is committed and a new one started
+     */
+    public UnitOfWork beginUnitOfWork(int commitInterval) {
+        if (unitOfWork == null) {
+            unitOfWork = new SessionUnitOfWork(this, driver, commitInterval);
+        } else {
+            unitOfWork.enter();
+        }
+        return unitOfWork;
+    }
+
+    void endUnitOfWork() {
+        unitOfWork = null;
+    }
+
     public void closeDriver() {
+        writeBuffer.flush();
         driver.close();
     }
 
+    public void close() {
+        closeDriver();
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,103 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Result;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.Transaction;
+import org.neo4j.driver.Value;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Session shared by the statements of a visitor pass or of any other sequence of statements, see {@link NeoGraph#beginUnitOfWork(int)}.
+ * As statements run in the same transaction until it is committed, reads see the previous writes.
+ */
+class SessionUnitOfWork implements UnitOfWork {
+
+    private final NeoGraph graph;
+    private final Session session;
+    private final int commitInterval;
+    private Transaction transaction;
+    private int nbStatements = 0;
+    private int depth = 1;
+
+    SessionUnitOfWork(NeoGraph graph, Driver driver, int commitInterval) {
+        this.graph = graph;
+        this.commitInterval = Math.max(1, commitInterval);
+        this.session = NeoGraph.retryWhileUnavailable(() -> {
+            Session newSession = driver.session();
+            try {
+                transaction = newSession.beginTransaction();
+                return newSession;
+            } catch (RuntimeException e) {
+                newSession.close();
+                throw e;
+            }
+        });
+    }
+
+    void enter() {
+        depth++;
+    }
+
+    List <Record> run(String request, Value parameters) {
+        return run(request, parameters, Result::list);
+    }
+
+    /**
+     * @param handler reads the records of the statement, before the transaction may be committed
+     */
+    <T> T run(String request, Value parameters, Function <Result, T> handler) {
+        T result = handler.apply(transaction.run(request, parameters));
+        if (++ nbStatements >= commitInterval) {
+            transaction.commit();
+            graph.transactionCommitted();
+            transaction.close();
+            transaction = session.beginTransaction();
+            nbStatements = 0;
+        }
+        return result;
+    }
+
+    /**
+     * Sends the buffered writes and commits the current transaction if this is the outermost unit of work.
+     */
+    @Override
+    public void close() {
+        if (-- depth > 0) {
+            return;
+        }
+        try {
+            graph.flush();
+            transaction.commit();
+            graph.transactionCommitted();
+        } finally {
+            transaction.close();
+            session.close();
+            graph.endUnitOfWork();
+        }
+    }
+}
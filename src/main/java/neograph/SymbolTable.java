@@ -0,0 +1,85 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import neo4j_types.EntityType;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Qualified names of the classes and interfaces of the graph, kept by the graph store as it creates their nodes,
+ * so that type names can be resolved without querying the graph.
+ * <p>
+ * Types are indexed by qualified name, and by package and simple name to resolve on-demand imports.
+ * The package of a member type is its enclosing type, as in an import of the form {@code import a.b.Outer.*}.
+ */
+public class SymbolTable {
+
+    private final Set <String> qualifiedNames = new HashSet <>();
+    private final Map <String, Map <String, String>> typesByPackage = new HashMap <>();
+
+    /**
+     * Adds the name if the labels of the created or merged node make it a class or an interface.
+     */
+    void addIfType(String qualifiedName, Collection <String> labels) {
+        if (labels.contains(EntityType.CLASS.getString()) || labels.contains(EntityType.INTERFACE.getString())) {
+            add(qualifiedName);
+        }
+    }
+
+    void add(String qualifiedName) {
+        if (qualifiedNames.add(qualifiedName)) {
+            int lastDot = qualifiedName.lastIndexOf('.');
+            typesByPackage.computeIfAbsent(lastDot < 0 ? "" : qualifiedName.substring(0, lastDot), key -> new HashMap <>())
+                    .put(qualifiedName.substring(lastDot + 1), qualifiedName);
+        }
+    }
+
+    void clear() {
+        qualifiedNames.clear();
+        typesByPackage.clear();
+    }
+
+    /**
+     * @return true if a class or interface has the given qualified name
+     */
+    public boolean contains(String qualifiedName) {
+        return qualifiedNames.contains(qualifiedName);
+    }
+
+    /**
+     * @param packageName package, or enclosing type, in which the type is looked for
+     * @param name        simple name of the type, possibly prefixed by its enclosing types
+     * @return the qualified name of the class or interface having the given name in the package
+     */
+    public Optional <String> find(String packageName, String name) {
+        int lastDot = name.lastIndexOf('.');
+        String typePackage = lastDot < 0 ? packageName : packageName + "." + name.substring(0, lastDot);
+        Map <String, String> types = typesByPackage.get(typePackage);
+        return types == null ? Optional.empty() : Optional.ofNullable(types.get(name.substring(lastDot + 1)));
+    }
+}
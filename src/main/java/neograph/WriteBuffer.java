@@ -0,0 +1,182 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import org.neo4j.driver.Record;
+import org.neo4j.driver.types.Node;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Collects the write operations of the graph and sends them as UNWIND statements, one per kind of operation and label set.
+ * <p>
+ * Nodes are created first, then relationships, labels and properties, which only need the nodes to exist.
+ * Within a kind of operation, operations are sent in the order they were made.
+ * Two merges of the same name with different labels do not commute, and a merge followed by a creation of the same name
+ * must not become a creation followed by a merge: in both cases, the pending operations are sent before the new one is buffered.
+ * <p>
+ * The buffer is flushed when it reaches its size, and before any read of the graph so that reads see all previous writes.
+ */
+class WriteBuffer {
+
+    private final BiFunction <String, Map <String, Object>, List <Record>> executor;
+    private final int batchSize;
+    private int size = 0;
+
+    private Map <String, List <PendingNode>> creations = new LinkedHashMap <>();
+    private Map <String, List <PendingNode>> merges = new LinkedHashMap <>();
+    private Map <String, String> mergedNames = new HashMap <>();
+    private Map <String, List <Node[]>> links = new LinkedHashMap <>();
+    private Map <String, List <Node>> labels = new LinkedHashMap <>();
+    private Map <String, List <Object[]>> properties = new LinkedHashMap <>();
+
+    /**
+     * @param executor  runs a statement with its parameters
+     * @param batchSize maximum number of buffered operations, 1 to send each operation immediately
+     */
+    WriteBuffer(BiFunction <String, Map <String, Object>, List <Record>> executor, int batchSize) {
+        this.executor = executor;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * @param labels labels of the node, separated by colons
+     */
+    BufferedNode createNode(String name, String labels) {
+        if (mergedNames.containsKey(name)) {
+            flush();
+        }
+        return add(creations, String.format("CREATE (n:%s {name: $names[i]})", labels), name);
+    }
+
+    /**
+     * @param mergeClause clause merging the node whose name is $names[i]
+     */
+    Node mergeNode(String name, String mergeClause) {
+        String previousClause = mergedNames.get(name);
+        if (previousClause != null && ! previousClause.equals(mergeClause)) {
+            flush();
+        }
+        mergedNames.put(name, mergeClause);
+        return add(merges, mergeClause, name);
+    }
+
+    private BufferedNode add(Map <String, List <PendingNode>> nodes, String clause, String name) {
+        BufferedNode node = new BufferedNode(this);
+        nodes.computeIfAbsent(clause, key -> new ArrayList <>()).add(new PendingNode(name, node));
+        added();
+        return node;
+    }
+
+    void link(Node source, Node target, String type) {
+        links.computeIfAbsent(type, key -> new ArrayList <>()).add(new Node[]{source, target});
+        added();
+    }
+
+    void addLabel(Node node, String label) {
+        labels.computeIfAbsent(label, key -> new ArrayList <>()).add(node);
+        added();
+    }
+
+    void setProperty(Node node, String property, Object value) {
+        properties.computeIfAbsent(property, key -> new ArrayList <>()).add(new Object[]{node, value});
+        added();
+    }
+
+    private void added() {
+        if (++ size >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Sends all buffered operations to the database.
+     */
+    void flush() {
+        if (size == 0) {
+            return;
+        }
+        Map <String, List <PendingNode>> creations = this.creations;
+        Map <String, List <PendingNode>> merges = this.merges;
+        Map <String, List <Node[]>> links = this.links;
+        Map <String, List <Node>> labels = this.labels;
+        Map <String, List <Object[]>> properties = this.properties;
+        this.creations = new LinkedHashMap <>();
+        this.merges = new LinkedHashMap <>();
+        this.mergedNames = new HashMap <>();
+        this.links = new LinkedHashMap <>();
+        this.labels = new LinkedHashMap <>();
+        this.properties = new LinkedHashMap <>();
+        size = 0;
+
+        creations.forEach(this::writeNodes);
+        merges.forEach(this::writeNodes);
+        links.forEach((type, nodes) -> {
+            List <List <Long>> rows = new ArrayList <>();
+            nodes.forEach(pair -> rows.add(List.of(pair[0].id(), pair[1].id())));
+            executor.apply(String.format("UNWIND $rows AS row " +
+                    "MATCH (a) WHERE ID(a) = row[0] " +
+                    "MATCH (b) WHERE ID(b) = row[1] " +
+                    "CREATE (a)-[:%s]->(b)", type), Map.of("rows", rows));
+        });
+        labels.forEach((label, nodes) -> {
+            List <Long> ids = new ArrayList <>();
+            nodes.forEach(node -> ids.add(node.id()));
+            executor.apply(String.format("UNWIND $ids AS id MATCH (n) WHERE ID(n) = id SET n:%s", label), Map.of("ids", ids));
+        });
+        properties.forEach((property, values) -> {
+            List <Map <String, Object>> rows = new ArrayList <>();
+            values.forEach(value -> {
+                Map <String, Object> row = new HashMap <>();
+                row.put("id", ((Node) value[0]).id());
+                row.put("value", value[1]);
+                rows.add(row);
+            });
+            executor.apply(String.format("UNWIND $rows AS row MATCH (n) WHERE ID(n) = row.id SET n.%s = row.value", property), Map.of("rows", rows));
+        });
+    }
+
+    private void writeNodes(String clause, List <PendingNode> nodes) {
+        List <String> names = new ArrayList <>();
+        nodes.forEach(node -> names.add(node.name));
+        List <Record> records = executor.apply(String.format("UNWIND range(0, size($names) - 1) AS i %s RETURN i, n", clause), Map.of("names", names));
+        for (Record record : records) {
+            nodes.get(record.get(0).asInt()).node.resolve(record.get(1).asNode());
+        }
+    }
+
+    private static class PendingNode {
+
+        private final String name;
+        private final BufferedNode node;
+
+        private PendingNode(String name, BufferedNode node) {
+            this.name = name;
+            this.node = node;
+        }
+    }
+}
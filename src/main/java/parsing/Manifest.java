@@ -0,0 +1,339 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package parsing;
+
+import facts.Fact;
+import facts.FactsJson;
+import facts.FileFacts;
+import facts.InheritanceFact;
+import facts.TypeFact;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Hash and facts of each file of a project, kept between two analyses so that only the files which changed are parsed again.
+ * <p>
+ * The facts of a file depend on the types it uses, which may be declared in other files.
+ * A file which did not change is therefore parsed again if it refers to a type declared in a changed, added or removed file,
+ * or to a subtype of such a type, as it may inherit members from it.
+ * The types a file refers to are the ones named in its facts and the ones found in its compilation unit,
+ * as some facts are only recorded once a binding resolves, for instance when a method is added to a type declared in another file.
+ * Types are compared by simple name, which may lead to parse more files than needed.
+ * <p>
+ * Files are identified by their path relative to the analysed directory, so that the manifest of a version of a project
+ * can be used to analyse another version checked out in another directory.
+ * When versions are analysed one after the other in the same run, the facts are kept as they were extracted
+ * and shared between the versions instead of being read back from JSON.
+ */
+public class Manifest {
+
+    private static final Logger logger = LogManager.getLogger(Manifest.class);
+
+    private static final int VERSION = 2;
+
+    private final Path sourceDirectory;
+    private final String environment;
+    private final Map <String, Entry> entries = new HashMap <>();
+
+    /**
+     * Creates an empty manifest: all files will be parsed.
+     *
+     * @param sourceDirectory directory containing the files of the project
+     * @param environment     anything other than the files which changes the facts, such as the JDK resolving the bindings
+     */
+    public Manifest(Path sourceDirectory, String environment) {
+        this.sourceDirectory = getRealPath(sourceDirectory);
+        this.environment = environment;
+    }
+
+    /**
+     * @return a manifest with the same files, to analyse another version of the project checked out in the given directory,
+     * or an empty manifest if this one was made in another environment
+     */
+    public Manifest forSourceDirectory(Path sourceDirectory, String environment) {
+        Manifest manifest = new Manifest(sourceDirectory, environment);
+        if (! this.environment.equals(environment)) {
+            logger.info("Manifest of " + this.sourceDirectory + " was made in another environment, parsing all files");
+            return manifest;
+        }
+        manifest.entries.putAll(entries);
+        return manifest;
+    }
+
+    /**
+     * Reads the manifest written by a previous analysis.
+     * If it does not exist, cannot be read or was written in another environment, an empty manifest is returned.
+     */
+    public static Manifest load(Path manifestPath, Path sourceDirectory, String environment) {
+        Manifest manifest = new Manifest(sourceDirectory, environment);
+        if (! Files.isRegularFile(manifestPath)) {
+            return manifest;
+        }
+        try (Reader reader = new InputStreamReader(new GZIPInputStream(Files.newInputStream(manifestPath)), StandardCharsets.UTF_8)) {
+            JSONObject json = new JSONObject(new JSONTokener(reader));
+            if (json.getInt("version") != VERSION || ! json.getString("environment").equals(environment)) {
+                logger.info("Manifest " + manifestPath + " was written by another version or environment, parsing all files");
+                return manifest;
+            }
+            JSONObject files = json.getJSONObject("files");
+            for (String relativePath : files.keySet()) {
+                manifest.entries.put(relativePath, Entry.fromJson(files.getJSONObject(relativePath)));
+            }
+        } catch (IOException | JSONException e) {
+            logger.warn("Cannot read manifest " + manifestPath + ", parsing all files: " + e.getMessage());
+            manifest.entries.clear();
+        }
+        return manifest;
+    }
+
+    public void save(Path manifestPath) throws IOException {
+        JSONObject files = new JSONObject();
+        entries.forEach((relativePath, entry) -> files.put(relativePath, entry.toJson()));
+        JSONObject json = new JSONObject()
+                .put("version", VERSION)
+                .put("environment", environment)
+                .put("files", files);
+        try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(manifestPath)), StandardCharsets.UTF_8)) {
+            json.write(writer);
+        }
+    }
+
+    /**
+     * @param sourceFiles files of the project to analyse
+     * @return for each file, the facts of the previous analysis if they are still valid, null if the file must be parsed
+     */
+    public FileFacts[] getReusableFacts(List <SourceFile> sourceFiles) {
+        FileFacts[] reusableFacts = new FileFacts[sourceFiles.size()];
+        if (entries.isEmpty()) {
+            return reusableFacts;
+        }
+        Set <String> changedTypes = new HashSet <>();
+        Map <String, Integer> unchangedFiles = new HashMap <>();
+        Set <String> currentFiles = new HashSet <>();
+        for (int i = 0 ; i < sourceFiles.size() ; i++) {
+            SourceFile sourceFile = sourceFiles.get(i);
+            String relativePath = getRelativePath(sourceFile);
+            currentFiles.add(relativePath);
+            Entry entry = entries.get(relativePath);
+            if (entry != null && entry.hash.equals(sourceFile.getHash())) {
+                unchangedFiles.put(relativePath, i);
+            } else {
+                changedTypes.addAll(sourceFile.getDeclaredTypeNames());
+                if (entry != null) {
+                    changedTypes.addAll(entry.declaredTypes);
+                }
+            }
+        }
+        entries.forEach((relativePath, entry) -> {
+            if (! currentFiles.contains(relativePath)) {
+                changedTypes.addAll(entry.declaredTypes);
+            }
+        });
+        addSubtypes(changedTypes, unchangedFiles.keySet());
+
+        int nbDependentFiles = 0;
+        for (Map.Entry <String, Integer> unchangedFile : unchangedFiles.entrySet()) {
+            Entry entry = entries.get(unchangedFile.getKey());
+            if (Collections.disjoint(entry.referencedTypes, changedTypes)) {
+                reusableFacts[unchangedFile.getValue()] = entry.getFacts(sourceFiles.get(unchangedFile.getValue()).getPath());
+            } else {
+                nbDependentFiles++;
+            }
+        }
+        logger.log(Level.getLevel("MY_LEVEL"), String.format("%d files changed, %d unchanged files depend on them, reusing the facts of %d files",
+                sourceFiles.size() - unchangedFiles.size(), nbDependentFiles, unchangedFiles.size() - nbDependentFiles));
+        return reusableFacts;
+    }
+
+    private void addSubtypes(Set <String> types, Set <String> files) {
+        boolean added = true;
+        while (added) {
+            added = false;
+            for (String file : files) {
+                for (List <String> inheritance : entries.get(file).inheritance) {
+                    String subtype = inheritance.get(0);
+                    if (! types.contains(subtype) && inheritance.stream().skip(1).anyMatch(types::contains)) {
+                        types.add(subtype);
+                        added = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces the content of the manifest by the given files.
+     *
+     * @param filesFacts facts of each file, null if the file was not parsed
+     */
+    public void update(List <SourceFile> sourceFiles, FileFacts[] filesFacts) {
+        Map <String, Entry> previousEntries = new HashMap <>(entries);
+        entries.clear();
+        for (int i = 0 ; i < sourceFiles.size() ; i++) {
+            if (filesFacts[i] != null) {
+                String relativePath = getRelativePath(sourceFiles.get(i));
+                Entry previousEntry = previousEntries.get(relativePath);
+                if (previousEntry != null && previousEntry.hash.equals(sourceFiles.get(i).getHash())) {
+                    entries.put(relativePath, previousEntry);
+                } else {
+                    entries.put(relativePath, Entry.fromFacts(sourceFiles.get(i).getHash(), filesFacts[i]));
+                }
+            }
+        }
+    }
+
+    private String getRelativePath(SourceFile sourceFile) {
+        return sourceDirectory.relativize(getRealPath(Path.of(sourceFile.getPath()))).toString().replace('\\', '/');
+    }
+
+    private static Path getRealPath(Path path) {
+        try {
+            return path.toRealPath();
+        } catch (IOException e) {
+            return path.toAbsolutePath().normalize();
+        }
+    }
+
+    /**
+     * @return the name of the type without package, enclosing types, type arguments and array dimensions
+     */
+    static String getSimpleName(String typeName) {
+        int end = typeName.indexOf('<');
+        String name = end < 0 ? typeName : typeName.substring(0, end);
+        name = name.replace("[]", "");
+        return name.substring(Math.max(name.lastIndexOf('.'), name.lastIndexOf('$')) + 1);
+    }
+
+    private static class Entry {
+
+        private final String hash;
+        /**
+         * Facts as JSON, computed when the manifest is saved if the entry was created from the extracted facts.
+         */
+        private JSONObject json;
+        /**
+         * Facts as extracted, decoded from JSON the first time they are reused if the entry was read from a file.
+         */
+        private FileFacts facts;
+        private final Set <String> declaredTypes;
+        private final Set <String> referencedTypes;
+        /**
+         * Each list contains a type followed by its supertypes.
+         */
+        private final List <List <String>> inheritance;
+
+        private Entry(String hash, JSONObject json, FileFacts facts, Set <String> declaredTypes, Set <String> referencedTypes, List <List <String>> inheritance) {
+            this.hash = hash;
+            this.json = json;
+            this.facts = facts;
+            this.declaredTypes = declaredTypes;
+            this.referencedTypes = referencedTypes;
+            this.inheritance = inheritance;
+        }
+
+        private static Entry fromFacts(String hash, FileFacts fileFacts) {
+            Set <String> declaredTypes = new LinkedHashSet <>();
+            Set <String> referencedTypes = new LinkedHashSet <>();
+            fileFacts.getReferencedTypes().forEach(typeName -> referencedTypes.add(getSimpleName(typeName)));
+            List <List <String>> inheritance = new ArrayList <>();
+            for (int pass = 0 ; pass < fileFacts.getNbPasses() ; pass++) {
+                for (Fact fact : fileFacts.getFacts(pass)) {
+                    fact.getTypeNames().forEach(typeName -> referencedTypes.add(getSimpleName(typeName)));
+                    if (fact instanceof TypeFact) {
+                        declaredTypes.add(getSimpleName(((TypeFact) fact).getName()));
+                    }
+                    if (fact instanceof InheritanceFact) {
+                        List <String> types = new ArrayList <>();
+                        fact.getTypeNames().forEach(typeName -> types.add(getSimpleName(typeName)));
+                        inheritance.add(types);
+                    }
+                }
+            }
+            return new Entry(hash, null, fileFacts, declaredTypes, referencedTypes, inheritance);
+        }
+
+        private static Entry fromJson(JSONObject json) {
+            List <List <String>> inheritance = new ArrayList <>();
+            json.getJSONArray("inheritance").forEach(types -> inheritance.add(toList((JSONArray) types)));
+            return new Entry(json.getString("hash"), json.getJSONObject("facts"), null,
+                    new HashSet <>(toList(json.getJSONArray("declaredTypes"))),
+                    new HashSet <>(toList(json.getJSONArray("referencedTypes"))),
+                    inheritance);
+        }
+
+        private JSONObject toJson() {
+            return new JSONObject()
+                    .put("hash", hash)
+                    .put("declaredTypes", new JSONArray(declaredTypes))
+                    .put("referencedTypes", new JSONArray(referencedTypes))
+                    .put("inheritance", new JSONArray(inheritance))
+                    .put("facts", getJson());
+        }
+
+        /**
+         * @param path path of the file in the analysed version
+         */
+        private FileFacts getFacts(String path) {
+            if (facts == null) {
+                facts = FactsJson.fromJson(path, json);
+            }
+            return facts.withPath(path);
+        }
+
+        private JSONObject getJson() {
+            if (json == null) {
+                json = FactsJson.toJson(facts);
+            }
+            return json;
+        }
+
+        private static List <String> toList(JSONArray json) {
+            List <String> list = new ArrayList <>();
+            json.forEach(element -> list.add((String) element));
+            return list;
+        }
+    }
+}
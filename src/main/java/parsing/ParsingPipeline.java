@@ -0,0 +1,354 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package parsing;
+
+import facts.FileFacts;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.FileASTRequestor;
+import profiling.FileParseEvent;
+import profiling.PerformanceReport;
+import visitors.FactsExtractor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Parses the source files with a pool of workers, each one running its own parser on a partition of the files.
+ * Workers put the facts extracted from each file in a bounded queue, drained by a single writer.
+ * <p>
+ * The source roots of the project are given to each parser, so that types declared in other partitions are resolved
+ * the same way as if all files were parsed together. Results therefore do not depend on the number of workers.
+ * For the same reason, files not parsed because their facts are reused from a previous analysis are still resolved from the sources.
+ * As the parser reads all files of a source root with the same encoding, each source root is given the most frequent encoding of its files.
+ * The few files having another encoding than their source root are given to the parser of every partition, which reads them with their own encoding
+ * instead of resolving them from the source root, and only the partition to which such a file belongs extracts its facts.
+ */
+public class ParsingPipeline {
+
+    private static final Logger logger = LogManager.getLogger(ParsingPipeline.class);
+
+    private final String classpathPath;
+    private final SourceReader sourceReader;
+    private final int nbThreads;
+    private final int queueSize;
+    private PerformanceReport performanceReport;
+
+    /**
+     * @param classpathPath path of the JDK used to resolve bindings
+     * @param sourceReader  reader finding the encoding and the package of each file
+     * @param nbThreads     number of workers parsing the files
+     * @param queueSize     maximum number of parsed files waiting to be consumed
+     */
+    public ParsingPipeline(String classpathPath, SourceReader sourceReader, int nbThreads, int queueSize) {
+        this.classpathPath = classpathPath;
+        this.sourceReader = sourceReader;
+        this.nbThreads = Math.max(1, nbThreads);
+        this.queueSize = Math.max(1, queueSize);
+    }
+
+    /**
+     * @param performanceReport report to which the time spent on each parsed file and the number of parsed files are added
+     */
+    public void setPerformanceReport(PerformanceReport performanceReport) {
+        this.performanceReport = performanceReport;
+    }
+
+    /**
+     * Parses the files and gives the facts of each one to the consumer.
+     * The consumer is called on the calling thread, in the order of the files, as soon as the facts of a file
+     * and of all files before it are available.
+     * Files whose facts can be reused from the manifest are not parsed, and the manifest is then updated with the facts of all files.
+     *
+     * @param files    files to parse
+     * @param manifest facts of a previous analysis of the project
+     * @param consumer single writer of the facts
+     * @return facts of all files, in the order of the files
+     */
+    public List <FileFacts> parse(List <File> files, Manifest manifest, Consumer <FileFacts> consumer) throws IOException {
+        long startTime = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(nbThreads);
+        try {
+            List <SourceFile> sourceFiles = readSourceFiles(files, executor);
+            Map <String, Map <String, Integer>> sourceRootsFilesEncodings = new LinkedHashMap <>();
+            for (SourceFile sourceFile : sourceFiles) {
+                sourceRootsFilesEncodings.computeIfAbsent(sourceFile.getSourceRoot(), sourceRoot -> new TreeMap <>())
+                        .merge(sourceFile.getEncoding(), 1, Integer::sum);
+            }
+            String[] sourceRoots = sourceRootsFilesEncodings.keySet().toArray(new String[0]);
+            String[] sourceRootsEncodings = sourceRootsFilesEncodings.values().stream()
+                    .map(ParsingPipeline::getMostFrequentEncoding)
+                    .toArray(String[]::new);
+            Map <String, String> rootEncodings = new HashMap <>();
+            for (int i = 0 ; i < sourceRoots.length ; i++) {
+                rootEncodings.put(sourceRoots[i], sourceRootsEncodings[i]);
+            }
+            List <Integer> otherEncodingFiles = new ArrayList <>();
+            for (int i = 0 ; i < sourceFiles.size() ; i++) {
+                if (! sourceFiles.get(i).getEncoding().equals(rootEncodings.get(sourceFiles.get(i).getSourceRoot()))) {
+                    otherEncodingFiles.add(i);
+                }
+            }
+
+            FileFacts[] filesFacts = manifest.getReusableFacts(sourceFiles);
+            List <Integer> filesToParse = new ArrayList <>();
+            for (int i = 0 ; i < filesFacts.length ; i++) {
+                if (filesFacts[i] == null) {
+                    filesToParse.add(i);
+                }
+            }
+
+            int nbPartitions = Math.min(nbThreads, filesToParse.size());
+            int partitionSize = nbPartitions == 0 ? 0 : (filesToParse.size() + nbPartitions - 1) / nbPartitions;
+            BlockingQueue <ParsedFile> queue = new ArrayBlockingQueue <>(queueSize);
+            for (int partition = 0 ; partition < nbPartitions ; partition++) {
+                int from = Math.min(filesToParse.size(), partition * partitionSize);
+                int to = Math.min(filesToParse.size(), from + partitionSize);
+                List <Integer> partitionFiles = filesToParse.subList(from, to);
+                executor.submit(() -> parsePartition(sourceFiles, partitionFiles, otherEncodingFiles, sourceRoots, sourceRootsEncodings, queue));
+            }
+            writeFacts(sourceFiles, filesFacts, nbPartitions, queue, consumer);
+            manifest.update(sourceFiles, filesFacts);
+            if (performanceReport != null) {
+                performanceReport.setParsing(sourceFiles.size(), filesToParse.size(), System.nanoTime() - startTime);
+            }
+            return Arrays.stream(filesFacts).filter(Objects::nonNull).collect(Collectors.toList());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List <SourceFile> readSourceFiles(List <File> files, ExecutorService executor) throws IOException {
+        List <Callable <SourceFile>> tasks = files.stream()
+                .map(file -> (Callable <SourceFile>) () -> sourceReader.read(file))
+                .collect(Collectors.toList());
+        List <SourceFile> sourceFiles = new ArrayList <>();
+        try {
+            for (Future <SourceFile> future : executor.invokeAll(tasks)) {
+                sourceFiles.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+        return sourceFiles;
+    }
+
+    /**
+     * @param filesEncodings number of files of a source root for each encoding, sorted by encoding
+     */
+    private static String getMostFrequentEncoding(Map <String, Integer> filesEncodings) {
+        return filesEncodings.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse("UTF-8");
+    }
+
+    /**
+     * @param partitionFiles     indexes of the files of the partition
+     * @param otherEncodingFiles indexes of the files whose encoding is not the one of their source root, parsed but not extracted if not in the partition
+     */
+    private void parsePartition(List <SourceFile> sourceFiles, List <Integer> partitionFiles, List <Integer> otherEncodingFiles,
+                                String[] sourceRoots, String[] sourceRootsEncodings, BlockingQueue <ParsedFile> queue) {
+        Throwable error = null;
+        try {
+            Map <String, Integer> fileIndexes = new HashMap <>();
+            for (int file : partitionFiles) {
+                fileIndexes.put(sourceFiles.get(file).getPath(), file);
+            }
+            List <SourceFile> parsedFiles = new ArrayList <>();
+            partitionFiles.forEach(file -> parsedFiles.add(sourceFiles.get(file)));
+            otherEncodingFiles.stream()
+                    .map(sourceFiles::get)
+                    .filter(sourceFile -> ! fileIndexes.containsKey(sourceFile.getPath()))
+                    .forEach(parsedFiles::add);
+            String[] sourceFilePaths = parsedFiles.stream().map(SourceFile::getPath).toArray(String[]::new);
+            String[] encodings = parsedFiles.stream().map(SourceFile::getEncoding).toArray(String[]::new);
+
+            ASTParser parser = ASTParser.newParser(AST.JLS13);
+            parser.setResolveBindings(true);
+            parser.setKind(ASTParser.K_COMPILATION_UNIT);
+
+            parser.setBindingsRecovery(true);
+
+            parser.setEnvironment(new String[]{classpathPath}, sourceRoots, sourceRootsEncodings, true);
+
+            Map <String, String> options = JavaCore.getOptions();
+            options.put(JavaCore.COMPILER_SOURCE, JavaCore.VERSION_13);
+            parser.setCompilerOptions(options);
+
+            parser.createASTs(sourceFilePaths, encodings, new String[]{}, new FileASTRequestor() {
+                // The parser resolves the files one after the other, so the time since the previous file is the time spent on this one.
+                // Before handing the first file, it parses all the files and resolves their types: this is the setup of the partition.
+                private long previousFileTime = System.nanoTime();
+                private FileParseEvent parseEvent = beginParseEvent();
+                private boolean setUp = false;
+
+                @Override
+                public void acceptAST(String sourceFilePath, CompilationUnit ast) {
+                    long parsedTime = System.nanoTime();
+                    long parseTime = parsedTime - previousFileTime;
+                    if (! setUp) {
+                        setUp = true;
+                        if (performanceReport != null) {
+                            performanceReport.partitionSetUp(parseTime);
+                        }
+                        parseTime = 0;
+                    }
+                    if (! fileIndexes.containsKey(sourceFilePath)) {
+                        previousFileTime = System.nanoTime();
+                        parseEvent = beginParseEvent();
+                        return;
+                    }
+                    parseEvent.end();
+                    if (parseEvent.shouldCommit()) {
+                        parseEvent.path = sourceFilePath;
+                        parseEvent.size = new File(sourceFilePath).length();
+                        parseEvent.commit();
+                    }
+                    FileFacts facts = FactsExtractor.extract(sourceFilePath, ast, performanceReport);
+                    if (performanceReport != null) {
+                        performanceReport.fileParsed(sourceFilePath, parseTime, System.nanoTime() - parsedTime);
+                    }
+                    put(queue, new ParsedFile(fileIndexes.get(sourceFilePath), facts));
+                    previousFileTime = System.nanoTime();
+                    parseEvent = beginParseEvent();
+                }
+            }, null);
+        } catch (RuntimeException | Error e) {
+            error = e;
+        } finally {
+            put(queue, ParsedFile.endOfPartition(error));
+        }
+    }
+
+    private static FileParseEvent beginParseEvent() {
+        FileParseEvent event = new FileParseEvent();
+        event.begin();
+        return event;
+    }
+
+    private static void put(BlockingQueue <ParsedFile> queue, ParsedFile parsedFile) {
+        try {
+            queue.put(parsedFile);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Parsing interrupted", e);
+        }
+    }
+
+    /**
+     * @param filesFacts facts of the files which are not parsed, filled with the facts of the parsed files
+     */
+    private void writeFacts(List <SourceFile> sourceFiles, FileFacts[] filesFacts, int nbPartitions, BlockingQueue <ParsedFile> queue, Consumer <FileFacts> consumer) throws IOException {
+        int nbFiles = sourceFiles.size();
+        // Compilation units are not given back in the order of the files, hence the indexes
+        int nextFile = 0;
+        int nbFinishedPartitions = 0;
+        List <ParsedFile> batch = new ArrayList <>();
+        try {
+            while (nbFinishedPartitions < nbPartitions) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                for (ParsedFile parsedFile : batch) {
+                    if (parsedFile.isEndOfPartition()) {
+                        nbFinishedPartitions++;
+                        if (parsedFile.error instanceof Error) {
+                            throw (Error) parsedFile.error;
+                        }
+                        if (parsedFile.error != null) {
+                            throw (RuntimeException) parsedFile.error;
+                        }
+                    } else {
+                        filesFacts[parsedFile.index] = parsedFile.facts;
+                    }
+                }
+                batch.clear();
+                while (nextFile < nbFiles && filesFacts[nextFile] != null) {
+                    consumer.accept(filesFacts[nextFile++]);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+        // Files for which JDT did not give any compilation unit are skipped
+        for (; nextFile < nbFiles ; nextFile++) {
+            if (filesFacts[nextFile] != null) {
+                consumer.accept(filesFacts[nextFile]);
+            } else {
+                logger.warn("No compilation unit for file " + sourceFiles.get(nextFile).getPath());
+            }
+        }
+    }
+
+    private static class ParsedFile {
+
+        private final int index;
+        private final FileFacts facts;
+        private final Throwable error;
+
+        private ParsedFile(int index, FileFacts facts) {
+            this(index, facts, null);
+        }
+
+        private ParsedFile(int index, FileFacts facts, Throwable error) {
+            this.index = index;
+            this.facts = facts;
+            this.error = error;
+        }
+
+        private static ParsedFile endOfPartition(Throwable error) {
+            return new ParsedFile(- 1, null, error);
+        }
+
+        private boolean isEndOfPartition() {
+            return facts == null;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package parsing;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * A Java source file to parse, with the encoding to read it, the package it declares
+ * and what is needed to know whether it changed since a previous analysis.
+ */
+public class SourceFile {
+
+    private final String path;
+    private final String encoding;
+    private final String packageName;
+    private final String hash;
+    private final Set <String> declaredTypeNames;
+
+    public SourceFile(String path, String encoding, String packageName) {
+        this(path, encoding, packageName, "", Collections.emptySet());
+    }
+
+    /**
+     * @param hash              hash of the content of the file
+     * @param declaredTypeNames simple names of the types the file may declare
+     */
+    public SourceFile(String path, String encoding, String packageName, String hash, Set <String> declaredTypeNames) {
+        this.path = path;
+        this.encoding = encoding;
+        this.packageName = packageName;
+        this.hash = hash;
+        this.declaredTypeNames = declaredTypeNames;
+    }
+
+    /**
+     * Finds the package declaration, which can only be preceded by comments and annotations.
+     *
+     * @return the name of the declared package, an empty string for the default package
+     */
+    static String getPackageName(CharSequence content) {
+        int i = 0;
+        int length = content.length();
+        while (i < length) {
+            char c = content.charAt(i);
+            if (Character.isWhitespace(c) || c == '\uFEFF') { // byte order mark
+                i++;
+            } else if (startsWith(content, i, "//")) {
+                while (i < length && content.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (startsWith(content, i, "/*")) {
+                i += 2;
+                while (i < length && ! startsWith(content, i, "*/")) {
+                    i++;
+                }
+                i += 2;
+            } else if (c == '@') {
+                i = skipAnnotation(content, i + 1);
+            } else {
+                break;
+            }
+        }
+        if (! startsWith(content, i, "package") || i + 7 >= length || Character.isJavaIdentifierPart(content.charAt(i + 7))) {
+            return "";
+        }
+        StringBuilder packageName = new StringBuilder();
+        for (i += 7 ; i < length && content.charAt(i) != ';' ; i++) {
+            char c = content.charAt(i);
+            if (Character.isJavaIdentifierPart(c) || c == '.') {
+                packageName.append(c);
+            }
+        }
+        return packageName.toString();
+    }
+
+    /**
+     * Finds the names following the class, interface and enum keywords, outside of comments and literals.
+     * Class literals are ignored. The result is a superset of the types declared in the file, computed without parsing it.
+     *
+     * @return simple names of the types which may be declared in the file
+     */
+    static Set <String> getDeclaredTypeNames(CharSequence content) {
+        Set <String> names = new LinkedHashSet <>();
+        int length = content.length();
+        boolean afterDot = false;
+        boolean afterKeyword = false;
+        int i = 0;
+        while (i < length) {
+            char c = content.charAt(i);
+            if (startsWith(content, i, "//")) {
+                while (i < length && content.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (startsWith(content, i, "/*")) {
+                i += 2;
+                while (i < length && ! startsWith(content, i, "*/")) {
+                    i++;
+                }
+                i += 2;
+            } else if (c == '"' || c == '\'') {
+                i++;
+                while (i < length && content.charAt(i) != c && content.charAt(i) != '\n') {
+                    i += content.charAt(i) == '\\' ? 2 : 1;
+                }
+                i++;
+                afterDot = afterKeyword = false;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int start = i;
+                while (i < length && Character.isJavaIdentifierPart(content.charAt(i))) {
+                    i++;
+                }
+                String identifier = content.subSequence(start, i).toString();
+                if (afterKeyword) {
+                    names.add(identifier);
+                }
+                afterKeyword = ! afterDot && (identifier.equals("class") || identifier.equals("interface") || identifier.equals("enum"));
+                afterDot = false;
+            } else {
+                if (! Character.isWhitespace(c)) {
+                    afterDot = c == '.';
+                    afterKeyword = false;
+                }
+                i++;
+            }
+        }
+        return names;
+    }
+
+    private static int skipAnnotation(CharSequence content, int i) {
+        int length = content.length();
+        while (i < length && (Character.isJavaIdentifierPart(content.charAt(i)) || content.charAt(i) == '.')) {
+            i++;
+        }
+        while (i < length && Character.isWhitespace(content.charAt(i))) {
+            i++;
+        }
+        if (i < length && content.charAt(i) == '(') {
+            int depth = 0;
+            for (; i < length ; i++) {
+                if (content.charAt(i) == '(') {
+                    depth++;
+                } else if (content.charAt(i) == ')' && -- depth == 0) {
+                    return i + 1;
+                }
+            }
+        }
+        return i;
+    }
+
+    private static boolean startsWith(CharSequence content, int index, String prefix) {
+        if (index + prefix.length() > content.length()) {
+            return false;
+        }
+        for (int i = 0 ; i < prefix.length() ; i++) {
+            if (content.charAt(index + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The source root is the directory containing the directory of the package.
+     * If the directories do not match the package, the directory of the file is considered as the source root.
+     */
+    public String getSourceRoot() {
+        Path directory = Path.of(path).getParent();
+        if (packageName.isEmpty()) {
+            return directory.toString();
+        }
+        String[] segments = packageName.split("\\.");
+        Path root = directory;
+        for (int i = segments.length - 1 ; i >= 0 ; i--) {
+            if (root == null || root.getFileName() == null || ! root.getFileName().toString().equals(segments[i])) {
+                return directory.toString();
+            }
+            root = root.getParent();
+        }
+        return root == null ? directory.toString() : root.toString();
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getEncoding() {
+        return encoding;
+    }
+
+    public String getPackageName() {
+        return packageName;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public Set <String> getDeclaredTypeNames() {
+        return declaredTypeNames;
+    }
+}
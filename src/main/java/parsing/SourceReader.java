@@ -0,0 +1,177 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package parsing;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import profiling.FileDecodeEvent;
+import profiling.FileReadEvent;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads each source file once to find its encoding, the package it declares and the hash of its content.
+ * The encoding is determined from the bytes of the file:
+ * - a byte order mark gives the encoding,
+ * - otherwise, the file is decoded as UTF-8 if it is valid UTF-8,
+ * - otherwise, the first fallback charset able to decode the whole file is used.
+ */
+public class SourceReader {
+
+    private static final Logger logger = LogManager.getLogger(SourceReader.class);
+
+    private static final byte[] UTF_8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    private static final byte[] UTF_16BE_BOM = {(byte) 0xFE, (byte) 0xFF};
+    private static final byte[] UTF_16LE_BOM = {(byte) 0xFF, (byte) 0xFE};
+
+    private final List <Charset> candidateCharsets = new ArrayList <>();
+    private final long memoryMappingThreshold;
+
+    /**
+     * @param fallbackCharsets       charsets tried in order when a file is not valid UTF-8
+     * @param memoryMappingThreshold size in bytes above which files are memory-mapped instead of being copied in memory
+     */
+    public SourceReader(List <Charset> fallbackCharsets, long memoryMappingThreshold) {
+        candidateCharsets.add(StandardCharsets.UTF_8);
+        fallbackCharsets.stream()
+                .filter(charset -> ! charset.equals(StandardCharsets.UTF_8))
+                .forEach(candidateCharsets::add);
+        this.memoryMappingThreshold = memoryMappingThreshold;
+    }
+
+    public SourceFile read(File file) throws IOException {
+        String path = file.getCanonicalPath();
+        FileReadEvent readEvent = new FileReadEvent();
+        readEvent.begin();
+        ByteBuffer bytes = readBytes(file.toPath());
+        readEvent.end();
+        if (readEvent.shouldCommit()) {
+            readEvent.path = path;
+            readEvent.size = bytes.limit();
+            readEvent.commit();
+        }
+        FileDecodeEvent decodeEvent = new FileDecodeEvent();
+        decodeEvent.begin();
+        Charset charset = getCharsetFromBom(bytes);
+        CharBuffer content = null;
+        if (charset != null) {
+            content = decode(bytes, charset);
+        } else {
+            for (Charset candidate : candidateCharsets) {
+                content = decode(bytes, candidate);
+                if (content != null) {
+                    charset = candidate;
+                    break;
+                }
+                logger.debug(candidate.displayName() + ": wrong encoding for " + path);
+            }
+        }
+        if (content == null) {
+            logger.warn("No charset can decode " + path + ", reading it as UTF-8");
+            charset = StandardCharsets.UTF_8;
+            content = StandardCharsets.UTF_8.decode(bytes.rewind());
+        }
+        SourceFile sourceFile = new SourceFile(path, charset.name(), SourceFile.getPackageName(content), getHash(bytes), SourceFile.getDeclaredTypeNames(content));
+        decodeEvent.end();
+        if (decodeEvent.shouldCommit()) {
+            decodeEvent.path = path;
+            decodeEvent.size = bytes.limit();
+            decodeEvent.encoding = charset.name();
+            decodeEvent.commit();
+        }
+        return sourceFile;
+    }
+
+    private static String getHash(ByteBuffer bytes) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(bytes.duplicate().rewind());
+            StringBuilder hash = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hash.append(String.format("%02x", b));
+            }
+            return hash.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private ByteBuffer readBytes(Path path) throws IOException {
+        if (Files.size(path) > memoryMappingThreshold) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+        return ByteBuffer.wrap(Files.readAllBytes(path));
+    }
+
+    private static Charset getCharsetFromBom(ByteBuffer bytes) {
+        if (startsWith(bytes, UTF_8_BOM)) {
+            return StandardCharsets.UTF_8;
+        }
+        if (startsWith(bytes, UTF_16BE_BOM) || startsWith(bytes, UTF_16LE_BOM)) {
+            return StandardCharsets.UTF_16;
+        }
+        return null;
+    }
+
+    private static boolean startsWith(ByteBuffer bytes, byte[] prefix) {
+        if (bytes.limit() < prefix.length) {
+            return false;
+        }
+        for (int i = 0 ; i < prefix.length ; i++) {
+            if (bytes.get(i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the decoded content, null if the bytes are not valid for this charset
+     */
+    private static CharBuffer decode(ByteBuffer bytes, Charset charset) {
+        try {
+            return charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(bytes.duplicate().rewind());
+        } catch (CharacterCodingException e) {
+            return null;
+        }
+    }
+}
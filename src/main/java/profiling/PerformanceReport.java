@@ -0,0 +1,380 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+
+package profiling;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the phases of an analysis, so that runs can be compared across versions of symfinder and across projects.
+ * <p>
+ * Wall times are measured with {@link System#nanoTime()}. The CPU time of a visitor is the CPU time of the threads running it,
+ * and the wall times, the files and the statements are the ones of the analysis, even if other analyses run in the same JVM.
+ * <p>
+ * The CPU times of the analysis and of its phases are the CPU time of the whole process, as parsing runs on several threads.
+ * The peak heap is the highest heap usage sampled when a file is parsed and when a phase ends, and the garbage collections
+ * are the ones of the whole process since the report was created. These process-wide measures are left out of the report
+ * if another analysis ran in the same JVM before the report was closed, as they would include its work.
+ * Counters can be updated from several threads.
+ */
+public class PerformanceReport implements AutoCloseable {
+
+    private static final int NB_SLOWEST_FILES = 20;
+
+    private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    private static final MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+    private static final Set <PerformanceReport> runningReports = new HashSet <>();
+
+    private final long startTime;
+    private final long startCpuTime;
+    private final Map <String, long[]> startCollections = new HashMap <>();
+    private final List <Phase> phases = new ArrayList <>();
+    private final Map <String, VisitorTimes> visitors = new LinkedHashMap <>();
+    private final List <Long> partitionSetupTimes = new ArrayList <>();
+    private final PriorityQueue <FileTimes> slowestFiles = new PriorityQueue <>(Comparator.comparingLong(FileTimes::getTotalTime));
+    private final AtomicLong nbStatements = new AtomicLong();
+    private final AtomicLong nbCommits = new AtomicLong();
+    private final AtomicLong nbRecords = new AtomicLong();
+    private final AtomicLong nbStatementBytes = new AtomicLong();
+    private int nbFiles = 0;
+    private int nbParsedFiles = 0;
+    private long parsingTime = 0;
+    private long peakHeap = 0;
+    private boolean concurrent = false;
+
+    public PerformanceReport() {
+        synchronized (runningReports) {
+            for (PerformanceReport report : runningReports) {
+                report.concurrent = true;
+                concurrent = true;
+            }
+            runningReports.add(this);
+        }
+        sampleHeap();
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            startCollections.put(collector.getName(), new long[]{collector.getCollectionCount(), collector.getCollectionTime()});
+        }
+        startTime = System.nanoTime();
+        startCpuTime = getProcessCpuTime();
+    }
+
+    /**
+     * Ends the analysis, after which the analyses starting do not make the process-wide measures of the report unreliable.
+     */
+    @Override
+    public void close() {
+        synchronized (runningReports) {
+            runningReports.remove(this);
+        }
+    }
+
+    /**
+     * @return true if another analysis ran in the same JVM while the report was open
+     */
+    public boolean isConcurrent() {
+        synchronized (runningReports) {
+            return concurrent;
+        }
+    }
+
+    /**
+     * Starts measuring a phase, which ends when the returned phase is closed.
+     *
+     * @param name name of the phase, prefixed by the component running it for the steps of a component
+     */
+    public Phase startPhase(String name) {
+        return new Phase(name);
+    }
+
+    /**
+     * @param nbFiles       number of source files of the project
+     * @param nbParsedFiles number of files parsed, the other ones being reused from a previous analysis
+     * @param parsingTime   wall time spent parsing, in nanoseconds
+     */
+    public synchronized void setParsing(int nbFiles, int nbParsedFiles, long parsingTime) {
+        this.nbFiles = nbFiles;
+        this.nbParsedFiles = nbParsedFiles;
+        this.parsingTime = parsingTime;
+    }
+
+    /**
+     * Adds the time a visitor spent on a file, on the calling thread.
+     */
+    public void visited(String visitor, long wallTime, long cpuTime) {
+        getVisitorTimes(visitor).addVisit(wallTime, cpuTime);
+    }
+
+    /**
+     * Adds the time spent applying facts recorded by a visitor to the graph, on the calling thread.
+     */
+    public void applied(String visitor, long wallTime, long cpuTime) {
+        getVisitorTimes(visitor).addApplication(wallTime, cpuTime);
+    }
+
+    private synchronized VisitorTimes getVisitorTimes(String visitor) {
+        return visitors.computeIfAbsent(visitor, key -> new VisitorTimes());
+    }
+
+    /**
+     * @param setupTime time spent by the parser on a partition before handing its first file,
+     *                  during which all the files of the partition are parsed and their types resolved
+     */
+    public synchronized void partitionSetUp(long setupTime) {
+        partitionSetupTimes.add(setupTime);
+    }
+
+    /**
+     * @param parseTime   time spent by the parser on the file, including the resolution of its bindings,
+     *                    0 for the first file of a partition as it is counted in the setup of the partition
+     * @param extractTime time spent by all visitors on the file
+     */
+    public synchronized void fileParsed(String path, long parseTime, long extractTime) {
+        slowestFiles.add(new FileTimes(path, parseTime, extractTime));
+        if (slowestFiles.size() > NB_SLOWEST_FILES) {
+            slowestFiles.poll();
+        }
+        sampleHeap();
+    }
+
+    private synchronized void sampleHeap() {
+        peakHeap = Math.max(peakHeap, memoryMXBean.getHeapMemoryUsage().getUsed());
+    }
+
+    /**
+     * Counts a statement sent to the database.
+     *
+     * @param statement text of the statement, of which the UTF-8 size is counted
+     */
+    public void statementSent(String statement) {
+        nbStatements.incrementAndGet();
+        nbStatementBytes.addAndGet(utf8Length(statement));
+    }
+
+    public void recordsReceived(int nbRecords) {
+        this.nbRecords.addAndGet(nbRecords);
+    }
+
+    public void transactionCommitted() {
+        nbCommits.incrementAndGet();
+    }
+
+    public static long getCurrentThreadCpuTime() {
+        return threadMXBean.isCurrentThreadCpuTimeSupported() ? threadMXBean.getCurrentThreadCpuTime() : 0;
+    }
+
+    private static long getProcessCpuTime() {
+        OperatingSystemMXBean operatingSystem = ManagementFactory.getOperatingSystemMXBean();
+        if (operatingSystem instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) operatingSystem).getProcessCpuTime();
+        }
+        return 0;
+    }
+
+    static long utf8Length(String string) {
+        long length = 0;
+        for (int i = 0 ; i < string.length() ; i++) {
+            char c = string.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * Generates the report, times being given in milliseconds and sizes in bytes.
+     * Only the statements are counted in the sizes sent to the database, not their parameters, as the driver does not expose the size of the messages.
+     * The CPU times, the memory and the garbage collections are left out if the analysis was concurrent with another one.
+     */
+    public synchronized JSONObject toJson() {
+        long wallTime = System.nanoTime() - startTime;
+        long cpuTime = getProcessCpuTime() - startCpuTime;
+        sampleHeap();
+        boolean processWide = ! isConcurrent();
+
+        JSONArray phasesJson = new JSONArray();
+        phases.forEach(phase -> {
+            JSONObject phaseJson = new JSONObject()
+                    .put("name", phase.name)
+                    .put("wallTime", toMillis(phase.wallTime));
+            if (processWide) {
+                phaseJson.put("cpuTime", toMillis(phase.cpuTime));
+            }
+            phasesJson.put(phaseJson);
+        });
+
+        JSONArray partitionSetupsJson = new JSONArray();
+        partitionSetupTimes.forEach(setupTime -> partitionSetupsJson.put(toMillis(setupTime)));
+
+        JSONArray visitorsJson = new JSONArray();
+        visitors.forEach((visitor, times) -> visitorsJson.put(times.toJson().put("name", visitor)));
+
+        List <FileTimes> files = new ArrayList <>(slowestFiles);
+        files.sort(Comparator.comparingLong(FileTimes::getTotalTime).reversed());
+        JSONArray filesJson = new JSONArray();
+        files.forEach(file -> filesJson.put(new JSONObject()
+                .put("path", file.path)
+                .put("parseTime", toMillis(file.parseTime))
+                .put("extractTime", toMillis(file.extractTime))));
+
+        JSONObject json = new JSONObject()
+                .put("wallTime", toMillis(wallTime))
+                .put("concurrent", ! processWide)
+                .put("files", nbFiles)
+                .put("parsedFiles", nbParsedFiles)
+                .put("filesPerSecond", parsingTime == 0 ? 0 : nbParsedFiles / (parsingTime / 1_000_000_000.0))
+                .put("phases", phasesJson)
+                .put("partitionSetups", partitionSetupsJson)
+                .put("visitors", visitorsJson)
+                .put("bolt", new JSONObject()
+                        .put("roundTrips", nbStatements.get() + nbCommits.get())
+                        .put("statements", nbStatements.get())
+                        .put("commits", nbCommits.get())
+                        .put("records", nbRecords.get())
+                        .put("statementBytes", nbStatementBytes.get()))
+                .put("slowestFiles", filesJson);
+        if (! processWide) {
+            return json;
+        }
+
+        long nbCollections = 0;
+        long collectionTime = 0;
+        JSONArray collectorsJson = new JSONArray();
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            long[] start = startCollections.getOrDefault(collector.getName(), new long[2]);
+            long count = Math.max(0, collector.getCollectionCount() - start[0]);
+            long time = Math.max(0, collector.getCollectionTime() - start[1]);
+            nbCollections += count;
+            collectionTime += time;
+            collectorsJson.put(new JSONObject()
+                    .put("name", collector.getName())
+                    .put("collections", count)
+                    .put("time", time));
+        }
+
+        return json
+                .put("cpuTime", toMillis(cpuTime))
+                .put("memory", new JSONObject()
+                        .put("peakHeap", peakHeap))
+                .put("gc", new JSONObject()
+                        .put("collections", nbCollections)
+                        .put("time", collectionTime)
+                        .put("collectors", collectorsJson));
+    }
+
+    /**
+     * Phase of the analysis being measured, added to the report when closed.
+     */
+    public class Phase implements AutoCloseable {
+
+        private final String name;
+        private final long phaseStartTime = System.nanoTime();
+        private final long phaseStartCpuTime = getProcessCpuTime();
+        private long wallTime;
+        private long cpuTime;
+
+        private Phase(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void close() {
+            wallTime = System.nanoTime() - phaseStartTime;
+            cpuTime = getProcessCpuTime() - phaseStartCpuTime;
+            sampleHeap();
+            synchronized (PerformanceReport.this) {
+                phases.add(this);
+            }
+        }
+    }
+
+    private static class VisitorTimes {
+
+        private long visitWallTime = 0;
+        private long visitCpuTime = 0;
+        private long applyWallTime = 0;
+        private long applyCpuTime = 0;
+
+        private synchronized void addVisit(long wallTime, long cpuTime) {
+            visitWallTime += wallTime;
+            visitCpuTime += cpuTime;
+        }
+
+        private synchronized void addApplication(long wallTime, long cpuTime) {
+            applyWallTime += wallTime;
+            applyCpuTime += cpuTime;
+        }
+
+        private synchronized JSONObject toJson() {
+            return new JSONObject()
+                    .put("visitWallTime", toMillis(visitWallTime))
+                    .put("visitCpuTime", toMillis(visitCpuTime))
+                    .put("applyWallTime", toMillis(applyWallTime))
+                    .put("applyCpuTime", toMillis(applyCpuTime));
+        }
+    }
+
+    private static class FileTimes {
+
+        private final String path;
+        private final long parseTime;
+        private final long extractTime;
+
+        private FileTimes(String path, long parseTime, long extractTime) {
+            this.path = path;
+            this.parseTime = parseTime;
+            this.extractTime = extractTime;
+        }
+
+        private long getTotalTime() {
+            return parseTime + extractTime;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Statement sent to the Neo4j database, recorded by Flight Recorder when enabled with {@link StatementProfiler}.
+ */
+@Name("symfinder.Statement")
+@Label("Neo4j Statement")
+@Category({"symfinder", "Neo4j"})
+@Description("Statement sent to the Neo4j database, from its submission until all its records are read")
+class StatementEvent extends jdk.jfr.Event {
+
+    @Label("Statement")
+    String statement;
+
+    @Label("Size")
+    @Description("UTF-8 size of the text of the statement")
+    @DataAmount
+    long size;
+
+    @Label("Records")
+    int records;
+
+    @Label("Retries")
+    @Description("Number of times the statement was sent again because the database was unavailable")
+    int retries;
+}
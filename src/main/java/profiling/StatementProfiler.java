@@ -0,0 +1,217 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+
+package profiling;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures the statements sent to the database, grouped by template.
+ * The template of a statement is its text, the values being given as parameters:
+ * statements only differ in the labels, types and properties written in their text.
+ * <p>
+ * Each statement can also be recorded as a {@link StatementEvent} by Flight Recorder, when a recording is running.
+ */
+public class StatementProfiler {
+
+    private static final int MAX_TEMPLATE_LENGTH = 200;
+
+    private final Map <String, StatementStatistics> statistics = new ConcurrentHashMap <>();
+    private final boolean flightRecorderEvents;
+
+    /**
+     * @param flightRecorderEvents whether the statements are also recorded as Flight Recorder events
+     */
+    public StatementProfiler(boolean flightRecorderEvents) {
+        this.flightRecorderEvents = flightRecorderEvents;
+    }
+
+    /**
+     * Starts measuring a statement, which ends when {@link Measure#end(int)} is called once all its records are read.
+     */
+    public Measure start(String statement) {
+        return new Measure(statement);
+    }
+
+    /**
+     * @return statistics of the templates which took the most time in total, the slowest first
+     */
+    public List <StatementStatistics> getSlowestStatements(int nbStatements) {
+        List <StatementStatistics> slowestStatements = new ArrayList <>(statistics.values());
+        slowestStatements.sort(Comparator.comparingLong(StatementStatistics::getTotalTime).reversed());
+        return slowestStatements.subList(0, Math.min(nbStatements, slowestStatements.size()));
+    }
+
+    /**
+     * @return statistics of the slowest templates, times being given in milliseconds
+     */
+    public JSONArray toJson(int nbStatements) {
+        JSONArray json = new JSONArray();
+        getSlowestStatements(nbStatements).forEach(statement -> json.put(statement.toJson()));
+        return json;
+    }
+
+    /**
+     * Puts a template on one line and truncates it, so that it can be logged.
+     */
+    static String format(String template) {
+        String line = template.replaceAll("\\s+", " ").trim();
+        return line.length() > MAX_TEMPLATE_LENGTH ? line.substring(0, MAX_TEMPLATE_LENGTH) + "..." : line;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    public class Measure {
+
+        private final String statement;
+        private final long startTime;
+        private final StatementEvent event;
+        private int nbRetries = 0;
+
+        private Measure(String statement) {
+            this.statement = statement;
+            if (flightRecorderEvents) {
+                event = new StatementEvent();
+                event.begin();
+            } else {
+                event = null;
+            }
+            startTime = System.nanoTime();
+        }
+
+        /**
+         * Counts a new attempt to send the statement, after the database was unavailable.
+         */
+        public void retried() {
+            nbRetries++;
+        }
+
+        /**
+         * @param nbRecords number of records read from the result of the statement
+         */
+        public void end(int nbRecords) {
+            long time = System.nanoTime() - startTime;
+            statistics.computeIfAbsent(statement, StatementStatistics::new).add(time, nbRetries, nbRecords);
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.statement = statement;
+                    event.size = PerformanceReport.utf8Length(statement);
+                    event.records = nbRecords;
+                    event.retries = nbRetries;
+                    event.commit();
+                }
+            }
+        }
+    }
+
+    public static class StatementStatistics {
+
+        private final String template;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private long totalTime = 0;
+        private long nbRetries = 0;
+        private long nbRecords = 0;
+        private int maxRecords = 0;
+
+        private StatementStatistics(String template) {
+            this.template = template;
+        }
+
+        private synchronized void add(long time, int nbRetries, int nbRecords) {
+            histogram.record(time);
+            totalTime += time;
+            this.nbRetries += nbRetries;
+            this.nbRecords += nbRecords;
+            maxRecords = Math.max(maxRecords, nbRecords);
+        }
+
+        public String getTemplate() {
+            return template;
+        }
+
+        public synchronized long getCount() {
+            return histogram.getTotalCount();
+        }
+
+        public synchronized long getTotalTime() {
+            return totalTime;
+        }
+
+        public synchronized long getNbRetries() {
+            return nbRetries;
+        }
+
+        public synchronized long getNbRecords() {
+            return nbRecords;
+        }
+
+        public synchronized int getMaxRecords() {
+            return maxRecords;
+        }
+
+        /**
+         * @param percentile between 0 and 100
+         * @return latency at the percentile in nanoseconds, within 1/16 of its value
+         */
+        public synchronized long getLatencyAtPercentile(double percentile) {
+            return histogram.getValueAtPercentile(percentile);
+        }
+
+        public synchronized long getMaxLatency() {
+            return histogram.getMax();
+        }
+
+        private synchronized JSONObject toJson() {
+            return new JSONObject()
+                    .put("template", template)
+                    .put("count", getCount())
+                    .put("totalTime", toMillis(totalTime))
+                    .put("p50", toMillis(getLatencyAtPercentile(50)))
+                    .put("p90", toMillis(getLatencyAtPercentile(90)))
+                    .put("p99", toMillis(getLatencyAtPercentile(99)))
+                    .put("max", toMillis(getMaxLatency()))
+                    .put("retries", nbRetries)
+                    .put("records", nbRecords)
+                    .put("maxRecords", maxRecords);
+        }
+
+        /**
+         * @return statistics on one line, times being given in milliseconds
+         */
+        @Override
+        public synchronized String toString() {
+            return String.format("%d calls, %.1f ms total, p50 %.3f ms, p99 %.3f ms, max %.3f ms, %d retries, %d records (max %d): %s",
+                    getCount(), toMillis(totalTime), toMillis(getLatencyAtPercentile(50)), toMillis(getLatencyAtPercentile(99)),
+                    toMillis(getMaxLatency()), nbRetries, nbRecords, maxRecords, format(template));
+        }
+    }
+}
@@ -1,14 +1,12 @@
 package visitors;
 
-import neo4j_types.*;
-import neograph.NeoGraph;
+import facts.EntryPointFact;
+import facts.MethodFact;
+import facts.TypeFact;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.eclipse.jdt.core.dom.*;
-import org.neo4j.driver.types.Node;
-
-import java.util.Optional;
 
 /**
  * Parses all classes and the methods they contain, and adds them to the database.
@@ -18,30 +16,13 @@ public class ClassesVisitor extends SymfinderVisitor {
     private static final Logger logger = LogManager.getLogger(ClassesVisitor.class);
     private final String API_ANNOTATION_NAME = "API";
 
-    public ClassesVisitor(NeoGraph neoGraph) {
-        super(neoGraph);
-    }
-
     @Override
     public boolean visit(TypeDeclaration type) {
         if (super.visit(type)) {
-            EntityType nodeType;
-            EntityVisibility nodeVisibility = Modifier.isPublic(type.getModifiers()) ? EntityVisibility.PUBLIC : EntityVisibility.PRIVATE;
-            NodeType [] nodeTypeList;
-            // If the class is abstract
-            if (Modifier.isAbstract(type.getModifiers())) {
-                nodeType = EntityType.CLASS;
-                nodeTypeList = new NodeType[]{EntityAttribute.ABSTRACT, nodeVisibility};
-                // If the type is an interface
-            } else if (type.isInterface()) {
-                nodeType = EntityType.INTERFACE;
-                nodeTypeList = new NodeType[]{nodeVisibility};
-                // The type is a class
-            } else {
-                nodeType = EntityType.CLASS;
-                nodeTypeList = new NodeType[]{nodeVisibility};
-            }
-            neoGraph.createNode(type.resolveBinding().getQualifiedName(), nodeType, nodeTypeList);
+            addFact(new TypeFact(type.resolveBinding().getQualifiedName(),
+                    type.isInterface(),
+                    Modifier.isAbstract(type.getModifiers()),
+                    Modifier.isPublic(type.getModifiers())));
             return true;
         }
         return false;
@@ -56,10 +37,13 @@ public class ClassesVisitor extends SymfinderVisitor {
             String methodName = method.getName().getIdentifier();
             String parentClassName = declaringClass.getQualifiedName();
             logger.printf(Level.DEBUG, "Method: %s, parent: %s", methodName, parentClassName);
-            //Node methodNode = Modifier.isAbstract(method.getModifiers()) ? neoGraph.createNode(methodName, methodType, EntityAttribute.ABSTRACT) : neoGraph.createNode(methodName, methodType);
-            Node parentClassNode = neoGraph.getOrCreateNode(parentClassName, declaringClass.isInterface() ? EntityType.INTERFACE : EntityType.CLASS);
-            Node methodNode = createMethodNode(declaringClass,method);
-            neoGraph.linkTwoNodes(parentClassNode, methodNode, RelationType.METHOD);
+            addFact(new MethodFact(parentClassName,
+                    declaringClass.isInterface(),
+                    Modifier.isPublic(declaringClass.getModifiers()),
+                    methodName,
+                    method.isConstructor(),
+                    Modifier.isPublic(method.getModifiers()),
+                    Modifier.isAbstract(method.getModifiers())));
         }
         return false;
     }
@@ -69,34 +53,9 @@ public class ClassesVisitor extends SymfinderVisitor {
         if(node.resolveAnnotationBinding().getName().equals(API_ANNOTATION_NAME) && node.toString().contains("STABLE")){
             TypeDeclaration typeDeclaration = ((TypeDeclaration) getParentOfNodeWithType(node, ASTNode.TYPE_DECLARATION));
             if(typeDeclaration != null){
-                String parentClassName = typeDeclaration.resolveBinding().getQualifiedName();
-                Optional <Node> parentClassNode = neoGraph.getClassOrInterfaceNode(parentClassName);
-                parentClassNode.ifPresent(node1 -> neoGraph.addLabelToNode(node1, EntityType.ENTRY_POINT.toString()));
+                addFact(new EntryPointFact(typeDeclaration.resolveBinding().getQualifiedName()));
             }
         }
         return false;
     }
-
-    private Node createMethodNode(ITypeBinding declaringClass, MethodDeclaration method){
-        NodeType [] nodeTypeList;
-        String methodName = method.getName().getIdentifier();
-        EntityVisibility nodeVisibility = Modifier.isPublic(method.getModifiers()) ? EntityVisibility.PUBLIC : EntityVisibility.PRIVATE;
-        EntityType methodType = method.isConstructor() ? EntityType.CONSTRUCTOR : EntityType.METHOD;
-
-        if(Modifier.isPublic(declaringClass.getModifiers())){
-            if(Modifier.isAbstract(method.getModifiers())){
-                nodeTypeList = new NodeType[] {EntityAttribute.ABSTRACT,nodeVisibility};
-            }else{
-                nodeTypeList = new NodeType[] {nodeVisibility};
-            }
-        }else{
-            if(Modifier.isAbstract(method.getModifiers())){
-                nodeTypeList = new NodeType[] {EntityAttribute.ABSTRACT};
-            }else{
-                nodeTypeList = new NodeType[] {};
-            }
-        }
-        return neoGraph.createNode(methodName, methodType, nodeTypeList);
-    }
 }
-
@@ -1,24 +1,20 @@
 package visitors;
 
-import neo4j_types.EntityType;
-import neo4j_types.RelationType;
-import neograph.NeoGraph;
+import facts.FieldUsageFact;
+import facts.MethodUsageFact;
+import facts.TypeReference;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.eclipse.jdt.core.dom.*;
-import org.neo4j.driver.types.Node;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
-
-import static neo4j_types.EntityAttribute.OUT_OF_SCOPE;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 public class ComposeTypeVisitor extends ImportsVisitor {
 
-    public ComposeTypeVisitor(NeoGraph neoGraph) {
-        super(neoGraph);
-    }
-
     private static final Logger logger = LogManager.getLogger(ComposeTypeVisitor.class);
 
     @Override
@@ -27,80 +23,45 @@ public class ComposeTypeVisitor extends ImportsVisitor {
         ITypeBinding fieldTypeBinding = field.getType().resolveBinding();
         if (field.getParent() instanceof TypeDeclaration && fieldTypeBinding != null) { // prevents the case where the field is an enum, which does not bring variability
             ITypeBinding fieldDeclaringClassBinding = ((TypeDeclaration) field.getParent()).resolveBinding();
-            String parentClassName = fieldDeclaringClassBinding.getQualifiedName();
-            Optional <String> classFullName = getClassFullName(fieldTypeBinding);
-            if (classFullName.isPresent()) {
-                Optional <Node> typeNode = neoGraph.getNode(classFullName.get());
-                typeNode.ifPresent(node -> {
-                    if (! node.hasLabel(OUT_OF_SCOPE.getString())) {
-                        linkParentToChild(fieldDeclaringClassBinding, parentClassName, node);
-                    }
-                });
-            }
+            List <TypeReference> typeArguments = new ArrayList <>();
             if (field.getType().isParameterizedType()) {
                 List <Type> x = ((ParameterizedType) field.getType()).typeArguments();
-                x.forEach(type -> {
-                    Optional <String> className = getClassFullName(type.resolveBinding());
-                    className.ifPresent(name -> {
-                        Optional <Node> typeNode = neoGraph.getNode(name);
-                        typeNode.ifPresent(node -> linkParentToChild(fieldDeclaringClassBinding, parentClassName, node));
-                    });
-                });
+                typeArguments = x.stream()
+                        .map(type -> getTypeReference(type.resolveBinding()))
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList());
             }
+            addFact(new FieldUsageFact(fieldDeclaringClassBinding.getQualifiedName(),
+                    fieldDeclaringClassBinding.isInterface(),
+                    getTypeReference(fieldTypeBinding),
+                    typeArguments,
+                    withImports()));
         }
 
         return false;
     }
 
-    private void linkParentToChild(ITypeBinding fieldDeclaringClassBinding, String parentClassName, Node node) {
-        Node parentClassNode = neoGraph.getOrCreateNode(parentClassName, fieldDeclaringClassBinding.isInterface() ? EntityType.INTERFACE : EntityType.CLASS);
-        if (! neoGraph.relatedTo(parentClassNode, node)) {
-            neoGraph.linkTwoNodes(parentClassNode, node, RelationType.USE);
-        }
-    }
-
     @Override
     public boolean visit(MethodDeclaration method) {
         ITypeBinding declaringClass;
         if (! (method.resolveBinding() == null)) {
             declaringClass = method.resolveBinding().getDeclaringClass();
-            ITypeBinding[] typeparameters = method.resolveBinding().getParameterTypes();
-            String parentClassName = declaringClass.getQualifiedName();
-            Node parentClassNode = neoGraph.getOrCreateNode(parentClassName, declaringClass.isInterface() ? EntityType.INTERFACE : EntityType.CLASS);
-            int size = typeparameters.length;
-
-            if (size != 0) {
-                for (ITypeBinding typeparameter : typeparameters) {
-                    Optional <String> classFullName = getClassFullName(typeparameter);
-                    if (classFullName.isPresent()) {
-                        Optional <Node> typeNode = neoGraph.getClassOrInterfaceNode(classFullName.get());
-                        typeNode.ifPresent(node -> {
-                            if (! node.hasLabel(OUT_OF_SCOPE.getString())) {
-                                if (! neoGraph.relatedTo(parentClassNode, node)) {
-                                    neoGraph.linkTwoNodes(parentClassNode, node, RelationType.USE);
-                                }
-                            }
-                        });
-                    }
-                }
-            }
-            ananlyzeReturnedTypeOfMethod(method, parentClassNode);
+            List <TypeReference> parameterTypes = Arrays.stream(method.resolveBinding().getParameterTypes())
+                    .map(this::getTypeReference)
+                    .collect(Collectors.toList());
+            addFact(new MethodUsageFact(declaringClass.getQualifiedName(),
+                    declaringClass.isInterface(),
+                    parameterTypes,
+                    getReturnedType(method),
+                    withImports()));
         }
         return false;
     }
 
-    private void ananlyzeReturnedTypeOfMethod(MethodDeclaration methodDeclaration, Node parentClassNode) {
+    private String getReturnedType(MethodDeclaration methodDeclaration) {
         if (methodDeclaration != null && ! methodDeclaration.isConstructor() && methodDeclaration.getReturnType2().resolveBinding() != null && methodDeclaration.resolveBinding() != null) {
-            String returnedType = methodDeclaration.getReturnType2().resolveBinding().getQualifiedName();
-            Optional <Node> returnedTypeNode = neoGraph.getNode(returnedType);
-            returnedTypeNode.ifPresent(node -> {
-                if (! node.hasLabel(OUT_OF_SCOPE.getString()) && ! node.get("name").asString().equals(parentClassNode.get("name").asString())) {
-                    if (! neoGraph.relatedTo(parentClassNode, node)) {
-                        neoGraph.linkTwoNodes(parentClassNode, node, RelationType.USE);
-                    }
-                }
-            });
+            return methodDeclaration.getReturnType2().resolveBinding().getQualifiedName();
         }
+        return null;
     }
 }
-
@@ -1,16 +1,13 @@
 package visitors;
 
-import neo4j_types.DesignPatternType;
-import neo4j_types.EntityAttribute;
-import neo4j_types.EntityType;
-import neograph.NeoGraph;
+import facts.FactoryMethodFact;
+import facts.FactoryTypeFact;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.MethodDeclaration;
 import org.eclipse.jdt.core.dom.ReturnStatement;
 import org.eclipse.jdt.core.dom.TypeDeclaration;
-import org.neo4j.driver.types.Node;
 
 /**
  * Detects factory patterns.
@@ -22,16 +19,12 @@ public class FactoryVisitor extends SymfinderVisitor {
 
     private static final Logger logger = LogManager.getLogger(FactoryVisitor.class);
 
-    public FactoryVisitor(NeoGraph neoGraph) {
-        super(neoGraph);
-    }
-
     @Override
     public boolean visit(TypeDeclaration type) {
         if (super.visit(type)) {
             String qualifiedName = type.resolveBinding().getQualifiedName();
             if (qualifiedName.contains("Factory")) {
-                neoGraph.addLabelToNode(neoGraph.getOrCreateNode(qualifiedName, type.resolveBinding().isInterface() ? EntityType.INTERFACE : EntityType.CLASS), DesignPatternType.FACTORY.toString());
+                addFact(new FactoryTypeFact(qualifiedName, type.resolveBinding().isInterface()));
             }
             return true;
         }
@@ -56,23 +49,13 @@ public class FactoryVisitor extends SymfinderVisitor {
                 String methodReturnType = methodDeclaration.getReturnType2().resolveBinding().getQualifiedName();
                 logger.debug("typeOfReturnedObject : " + typeOfReturnedObject);
                 logger.debug("methodReturnType : " + methodReturnType);
-                // TODO: 4/30/19 if does not exist already, add label to filter on visualization
-                Node methodReturnTypeNode = neoGraph.getNode(methodReturnType).orElse(null);
-                // If a node is created now, it means that it has not been created during the ClassesVisitor, hence that the type is not defined in the project.
-                // Therefore, it is considered as out of scope.
-                Node parsedClassNode = neoGraph.getOrCreateNode(parsedClassType, methodDeclaration.resolveBinding().getDeclaringClass().isInterface() ? EntityType.INTERFACE : EntityType.CLASS, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, new EntityAttribute[]{});
-                Node returnedObjectTypeNode = neoGraph.getNode(typeOfReturnedObject).orElse(null);
-                // TODO: 3/27/19 functional test case with method returning Object → not direct link
-                if(methodReturnTypeNode != null && returnedObjectTypeNode != null){
-                    if (neoGraph.relatedTo(methodReturnTypeNode, returnedObjectTypeNode) && neoGraph.getNbVariants(methodReturnTypeNode) >= 2) {
-                        neoGraph.addLabelToNode(parsedClassNode, DesignPatternType.FACTORY.toString());
-                    }
-                }
-
+                addFact(new FactoryMethodFact(parsedClassType,
+                        methodDeclaration.resolveBinding().getDeclaringClass().isInterface(),
+                        methodReturnType,
+                        typeOfReturnedObject));
             }
         }
         return false;
     }
 
 }
-
@@ -0,0 +1,102 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package visitors;
+
+import facts.FileFacts;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.ImportDeclaration;
+import profiling.FileVisitEvent;
+import profiling.PerformanceReport;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Runs all visitors on a compilation unit, which only needs to be parsed once.
+ * The facts recorded by each visitor form a pass, applied to the graph after all files went through the previous pass.
+ */
+public class FactsExtractor {
+
+    /**
+     * Names of the visitors, in the order their passes are applied.
+     */
+    public static final List <String> PASSES = List.of(
+            ClassesVisitor.class.getTypeName(),
+            GraphBuilderVisitor.class.getTypeName(),
+            StrategyTemplateDecoratorVisitor.class.getTypeName(),
+            FactoryVisitor.class.getTypeName(),
+            ComposeTypeVisitor.class.getTypeName());
+
+    private FactsExtractor() {
+    }
+
+    private static List <SymfinderVisitor> createVisitors() {
+        return List.of(
+                new ClassesVisitor(),
+                new GraphBuilderVisitor(),
+                new StrategyTemplateDecoratorVisitor(),
+                new FactoryVisitor(),
+                new ComposeTypeVisitor());
+    }
+
+    public static FileFacts extract(String path, CompilationUnit compilationUnit) {
+        return extract(path, compilationUnit, null);
+    }
+
+    /**
+     * @param performanceReport report to which the time spent by each visitor is added, if any
+     */
+    public static FileFacts extract(String path, CompilationUnit compilationUnit, PerformanceReport performanceReport) {
+        FileFacts fileFacts = new FileFacts(path, getImports(compilationUnit));
+        for (SymfinderVisitor visitor : createVisitors()) {
+            FileVisitEvent event = new FileVisitEvent();
+            event.begin();
+            long startTime = System.nanoTime();
+            long startCpuTime = performanceReport == null ? 0 : PerformanceReport.getCurrentThreadCpuTime();
+            compilationUnit.accept(visitor);
+            event.end();
+            if (event.shouldCommit()) {
+                event.path = path;
+                event.visitor = visitor.getClass();
+                event.nodes = visitor.getNbVisitedNodes();
+                event.commit();
+            }
+            if (performanceReport != null) {
+                performanceReport.visited(visitor.getClass().getTypeName(), System.nanoTime() - startTime,
+                        PerformanceReport.getCurrentThreadCpuTime() - startCpuTime);
+            }
+            fileFacts.addPass(visitor.getFacts());
+        }
+        ReferencedTypesVisitor referencedTypesVisitor = new ReferencedTypesVisitor();
+        compilationUnit.accept(referencedTypesVisitor);
+        fileFacts.setReferencedTypes(referencedTypesVisitor.getTypeNames());
+        return fileFacts;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List <String> getImports(CompilationUnit compilationUnit) {
+        return ((List <ImportDeclaration>) compilationUnit.imports()).stream()
+                .filter(importDeclaration -> ! importDeclaration.isStatic())
+                .map(importDeclaration -> importDeclaration.getName().getFullyQualifiedName() + (importDeclaration.isOnDemand() ? ".*" : ""))
+                .collect(Collectors.toList());
+    }
+}
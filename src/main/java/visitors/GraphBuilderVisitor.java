@@ -1,76 +1,39 @@
 package visitors;
 
-import neo4j_types.EntityAttribute;
-import neo4j_types.EntityType;
-import neo4j_types.RelationType;
-import neograph.NeoGraph;
+import facts.InheritanceFact;
+import facts.TypeReference;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.eclipse.jdt.core.dom.ITypeBinding;
 import org.eclipse.jdt.core.dom.TypeDeclaration;
-import org.neo4j.driver.types.Node;
 
-import java.util.Optional;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 
 /**
- * Parses all classes and creates the inheritance relations.
+ * Parses all classes and records the inheritance relations.
  * This step cannot be done in the ClassesVisitor, as due to problems with name resolving in Eclipse JDT,
- * we have to do this manually by finding the corresponding nodes in the database.
- * Hence, all nodes must have been parsed at least once.
+ * we have to do this manually by finding the corresponding nodes in the graph.
+ * The recorded facts replace the database lookups made while visiting: they are applied once the nodes of all files exist.
  */
 public class GraphBuilderVisitor extends ImportsVisitor {
 
     private static final Logger logger = LogManager.getLogger(GraphBuilderVisitor.class);
 
-    private static int nbCorrectedInheritanceLinks = 0;
-
-    public GraphBuilderVisitor(NeoGraph neoGraph) {
-        super(neoGraph);
-    }
-
     @Override
     public boolean visit(TypeDeclaration type) {
         if (super.visit(type)) {
             ITypeBinding classBinding = type.resolveBinding();
             String thisClassName = classBinding.getQualifiedName();
             logger.debug("Class: " + thisClassName);
-            Optional <Node> thisNode = classBinding.isInterface() ? neoGraph.getInterfaceNode(thisClassName) : neoGraph.getClassNode(thisClassName);
-            if (thisNode.isPresent()) {
-                // Link to superclass if exists
-                ITypeBinding superclassType = classBinding.getSuperclass();
-                if (superclassType != null) {
-                    createImportedClassNode(classBinding.getErasure().getQualifiedName(), thisNode.get(), superclassType, EntityType.CLASS, RelationType.EXTENDS, "SUPERCLASS");
-                }
-
-                // Link to implemented interfaces if exist
-                for (ITypeBinding o : classBinding.getInterfaces()) {
-                    createImportedClassNode(classBinding.getErasure().getQualifiedName(), thisNode.get(), o, EntityType.INTERFACE, RelationType.IMPLEMENTS, "INTERFACE");
-                }
-            }
+            List <TypeReference> interfaces = Arrays.stream(classBinding.getInterfaces())
+                    .map(this::getTypeReference)
+                    .collect(Collectors.toList());
+            addFact(new InheritanceFact(thisClassName, classBinding.isInterface(), getTypeReference(classBinding.getSuperclass()), interfaces, withImports()));
             return true;
         }
         return false; // TODO: 4/18/19 functional tests : only inner classes are ignored
     }
 
-    // TODO: 4/1/19 functional tests : imports from different packages
-    private void createImportedClassNode(String thisClassName, Node thisNode, ITypeBinding importedClassType, EntityType entityType, RelationType relationType, String name) {
-        Optional <String> myImportedClass = getClassFullName(importedClassType);
-        String qualifiedName = getClassBaseName(importedClassType.getQualifiedName());
-        if (myImportedClass.isPresent() && ! myImportedClass.get().equals(qualifiedName)) {
-            nbCorrectedInheritanceLinks++;
-            logger.debug(String.format("DIFFERENT %s FULL NAMES FOUND FOR CLASS %s: \n" +
-                    "JDT qualified name: %s\n" +
-                    "Manually resolved name: %s\n" +
-                    "Getting manually resolved name.", name, getClassBaseName(thisClassName), qualifiedName, myImportedClass.get()));
-        }
-        // If a node is created now, it means that it has not been created during the ClassesVisitor, hence that the type is not defined in the project.
-        // Therefore, it is considered as out of scope.
-        Node superclassNode = neoGraph.getOrCreateNode(myImportedClass.orElse(qualifiedName), entityType, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, new EntityAttribute[]{});
-        neoGraph.linkTwoNodes(superclassNode, thisNode, relationType);
-    }
-
-
-    public static int getNbCorrectedInheritanceLinks() {
-        return nbCorrectedInheritanceLinks;
-    }
 }
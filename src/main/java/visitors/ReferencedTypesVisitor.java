@@ -0,0 +1,79 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package visitors;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.Expression;
+import org.eclipse.jdt.core.dom.IBinding;
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.IVariableBinding;
+import org.eclipse.jdt.core.dom.SimpleName;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Finds the types a file may depend on, whether or not the visitors recorded facts about them:
+ * the names which are not resolved or resolve to a type, the types declaring the members used by the file,
+ * and the type of each expression, which may be declared in a file the file does not name.
+ * A fact may only be recorded once a binding resolves, so the facts of a file do not give all the types it depends on.
+ */
+class ReferencedTypesVisitor extends ASTVisitor {
+
+    private final Set <String> typeNames = new LinkedHashSet <>();
+
+    Set <String> getTypeNames() {
+        return typeNames;
+    }
+
+    @Override
+    public boolean visit(SimpleName node) {
+        IBinding binding = node.resolveBinding();
+        if (binding == null || binding.getKind() == IBinding.TYPE) {
+            typeNames.add(node.getIdentifier());
+        } else if (binding instanceof IMethodBinding) {
+            addType(((IMethodBinding) binding).getDeclaringClass());
+        } else if (binding instanceof IVariableBinding) {
+            addType(((IVariableBinding) binding).getDeclaringClass());
+        }
+        return true;
+    }
+
+    @Override
+    public void preVisit(ASTNode node) {
+        if (node instanceof Expression) {
+            addType(((Expression) node).resolveTypeBinding());
+        }
+    }
+
+    private void addType(ITypeBinding type) {
+        if (type == null) {
+            return;
+        }
+        ITypeBinding erasure = (type.isArray() ? type.getElementType() : type).getErasure();
+        if (! erasure.getQualifiedName().isEmpty()) {
+            typeNames.add(erasure.getQualifiedName());
+        }
+    }
+}
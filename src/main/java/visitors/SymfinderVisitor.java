@@ -1,12 +1,19 @@
 package visitors;
 
-import neograph.NeoGraph;
+import facts.Fact;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.eclipse.jdt.core.dom.*;
+import profiling.TypeVisitEvent;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
 
 /**
  * This class is inherited by all visitors and ensures that some parts of the code are ignored:
@@ -14,15 +21,69 @@ import java.util.Arrays;
  * - test classes
  * - private nested classes
  * - anonymous classes
+ * Visitors do not modify the graph directly: they record binding-free facts which are applied once all files have been parsed.
  */
 public class SymfinderVisitor extends ASTVisitor {
 
     private static final Logger logger = LogManager.getLogger(SymfinderVisitor.class);
-    protected NeoGraph neoGraph;
+    private final Collection <Fact> facts = new LinkedHashSet <>();
     protected boolean visitedType = false;
+    private int nbVisitedNodes = 0;
+    // Type declarations being visited, recorded by Flight Recorder when their visit ends
+    private final Deque <TypeVisitEvent> typeVisitEvents = new ArrayDeque <>();
 
-    public SymfinderVisitor(NeoGraph neoGraph) {
-        this.neoGraph = neoGraph;
+    protected void addFact(Fact fact) {
+        facts.add(fact);
+    }
+
+    /**
+     * @return the facts recorded by this visitor, in the order they were found
+     */
+    public List <Fact> getFacts() {
+        return new ArrayList <>(facts);
+    }
+
+    /**
+     * @return number of nodes visited so far, those whose visit was skipped not being counted
+     */
+    public int getNbVisitedNodes() {
+        return nbVisitedNodes;
+    }
+
+    /**
+     * Counts the visited nodes and starts the Flight Recorder event of each type declaration, whatever the visitor overrides.
+     */
+    @Override
+    public boolean preVisit2(ASTNode node) {
+        nbVisitedNodes++;
+        if (node instanceof TypeDeclaration) {
+            TypeVisitEvent event = new TypeVisitEvent();
+            if (event.isEnabled()) {
+                event.nodes = nbVisitedNodes;
+                event.begin();
+            }
+            typeVisitEvents.push(event);
+        }
+        return true;
+    }
+
+    @Override
+    public void postVisit(ASTNode node) {
+        if (node instanceof TypeDeclaration) {
+            TypeVisitEvent event = typeVisitEvents.pop();
+            if (event.isEnabled()) {
+                event.end();
+                if (event.shouldCommit()) {
+                    TypeDeclaration type = (TypeDeclaration) node;
+                    ITypeBinding binding = type.resolveBinding();
+                    event.type = binding == null ? type.getName().getIdentifier() : binding.getQualifiedName();
+                    event.visitor = getClass();
+                    event.nodes = nbVisitedNodes - event.nodes + 1;
+                    event.length = type.getLength();
+                    event.commit();
+                }
+            }
+        }
     }
 
     @Override
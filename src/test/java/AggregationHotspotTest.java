@@ -95,4 +95,33 @@ public class AggregationHotspotTest extends Neo4jTest {
         });
     }
 
+    @Test
+    public void onlyComponentsAboveThreshold() {
+        runTest(graph -> {
+            Node vp1 = graph.createNode("VP1", EntityType.CLASS, EntityAttribute.VP);
+            Node v1 = graph.createNode("V1", EntityType.CLASS);
+            Node vp2 = graph.createNode("VP2", EntityType.CLASS, EntityAttribute.VP);
+            Node v2 = graph.createNode("V2", EntityType.CLASS);
+            Node v3 = graph.createNode("V3", EntityType.CLASS);
+            Node vp2v1 = graph.createNode("VP2V1", EntityType.CLASS, EntityAttribute.VARIANT);
+            Node c1 = graph.createNode("C1", EntityType.CLASS);
+            Node c2 = graph.createNode("C2", EntityType.CLASS);
+            Node c3 = graph.createNode("C3", EntityType.CLASS);
+            graph.linkTwoNodes(vp1, v1, RelationType.USE);
+            graph.linkTwoNodes(v2, vp2, RelationType.USE);
+            graph.linkTwoNodes(v2, v3, RelationType.USE);
+            graph.linkTwoNodes(vp2, vp2v1, RelationType.EXTENDS);
+            graph.linkTwoNodes(c1, c2, RelationType.USE);
+            graph.linkTwoNodes(c2, c3, RelationType.USE);
+            graph.detectHotspotsInAggregation(3);
+            assertNull(graph.getPropertyValue(graph.getNode("VP1").get(), "aggregation"));
+            assertNull(graph.getPropertyValue(graph.getNode("V1").get(), "aggregation"));
+            assertTrue((boolean) graph.getPropertyValue(graph.getNode("VP2").get(), "aggregation"));
+            assertTrue((boolean) graph.getPropertyValue(graph.getNode("V2").get(), "aggregation"));
+            assertTrue((boolean) graph.getPropertyValue(graph.getNode("V3").get(), "aggregation"));
+            assertTrue((boolean) graph.getPropertyValue(graph.getNode("VP2V1").get(), "aggregation"));
+            assertNull(graph.getPropertyValue(graph.getNode("C1").get(), "aggregation"));
+        });
+    }
+
 }
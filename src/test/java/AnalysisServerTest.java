@@ -0,0 +1,147 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AnalysisServerTest {
+
+    private Path directory;
+    private AnalysisServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("project");
+        writeFile("Shape.java", "package p;\npublic interface Shape {}\n");
+        writeFile("Circle.java", "package p;\npublic class Circle implements Shape {}\n");
+        writeFile("Square.java", "package p;\npublic class Square implements Shape {}\n");
+        server = new AnalysisServer(0, 2, 100);
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void submittedJobIsAnalysedAndItsProgressStreamed() throws Exception {
+        Path output = directory.resolve("output").resolve("project.json");
+        HttpResponse <String> submitted = post("/jobs", new JSONObject()
+                .put("sourcePackage", directory.resolve("src").toString())
+                .put("graphOutputPath", output.toString()));
+        assertEquals(202, submitted.statusCode());
+        int id = new JSONObject(submitted.body()).getInt("id");
+        assertEquals("/jobs/" + id, submitted.headers().firstValue("Location").orElse(null));
+
+        String progress = get("/jobs/" + id + "/progress").body();
+        assertTrue(progress.contains("Number of class level VPs: 1\n"));
+        assertTrue(progress.endsWith("SUCCEEDED\n"));
+
+        JSONObject job = new JSONObject(get("/jobs/" + id).body());
+        assertEquals("SUCCEEDED", job.getString("status"));
+        assertEquals(progress.split("\n").length - 1, job.getJSONArray("progress").length());
+        assertTrue(Files.exists(output));
+        assertTrue(Files.exists(directory.resolve("output").resolve("project-stats.json")));
+    }
+
+    @Test
+    public void allJobsAreListed() throws Exception {
+        for (int i = 0 ; i < 3 ; i++) {
+            post("/jobs", new JSONObject()
+                    .put("sourcePackage", directory.resolve("src").toString())
+                    .put("graphOutputPath", directory.resolve("output" + i).resolve("project.json").toString()));
+        }
+        JSONArray jobs = new JSONArray(get("/jobs").body());
+        assertEquals(3, jobs.length());
+        for (int i = 0 ; i < 3 ; i++) {
+            int id = jobs.getJSONObject(i).getInt("id");
+            assertTrue(get("/jobs/" + id + "/progress").body().endsWith("SUCCEEDED\n"));
+        }
+    }
+
+    @Test
+    public void oldestFinishedJobsAreForgotten() throws Exception {
+        server.stop();
+        server = new AnalysisServer(0, 2, 2);
+        server.start();
+        int[] ids = new int[3];
+        for (int i = 0 ; i < 3 ; i++) {
+            ids[i] = new JSONObject(post("/jobs", new JSONObject()
+                    .put("sourcePackage", directory.resolve("src").toString())
+                    .put("graphOutputPath", directory.resolve("output" + i).resolve("project.json").toString())).body()).getInt("id");
+            assertTrue(get("/jobs/" + ids[i] + "/progress").body().endsWith("SUCCEEDED\n"));
+        }
+        assertEquals(404, get("/jobs/" + ids[0]).statusCode());
+        assertEquals(200, get("/jobs/" + ids[1]).statusCode());
+        assertEquals(200, get("/jobs/" + ids[2]).statusCode());
+        assertEquals(2, new JSONArray(get("/jobs").body()).length());
+    }
+
+    @Test
+    public void invalidRequestsAreRejected() throws Exception {
+        assertEquals(400, post("/jobs", new JSONObject().put("sourcePackage", directory.toString())).statusCode());
+        assertEquals(404, get("/jobs/42").statusCode());
+        assertEquals(404, get("/jobs/42/progress").statusCode());
+        assertEquals(404, get("/jobs/1/2/3").statusCode());
+        HttpRequest delete = HttpRequest.newBuilder(uri("/jobs")).DELETE().build();
+        assertEquals(405, client.send(delete, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    private HttpResponse <String> post(String path, JSONObject body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri(path))
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse <String> get(String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(uri(path)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getPort() + path);
+    }
+
+    private void writeFile(String name, String content) throws IOException {
+        Path file = directory.resolve("src").resolve("p").resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
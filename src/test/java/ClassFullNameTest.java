@@ -0,0 +1,127 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+import facts.FactContext;
+import facts.FileFacts;
+import facts.TypeReference;
+import neo4j_types.EntityAttribute;
+import neo4j_types.EntityType;
+import neograph.NeoGraph;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class ClassFullNameTest extends Neo4jTest {
+
+    private FactContext getContext(NeoGraph graph, String... imports) {
+        FactContext context = new FactContext(graph);
+        FileFacts fileFacts = new FileFacts("Test.java", List.of(imports));
+        fileFacts.addPass(List.of());
+        context.apply(fileFacts, 0);
+        return context;
+    }
+
+    @Test
+    public void classInDatabase() {
+        runTest(graph -> {
+            graph.createNode("fr.unice.i3s.TestClass", EntityType.CLASS);
+            FactContext context = getContext(graph);
+            assertEquals(Optional.of("fr.unice.i3s.TestClass"), context.getClassFullName(new TypeReference("fr.unice.i3s.TestClass", "TestClass"), true));
+        });
+    }
+
+    @Test
+    public void classImported() {
+        runTest(graph -> {
+            FactContext context = getContext(graph, "fr.unice.i3s.TestClass");
+            assertEquals(Optional.of("fr.unice.i3s.TestClass"), context.getClassFullName(new TypeReference("TestClass", "TestClass"), true));
+        });
+    }
+
+    @Test
+    public void classInImportedPackage() {
+        runTest(graph -> {
+            graph.createNode("fr.unice.i3s.TestClass", EntityType.CLASS);
+            FactContext context = getContext(graph, "fr.unice.i3s.*");
+            assertEquals(Optional.of("fr.unice.i3s.TestClass"), context.getClassFullName(new TypeReference("TestClass", "TestClass"), true));
+        });
+    }
+
+    @Test
+    public void importsNotVisible() {
+        runTest(graph -> {
+            graph.createNode("fr.unice.i3s.TestClass", EntityType.CLASS);
+            FactContext context = getContext(graph, "fr.unice.i3s.*");
+            assertFalse(context.getClassFullName(new TypeReference("TestClass", "TestClass"), false).isPresent());
+        });
+    }
+
+    @Test
+    public void outOfScopeClass() {
+        runTest(graph -> {
+            FactContext context = getContext(graph, "fr.unice.i3s.*");
+            assertFalse(context.getClassFullName(new TypeReference("TestClass", "TestClass"), true).isPresent());
+        });
+    }
+
+    @Test
+    public void classInSubpackageOfImportedPackage() {
+        runTest(graph -> {
+            graph.createNode("fr.unice.i3s.TestClass", EntityType.CLASS);
+            FactContext context = getContext(graph, "fr.unice.*");
+            assertFalse(context.getClassFullName(new TypeReference("TestClass", "TestClass"), true).isPresent());
+        });
+    }
+
+    @Test
+    public void memberClassInImportedPackage() {
+        runTest(graph -> {
+            graph.createNode("fr.unice.i3s.Outer.Inner", EntityType.CLASS);
+            FactContext context = getContext(graph, "fr.unice.i3s.*");
+            assertEquals(Optional.of("fr.unice.i3s.Outer.Inner"), context.getClassFullName(new TypeReference("Outer.Inner", "Outer.Inner"), true));
+            context = getContext(graph, "fr.unice.i3s.Outer.*");
+            assertEquals(Optional.of("fr.unice.i3s.Outer.Inner"), context.getClassFullName(new TypeReference("Inner", "Inner"), true));
+        });
+    }
+
+    @Test
+    public void mergedInterfaceInDatabase() {
+        runTest(graph -> {
+            graph.getOrCreateNode("java.lang.Runnable", EntityType.INTERFACE, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, new EntityAttribute[]{});
+            FactContext context = getContext(graph);
+            assertEquals(Optional.of("java.lang.Runnable"), context.getClassFullName(new TypeReference("java.lang.Runnable", "Runnable"), false));
+        });
+    }
+
+    @Test
+    public void methodIsNotAType() {
+        runTest(graph -> {
+            graph.createNode("fr.unice.i3s.TestClass.method", EntityType.METHOD);
+            FactContext context = getContext(graph);
+            assertFalse(context.getClassFullName(new TypeReference("fr.unice.i3s.TestClass.method", "method"), false).isPresent());
+        });
+    }
+
+}
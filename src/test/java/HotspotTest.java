@@ -26,6 +26,11 @@ import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.neo4j.driver.types.Node;
 
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -141,4 +146,55 @@ public class HotspotTest extends Neo4jTest {
         });
     }
 
+    /**
+     * Compares the nodes found by the breadth-first search with those matched by variable-length paths in Cypher,
+     * on a graph with chains, cycles through candidates, mutual usages and a self usage.
+     */
+    @Test
+    public void hopsSearchFindsSameNodesAsVariableLengthPaths() {
+        for (int hops = 1 ; hops <= 4 ; hops++) {
+            int numberOfHops = hops;
+            runTest(graph -> {
+                Node vp = graph.createNode("VP", EntityType.CLASS, EntityAttribute.VP);
+                Node variant = graph.createNode("V", EntityType.CLASS, EntityAttribute.VARIANT);
+                Node self = graph.createNode("Self", EntityType.CLASS, EntityAttribute.METHOD_LEVEL_VP);
+                Node far = graph.createNode("Far", EntityType.CLASS, EntityAttribute.VP);
+                Node mutual = graph.createNode("Mutual", EntityType.CLASS, EntityAttribute.VP);
+                Node a = graph.createNode("A", EntityType.CLASS);
+                Node b = graph.createNode("B", EntityType.CLASS);
+                Node c = graph.createNode("C", EntityType.CLASS);
+                Node d = graph.createNode("D", EntityType.CLASS);
+                graph.linkTwoNodes(vp, variant, RelationType.EXTENDS);
+                graph.linkTwoNodes(vp, a, RelationType.USE);
+                graph.linkTwoNodes(a, b, RelationType.USE);
+                graph.linkTwoNodes(b, vp, RelationType.USE);
+                graph.linkTwoNodes(b, c, RelationType.USE);
+                graph.linkTwoNodes(d, c, RelationType.USE);
+                graph.linkTwoNodes(far, d, RelationType.USE);
+                graph.linkTwoNodes(self, self, RelationType.USE);
+                graph.linkTwoNodes(mutual, a, RelationType.USE);
+                graph.linkTwoNodes(a, mutual, RelationType.USE);
+                Set <String> expected = new HashSet <>();
+                graphDatabaseService.executeTransactionally(String.format("MATCH (c1)-[:USE*1..%d]-(c2) " +
+                        "WHERE (c1:VP OR c1:VARIANT OR c1:METHOD_LEVEL_VP) AND (c2:VP OR c2:VARIANT OR c2:METHOD_LEVEL_VP) " +
+                        "RETURN c1.name AS name1, c2.name AS name2", numberOfHops), Map.of(), result -> {
+                    result.forEachRemaining(row -> {
+                        expected.add((String) row.get("name1"));
+                        expected.add((String) row.get("name2"));
+                    });
+                    return null;
+                });
+                graph.detectHotspotsWithNewDefinition(1, numberOfHops);
+                Set <String> found = new HashSet <>();
+                for (String name : new String[]{"VP", "V", "Self", "Far", "Mutual", "A", "B", "C", "D"}) {
+                    if (Boolean.TRUE.equals(graph.getPropertyValue(graph.getNode(name).get(), "densityHops"))) {
+                        found.add(name);
+                    }
+                }
+                assertEquals(expected, found, "hops: " + numberOfHops);
+            });
+            graphDatabaseService.executeTransactionally("MATCH (n) DETACH DELETE (n)");
+        }
+    }
+
 }
@@ -0,0 +1,467 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+
+import neo4j_types.DesignPatternType;
+import neo4j_types.EntityAttribute;
+import neo4j_types.EntityType;
+import neo4j_types.EntityVisibility;
+import neo4j_types.RelationType;
+import neograph.GraphStore;
+import neograph.MemoryGraph;
+import neograph.NeoGraph;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.junit.jupiter.api.Test;
+import org.neo4j.driver.types.Node;
+import profiling.StatementProfiler;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MemoryGraphTest extends Neo4jTest {
+
+    /**
+     * Builds the same graph in Neo4j and in memory, and checks that both stores give the same graph and statistics.
+     */
+    private void assertSameResults(Consumer <GraphStore> scenario) {
+        List <Object> neo4jResults = new ArrayList <>();
+        runTest(graph -> {
+            scenario.accept(graph);
+            neo4jResults.add(getDatabaseContent());
+            neo4jResults.add(canonical(new JSONObject(graph.generateStatisticsJson())));
+        });
+        clearDatabase();
+        MemoryGraph graph = new MemoryGraph();
+        scenario.accept(graph);
+        assertEquals(neo4jResults.get(0), getContent(graph));
+        assertEquals(neo4jResults.get(1), canonical(new JSONObject(graph.generateStatisticsJson())));
+    }
+
+    /**
+     * @return the labels and properties of the nodes and the relationships of the test database, sorted.
+     * The graphs are compared on their content as the test database does not have the procedures needed to generate the JSON files.
+     */
+    @SuppressWarnings("unchecked")
+    private static List <String> getDatabaseContent() {
+        List <String> content = new ArrayList <>();
+        graphDatabaseService.executeTransactionally("MATCH (n) RETURN labels(n) AS labels, properties(n) AS properties", Map.of(), result -> {
+            result.forEachRemaining(row -> content.add(new TreeSet <>((List <String>) row.get("labels")) + " " +
+                    new TreeMap <>((Map <String, Object>) row.get("properties"))));
+            return null;
+        });
+        graphDatabaseService.executeTransactionally("MATCH (a)-[r]->(b) RETURN a.name + ' ' + type(r) + ' ' + b.name AS relationship", Map.of(), result -> {
+            result.forEachRemaining(row -> content.add((String) row.get("relationship")));
+            return null;
+        });
+        Collections.sort(content);
+        return content;
+    }
+
+    /**
+     * @return the content of the memory graph once copied into the test database
+     */
+    private List <String> getContent(MemoryGraph memoryGraph) {
+        List <List <String>> content = new ArrayList <>();
+        runTest(graph -> {
+            memoryGraph.exportTo(graph);
+            content.add(getDatabaseContent());
+        });
+        clearDatabase();
+        return content.get(0);
+    }
+
+    private static void clearDatabase() {
+        graphDatabaseService.executeTransactionally("MATCH (n) DETACH DELETE (n)");
+    }
+
+    /**
+     * @return the JSON value with its objects as sorted maps and its arrays sorted, as the stores do not list elements in the same order
+     */
+    private static Object canonical(Object json) {
+        if (json instanceof JSONObject) {
+            Map <String, Object> map = new TreeMap <>();
+            ((JSONObject) json).keySet().forEach(key -> map.put(key, canonical(((JSONObject) json).get(key))));
+            return map;
+        }
+        if (json instanceof JSONArray) {
+            List <Object> list = new ArrayList <>();
+            ((JSONArray) json).forEach(element -> list.add(canonical(element)));
+            return list.stream().sorted((a, b) -> a.toString().compareTo(b.toString())).collect(Collectors.toList());
+        }
+        return json;
+    }
+
+    private static void buildShapes(GraphStore graph) {
+        Node shape = graph.createNode("Shape", EntityType.CLASS, EntityAttribute.ABSTRACT, EntityVisibility.PUBLIC);
+        Node circle = graph.createNode("Circle", EntityType.CLASS, EntityVisibility.PUBLIC);
+        Node rectangle = graph.createNode("Rectangle", EntityType.CLASS, EntityVisibility.PUBLIC);
+        Node square = graph.createNode("Square", EntityType.CLASS, EntityVisibility.PUBLIC);
+        Node drawable = graph.createNode("Drawable", EntityType.INTERFACE, EntityVisibility.PUBLIC);
+        Node canvas = graph.createNode("Canvas", EntityType.CLASS, EntityVisibility.PUBLIC, EntityType.ENTRY_POINT);
+        Node color = graph.createNode("java.awt.Color", EntityType.CLASS, EntityAttribute.OUT_OF_SCOPE);
+        graph.linkTwoNodes(shape, circle, RelationType.EXTENDS);
+        graph.linkTwoNodes(shape, rectangle, RelationType.EXTENDS);
+        graph.linkTwoNodes(rectangle, square, RelationType.EXTENDS);
+        graph.linkTwoNodes(drawable, shape, RelationType.IMPLEMENTS);
+        graph.linkTwoNodes(canvas, shape, RelationType.USE);
+        graph.linkTwoNodes(canvas, shape, RelationType.USE);
+        graph.linkTwoNodes(canvas, color, RelationType.USE);
+        graph.linkTwoNodes(shape, canvas, RelationType.USE);
+        graph.linkTwoNodes(color, circle, RelationType.EXTENDS);
+        for (String method : new String[]{"draw", "draw", "draw", "area", "area", "perimeter"}) {
+            graph.linkTwoNodes(rectangle, graph.createNode(method, EntityType.METHOD, EntityVisibility.PUBLIC), RelationType.METHOD);
+        }
+        graph.linkTwoNodes(canvas, graph.createNode("paint", EntityType.METHOD), RelationType.METHOD);
+        graph.linkTwoNodes(canvas, graph.createNode("paint", EntityType.METHOD, EntityVisibility.PUBLIC), RelationType.METHOD);
+        graph.linkTwoNodes(circle, graph.createNode("Circle", EntityType.CONSTRUCTOR, EntityVisibility.PUBLIC), RelationType.METHOD);
+        graph.linkTwoNodes(circle, graph.createNode("Circle", EntityType.CONSTRUCTOR), RelationType.METHOD);
+        graph.linkTwoNodes(square, graph.createNode("Square", EntityType.CONSTRUCTOR, EntityVisibility.PUBLIC), RelationType.METHOD);
+        graph.addLabelToNode(canvas, DesignPatternType.STRATEGY.toString());
+    }
+
+    @Test
+    public void sameVPsAndVariantsAsNeo4j() {
+        assertSameResults(graph -> {
+            buildShapes(graph);
+            graph.detectVPsAndVariants();
+        });
+    }
+
+    private static void runStepByStep(GraphStore graph) {
+        graph.setMethodVPs();
+        graph.setMethodVariants();
+        graph.setConstructorVPs();
+        graph.setConstructorVariants();
+        graph.setNbVariantsProperty();
+        graph.setVPLabels();
+        graph.setMethodLevelVPLabels();
+        graph.setVariantsLabels();
+        graph.setPublicMethods();
+        graph.setPublicConstructors();
+        graph.setNbUsages();
+        graph.setAllMethods();
+        graph.detectStrategiesWithUsage();
+    }
+
+    private static void buildShapesWithDuplicateLinks(GraphStore graph) {
+        buildShapes(graph);
+        Node rectangle = graph.getClassNode("Rectangle").get();
+        Node area = graph.createNode("area", EntityType.METHOD);
+        graph.linkTwoNodes(rectangle, area, RelationType.METHOD);
+        graph.linkTwoNodes(rectangle, area, RelationType.METHOD);
+        graph.linkTwoNodes(graph.getClassNode("Canvas").get(), graph.getClassNode("Circle").get(), RelationType.EXTENDS);
+    }
+
+    @Test
+    public void singlePassGivesSameResultsAsSteps() {
+        List <Object> results = new ArrayList <>();
+        runTest(graph -> {
+            buildShapesWithDuplicateLinks(graph);
+            runStepByStep(graph);
+            results.add(getDatabaseContent());
+        });
+        clearDatabase();
+        runTest(graph -> {
+            buildShapesWithDuplicateLinks(graph);
+            graph.detectVPsAndVariants();
+            results.add(getDatabaseContent());
+        });
+        clearDatabase();
+        MemoryGraph steps = new MemoryGraph();
+        buildShapesWithDuplicateLinks(steps);
+        runStepByStep(steps);
+        results.add(getContent(steps));
+        MemoryGraph singlePass = new MemoryGraph();
+        buildShapesWithDuplicateLinks(singlePass);
+        singlePass.detectVPsAndVariants();
+        results.add(getContent(singlePass));
+        for (int i = 1 ; i < results.size() ; i++) {
+            assertEquals(results.get(0), results.get(i));
+        }
+    }
+
+    @Test
+    public void writeBackIsSentInBatches() {
+        List <Object> results = new ArrayList <>();
+        List <Long> nbWriteBackStatements = new ArrayList <>();
+        for (int batchSize : new int[]{1000, 2}) {
+            runTest(graph -> {
+                buildShapes(graph);
+                StatementProfiler statementProfiler = new StatementProfiler(false);
+                graph.setStatementProfiler(statementProfiler);
+                graph.detectVPsAndVariants();
+                nbWriteBackStatements.add(statementProfiler.getSlowestStatements(Integer.MAX_VALUE).stream()
+                        .filter(statistics -> statistics.getTemplate().contains("SET n += row.properties"))
+                        .mapToLong(StatementProfiler.StatementStatistics::getCount)
+                        .sum());
+                results.add(getDatabaseContent());
+            }, batchSize);
+            clearDatabase();
+        }
+        assertEquals(results.get(0), results.get(1));
+        assertEquals(1L, (long) nbWriteBackStatements.get(0));
+        assertTrue(nbWriteBackStatements.get(1) > 1);
+    }
+
+    @Test
+    public void singlePassRunTwice() {
+        runTest(graph -> {
+            buildShapes(graph);
+            graph.detectVPsAndVariants();
+            List <String> firstResult = getDatabaseContent();
+            graph.detectVPsAndVariants();
+            assertEquals(firstResult, getDatabaseContent());
+            Node rectangle = graph.getClassNode("Rectangle").get();
+            assertEquals(2L, graph.getPropertyValue(rectangle, "methodVPs"));
+            assertEquals(5L, graph.getPropertyValue(rectangle, "methodVariants"));
+            assertEquals(6L, graph.getPropertyValue(rectangle, "allMethods"));
+        });
+    }
+
+    @Test
+    public void sameHotspotsAsNeo4j() {
+        assertSameResults(graph -> {
+            buildShapes(graph);
+            graph.detectVPsAndVariants();
+            graph.detectHotspotsWithNewDefinition(2, 2);
+        });
+    }
+
+    @Test
+    public void exportToNeo4j() {
+        MemoryGraph memoryGraph = new MemoryGraph();
+        buildShapes(memoryGraph);
+        memoryGraph.detectVPsAndVariants();
+        runTest(graph -> {
+            memoryGraph.exportTo(graph);
+            assertEquals(memoryGraph.getNbNodes(), graph.getNbNodes());
+            assertEquals(memoryGraph.getNbRelationships(), graph.getNbRelationships());
+            assertEquals(canonical(new JSONObject(memoryGraph.generateStatisticsJson())), canonical(new JSONObject(graph.generateStatisticsJson())));
+        });
+    }
+
+    @Test
+    public void queries() {
+        MemoryGraph graph = new MemoryGraph();
+        Node shape = graph.createNode("shapes.Shape", EntityType.CLASS);
+        Node circle = graph.createNode("shapes.Circle", EntityType.CLASS);
+        Node constructor = graph.createNode("shapes.Circle", EntityType.CONSTRUCTOR);
+        Node drawable = graph.createNode("shapes.Drawable", EntityType.INTERFACE);
+        graph.linkTwoNodes(shape, circle, RelationType.EXTENDS);
+        graph.linkTwoNodes(drawable, circle, RelationType.IMPLEMENTS);
+        graph.linkTwoNodes(circle, constructor, RelationType.METHOD);
+        assertEquals(circle, graph.getNode("shapes.Circle").get());
+        assertEquals(constructor, graph.getOrCreateNode("shapes.Circle", EntityType.CONSTRUCTOR));
+        assertEquals(circle, graph.getClassOrInterfaceNode("shapes.Circle").get());
+        assertFalse(graph.getInterfaceNode("shapes.Circle").isPresent());
+        assertEquals(shape, graph.getSuperclassNode("shapes.Circle").get());
+        assertEquals(List.of(drawable), graph.getImplementedInterfacesNodes("shapes.Circle"));
+        assertEquals(drawable, graph.getNodeWithNameInPackage("Drawable", "shapes").get());
+        assertFalse(graph.getNodeWithNameInPackage("Drawable", "shape").isPresent());
+        assertTrue(graph.relatedTo(shape, circle));
+        assertFalse(graph.relatedTo(circle, shape));
+        assertEquals(1, graph.getNbVariants(shape));
+        assertEquals(1, graph.getNbVariants(drawable));
+        assertEquals(0, graph.getNbVariants(circle));
+        assertEquals("shapes.Circle", circle.get("name").asString());
+    }
+
+    @Test
+    public void getOrCreateNodeAddsAttributes() {
+        MemoryGraph graph = new MemoryGraph();
+        Node created = graph.getOrCreateNode("Shape", EntityType.CLASS, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, new EntityAttribute[]{});
+        Node matched = graph.getOrCreateNode("Shape", EntityType.CLASS, new EntityAttribute[]{}, new EntityAttribute[]{EntityAttribute.ABSTRACT});
+        assertEquals(created, matched);
+        assertTrue(matched.hasLabel(EntityAttribute.OUT_OF_SCOPE.toString()));
+        assertTrue(matched.hasLabel(EntityAttribute.ABSTRACT.toString()));
+        assertEquals(1, graph.getNbNodes());
+    }
+
+    @Test
+    public void propertiesHaveNeo4jTypes() {
+        MemoryGraph graph = new MemoryGraph();
+        Node node = graph.createNode("Shape", EntityType.CLASS);
+        graph.setNodeAttribute(node, "methodVPs", 2);
+        assertEquals(2L, graph.getPropertyValue(node, "methodVPs"));
+        assertNull(graph.getPropertyValue(node, "methodVariants"));
+        assertEquals(Map.of("name", "Shape", "methodVPs", 2L), node.asMap());
+    }
+
+    @Test
+    public void hotspotThroughMutualUsage() {
+        MemoryGraph graph = new MemoryGraph();
+        Node vp = graph.createNode("VP", EntityType.CLASS, EntityAttribute.VP);
+        Node variant1 = graph.createNode("V1", EntityType.CLASS, EntityAttribute.VARIANT);
+        Node variant2 = graph.createNode("V2", EntityType.CLASS, EntityAttribute.VARIANT);
+        Node user = graph.createNode("User", EntityType.CLASS);
+        graph.linkTwoNodes(vp, variant1, RelationType.EXTENDS);
+        graph.linkTwoNodes(vp, variant2, RelationType.EXTENDS);
+        graph.linkTwoNodes(vp, user, RelationType.USE);
+        graph.linkTwoNodes(user, vp, RelationType.USE);
+        graph.setNodeAttribute(vp, "classVariants", 2);
+        graph.detectHotspotsWithNewDefinition(2, 1);
+        assertFalse(vp.hasLabel(EntityAttribute.HOTSPOT.toString()));
+        graph.detectHotspotsWithNewDefinition(2, 2);
+        assertTrue(vp.hasLabel(EntityAttribute.HOTSPOT.toString()));
+        assertNull(graph.getPropertyValue(user, "densityHops"));
+    }
+
+    @Test
+    public void hotspotThroughCycle() {
+        MemoryGraph graph = new MemoryGraph();
+        Node vp = graph.createNode("VP", EntityType.CLASS, EntityAttribute.VP);
+        Node variant = graph.createNode("V", EntityType.CLASS, EntityAttribute.VARIANT);
+        Node a = graph.createNode("A", EntityType.CLASS);
+        Node b = graph.createNode("B", EntityType.CLASS);
+        graph.linkTwoNodes(vp, variant, RelationType.EXTENDS);
+        graph.linkTwoNodes(vp, a, RelationType.USE);
+        graph.linkTwoNodes(a, b, RelationType.USE);
+        graph.linkTwoNodes(b, vp, RelationType.USE);
+        graph.setNodeAttribute(vp, "classVariants", 1);
+        graph.detectHotspotsWithNewDefinition(1, 2);
+        assertFalse(vp.hasLabel(EntityAttribute.HOTSPOT.toString()));
+        graph.detectHotspotsWithNewDefinition(1, 3);
+        assertTrue(vp.hasLabel(EntityAttribute.HOTSPOT.toString()));
+    }
+
+    @Test
+    public void sameHotspotsThroughCyclesAsNeo4j() {
+        for (int hops = 1 ; hops <= 3 ; hops++) {
+            int numberOfHops = hops;
+            assertSameResults(graph -> {
+                Node vp = graph.createNode("VP", EntityType.CLASS, EntityAttribute.VP);
+                Node variant = graph.createNode("V", EntityType.CLASS, EntityAttribute.VARIANT);
+                Node self = graph.createNode("Self", EntityType.CLASS, EntityAttribute.VP);
+                Node a = graph.createNode("A", EntityType.CLASS);
+                Node b = graph.createNode("B", EntityType.CLASS);
+                graph.linkTwoNodes(vp, variant, RelationType.EXTENDS);
+                graph.linkTwoNodes(self, variant, RelationType.EXTENDS);
+                graph.linkTwoNodes(vp, a, RelationType.USE);
+                graph.linkTwoNodes(a, b, RelationType.USE);
+                graph.linkTwoNodes(b, vp, RelationType.USE);
+                graph.linkTwoNodes(self, self, RelationType.USE);
+                graph.setNodeAttribute(vp, "classVariants", 1);
+                graph.setNodeAttribute(self, "classVariants", 1);
+                graph.detectHotspotsWithNewDefinition(1, numberOfHops);
+            });
+        }
+    }
+
+    @Test
+    public void aggregationOfComponents() {
+        MemoryGraph graph = new MemoryGraph();
+        Node vp1 = graph.createNode("VP1", EntityType.CLASS, EntityAttribute.VP);
+        Node vp2 = graph.createNode("VP2", EntityType.CLASS, EntityAttribute.VP);
+        Node v1 = graph.createNode("V1", EntityType.CLASS);
+        Node vp3 = graph.createNode("VP3", EntityType.CLASS, EntityAttribute.VP);
+        Node vp3v1 = graph.createNode("VP3V1", EntityType.CLASS, EntityAttribute.VARIANT);
+        graph.linkTwoNodes(vp1, v1, RelationType.USE);
+        graph.linkTwoNodes(vp2, v1, RelationType.USE);
+        graph.linkTwoNodes(vp3, vp3v1, RelationType.EXTENDS);
+        graph.detectHotspotsInAggregation(3);
+        assertTrue((boolean) graph.getPropertyValue(vp1, "aggregation"));
+        assertTrue((boolean) graph.getPropertyValue(vp2, "aggregation"));
+        assertTrue((boolean) graph.getPropertyValue(v1, "aggregation"));
+        assertNull(graph.getPropertyValue(vp3, "aggregation"));
+        assertNull(graph.getPropertyValue(vp3v1, "aggregation"));
+    }
+
+    @Test
+    public void compressedGraphFileHasSameContent() throws IOException {
+        MemoryGraph graph = new MemoryGraph();
+        buildShapes(graph);
+        graph.detectVPsAndVariants();
+        Path file = Files.createTempDirectory("symfinder").resolve("graph.json.gz");
+        graph.writeVPGraphFile(file.toString());
+        try (Reader reader = new InputStreamReader(new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8)) {
+            JSONObject written = new JSONObject(new JSONTokener(reader));
+            assertEquals(canonical(new JSONObject(graph.generateVPJsonGraph())), canonical(written));
+            assertEquals(2, written.getInt("version"));
+            assertEquals(6, written.getJSONObject("views").getJSONArray("nodes").length());
+            List <Object> strings = written.getJSONArray("strings").toList();
+            assertEquals(strings.size(), Set.copyOf(strings).size());
+        }
+    }
+
+    @Test
+    public void edgesAreWrittenOnceForAllViews() {
+        MemoryGraph graph = new MemoryGraph();
+        buildShapes(graph);
+        graph.detectVPsAndVariants();
+        JSONObject written = new JSONObject(graph.generateVPJsonGraph());
+        JSONArray edges = written.getJSONArray("edges");
+        JSONArray strings = written.getJSONArray("strings");
+        JSONArray nodes = written.getJSONArray("nodes");
+        List <String> links = new ArrayList <>();
+        for (int i = 0 ; i < edges.length() ; i += 3) {
+            links.add(strings.get(nodes.getJSONArray(edges.getInt(i)).getInt(0)) + " " + strings.get(edges.getInt(i + 2)) + " " +
+                    strings.get(nodes.getJSONArray(edges.getInt(i + 1)).getInt(0)));
+        }
+        Collections.sort(links);
+        assertEquals(List.of("Canvas USE Shape", "Canvas USE Shape", "Drawable IMPLEMENTS Shape", "Rectangle EXTENDS Square",
+                "Shape EXTENDS Circle", "Shape EXTENDS Rectangle", "Shape USE Canvas"), links);
+        assertEquals(4, written.getJSONObject("views").getJSONArray("links").length());
+        assertEquals(3, written.getJSONObject("views").getJSONArray("linkscompose").length());
+        assertEquals(0, written.getJSONArray("externalNodes").length());
+    }
+
+    @Test
+    public void layoutIsWrittenForAllNodes() {
+        MemoryGraph graph = new MemoryGraph();
+        buildShapes(graph);
+        graph.detectVPsAndVariants();
+        String json = graph.generateVPJsonGraph();
+        JSONObject written = new JSONObject(json);
+        JSONObject layout = written.getJSONObject("layout");
+        int nbNodes = written.getJSONArray("nodes").length() + written.getJSONArray("externalNodes").length();
+        assertEquals(nbNodes, layout.getJSONArray("x").length());
+        assertEquals(nbNodes, layout.getJSONArray("y").length());
+        JSONArray edges = written.getJSONArray("edges");
+        for (int i = 0 ; i < edges.length() ; i += 3) {
+            double dx = layout.getJSONArray("x").getDouble(edges.getInt(i)) - layout.getJSONArray("x").getDouble(edges.getInt(i + 1));
+            double dy = layout.getJSONArray("y").getDouble(edges.getInt(i)) - layout.getJSONArray("y").getDouble(edges.getInt(i + 1));
+            assertTrue(Math.sqrt(dx * dx + dy * dy) < 200);
+        }
+        assertEquals(json, graph.generateVPJsonGraph());
+    }
+
+}
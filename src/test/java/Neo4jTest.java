@@ -66,4 +66,11 @@ public class Neo4jTest {
         }
     }
 
+    protected void runTest(Consumer<NeoGraph> consumer, int batchSize){
+        try (Driver driver = GraphDatabase.driver(embeddedDatabaseServer.boltURI(), Config.defaultConfig())) {
+            NeoGraph graph = new NeoGraph(driver, batchSize);
+            consumer.accept(graph);
+        }
+    }
+
 }
@@ -0,0 +1,88 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+import neo4j_types.EntityType;
+import neograph.UnitOfWork;
+import org.junit.jupiter.api.Test;
+import org.neo4j.graphdb.Transaction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class UnitOfWorkTest extends Neo4jTest {
+
+    private long countNodes() {
+        try (Transaction tx = graphDatabaseService.beginTx()) {
+            return tx.getAllNodes().stream().count();
+        }
+    }
+
+    @Test
+    public void readsSeeUncommittedWrites() {
+        runTest(graph -> {
+            try (UnitOfWork ignored = graph.beginUnitOfWork(100)) {
+                graph.createNode("Rectangle", EntityType.CLASS);
+                assertTrue(graph.getClassNode("Rectangle").isPresent());
+                assertEquals(0, countNodes());
+            }
+            assertEquals(1, countNodes());
+        });
+    }
+
+    @Test
+    public void periodicCommits() {
+        runTest(graph -> {
+            try (UnitOfWork ignored = graph.beginUnitOfWork(2)) {
+                graph.createNode("Rectangle", EntityType.CLASS);
+                assertEquals(0, countNodes());
+                graph.createNode("Circle", EntityType.CLASS);
+                assertEquals(2, countNodes());
+                graph.createNode("Square", EntityType.CLASS);
+                assertEquals(2, countNodes());
+            }
+            assertEquals(3, countNodes());
+        });
+    }
+
+    @Test
+    public void nestedUnitsOfWork() {
+        runTest(graph -> {
+            try (UnitOfWork ignored = graph.beginUnitOfWork(100)) {
+                try (UnitOfWork ignored2 = graph.beginUnitOfWork(100)) {
+                    graph.createNode("Rectangle", EntityType.CLASS);
+                }
+                assertEquals(0, countNodes());
+            }
+            assertEquals(1, countNodes());
+        });
+    }
+
+    @Test
+    public void bufferedWritesAreCommittedOnClose() {
+        runTest(graph -> {
+            try (UnitOfWork ignored = graph.beginUnitOfWork(100)) {
+                graph.createNode("Rectangle", EntityType.CLASS);
+            }
+            assertEquals(1, countNodes());
+        }, 100);
+    }
+
+}
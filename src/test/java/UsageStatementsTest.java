@@ -0,0 +1,112 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+import facts.FactContext;
+import facts.FileFacts;
+import neograph.UnitOfWork;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import parsing.Manifest;
+import parsing.ParsingPipeline;
+import parsing.SourceReader;
+import profiling.StatementProfiler;
+import visitors.FactsExtractor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+
+public class UsageStatementsTest extends Neo4jTest {
+
+    private static final int NB_FILES = 40;
+
+    private Path directory;
+    private List <File> files;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("project");
+        files = new ArrayList <>();
+    }
+
+    /**
+     * Writes a project in which each class uses the following ones through a field, a parameter,
+     * a local variable, a returned type and a method call.
+     */
+    private void writeProject() throws IOException {
+        for (int i = 0 ; i < NB_FILES ; i++) {
+            String next = "Shape" + ((i + 1) % NB_FILES);
+            String afterNext = "Shape" + ((i + 2) % NB_FILES);
+            String content = "package shapes;\n\n" +
+                    "public class Shape" + i + " {\n" +
+                    "    private " + next + " next;\n\n" +
+                    "    public Shape" + i + "() {\n    }\n\n" +
+                    "    public " + afterNext + " draw(" + next + " shape) {\n" +
+                    "        " + afterNext + " afterNext = shape.draw(next);\n" +
+                    "        return afterNext;\n" +
+                    "    }\n}\n";
+            Path file = directory.resolve("shapes/Shape" + i + ".java");
+            Files.createDirectories(file.getParent());
+            Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+            files.add(file.toFile());
+        }
+    }
+
+    @Test
+    public void lookupsDoNotSplitWriteBatches() throws IOException {
+        writeProject();
+        runTest(graph -> {
+            StatementProfiler statementProfiler = new StatementProfiler(false);
+            graph.setStatementProfiler(statementProfiler);
+            ParsingPipeline pipeline = new ParsingPipeline(System.getProperty("java.home"),
+                    new SourceReader(List.of(StandardCharsets.UTF_8), 1024 * 1024), 1, 2);
+            FactContext factContext = new FactContext(graph);
+            try {
+                List <FileFacts> filesFacts;
+                try (UnitOfWork ignored = graph.beginUnitOfWork(100)) {
+                    filesFacts = pipeline.parse(files, new Manifest(directory, "jdk"), fileFacts -> factContext.apply(fileFacts, 0));
+                }
+                for (int pass = 1 ; pass < FactsExtractor.PASSES.size() ; pass++) {
+                    try (UnitOfWork ignored = graph.beginUnitOfWork(100)) {
+                        for (FileFacts fileFacts : filesFacts) {
+                            factContext.apply(fileFacts, pass);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            long nbStatements = statementProfiler.getSlowestStatements(Integer.MAX_VALUE).stream()
+                    .mapToLong(StatementProfiler.StatementStatistics::getCount)
+                    .sum();
+            assertTrue(nbStatements + " statements for " + NB_FILES + " files", nbStatements * 4 < NB_FILES);
+            statementProfiler.getSlowestStatements(Integer.MAX_VALUE).forEach(statistics ->
+                    assertTrue(statistics.getTemplate(), ! statistics.getTemplate().contains("MERGE")));
+        }, 1000);
+    }
+
+}
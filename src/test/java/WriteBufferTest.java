@@ -0,0 +1,175 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+import neo4j_types.EntityAttribute;
+import neo4j_types.EntityType;
+import neo4j_types.RelationType;
+import org.junit.jupiter.api.Test;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WriteBufferTest extends Neo4jTest {
+
+    private List <Node> getAllNodes(Transaction tx) {
+        return tx.getAllNodes().stream().collect(Collectors.toList());
+    }
+
+    private long countNodes() {
+        try (Transaction tx = graphDatabaseService.beginTx()) {
+            return tx.getAllNodes().stream().count();
+        }
+    }
+
+    private long countRelationships() {
+        try (Transaction tx = graphDatabaseService.beginTx()) {
+            return tx.getAllRelationships().stream().count();
+        }
+    }
+
+    @Test
+    public void writesAreSentOnFlush() {
+        runTest(graph -> {
+            org.neo4j.driver.types.Node classNode = graph.createNode("Rectangle", EntityType.CLASS);
+            org.neo4j.driver.types.Node methodNode = graph.createNode("draw", EntityType.METHOD);
+            graph.linkTwoNodes(classNode, methodNode, RelationType.METHOD);
+            graph.addLabelToNode(classNode, EntityAttribute.ABSTRACT.toString());
+            assertEquals(0, countNodes());
+            graph.flush();
+            assertEquals(2, countNodes());
+            assertEquals(1, countRelationships());
+            try (Transaction tx = graphDatabaseService.beginTx()) {
+                Node rectangle = tx.findNode(Label.label(EntityType.CLASS.toString()), "name", "Rectangle");
+                assertTrue(rectangle.hasLabel(Label.label(EntityAttribute.ABSTRACT.toString())));
+            }
+        }, 100);
+    }
+
+    @Test
+    public void writesAreSentWhenBatchIsFull() {
+        runTest(graph -> {
+            graph.createNode("Rectangle", EntityType.CLASS);
+            assertEquals(0, countNodes());
+            graph.createNode("Circle", EntityType.CLASS);
+            assertEquals(2, countNodes());
+        }, 2);
+    }
+
+    @Test
+    public void readsSeeBufferedWrites() {
+        runTest(graph -> {
+            graph.createNode("Rectangle", EntityType.CLASS);
+            assertTrue(graph.getClassNode("Rectangle").isPresent());
+        }, 100);
+    }
+
+    @Test
+    public void bufferedNodeIsSentWhenRead() {
+        runTest(graph -> {
+            org.neo4j.driver.types.Node node = graph.createNode("Rectangle", EntityType.CLASS);
+            assertEquals("Rectangle", node.get("name").asString());
+            assertEquals(1, countNodes());
+        }, 100);
+    }
+
+    @Test
+    public void bufferedNodeIsNotSentWhenHashed() {
+        runTest(graph -> {
+            org.neo4j.driver.types.Node node = graph.createNode("Rectangle", EntityType.CLASS);
+            Set <org.neo4j.driver.types.Node> nodes = new HashSet <>(List.of(node));
+            assertTrue(nodes.contains(node));
+            assertEquals(0, countNodes());
+        }, 100);
+    }
+
+    @Test
+    public void mergesOfTheSameNameInABatch() {
+        runTest(graph -> {
+            org.neo4j.driver.types.Node node1 = graph.getOrCreateNode("Shape", EntityType.INTERFACE);
+            org.neo4j.driver.types.Node node2 = graph.getOrCreateNode("Shape", EntityType.INTERFACE);
+            graph.flush();
+            assertEquals(1, countNodes());
+            assertEquals(node1, node2);
+        }, 100);
+    }
+
+    @Test
+    public void creationBeforeMerge() {
+        runTest(graph -> {
+            graph.createNode("Shape", EntityType.CLASS);
+            graph.getOrCreateNode("Shape", EntityType.CLASS, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, new EntityAttribute[]{});
+            graph.flush();
+            try (Transaction tx = graphDatabaseService.beginTx()) {
+                List <Node> nodes = getAllNodes(tx);
+                assertEquals(1, nodes.size());
+                assertFalse(nodes.get(0).hasLabel(Label.label(EntityAttribute.OUT_OF_SCOPE.toString())));
+            }
+        }, 100);
+    }
+
+    @Test
+    public void mergeBeforeCreation() {
+        runTest(graph -> {
+            graph.getOrCreateNode("Shape", EntityType.CLASS, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, new EntityAttribute[]{});
+            graph.createNode("Shape", EntityType.CLASS);
+            graph.flush();
+            try (Transaction tx = graphDatabaseService.beginTx()) {
+                List <Node> nodes = getAllNodes(tx);
+                assertEquals(2, nodes.size());
+                assertEquals(1, nodes.stream().filter(node -> node.hasLabel(Label.label(EntityAttribute.OUT_OF_SCOPE.toString()))).count());
+            }
+        }, 100);
+    }
+
+    @Test
+    public void mergesWithDifferentAttributes() {
+        runTest(graph -> {
+            graph.getOrCreateNode("Shape", EntityType.CLASS);
+            graph.getOrCreateNode("Shape", EntityType.CLASS, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, new EntityAttribute[]{});
+            graph.flush();
+            try (Transaction tx = graphDatabaseService.beginTx()) {
+                List <Node> nodes = getAllNodes(tx);
+                assertEquals(1, nodes.size());
+                assertFalse(nodes.get(0).hasLabel(Label.label(EntityAttribute.OUT_OF_SCOPE.toString())));
+            }
+        }, 100);
+    }
+
+    @Test
+    public void setNodeAttribute() {
+        runTest(graph -> {
+            org.neo4j.driver.types.Node node = graph.createNode("Rectangle", EntityType.CLASS);
+            graph.setNodeAttribute(node, "methodVPs", 1);
+            graph.setNodeAttribute(node, "methodVPs", 2);
+            assertEquals(2L, graph.getPropertyValue(node, "methodVPs"));
+        }, 100);
+    }
+
+}
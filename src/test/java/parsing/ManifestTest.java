@@ -0,0 +1,243 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package parsing;
+
+import facts.FactsJson;
+import facts.FileFacts;
+import facts.InheritanceFact;
+import facts.MethodUsageFact;
+import facts.TypeFact;
+import facts.TypeReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class ManifestTest {
+
+    private static final String ENVIRONMENT = "jdk";
+
+    private SourceReader reader = new SourceReader(List.of(StandardCharsets.ISO_8859_1), 1024 * 1024);
+    private Path directory;
+    private Path manifestPath;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("project");
+        manifestPath = Files.createTempFile("manifest", ".json.gz");
+        writeFile("A.java", "package p;\npublic abstract class A {}\n");
+        writeFile("B.java", "package p;\npublic class B extends A {}\n");
+        writeFile("C.java", "package p;\npublic class C { void use(B b) {} }\n");
+        writeFile("D.java", "package p;\npublic class D {}\n");
+    }
+
+    private void writeFile(String name, String content) throws IOException {
+        Files.writeString(directory.resolve(name), content);
+    }
+
+    private List <SourceFile> readFiles() throws IOException {
+        List <SourceFile> sourceFiles = new ArrayList <>();
+        for (String name : List.of("A.java", "B.java", "C.java", "D.java")) {
+            File file = directory.resolve(name).toFile();
+            if (file.exists()) {
+                sourceFiles.add(reader.read(file));
+            }
+        }
+        return sourceFiles;
+    }
+
+    private static FileFacts facts(SourceFile sourceFile) {
+        String name = "p." + new File(sourceFile.getPath()).getName().replace(".java", "");
+        FileFacts fileFacts = new FileFacts(sourceFile.getPath(), List.of("java.util.*"));
+        fileFacts.addPass(List.of(new TypeFact(name, false, name.equals("p.A"), true)));
+        if (name.equals("p.B")) {
+            fileFacts.addPass(List.of(new InheritanceFact(name, false, new TypeReference("p.A", "A"), Collections.emptyList(), true)));
+        } else if (name.equals("p.C")) {
+            fileFacts.addPass(List.of(new MethodUsageFact(name, false, List.of(new TypeReference("p.B", "B")), null, true)));
+        } else {
+            fileFacts.addPass(Collections.emptyList());
+        }
+        return fileFacts;
+    }
+
+    private void analyse() throws IOException {
+        List <SourceFile> sourceFiles = readFiles();
+        Manifest manifest = Manifest.load(manifestPath, directory, ENVIRONMENT);
+        FileFacts[] filesFacts = manifest.getReusableFacts(sourceFiles);
+        for (int i = 0 ; i < filesFacts.length ; i++) {
+            if (filesFacts[i] == null) {
+                filesFacts[i] = facts(sourceFiles.get(i));
+            }
+        }
+        manifest.update(sourceFiles, filesFacts);
+        manifest.save(manifestPath);
+    }
+
+    private FileFacts[] getReusableFacts(String environment) throws IOException {
+        return Manifest.load(manifestPath, directory, environment).getReusableFacts(readFiles());
+    }
+
+    @Test
+    public void noManifest() throws IOException {
+        Files.delete(manifestPath);
+        FileFacts[] filesFacts = getReusableFacts(ENVIRONMENT);
+        assertEquals(4, filesFacts.length);
+        for (FileFacts fileFacts : filesFacts) {
+            assertNull(fileFacts);
+        }
+    }
+
+    @Test
+    public void unchangedFilesAreReused() throws IOException {
+        analyse();
+        FileFacts[] filesFacts = getReusableFacts(ENVIRONMENT);
+        for (FileFacts fileFacts : filesFacts) {
+            assertNotNull(fileFacts);
+        }
+        FileFacts cFacts = filesFacts[2];
+        assertEquals(List.of("java.util.*"), cFacts.getImports());
+        assertEquals(2, cFacts.getNbPasses());
+        MethodUsageFact methodUsageFact = (MethodUsageFact) cFacts.getFacts(1).get(0);
+        assertEquals("p.C", methodUsageFact.getParentClassName());
+        assertEquals(List.of(new TypeReference("p.B", "B")), methodUsageFact.getParameterTypes());
+        assertNull(methodUsageFact.getReturnedType());
+    }
+
+    @Test
+    public void changedFileAndFilesReferringToItAreParsedAgain() throws IOException {
+        analyse();
+        writeFile("B.java", "package p;\npublic class B extends A { int i; }\n");
+        FileFacts[] filesFacts = getReusableFacts(ENVIRONMENT);
+        assertNotNull(filesFacts[0]);
+        assertNull(filesFacts[1]);
+        assertNull(filesFacts[2]);
+        assertNotNull(filesFacts[3]);
+    }
+
+    @Test
+    public void filesReferringToSubtypesAreParsedAgain() throws IOException {
+        analyse();
+        writeFile("A.java", "package p;\npublic abstract class A { void inherited() {} }\n");
+        FileFacts[] filesFacts = getReusableFacts(ENVIRONMENT);
+        assertNull(filesFacts[0]);
+        assertNull(filesFacts[1]);
+        assertNull(filesFacts[2]);
+        assertNotNull(filesFacts[3]);
+    }
+
+    @Test
+    public void removedFile() throws IOException {
+        analyse();
+        Files.delete(directory.resolve("B.java"));
+        FileFacts[] filesFacts = getReusableFacts(ENVIRONMENT);
+        assertEquals(3, filesFacts.length);
+        assertNotNull(filesFacts[0]);
+        assertNull(filesFacts[1]); // C.java
+        assertNotNull(filesFacts[2]); // D.java
+    }
+
+    @Test
+    public void factsAreSharedWithAnotherVersion() throws IOException {
+        List <SourceFile> sourceFiles = readFiles();
+        Manifest manifest = new Manifest(directory, ENVIRONMENT);
+        FileFacts[] filesFacts = sourceFiles.stream().map(ManifestTest::facts).toArray(FileFacts[]::new);
+        manifest.update(sourceFiles, filesFacts);
+
+        Path previousDirectory = directory;
+        directory = Files.createTempDirectory("version");
+        for (String name : List.of("A.java", "B.java", "C.java", "D.java")) {
+            Files.copy(previousDirectory.resolve(name), directory.resolve(name));
+        }
+        writeFile("D.java", "package p;\npublic class D { int i; }\n");
+        List <SourceFile> versionFiles = readFiles();
+        FileFacts[] versionFacts = manifest.forSourceDirectory(directory, ENVIRONMENT).getReusableFacts(versionFiles);
+        for (int i = 0 ; i < 3 ; i++) {
+            assertEquals(versionFiles.get(i).getPath(), versionFacts[i].getPath());
+            assertSame(filesFacts[i].getFacts(0).get(0), versionFacts[i].getFacts(0).get(0));
+        }
+        assertNull(versionFacts[3]);
+    }
+
+    @Test
+    public void factsAreNotSharedWithAVersionInAnotherEnvironment() throws IOException {
+        List <SourceFile> sourceFiles = readFiles();
+        Manifest manifest = new Manifest(directory, ENVIRONMENT);
+        manifest.update(sourceFiles, sourceFiles.stream().map(ManifestTest::facts).toArray(FileFacts[]::new));
+        FileFacts[] versionFacts = manifest.forSourceDirectory(directory, "other").getReusableFacts(sourceFiles);
+        for (FileFacts fileFacts : versionFacts) {
+            assertNull(fileFacts);
+        }
+    }
+
+    /**
+     * @return facts of all files, parsed if they cannot be reused from the manifest
+     */
+    private List <FileFacts> parse(Manifest manifest) throws IOException {
+        List <File> files = new ArrayList <>();
+        for (String name : List.of("A.java", "B.java", "C.java", "D.java")) {
+            files.add(directory.resolve(name).toFile());
+        }
+        // A single worker, as the directory of the files does not match their package
+        return new ParsingPipeline(System.getProperty("java.home"), reader, 1, 2).parse(files, manifest, fileFacts -> {
+        });
+    }
+
+    @Test
+    public void filesWhoseFactsDependOnABindingResolvingAreParsedAgain() throws IOException {
+        writeFile("A.java", "package p;\npublic class A { void run() { C.get().foo(); } }\n");
+        writeFile("B.java", "package p;\npublic class B {}\n");
+        writeFile("C.java", "package p;\npublic class C { static B get() { return new B(); } }\n");
+        Manifest manifest = new Manifest(directory, ENVIRONMENT);
+        parse(manifest);
+
+        // A.java does not name B, and records a template fact only once B.foo() resolves
+        writeFile("B.java", "package p;\npublic class B { void foo() {} }\n");
+        assertNull(manifest.getReusableFacts(readFiles())[0]);
+        List <FileFacts> incrementalFacts = parse(manifest);
+        List <FileFacts> facts = parse(new Manifest(directory, ENVIRONMENT));
+        assertEquals(facts.size(), incrementalFacts.size());
+        for (int i = 0 ; i < facts.size() ; i++) {
+            assertEquals(FactsJson.toJson(facts.get(i)).toString(), FactsJson.toJson(incrementalFacts.get(i)).toString());
+        }
+    }
+
+    @Test
+    public void otherEnvironment() throws IOException {
+        analyse();
+        for (FileFacts fileFacts : getReusableFacts("other jdk")) {
+            assertNull(fileFacts);
+        }
+    }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2020 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2020 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2020 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package parsing;
+
+import facts.FactContext;
+import facts.FileFacts;
+import neograph.MemoryGraph;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import profiling.PerformanceReport;
+import visitors.FactsExtractor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ParsingPipelineTest {
+
+    private static final Charset WINDOWS_1252 = Charset.forName("windows-1252");
+
+    private Path directory;
+    private List <File> files;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("project");
+        files = new ArrayList <>();
+    }
+
+    /**
+     * Writes a project in which a nested class declared in a windows-1252 file has a non-ASCII name,
+     * and is extended and used from files of other packages.
+     *
+     * @param modelRoot       source root of the windows-1252 file
+     * @param applicationRoot source root of the UTF-8 files
+     */
+    private void writeProject(String modelRoot, String applicationRoot) throws IOException {
+        writeFile(modelRoot + "shapes/Forme.java", WINDOWS_1252, "package shapes;\n\npublic abstract class Forme {\n\n" +
+                "    public static abstract class Côté {\n        public abstract double longueur();\n    }\n\n" +
+                "    public abstract Côté premierCôté();\n}\n");
+        writeFile(applicationRoot + "shapes/square/Carre.java", StandardCharsets.UTF_8, "package shapes.square;\n\nimport shapes.Forme;\n\n" +
+                "public class Carre extends Forme.Côté {\n    public double longueur() { return 1; }\n}\n");
+        writeFile(applicationRoot + "shapes/rectangle/Largeur.java", StandardCharsets.UTF_8, "package shapes.rectangle;\n\nimport shapes.Forme;\n\n" +
+                "public class Largeur extends Forme.Côté {\n    public double longueur() { return 2; }\n}\n");
+        writeFile(applicationRoot + "drawing/Dessin.java", StandardCharsets.UTF_8, "package drawing;\n\nimport shapes.Forme;\n\n" +
+                "public class Dessin {\n    private Forme.Côté côté;\n\n" +
+                "    public double longueur(Forme forme) {\n        côté = forme.premierCôté();\n        return côté.longueur();\n    }\n}\n");
+    }
+
+    private void writeFile(String path, Charset charset, String content) throws IOException {
+        Path file = directory.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(charset));
+        files.add(file.toFile());
+    }
+
+    /**
+     * @return the graph built from the facts of all files parsed by the given number of workers
+     */
+    private MemoryGraph buildGraph(int nbThreads) throws IOException {
+        SourceReader sourceReader = new SourceReader(List.of(WINDOWS_1252), 1024 * 1024);
+        ParsingPipeline pipeline = new ParsingPipeline(System.getProperty("java.home"), sourceReader, nbThreads, 2);
+        MemoryGraph graph = new MemoryGraph();
+        FactContext factContext = new FactContext(graph);
+        List <FileFacts> filesFacts = pipeline.parse(files, new Manifest(directory, "jdk"), fileFacts -> factContext.apply(fileFacts, 0));
+        for (int pass = 1 ; pass < FactsExtractor.PASSES.size() ; pass++) {
+            for (FileFacts fileFacts : filesFacts) {
+                factContext.apply(fileFacts, pass);
+            }
+        }
+        graph.detectVPsAndVariants();
+        return graph;
+    }
+
+    private void assertSameGraphWhateverTheNumberOfWorkers() throws IOException {
+        MemoryGraph sequential = buildGraph(1);
+        assertTrue(sequential.getNode("shapes.Forme.Côté").isPresent());
+        assertEquals(2, sequential.getNbVariants(sequential.getNode("shapes.Forme.Côté").get()));
+        for (int nbThreads : new int[]{2, 4}) {
+            MemoryGraph parallel = buildGraph(nbThreads);
+            assertEquals(sequential.generateStatisticsJson(), parallel.generateStatisticsJson());
+            assertEquals(sequential.generateVPJsonGraph(), parallel.generateVPJsonGraph());
+        }
+    }
+
+    @Test
+    public void sameGraphWithSourceRootsOfDifferentEncodings() throws IOException {
+        writeProject("model/", "application/");
+        assertSameGraphWhateverTheNumberOfWorkers();
+    }
+
+    @Test
+    public void sameGraphWithDifferentEncodingsInASourceRoot() throws IOException {
+        writeProject("", "");
+        assertSameGraphWhateverTheNumberOfWorkers();
+    }
+
+    @Test
+    public void setupOfEachPartitionIsNotChargedToItsFirstFile() throws IOException {
+        writeProject("model/", "application/");
+        SourceReader sourceReader = new SourceReader(List.of(WINDOWS_1252), 1024 * 1024);
+        ParsingPipeline pipeline = new ParsingPipeline(System.getProperty("java.home"), sourceReader, 2, 2);
+        try (PerformanceReport report = new PerformanceReport()) {
+            pipeline.setPerformanceReport(report);
+            pipeline.parse(files, new Manifest(directory, "jdk"), fileFacts -> {});
+            JSONObject json = report.toJson();
+            assertEquals(2, json.getJSONArray("partitionSetups").length());
+            JSONArray slowestFiles = json.getJSONArray("slowestFiles");
+            assertEquals(4, slowestFiles.length());
+            int nbFilesWithoutParseTime = 0;
+            for (int i = 0 ; i < slowestFiles.length() ; i++) {
+                if (slowestFiles.getJSONObject(i).getDouble("parseTime") == 0) {
+                    nbFilesWithoutParseTime++;
+                }
+            }
+            assertEquals(2, nbFilesWithoutParseTime);
+        }
+    }
+}
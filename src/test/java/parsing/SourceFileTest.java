@@ -0,0 +1,88 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package parsing;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SourceFileTest {
+
+    @Test
+    public void defaultPackage() {
+        assertEquals("", SourceFile.getPackageName("import java.util.List;\n\npublic class MyClass {}"));
+    }
+
+    @Test
+    public void packageAfterComments() {
+        String content = "/*\n * License\n */\n// package wrong;\npackage fr.unice.i3s;\n\npublic class MyClass {}";
+        assertEquals("fr.unice.i3s", SourceFile.getPackageName(content));
+    }
+
+    @Test
+    public void packageWithAnnotation() {
+        assertEquals("fr.unice", SourceFile.getPackageName("@Deprecated(since = \"1.0\")\npackage fr.unice;"));
+    }
+
+    @Test
+    public void identifierStartingWithPackage() {
+        assertEquals("", SourceFile.getPackageName("packageInfo p;"));
+    }
+
+    @Test
+    public void declaredTypeNames() {
+        String content = "public class MyClass {\n    interface Inner {}\n    enum Color {RED}\n    @interface Annotation {}\n}";
+        assertEquals(Set.of("MyClass", "Inner", "Color", "Annotation"), SourceFile.getDeclaredTypeNames(content));
+    }
+
+    @Test
+    public void declaredTypeNamesIgnoreCommentsLiteralsAndClassLiterals() {
+        String content = "// class Comment\n/* interface Block */\nclass MyClass {\n    String s = \"class Literal\";\n    Class<?> c = String.class;\n    char q = '\\'';\n}";
+        assertEquals(Set.of("MyClass"), SourceFile.getDeclaredTypeNames(content));
+    }
+
+    @Test
+    public void sourceRootMatchingPackage() {
+        SourceFile sourceFile = new SourceFile(path("src", "main", "java", "fr", "unice", "MyClass.java"), "UTF-8", "fr.unice");
+        assertEquals(path("src", "main", "java"), sourceFile.getSourceRoot());
+    }
+
+    @Test
+    public void sourceRootNotMatchingPackage() {
+        SourceFile sourceFile = new SourceFile(path("src", "other", "MyClass.java"), "UTF-8", "fr.unice");
+        assertEquals(path("src", "other"), sourceFile.getSourceRoot());
+    }
+
+    @Test
+    public void sourceRootDefaultPackage() {
+        SourceFile sourceFile = new SourceFile(path("src", "MyClass.java"), "UTF-8", "");
+        assertEquals(path("src"), sourceFile.getSourceRoot());
+    }
+
+    private static String path(String... segments) {
+        return File.separator + String.join(File.separator, segments);
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package parsing;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SourceReaderTest {
+
+    private static final String CONTENT = "// Tërnava\npackage fr.unice;\n\npublic class MyClass {}\n";
+
+    private SourceReader reader = new SourceReader(List.of(Charset.forName("windows-1252"), StandardCharsets.ISO_8859_1), 1024);
+
+    private File createFile(byte[] bytes) throws IOException {
+        File file = File.createTempFile("MyClass", ".java");
+        file.deleteOnExit();
+        Files.write(file.toPath(), bytes);
+        return file;
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] result = new byte[first.length + second.length];
+        System.arraycopy(first, 0, result, 0, first.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    @Test
+    public void utf8() throws IOException {
+        SourceFile sourceFile = reader.read(createFile(CONTENT.getBytes(StandardCharsets.UTF_8)));
+        assertEquals("UTF-8", sourceFile.getEncoding());
+        assertEquals("fr.unice", sourceFile.getPackageName());
+    }
+
+    @Test
+    public void utf8WithBom() throws IOException {
+        byte[] bom = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+        SourceFile sourceFile = reader.read(createFile(concat(bom, CONTENT.getBytes(StandardCharsets.UTF_8))));
+        assertEquals("UTF-8", sourceFile.getEncoding());
+        assertEquals("fr.unice", sourceFile.getPackageName());
+    }
+
+    @Test
+    public void utf16WithBom() throws IOException {
+        SourceFile sourceFile = reader.read(createFile(CONTENT.getBytes(StandardCharsets.UTF_16)));
+        assertEquals("UTF-16", sourceFile.getEncoding());
+        assertEquals("fr.unice", sourceFile.getPackageName());
+    }
+
+    @Test
+    public void fallbackCharset() throws IOException {
+        SourceFile sourceFile = reader.read(createFile(CONTENT.getBytes(StandardCharsets.ISO_8859_1)));
+        assertEquals("windows-1252", sourceFile.getEncoding());
+        assertEquals("fr.unice", sourceFile.getPackageName());
+    }
+
+    @Test
+    public void lastFallbackCharset() throws IOException {
+        // 0x81 is not defined in windows-1252
+        SourceFile sourceFile = reader.read(createFile(concat(CONTENT.getBytes(StandardCharsets.ISO_8859_1), new byte[]{'/', '/', (byte) 0x81})));
+        assertEquals("ISO-8859-1", sourceFile.getEncoding());
+    }
+
+    @Test
+    public void memoryMappedFile() throws IOException {
+        StringBuilder content = new StringBuilder(CONTENT);
+        while (content.length() <= 1024) {
+            content.append("// ë\n");
+        }
+        SourceFile sourceFile = reader.read(createFile(content.toString().getBytes(StandardCharsets.UTF_8)));
+        assertEquals("UTF-8", sourceFile.getEncoding());
+        assertEquals("fr.unice", sourceFile.getPackageName());
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package profiling;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import parsing.Manifest;
+import parsing.ParsingPipeline;
+import parsing.SourceReader;
+import visitors.ClassesVisitor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FlightRecorderEventsTest {
+
+    private static final String CONTENT = "package fr.unice;\n\npublic class MyClass {\n\n    class Inner {\n    }\n\n    public void method() {\n    }\n}\n";
+
+    private static List <RecordedEvent> events;
+
+    /**
+     * Parses the file once for all tests, as Flight Recorder may not write again in a new recording the strings it wrote in a previous one.
+     */
+    private static synchronized List <RecordedEvent> recordParsing() throws IOException {
+        if (events != null) {
+            return events;
+        }
+        Path directory = Files.createTempDirectory("events");
+        Path file = directory.resolve("MyClass.java");
+        Files.writeString(file, CONTENT);
+        Path recordingFile = Files.createTempFile("symfinder", ".jfr");
+        try (Recording recording = new Recording()) {
+            List.of(FileReadEvent.class, FileDecodeEvent.class, FileParseEvent.class, FileVisitEvent.class, TypeVisitEvent.class)
+                    .forEach(recording::enable);
+            recording.start();
+            new ParsingPipeline(System.getProperty("java.home"), new SourceReader(List.of(), 1024 * 1024), 1, 10)
+                    .parse(List.of(file.toFile()), new Manifest(directory, ""), fileFacts -> {
+                    });
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+        events = RecordingFile.readAllEvents(recordingFile);
+        Files.delete(recordingFile);
+        return events;
+    }
+
+    private static List <RecordedEvent> getEvents(List <RecordedEvent> events, String name) {
+        return events.stream().filter(event -> event.getEventType().getName().equals(name)).collect(Collectors.toList());
+    }
+
+    @Test
+    public void eventsOfEachStepOfAFile() throws IOException {
+        List <RecordedEvent> events = recordParsing();
+        for (String name : List.of("symfinder.FileRead", "symfinder.FileDecode", "symfinder.FileParse")) {
+            List <RecordedEvent> fileEvents = getEvents(events, name);
+            assertEquals(1, fileEvents.size(), name);
+            assertTrue(fileEvents.get(0).getString("path").endsWith("MyClass.java"));
+            assertEquals(CONTENT.length(), fileEvents.get(0).getLong("size"));
+        }
+        assertEquals("UTF-8", getEvents(events, "symfinder.FileDecode").get(0).getString("encoding"));
+    }
+
+    @Test
+    public void eventsOfEachVisitor() throws IOException {
+        List <RecordedEvent> visitEvents = getEvents(recordParsing(), "symfinder.FileVisit");
+        assertEquals(5, visitEvents.size());
+        assertTrue(visitEvents.stream().anyMatch(event -> event.getClass("visitor").getName().equals(ClassesVisitor.class.getName())));
+        assertTrue(visitEvents.stream().allMatch(event -> event.getInt("nodes") > 0));
+    }
+
+    @Test
+    public void eventsOfEachTypeDeclaration() throws IOException {
+        Map <String, RecordedEvent> typeEvents = getEvents(recordParsing(), "symfinder.TypeVisit").stream()
+                .filter(event -> event.getClass("visitor").getName().equals(ClassesVisitor.class.getName()))
+                .collect(Collectors.toMap(event -> event.getString("type"), event -> event));
+        assertEquals(2, typeEvents.size());
+        RecordedEvent outerType = typeEvents.get("fr.unice.MyClass");
+        RecordedEvent innerType = typeEvents.get("fr.unice.MyClass.Inner");
+        assertTrue(outerType.getInt("nodes") > innerType.getInt("nodes"));
+        assertEquals(CONTENT.indexOf("}\n") - CONTENT.indexOf("class Inner") + 1, innerType.getInt("length"));
+        assertTrue(! outerType.getStartTime().isAfter(innerType.getStartTime()));
+        assertTrue(! outerType.getEndTime().isBefore(innerType.getEndTime()));
+    }
+}
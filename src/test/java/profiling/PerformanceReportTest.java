@@ -0,0 +1,108 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package profiling;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PerformanceReportTest {
+
+    @Test
+    public void phasesAreReportedInOrder() {
+        try (PerformanceReport report = new PerformanceReport()) {
+            report.startPhase("parsing").close();
+            report.startPhase("detectHotspots").close();
+            JSONArray phases = report.toJson().getJSONArray("phases");
+            assertEquals(2, phases.length());
+            assertEquals("parsing", phases.getJSONObject(0).getString("name"));
+            assertEquals("detectHotspots", phases.getJSONObject(1).getString("name"));
+            assertTrue(phases.getJSONObject(0).getDouble("wallTime") >= 0);
+        }
+    }
+
+    @Test
+    public void onlyTheSlowestFilesAreKept() {
+        try (PerformanceReport report = new PerformanceReport()) {
+            for (int i = 1 ; i <= 100 ; i++) {
+                report.fileParsed("File" + i + ".java", i * 1_000_000L, 0);
+            }
+            JSONArray files = report.toJson().getJSONArray("slowestFiles");
+            assertEquals(20, files.length());
+            assertEquals("File100.java", files.getJSONObject(0).getString("path"));
+            assertEquals(100.0, files.getJSONObject(0).getDouble("parseTime"));
+            assertEquals("File81.java", files.getJSONObject(19).getString("path"));
+        }
+    }
+
+    @Test
+    public void statementsAreCountedWithTheirUTF8Size() {
+        try (PerformanceReport report = new PerformanceReport()) {
+            report.statementSent("MATCH (n) RETURN n");
+            report.statementSent("MATCH (n {name: 'Tërnava'}) RETURN n");
+            report.recordsReceived(3);
+            report.transactionCommitted();
+            JSONObject bolt = report.toJson().getJSONObject("bolt");
+            assertEquals(2, bolt.getLong("statements"));
+            assertEquals(3, bolt.getLong("roundTrips"));
+            assertEquals(3, bolt.getLong("records"));
+            assertEquals(18 + 37, bolt.getLong("statementBytes"));
+        }
+    }
+
+    @Test
+    public void filesPerSecond() {
+        try (PerformanceReport report = new PerformanceReport()) {
+            report.setParsing(12, 10, 2_000_000_000L);
+            JSONObject json = report.toJson();
+            assertEquals(12, json.getInt("files"));
+            assertEquals(5.0, json.getDouble("filesPerSecond"));
+            assertTrue(json.getJSONObject("memory").getLong("peakHeap") > 0);
+        }
+    }
+
+    @Test
+    public void processWideMeasuresAreLeftOutOfConcurrentAnalyses() {
+        try (PerformanceReport report = new PerformanceReport()) {
+            try (PerformanceReport concurrentReport = new PerformanceReport()) {
+                concurrentReport.startPhase("parsing").close();
+                JSONObject json = concurrentReport.toJson();
+                assertTrue(json.getBoolean("concurrent"));
+                assertFalse(json.has("cpuTime"));
+                assertFalse(json.has("memory"));
+                assertFalse(json.has("gc"));
+                assertFalse(json.getJSONArray("phases").getJSONObject(0).has("cpuTime"));
+            }
+            assertTrue(report.toJson().getBoolean("concurrent"));
+        }
+        try (PerformanceReport report = new PerformanceReport()) {
+            JSONObject json = report.toJson();
+            assertFalse(json.getBoolean("concurrent"));
+            assertTrue(json.has("cpuTime"));
+            assertTrue(json.has("gc"));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package profiling;
+
+import org.json.JSONArray;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StatementProfilerTest {
+
+    @Test
+    public void bucketsCoverAllValues() {
+        for (int bucket = 0 ; bucket < 900 ; bucket++) {
+            long highestValue = LatencyHistogram.getHighestValue(bucket);
+            assertEquals(bucket, LatencyHistogram.getBucket(highestValue));
+            assertEquals(bucket + 1, LatencyHistogram.getBucket(highestValue + 1));
+        }
+    }
+
+    @Test
+    public void percentilesAreWithinTheirBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1 ; value <= 1000 ; value++) {
+            histogram.record(value * 1000);
+        }
+        assertEquals(1000, histogram.getTotalCount());
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(500_000, histogram.getValueAtPercentile(50), 500_000 / 16.0);
+        assertEquals(990_000, histogram.getValueAtPercentile(99), 990_000 / 16.0);
+        assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void statementsAreGroupedByTemplate() {
+        StatementProfiler profiler = new StatementProfiler(false);
+        for (int i = 0 ; i < 3 ; i++) {
+            profiler.start("MATCH (n) RETURN n").end(2);
+        }
+        StatementProfiler.Measure measure = profiler.start("MATCH (n:CLASS) RETURN n");
+        measure.retried();
+        measure.end(5);
+        List <StatementProfiler.StatementStatistics> statements = profiler.getSlowestStatements(10);
+        assertEquals(2, statements.size());
+        StatementProfiler.StatementStatistics matchAll = statements.stream()
+                .filter(statement -> statement.getTemplate().equals("MATCH (n) RETURN n"))
+                .findFirst().orElseThrow();
+        assertEquals(3, matchAll.getCount());
+        assertEquals(6, matchAll.getNbRecords());
+        assertEquals(2, matchAll.getMaxRecords());
+        assertEquals(0, matchAll.getNbRetries());
+        assertTrue(statements.get(0).getTotalTime() >= statements.get(1).getTotalTime());
+    }
+
+    @Test
+    public void onlyTheSlowestTemplatesAreReported() {
+        StatementProfiler profiler = new StatementProfiler(true);
+        for (int i = 0 ; i < 5 ; i++) {
+            profiler.start("RETURN " + i).end(1);
+        }
+        JSONArray json = profiler.toJson(3);
+        assertEquals(3, json.length());
+        assertEquals(1, json.getJSONObject(0).getLong("count"));
+    }
+
+    @Test
+    public void templatesAreLoggedOnOneLine() {
+        assertEquals("MATCH (n) WHERE n.name = $name RETURN n", StatementProfiler.format("MATCH (n)\n    WHERE n.name = $name\nRETURN n"));
+        assertEquals(203, StatementProfiler.format("x".repeat(300)).length());
+    }
+}